@@ -0,0 +1,20 @@
+package io.alapierre.gobl.codegen;
+
+import com.sun.codemodel.JDefinedClass;
+import org.jsonschema2pojo.rules.Rule;
+import org.jsonschema2pojo.rules.RuleFactory;
+
+/**
+ * jsonschema2pojo rule factory used to generate {@code gobl-model}, set as the plugin's {@code customRuleFactory}.
+ * It differs from the default factory only in {@link LazyAdditionalPropertiesRule}.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class GoblRuleFactory extends RuleFactory {
+
+    @Override
+    public Rule<JDefinedClass, JDefinedClass> getAdditionalPropertiesRule() {
+        return new LazyAdditionalPropertiesRule(this);
+    }
+}
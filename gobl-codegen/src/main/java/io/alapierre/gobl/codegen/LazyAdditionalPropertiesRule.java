@@ -0,0 +1,117 @@
+package io.alapierre.gobl.codegen;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.codemodel.*;
+import org.jsonschema2pojo.Schema;
+import org.jsonschema2pojo.rules.AdditionalPropertiesRule;
+import org.jsonschema2pojo.rules.RuleFactory;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the {@code additionalProperties} map like {@link AdditionalPropertiesRule}, but allocates it on the
+ * first write instead of in every instance.
+ * <p>
+ * Documents almost never carry unknown properties, so most generated objects never need the map. The public getter
+ * stays mutable: until a property is set it returns a view that allocates the map on its first {@code put}, so
+ * {@code getAdditionalProperties().put(...)} works as with the default rule. Jackson reads the properties through a
+ * separate {@code @JsonAnyGetter} method that returns an empty map without allocating anything.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class LazyAdditionalPropertiesRule extends AdditionalPropertiesRule {
+
+    static final String FIELD = "additionalProperties";
+
+    protected LazyAdditionalPropertiesRule(RuleFactory ruleFactory) {
+        super(ruleFactory);
+    }
+
+    @Override
+    public JDefinedClass apply(String nodeName, JsonNode node, JsonNode parent, JDefinedClass jclass, Schema schema) {
+        JDefinedClass result = super.apply(nodeName, node, parent, jclass, schema);
+
+        JFieldVar field = jclass.fields().get(FIELD);
+        if (field == null) return result; // additional properties disabled for this class
+
+        field.init(null);
+        JClass mapImpl = jclass.owner().ref(LinkedHashMap.class).narrow(((JClass) field.type()).getTypeParameters());
+
+        for (JMethod method : new ArrayList<>(jclass.methods())) {
+            String name = method.name();
+            if (name.equals("getAdditionalProperties") && method.params().isEmpty()) {
+                replaceGetter(jclass, method, field, mapImpl);
+            } else if ((name.equals("setAdditionalProperty") || name.equals("withAdditionalProperty"))
+                    && method.params().size() == 2) {
+                JBlock body = method.body();
+                int pos = body.pos(0);
+                body._if(field.eq(JExpr._null()))._then().assign(JExpr._this().ref(field), JExpr._new(mapImpl));
+                body.pos(pos + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the getter with a write-back view and moves {@code @JsonAnyGetter} to a non-allocating method:
+     * <pre>
+     * &#64;JsonIgnore
+     * public Map&lt;String, Object&gt; getAdditionalProperties() {
+     *     if (additionalProperties != null) return this.additionalProperties;
+     *     return new AbstractMap&lt;String, Object&gt;() {
+     *         public Set&lt;Map.Entry&lt;String, Object&gt;&gt; entrySet() {
+     *             return additionalProperties == null ? Collections.emptySet() : additionalProperties.entrySet();
+     *         }
+     *         public Object put(String name, Object value) {
+     *             if (additionalProperties == null) additionalProperties = new LinkedHashMap&lt;&gt;();
+     *             return additionalProperties.put(name, value);
+     *         }
+     *     };
+     * }
+     *
+     * &#64;JsonAnyGetter
+     * protected Map&lt;String, Object&gt; additionalPropertiesForJson() {
+     *     return additionalProperties == null ? Collections.emptyMap() : this.additionalProperties;
+     * }
+     * </pre>
+     */
+    private static void replaceGetter(JDefinedClass jclass, JMethod getter, JFieldVar field, JClass mapImpl) {
+        jclass.methods().remove(getter);
+        JCodeModel owner = jclass.owner();
+        JClass[] typeParameters = ((JClass) field.type()).getTypeParameters().toArray(JClass[]::new);
+        JClass collections = owner.ref(Collections.class);
+
+        JMethod view = jclass.method(JMod.PUBLIC, getter.type(), getter.name());
+        view.annotate(JsonIgnore.class);
+        view.body()._if(field.ne(JExpr._null()))._then()._return(JExpr._this().ref(field));
+
+        JDefinedClass map = owner.anonymousClass(owner.ref(AbstractMap.class).narrow(typeParameters));
+        JClass entrySet = owner.ref(Set.class).narrow(owner.ref(Map.Entry.class).narrow(typeParameters));
+        JMethod entries = map.method(JMod.PUBLIC, entrySet, "entrySet");
+        entries.annotate(Override.class);
+        entries.body()._return(JOp.cond(field.eq(JExpr._null()), collections.staticInvoke("emptySet"),
+                field.invoke("entrySet")));
+
+        JMethod put = map.method(JMod.PUBLIC, typeParameters[1], "put");
+        put.annotate(Override.class);
+        JVar name = put.param(typeParameters[0], "name");
+        JVar value = put.param(typeParameters[1], "value");
+        put.body()._if(field.eq(JExpr._null()))._then().assign(field, JExpr._new(mapImpl));
+        put.body()._return(field.invoke("put").arg(name).arg(value));
+        view.body()._return(JExpr._new(map));
+
+        JMethod forJson = jclass.method(JMod.PROTECTED, getter.type(), FIELD + "ForJson");
+        for (JAnnotationUse annotation : getter.annotations()) {
+            forJson.annotate(annotation.getAnnotationClass());
+        }
+        forJson.body()._return(JOp.cond(field.eq(JExpr._null()), collections.staticInvoke("emptyMap"),
+                JExpr._this().ref(field)));
+    }
+}
@@ -0,0 +1,161 @@
+package io.alapierre.gobl.codegen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jsonschema2pojo.AnnotationStyle;
+import org.jsonschema2pojo.DefaultGenerationConfig;
+import org.jsonschema2pojo.InclusionLevel;
+import org.jsonschema2pojo.Jsonschema2Pojo;
+import org.jsonschema2pojo.NoopRuleLogger;
+import org.jsonschema2pojo.rules.RuleFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Generates classes from a small schema with {@link GoblRuleFactory}, compiles them and checks the map is lazy.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class LazyAdditionalPropertiesRuleTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void mapIsAllocatedOnFirstSet() throws Exception {
+        Class<?> line = generateAndLoad(true).loadClass("org.gobl.test.Line");
+
+        Object instance = line.getConstructor().newInstance();
+        Field field = line.getDeclaredField(LazyAdditionalPropertiesRule.FIELD);
+        field.setAccessible(true);
+        assertNull(field.get(instance));
+
+        Map<?, ?> empty = (Map<?, ?>) line.getMethod("getAdditionalProperties").invoke(instance);
+        assertTrue(empty.isEmpty());
+        assertNull(field.get(instance));
+        assertEquals(line.getConstructor().newInstance(), instance);
+
+        line.getMethod("setAdditionalProperty", String.class, Object.class).invoke(instance, "$schema", "x");
+        assertEquals(Map.of("$schema", "x"), line.getMethod("getAdditionalProperties").invoke(instance));
+
+        Object built = line.getConstructor().newInstance();
+        assertSame(built, line.getMethod("withAdditionalProperty", String.class, Object.class).invoke(built, "a", 1));
+        assertEquals(Map.of("a", 1), field.get(built));
+
+        Object other = line.getConstructor().newInstance();
+        assertEquals(other, line.getConstructor().newInstance());
+        assertNotNull(other.toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getterIsMutable() throws Exception {
+        Class<?> line = generateAndLoad(true).loadClass("org.gobl.test.Line");
+        Object instance = line.getConstructor().newInstance();
+
+        Map<String, Object> view = (Map<String, Object>) line.getMethod("getAdditionalProperties").invoke(instance);
+        view.put("$schema", "x");
+        view.putAll(Map.of("b", 2));
+        assertEquals(Map.of("$schema", "x", "b", 2), view);
+        assertEquals(view, line.getMethod("getAdditionalProperties").invoke(instance));
+
+        view.remove("b");
+        assertEquals(Map.of("$schema", "x"), line.getMethod("getAdditionalProperties").invoke(instance));
+    }
+
+    @Test
+    void jacksonReadsAndWritesThePropertiesWithoutTheGetter() throws Exception {
+        Class<?> line = generateAndLoad(true).loadClass("org.gobl.test.Line");
+        ObjectMapper mapper = new ObjectMapper();
+        Field field = line.getDeclaredField(LazyAdditionalPropertiesRule.FIELD);
+        field.setAccessible(true);
+
+        Object plain = mapper.readValue("{\"i\":1}", line);
+        assertEquals("{\"i\":1}", mapper.writeValueAsString(plain));
+        assertNull(field.get(plain));
+
+        Object extended = mapper.readValue("{\"i\":1,\"$schema\":\"x\"}", line);
+        assertEquals("{\"i\":1,\"$schema\":\"x\"}", mapper.writeValueAsString(extended));
+    }
+
+    @Test
+    void noMapWhenAdditionalPropertiesAreSwitchedOff() throws Exception {
+        Class<?> line = generateAndLoad(false).loadClass("org.gobl.test.Line");
+
+        assertThrows(NoSuchFieldException.class, () -> line.getDeclaredField(LazyAdditionalPropertiesRule.FIELD));
+        assertThrows(NoSuchMethodException.class, () -> line.getMethod("getAdditionalProperties"));
+    }
+
+    private ClassLoader generateAndLoad(boolean additionalProperties) throws Exception {
+        Path sources = Files.createDirectories(tmp.resolve("src"));
+        Path classes = Files.createDirectories(tmp.resolve("classes"));
+        URL schema = getClass().getResource("/schema/line.json");
+
+        Jsonschema2Pojo.generate(new DefaultGenerationConfig() {
+            @Override
+            public Iterator<URL> getSource() {
+                return List.of(schema).iterator();
+            }
+
+            @Override
+            public File getTargetDirectory() {
+                return sources.toFile();
+            }
+
+            @Override
+            public String getTargetPackage() {
+                return "org.gobl.test";
+            }
+
+            @Override
+            public AnnotationStyle getAnnotationStyle() {
+                return AnnotationStyle.JACKSON2;
+            }
+
+            @Override
+            public boolean isGenerateBuilders() {
+                return true;
+            }
+
+            @Override
+            public InclusionLevel getInclusionLevel() {
+                return InclusionLevel.NON_EMPTY;
+            }
+
+            @Override
+            public boolean isIncludeAdditionalProperties() {
+                return additionalProperties;
+            }
+
+            @Override
+            public Class<? extends RuleFactory> getCustomRuleFactory() {
+                return GoblRuleFactory.class;
+            }
+        }, new NoopRuleLogger());
+
+        List<String> files;
+        try (var walk = Files.walk(sources)) {
+            files = walk.filter(p -> p.toString().endsWith(".java")).map(Path::toString).toList();
+        }
+        String classpath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        List<String> args = new ArrayList<>(List.of("-d", classes.toString(), "-cp", classpath, "-proc:none"));
+        args.addAll(files);
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(String[]::new)));
+
+        return new URLClassLoader(new URL[] {classes.toUri().toURL()}, getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,116 @@
+package io.alapierre.gobl.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Whole-file reads and writes through {@link AsynchronousFileChannel}: the calling thread only starts the operation
+ * and the future is completed by the channel's I/O threads.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+final class AsyncFiles {
+
+    private AsyncFiles() {
+    }
+
+    /**
+     * @param file file to read
+     * @return content of the file
+     */
+    static CompletableFuture<byte[]> read(Path file) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        AsynchronousFileChannel channel = null;
+        try {
+            channel = AsynchronousFileChannel.open(file, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) throw new IOException(file + " is too large: " + size + " bytes");
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            channel.read(buffer, 0, null, new Transfer(channel, buffer, false, result, () -> result.complete(buffer.array())));
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            if (channel != null) close(channel);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Creates or replaces the file.
+     *
+     * @param file    file to write
+     * @param content new content of the file
+     * @return completed when the content is written
+     */
+    static CompletableFuture<Void> write(Path file, byte[] content) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AsynchronousFileChannel channel = null;
+        try {
+            channel = AsynchronousFileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            channel.write(buffer, 0, null, new Transfer(channel, buffer, true, result, () -> result.complete(null)));
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) close(channel);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Continues a read or write until the buffer is done, then closes the channel and completes the future.
+     */
+    private static final class Transfer implements CompletionHandler<Integer, Void> {
+
+        private final AsynchronousFileChannel channel;
+        private final ByteBuffer buffer;
+        private final boolean write;
+        private final CompletableFuture<?> result;
+        private final Runnable done;
+
+        Transfer(AsynchronousFileChannel channel, ByteBuffer buffer, boolean write, CompletableFuture<?> result,
+                 Runnable done) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.write = write;
+            this.result = result;
+            this.done = done;
+        }
+
+        @Override
+        public void completed(Integer count, Void attachment) {
+            if (buffer.hasRemaining() && count >= 0) {
+                if (write) channel.write(buffer, buffer.position(), null, this);
+                else channel.read(buffer, buffer.position(), null, this);
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            if (buffer.hasRemaining()) result.completeExceptionally(new IOException("File shrank while it was read"));
+            else done.run();
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            close(channel);
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static void close(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // the operation failed already
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.alapierre.gobl.core;
+
+import io.alapierre.gobl.core.signature.Dig;
+import io.alapierre.gobl.core.signature.EcdsaSigner;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.PublicKey;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Verifies envelopes signed by {@link Gobl#signBatch}. Each root signature is verified once; the other documents of
+ * the same batch only rehash their inclusion proof. Thread-safe.
+ * <p>
+ * The cache holds one entry per batch seen and is never evicted, so use one verifier per batch, or per a bounded
+ * set of batches, rather than one for the application's lifetime.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class BatchVerifier {
+
+    private final Gobl gobl;
+    private final Function<String, ? extends PublicKey> keys;
+    private final EcdsaSigner signer = new EcdsaSigner();
+    private final Map<String, Dig> roots = new ConcurrentHashMap<>();
+
+    BatchVerifier(Gobl gobl, Function<String, ? extends PublicKey> keys) {
+        this.gobl = gobl;
+        this.keys = keys;
+    }
+
+    /**
+     * Verifies a batch envelope and returns its document.
+     *
+     * @param source envelope JSON stream, not closed by this method
+     * @param clazz  expected document class, must be registered in {@link Gobl#documents()}
+     * @return the verified document
+     * @throws IOException if the envelope can't be read
+     * @throws SignatureException if the root signature is not valid or the document is not part of the signed batch
+     */
+    public <T> T verify(@NonNull InputStream source, @NonNull Class<T> clazz) throws IOException {
+        return gobl.extractFromBatchEnvelope(source, clazz, jws -> roots.computeIfAbsent(jws, this::verifyRoot));
+    }
+
+    /**
+     * @return number of distinct root signatures verified so far
+     */
+    public int verifiedRoots() {
+        return roots.size();
+    }
+
+    private Dig verifyRoot(String jws) {
+        return signer.verify(keys, jws);
+    }
+}
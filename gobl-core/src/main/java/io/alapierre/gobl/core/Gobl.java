@@ -1,14 +1,34 @@
 package io.alapierre.gobl.core;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alapierre.gobl.core.cache.SignatureCache;
+import io.alapierre.gobl.core.document.DocumentRegistry;
+import io.alapierre.gobl.core.document.DocumentType;
 import io.alapierre.gobl.core.exceptions.NoSuchDigestAlgorithmException;
+import io.alapierre.gobl.core.signature.Dig;
 import io.alapierre.gobl.core.signature.EcdsaSigner;
+import io.alapierre.gobl.core.signature.InclusionProof;
+import io.alapierre.gobl.core.signature.IncrementalDigest;
 import io.alapierre.gobl.core.signature.JsonCanoniser;
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.alapierre.gobl.core.signature.MerkleTree;
+import io.alapierre.gobl.core.signature.ParallelCanoniser;
+import io.alapierre.gobl.core.signature.SigningKey;
+import io.alapierre.gobl.core.signature.VerificationPolicy;
+import io.alapierre.gobl.core.view.EnvelopeView;
+import io.alapierre.ksef.fa.model.gobl.CodeInterningModule;
+import io.alapierre.ksef.fa.model.gobl.EnvelopSerializer;
+import io.alapierre.ksef.fa.model.gobl.EnvelopePeek;
+import io.alapierre.ksef.fa.model.gobl.FastAccessors;
 import io.alapierre.ksef.fa.model.gobl.InvoiceSerializer;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -19,17 +39,31 @@ import org.gobl.model.Header;
 import org.gobl.model.Invoice;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.security.Key;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
 import java.security.interfaces.ECPrivateKey;
-import java.security.interfaces.ECPublicKey;
 import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
+ * Entry point for parsing, digesting, signing and verifying GOBL documents.
+ * <p>
+ * A {@code Gobl} instance is thread-safe: it holds no per-call state, its mappers are fully configured when it is
+ * created and reading and writing goes through immutable {@link ObjectReader}/{@link ObjectWriter} instances and
+ * shared serializers. Create one instance and share it; there is no need to pool them.
+ *
  * @author Adrian Lapierre {@literal al@alapierre.io}
  * Copyrights by original author 2024.01.20
  */
@@ -37,11 +71,310 @@ import java.util.UUID;
 public class Gobl {
 
     private final EcdsaSigner signer = new EcdsaSigner();
-    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final ObjectMapper objectMapper = FastAccessors.apply(new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .registerModule(new CodeInterningModule()));
+    private final ObjectReader treeReader = objectMapper.readerFor(ObjectNode.class);
+    private final ObjectReader sigsReader = objectMapper.readerFor(new TypeReference<List<String>>() {});
+    private final ObjectWriter envelopeWriter = objectMapper.writer();
+    private final ObjectWriter streamWriter = envelopeWriter.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     private final JsonCanoniser jsonCanoniser = new JsonCanoniser();
+    private final InvoiceSerializer invoiceSerializer = new InvoiceSerializer();
+    private final EnvelopSerializer envelopSerializer = new EnvelopSerializer();
+    private final ParallelCanoniser parallelCanoniser = new ParallelCanoniser();
+    private final DocumentRegistry documents = new DocumentRegistry(objectMapper);
+    private final SignatureCache cache;
 
     public Gobl() {
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.cache = null;
+    }
+
+    /**
+     * Creates an instance that reuses signatures and verification results of documents it has already seen, see
+     * {@link SignatureCache}. The cache may be shared by several instances.
+     *
+     * @param cache cache of signatures and verification results
+     */
+    public Gobl(@NonNull SignatureCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Document types that can be signed with {@link #sign(Object, ECPrivateKey, UUID)} and verified with
+     * {@link #verify(InputStream, Class, Key)}. {@link Invoice} is registered by default, register other generated
+     * GOBL document classes here.
+     *
+     * @return registry of document types used by this instance
+     */
+    public DocumentRegistry documents() {
+        return documents;
+    }
+
+    /**
+     * Runs an embedded sample invoice through parsing, canonicalisation, digesting, ES256 signing, envelope writing
+     * and verification with a throw-away key. The first call through each of these paths loads and links classes and
+     * fills Jackson's serializer caches, which in a short-lived JVM can take longer than the real work; call this at
+     * startup, or run {@link GoblTrainingRun} to record an AppCDS archive. The {@link SignatureCache}, if any, is not
+     * used.
+     *
+     * @throws IllegalStateException if the sample does not verify
+     */
+    public void warmUp() {
+        try (InputStream source = Gobl.class.getResourceAsStream("warm-up-invoice.json")) {
+            if (source == null) throw new IllegalStateException("Warm-up invoice not found");
+            Invoice invoice = parseInvoice(source);
+            saveInvoice(invoice, OutputStream.nullOutputStream());
+
+            val keys = new KeySupport().generate();
+            val header = makeHeader(digest(invoice));
+            val sigs = sign(header, List.of(new SigningKey(keys.privateKey(), UUID.randomUUID())));
+            ObjectNode envelopeNode = treeReader.readValue(prepareEnvelope(header, sigs, documents.get(Invoice.class).toTree(invoice)));
+
+            Invoice verified = documents.reader(Invoice.class).readValue(envelopeNode.get("doc"));
+            val dig = signer.verify(keys.publicKey(), sigsReader.<List<String>>readValue(envelopeNode.get("sigs")).get(0));
+            if (!digest(jsonCanoniser.canonicalise(verified)).equals(dig.val())) {
+                throw new IllegalStateException("Warm-up signature does not verify");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Signs a document of any registered type and wraps it in an envelope. The digest covers the document as it is
+     * placed in the envelope, including its {@code $schema}.
+     *
+     * @param document   document to sign, its class must be registered in {@link #documents()}
+     * @param privateKey the private key used for signing
+     * @param kid        the key identifier associated with the private key
+     * @return the envelope JSON
+     * @throws IOException if the envelope can't be written
+     * @throws IllegalArgumentException if the document type is not registered
+     */
+    public <T> String sign(@NonNull T document, @NonNull ECPrivateKey privateKey, @NonNull UUID kid) throws IOException {
+        return sign(document, List.of(new SigningKey(privateKey, kid)));
+    }
+
+    /**
+     * Co-signs a document of any registered type with several keys. The document is canonicalised and digested
+     * once and the header is signed with all keys concurrently; {@code sigs} follows the order of {@code keys}.
+     *
+     * @param document document to sign, its class must be registered in {@link #documents()}
+     * @param keys     signing keys with their identifiers
+     * @return the envelope JSON
+     * @throws IOException if the envelope can't be written
+     * @throws IllegalArgumentException if the document type is not registered or no key is given
+     */
+    public <T> String sign(@NonNull T document, @NonNull List<SigningKey> keys) throws IOException {
+        return envelopeWriter.writeValueAsString(signedEnvelope(document, keys));
+    }
+
+    /**
+     * Co-signs a document like {@link #sign(Object, List)} and writes the envelope to a stream instead of building
+     * it as a string.
+     *
+     * @param document document to sign, its class must be registered in {@link #documents()}
+     * @param keys     signing keys with their identifiers
+     * @param out      stream the envelope JSON is written to, left open
+     * @throws IOException if the envelope can't be written
+     * @throws IllegalArgumentException if the document type is not registered or no key is given
+     */
+    public <T> void sign(@NonNull T document, @NonNull List<SigningKey> keys, @NonNull OutputStream out) throws IOException {
+        streamWriter.writeValue(out, signedEnvelope(document, keys));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ObjectNode signedEnvelope(T document, List<SigningKey> keys) {
+        if (keys.isEmpty()) throw new IllegalArgumentException("At least one signing key is required");
+        DocumentType<T> type = documents.get((Class<T>) document.getClass());
+        ObjectNode docNode = type.toTree(document);
+        val md = messageDigest("SHA-256");
+        parallelCanoniser.digest(docNode, md);
+        String digest = HexFormat.of().formatHex(md.digest());
+
+        String cacheKey = cache == null ? null : SignatureCache.signingKey(digest, keys);
+        if (cacheKey != null) {
+            val cached = cache.signed(cacheKey);
+            if (cached != null) return envelopeNode(cached.header(), cached.sigs(), docNode);
+        }
+        val header = makeHeader(digest);
+        val sigs = sign(header, keys);
+        if (cacheKey != null) cache.putSigned(cacheKey, new SignatureCache.Signed(header, sigs));
+        return envelopeNode(header, sigs, docNode);
+    }
+
+    private List<String> sign(Header header, List<SigningKey> keys) {
+        if (keys.size() == 1) return List.of(signer.sign(keys.get(0).privateKey(), keys.get(0).kid().toString(), header));
+        return keys.parallelStream()
+                .map(key -> signer.sign(key.privateKey(), key.kid().toString(), header))
+                .toList();
+    }
+
+    /**
+     * Signs a batch of documents with a single ECDSA operation. The document digests become the leaves of a
+     * {@link MerkleTree}, only its root is signed, and every envelope carries the root signature in {@code sigs} and
+     * its {@link InclusionProof} in {@code head.meta}. Each envelope is verified on its own with
+     * {@link #batchVerifier(Map)}; regular verification rejects it.
+     *
+     * @param documents  documents to sign, their classes must be registered in {@link #documents()}
+     * @param privateKey the private key used for signing the batch root
+     * @param kid        the key identifier
+     * @return envelope JSON for each document, in the order of {@code documents}
+     * @throws IllegalArgumentException if the batch is empty or a document type is not registered
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> signBatch(@NonNull List<?> documents, @NonNull ECPrivateKey privateKey, @NonNull UUID kid) {
+        if (documents.isEmpty()) throw new IllegalArgumentException("Batch must contain at least one document");
+
+        List<ObjectNode> docNodes = documents.parallelStream()
+                .map(document -> this.documents.get((Class<Object>) document.getClass()).toTree(document))
+                .toList();
+        List<byte[]> digests = docNodes.parallelStream()
+                .map(docNode -> {
+                    val md = messageDigest("SHA-256");
+                    parallelCanoniser.digest(docNode, md);
+                    return md.digest();
+                })
+                .toList();
+        val tree = MerkleTree.of(digests);
+
+        val rootHeader = makeHeader(HexFormat.of().formatHex(tree.root()));
+        rootHeader.getDig().setAlg(MerkleTree.ALG);
+        val sigs = List.of(signer.sign(privateKey, kid.toString(), rootHeader));
+        log.debug("signed batch of {} documents, root {}", tree.size(), rootHeader.getDig().getVal());
+
+        return IntStream.range(0, docNodes.size()).parallel()
+                .mapToObj(i -> {
+                    val envelopeNode = envelopeNode(makeHeader(HexFormat.of().formatHex(digests.get(i))), sigs, docNodes.get(i));
+                    InclusionProof.of(tree, i).writeTo(((ObjectNode) envelopeNode.get("head")).putObject("meta"));
+                    try {
+                        return envelopeWriter.writeValueAsString(envelopeNode);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .toList();
+    }
+
+    /**
+     * Creates a verifier for envelopes made by {@link #signBatch(List, ECPrivateKey, UUID)}. The verifier checks each
+     * batch root signature once and reuses the result for the other documents of the batch.
+     *
+     * @param keys public keys by {@code kid}
+     * @return a new verifier, thread-safe
+     */
+    public BatchVerifier batchVerifier(@NonNull Map<String, ? extends PublicKey> keys) {
+        return new BatchVerifier(this, byKid(keys));
+    }
+
+    /**
+     * Verifies a batch envelope: the document digest and the inclusion proof have to lead to the root signed in
+     * {@code sigs}.
+     *
+     * @param roots verifies a root signature and returns its digest, may cache
+     */
+    <T> T extractFromBatchEnvelope(InputStream source, Class<T> clazz, Function<String, Dig> roots) throws IOException {
+        ObjectNode envelopeNode = treeReader.readValue(source);
+        DocumentType<T> type = documents.get(clazz);
+        String schema = schemaOf(envelopeNode);
+        if (schema != null && !schema.equals(type.schema())) {
+            throw new IllegalArgumentException("Envelope contains " + schema + ", expected " + type.schema());
+        }
+
+        val sigsNode = envelopeNode.get("sigs");
+        List<String> sigs = sigsNode == null ? List.of() : sigsReader.readValue(sigsNode);
+        if (sigs.size() != 1) throw new SignatureException("Batch envelope must have exactly one signature.");
+
+        val proof = InclusionProof.readFrom(envelopeNode.path("head").path("meta"));
+        if (proof == null) throw new SignatureException("No inclusion proof found.");
+
+        val docNode = envelopeNode.get("doc");
+        if(docNode == null) throw new IllegalArgumentException("Envelop must contains document in 'doc' attribute");
+        T doc = documents.reader(clazz).readValue(docNode);
+        val root = proof.root(messageDigest("SHA-256").digest(jsonCanoniser.canonicalise(doc)));
+
+        Dig dig;
+        try {
+            dig = roots.apply(sigs.get(0));
+        } catch (JwtException e) {
+            throw new SignatureException("Digital signature verification failed.", e);
+        }
+        if (root == null || !MerkleTree.ALG.equals(dig.alg()) || !HexFormat.of().formatHex(root).equals(dig.val())) {
+            log.debug("batch root {} ({}) does not match inclusion proof", dig.val(), dig.alg());
+            throw new SignatureException("Digital signature verification failed.");
+        }
+        return doc;
+    }
+
+    /**
+     * Verifies the signature of an envelope and returns its document, checking that the document's {@code $schema}
+     * is the one registered for {@code clazz}.
+     *
+     * @param source envelope JSON stream, not closed by this method
+     * @param clazz  expected document class, must be registered in {@link #documents()}
+     * @param key    the public key used for signature verification
+     * @return the verified document
+     * @throws IOException if the envelope can't be read
+     * @throws SignatureException if the signature verification fails
+     * @throws IllegalArgumentException if the envelope holds a different document type
+     */
+    public <T> T verify(@NonNull InputStream source, @NonNull Class<T> clazz, @NonNull Key key) throws IOException {
+        return verify(source, clazz, singleKey(key), VerificationPolicy.ANY);
+    }
+
+    /**
+     * Verifies a co-signed envelope and returns its document. All signatures are checked concurrently, each with the
+     * public key registered for its {@code kid}, and {@code policy} decides whether the envelope is accepted.
+     *
+     * @param source envelope JSON stream, not closed by this method
+     * @param clazz  expected document class, must be registered in {@link #documents()}
+     * @param keys   public keys by {@code kid}
+     * @param policy how many signatures have to be valid
+     * @return the verified document
+     * @throws IOException if the envelope can't be read
+     * @throws SignatureException if the signatures don't satisfy the policy
+     * @throws IllegalArgumentException if the envelope holds a different document type
+     */
+    public <T> T verify(@NonNull InputStream source, @NonNull Class<T> clazz,
+                        @NonNull Map<String, ? extends PublicKey> keys, @NonNull VerificationPolicy policy) throws IOException {
+        return verify(source, clazz, byKid(keys), policy);
+    }
+
+    private <T> T verify(InputStream source, Class<T> clazz, Function<String, ? extends PublicKey> keys,
+                         VerificationPolicy policy) throws IOException {
+        ObjectNode envelopeNode = treeReader.readValue(source);
+        DocumentType<T> type = documents.get(clazz);
+        String schema = schemaOf(envelopeNode);
+        if (schema != null && !schema.equals(type.schema())) {
+            throw new IllegalArgumentException("Envelope contains " + schema + ", expected " + type.schema());
+        }
+        return extractFromEnvelope(envelopeNode, clazz, keys, policy);
+    }
+
+    /**
+     * Verifies the signature of an envelope and returns its document, bound to the class registered for the
+     * document's {@code $schema}. Useful for batches mixing document types.
+     *
+     * @param source envelope JSON stream, not closed by this method
+     * @param key    the public key used for signature verification
+     * @return the verified document
+     * @throws IOException if the envelope can't be read
+     * @throws SignatureException if the signature verification fails
+     * @throws IllegalArgumentException if the document has no {@code $schema} or its schema is not registered
+     */
+    public Object verify(@NonNull InputStream source, @NonNull Key key) throws IOException {
+        ObjectNode envelopeNode = treeReader.readValue(source);
+        String schema = schemaOf(envelopeNode);
+        if (schema == null) throw new IllegalArgumentException("Envelope document has no $schema");
+        DocumentType<?> type = documents.forSchema(schema)
+                .orElseThrow(() -> new IllegalArgumentException("Unregistered document schema " + schema));
+        return extractFromEnvelope(envelopeNode, type.type(), singleKey(key), VerificationPolicy.ANY);
+    }
+
+    private static String schemaOf(ObjectNode envelopeNode) {
+        val schema = envelopeNode.path("doc").get("$schema");
+        return schema == null || !schema.isTextual() ? null : schema.asText();
     }
 
     /**
@@ -49,45 +382,183 @@ public class Gobl {
      *
      * @param envelopeFile The envelope JSON file from which to extract the document, e.g., Invoice.
      * @param clazz        The class representing the type of the document.
-     * @param key          The ECPublicKey used for signature verification.
+     * @param key          The ECPublicKey used for signature verification. If the envelope has several signatures,
+     *                     one made with this key is enough.
      * @return The extracted document.
      * @throws IOException          If an I/O error occurs when reading or parsing the envelope file.
      * @throws SignatureException   If the digital signature verification fails.
      */
     public <T> T extractFromEnvelope(File envelopeFile, Class<T> clazz, Key key) throws IOException {
+        return extractFromEnvelope((ObjectNode) treeReader.readValue(envelopeFile), clazz, singleKey(key), VerificationPolicy.ANY);
+    }
+
+    /**
+     * Extracts the document from a co-signed envelope JSON file, see
+     * {@link #verify(InputStream, Class, Map, VerificationPolicy)}.
+     *
+     * @param envelopeFile The envelope JSON file from which to extract the document.
+     * @param clazz        The class representing the type of the document.
+     * @param keys         Public keys by {@code kid}.
+     * @param policy       How many signatures have to be valid.
+     * @return The extracted document.
+     * @throws IOException          If an I/O error occurs when reading or parsing the envelope file.
+     * @throws SignatureException   If the signatures don't satisfy the policy.
+     */
+    public <T> T extractFromEnvelope(File envelopeFile, Class<T> clazz, Map<String, ? extends PublicKey> keys,
+                                     VerificationPolicy policy) throws IOException {
+        return extractFromEnvelope((ObjectNode) treeReader.readValue(envelopeFile), clazz, byKid(keys), policy);
+    }
+
+    /**
+     * Extracts the document from an envelope read from the stream.
+     *
+     * @param source The envelope JSON stream, not closed by this method.
+     * @param clazz  The class representing the type of the document.
+     * @param key    The ECPublicKey used for signature verification.
+     * @return The extracted document.
+     * @throws IOException          If an I/O error occurs when reading or parsing the envelope.
+     * @throws SignatureException   If the digital signature verification fails.
+     */
+    public <T> T extractFromEnvelope(InputStream source, Class<T> clazz, Key key) throws IOException {
+        return extractFromEnvelope((ObjectNode) treeReader.readValue(source), clazz, singleKey(key), VerificationPolicy.ANY);
+    }
+
+    private <T> T extractFromEnvelope(ObjectNode envelopeNode, Class<T> clazz, Function<String, ? extends PublicKey> keys,
+                                      VerificationPolicy policy) throws IOException {
 
-        val envelopeNode = objectMapper.readValue(envelopeFile, ObjectNode.class);
         val sigsNode = envelopeNode.get("sigs");
 
-        JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, String.class);
-        List<String> sigs = objectMapper.treeToValue(sigsNode, type);
+        List<String> sigs = sigsNode == null ? null : sigsReader.readValue(sigsNode);
 
         val docNode = envelopeNode.get("doc");
         if(docNode == null) throw new IllegalArgumentException("Envelop must contains document in 'doc' attribute");
 
-        val doc = objectMapper.treeToValue(docNode, clazz);
-        val canonizedJson = jsonCanoniser.parse(doc);
+        T doc = documents.reader(clazz).readValue(docNode);
+        val canonicalJson = jsonCanoniser.canonicalise(doc);
 
         if(sigs== null || sigs.isEmpty()) {
             throw new SignatureException("No signatures found.");
-        } else if (sigs.size() > 1) {
-            throw new SignatureException("Multiple signatures are not supported.");
         }
 
-        val s = sigs.get(0);
-        log.debug("checking signature {}", s);
-        val dig = signer.verify((ECPublicKey) key, s);
-        val contentDigest = digest(canonizedJson, dig.alg());
-
-        if (contentDigest.equals(dig.val()))
-            log.debug("digest are equals");
+        Map<String, String> contentDigests = new ConcurrentHashMap<>();
+        val failure = new AtomicReference<Exception>();
+        val documentDigest = cache == null ? null : digest(canonicalJson);
+        Stream<String> signatures = sigs.size() == 1 ? sigs.stream() : sigs.parallelStream();
+        List<String> validKids = signatures
+                .map(s -> documentDigest == null
+                        ? verifySignature(s, keys, canonicalJson, contentDigests, failure)
+                        : verifySignature(s, keys, canonicalJson, documentDigest, contentDigests, failure))
+                .filter(Objects::nonNull)
+                .toList();
+
+        int validKeys = (int) validKids.stream().distinct().count();
+        if (policy.accepts(validKeys, validKids.size(), sigs.size()))
+            log.debug("{} of {} signatures valid, accepted by {} policy", validKids.size(), sigs.size(), policy);
         else {
-            log.debug("digest form signature {} != {} ({} counted from canonical JSON)", dig.val(), contentDigest, dig.alg());
-            throw new SignatureException("Digital signature verification failed.");
+            log.debug("{} of {} signatures valid, rejected by {} policy", validKids.size(), sigs.size(), policy);
+            throw new SignatureException("Digital signature verification failed.", failure.get());
         }
         return doc;
     }
 
+    /**
+     * Looks the outcome up in the cache by document digest, signature and key before verifying the signature.
+     */
+    private String verifySignature(String jws, Function<String, ? extends PublicKey> keys, byte[] canonicalJson,
+                                   String documentDigest, Map<String, String> contentDigests,
+                                   AtomicReference<Exception> failure) {
+        String kid;
+        PublicKey key;
+        try {
+            kid = signer.keyId(jws);
+            key = keys.apply(kid);
+        } catch (JwtException e) {
+            failure.compareAndSet(null, e);
+            return null;
+        }
+        String cacheKey = key == null ? null : SignatureCache.verificationKey(documentDigest, jws, key);
+        if (cacheKey == null) return verifySignature(jws, keys, canonicalJson, contentDigests, failure);
+
+        Boolean valid = cache.verified(cacheKey);
+        if (valid == null) {
+            String result = verifySignature(jws, k -> key, canonicalJson, contentDigests, failure);
+            cache.putVerified(cacheKey, result != null);
+            return result;
+        }
+        if (valid) return String.valueOf(kid);
+        failure.compareAndSet(null, new SignatureException("Signature with kid " + kid + " is not valid (cached result)"));
+        return null;
+    }
+
+    /**
+     * @return {@code kid} of the signature ({@code "null"} if it has none) or null if the signature is not valid
+     */
+    private String verifySignature(String jws, Function<String, ? extends PublicKey> keys, byte[] canonicalJson,
+                                   Map<String, String> contentDigests, AtomicReference<Exception> failure) {
+        log.debug("checking signature {}", jws);
+        val kid = new AtomicReference<String>();
+        try {
+            val dig = signer.verify(k -> {
+                kid.set(k);
+                return keys.apply(k);
+            }, jws);
+            val contentDigest = contentDigests.computeIfAbsent(dig.alg(), alg -> digest(canonicalJson, alg));
+
+            if (contentDigest.equals(dig.val())) {
+                log.debug("digest are equals");
+                return String.valueOf(kid.get());
+            }
+            log.debug("digest form signature {} != {} ({} counted from canonical JSON)", dig.val(), contentDigest, dig.alg());
+        } catch (JwtException | NoSuchDigestAlgorithmException e) {
+            log.debug("signature with kid {} not valid: {}", kid.get(), e.getMessage());
+            failure.compareAndSet(null, e);
+        }
+        return null;
+    }
+
+    /**
+     * Looks keys up by {@code kid}; a JWS without one finds no key, as maps such as {@link Map#of} throw on
+     * {@code get(null)}.
+     */
+    private static Function<String, PublicKey> byKid(Map<String, ? extends PublicKey> keys) {
+        return kid -> kid == null ? null : keys.get(kid);
+    }
+
+    private static Function<String, PublicKey> singleKey(Key key) {
+        if (!(key instanceof PublicKey publicKey)) throw new IllegalArgumentException("Public key expected");
+        return kid -> publicKey;
+    }
+
+    /**
+     * Reads the envelope header and the key identifiers of its signatures without reading the document, e.g. to
+     * route an envelope. Signatures are not verified.
+     *
+     * @param envelopeFile envelope JSON file
+     * @return envelope header and signature key identifiers
+     */
+    public EnvelopePeek peekEnvelope(@NonNull File envelopeFile) {
+        return envelopSerializer.peek(envelopeFile);
+    }
+
+    public EnvelopePeek peekEnvelope(@NonNull InputStream source) {
+        return envelopSerializer.peek(source);
+    }
+
+    public EnvelopePeek peekEnvelope(byte @NonNull [] envelope) {
+        return envelopSerializer.peek(envelope);
+    }
+
+    /**
+     * Creates a lazy read-only view of an envelope, for consumers that need only a few fields such as the supplier
+     * tax ID or totals. The envelope bytes are indexed but not parsed, and signatures are not verified.
+     *
+     * @param envelope UTF-8 encoded envelope JSON
+     * @return view of the envelope
+     */
+    public EnvelopeView viewEnvelope(byte @NonNull [] envelope) {
+        return EnvelopeView.of(envelope);
+    }
+
     /**
      * Extracts an object of type T from an envelope file without signature verification.
      *
@@ -97,9 +568,9 @@ public class Gobl {
      * @throws IOException if an I/O error occurs while reading the envelope file
      */
     public <T> T extractFromEnvelope(File envelopeFile, Class<T> clazz) throws IOException {
-        val envelopeNode = objectMapper.readValue(envelopeFile, ObjectNode.class);
+        ObjectNode envelopeNode = treeReader.readValue(envelopeFile);
         val docNode = envelopeNode.get("doc");
-        return objectMapper.treeToValue(docNode, clazz);
+        return documents.reader(clazz).readValue(docNode);
     }
 
     /**
@@ -136,8 +607,7 @@ public class Gobl {
      * @throws IOException if an I/O error occurs while saving the invoice
      */
     public void saveInvoice(Invoice invoice, OutputStream outputStream) throws IOException {
-        InvoiceSerializer serializer = new InvoiceSerializer();
-        serializer.toStream(outputStream, invoice);
+        invoiceSerializer.toStream(outputStream, invoice);
     }
 
     /**
@@ -173,8 +643,7 @@ public class Gobl {
      * @return the parsed invoice object
      */
     public Invoice parseInvoice(InputStream source) {
-        InvoiceSerializer serializer = new InvoiceSerializer();
-        return serializer.fromStream(source);
+        return invoiceSerializer.fromStream(source);
     }
 
     /**
@@ -217,14 +686,40 @@ public class Gobl {
      * @throws IOException If an I/O error occurs while signing the invoice.
      */
     public String signInvoice(Invoice invoice, ECPrivateKey privateKey, UUID kid) throws IOException {
-        String canonicalJson = jsonCanoniser.parse(invoice);
-        val header = makeHeader(digest(canonicalJson));
-        val signedString = signer.sign(privateKey, kid.toString(), header);
-        return prepareEnvelope(header, signedString, invoice);
+        return signInvoice(invoice, List.of(new SigningKey(privateKey, kid)));
     }
 
     /**
-     * Signs an invoice by providing the InputStream, the EC private key and its identifier.
+     * Co-signs the given invoice with several keys: the digest is calculated once and the header is signed with
+     * all keys concurrently. {@code sigs} follows the order of {@code keys}.
+     *
+     * @param invoice The invoice object to be signed.
+     * @param keys    The signing keys with their identifiers.
+     * @return The signed invoice as an envelope.
+     * @throws IOException If an I/O error occurs while signing the invoice.
+     */
+    public String signInvoice(@NonNull Invoice invoice, @NonNull List<SigningKey> keys) throws IOException {
+        return sign(invoice, keys);
+    }
+
+    /**
+     * Signs the given invoice and writes the envelope to a stream, without building it as a string first.
+     *
+     * @param invoice    the invoice to be signed
+     * @param privateKey the private key used for signing the invoice
+     * @param kid        the key identifier associated with the private key
+     * @param out        stream the envelope JSON is written to, left open
+     * @throws IOException if the envelope can't be written
+     */
+    public void signInvoice(@NonNull Invoice invoice, @NonNull ECPrivateKey privateKey, @NonNull UUID kid,
+                            @NonNull OutputStream out) throws IOException {
+        sign(invoice, List.of(new SigningKey(privateKey, kid)), out);
+    }
+
+    /**
+     * Signs an invoice by providing the InputStream, the EC private key and its identifier. The invoice is bound like
+     * {@link #parseInvoice(InputStream)}; the digest covers the document as placed in the envelope, not the input
+     * bytes, so {@code $schema} is set and empty values are dropped.
      *
      * @param source    the input stream representing the invoice source JSON file
      * @param privateKey   the EC private key to be used for signing
@@ -233,40 +728,70 @@ public class Gobl {
      * @throws IOException if an I/O error occurs while reading the input stream
      */
     public String signInvoice(InputStream source, ECPrivateKey privateKey, UUID kid) throws IOException {
-        byte[] content = source.readAllBytes();
-        String canonicalJson = jsonCanoniser.parse(content);
-        val header = makeHeader(digest(canonicalJson));
-        val signedString = signer.sign(privateKey, kid.toString(), header);
-        val invoice = objectMapper.readValue(content, Invoice.class);
-        return prepareEnvelope(header, signedString, invoice);
+        Invoice invoice = documents.get(Invoice.class).reader().readValue(source.readAllBytes());
+        return signInvoice(invoice, privateKey, kid);
+    }
+
+    /**
+     * Writes the envelope for a document whose header has already been signed, e.g. by a pipeline stage calling
+     * {@link EcdsaSigner} directly.
+     *
+     * @param header   signed header, see {@link #makeHeader(String)}
+     * @param sigs     signatures of the header
+     * @param document the document, its class must be registered in {@link #documents()}
+     * @return the envelope JSON
+     * @throws IOException if the envelope can't be written
+     */
+    @SuppressWarnings("unchecked")
+    public String writeEnvelope(@NonNull Header header, @NonNull List<String> sigs, @NonNull Object document) throws IOException {
+        return prepareEnvelope(header, sigs, documents.get((Class<Object>) document.getClass()).toTree(document));
     }
 
-    private String prepareEnvelope(Header header, String signedString, Invoice invoice) throws IOException {
+    /**
+     * Writes the envelope for a document already converted with {@link DocumentType#toTree(Object)}. Pass the node the
+     * header's digest was calculated from, so the envelope holds exactly the signed document.
+     *
+     * @param header  signed header, see {@link #makeHeader(String)}
+     * @param sigs    signatures of the header
+     * @param docNode the document as a JSON tree, including its {@code $schema}
+     * @return the envelope JSON
+     * @throws IOException if the envelope can't be written
+     */
+    public String writeEnvelope(@NonNull Header header, @NonNull List<String> sigs, @NonNull ObjectNode docNode) throws IOException {
+        return prepareEnvelope(header, sigs, docNode);
+    }
+
+    private String prepareEnvelope(Header header, List<String> sigs, ObjectNode docNode) throws IOException {
+        return envelopeWriter.writeValueAsString(envelopeNode(header, sigs, docNode));
+    }
+
+    private ObjectNode envelopeNode(Header header, List<String> sigs, ObjectNode docNode) {
         Envelope envelope = new Envelope();
         envelope.set$schema("https://gobl.org/draft-0/envelope");
         envelope.setHead(header);
-        envelope.setSigs(List.of(signedString));
+        envelope.setSigs(sigs);
 
-        ObjectNode invoiceNode = objectMapper.valueToTree(invoice);
-        invoiceNode.put("$schema", "https://gobl.org/draft-0/bill/invoice");
         ObjectNode envelopNode = objectMapper.valueToTree(envelope);
-        envelopNode.set("doc", invoiceNode);
-        return objectMapper.writeValueAsString(envelopNode);
+        envelopNode.set("doc", docNode);
+        return envelopNode;
     }
 
     /**
-     * Calculates the SHA-256 digest of the given invoice object using JSON canonicalization.
+     * Calculates the SHA-256 digest of the given invoice object using JSON canonicalization. The invoice is digested
+     * the way {@link #signInvoice(Invoice, ECPrivateKey, UUID)} places it in the envelope, with {@code $schema} set,
+     * so the result equals the envelope's {@code head.dig}.
      *
      * @param invoice The invoice to calculate the digest for. Must not be null.
      * @return The SHA-256 digest of the invoice.
      * @throws IOException If an IO error occurs during the digest calculation.
      */
     public String digest(@NonNull Invoice invoice) throws IOException {
-        return digest(jsonCanoniser.parse(invoice));
+        return digest(invoice, "SHA-256");
     }
 
     /**
-     * Calculates the digest of the given invoice using the specified algorithm.
+     * Calculates the digest of the given invoice using the specified algorithm. Invoices with a very large number of
+     * lines are canonicalised in parallel by {@link ParallelCanoniser}.
      *
      * @param invoice   The invoice to calculate the digest for. Cannot be null.
      * @param algorithm The algorithm to use for calculating the digest, one of: MD5, SHA1, SHA256, SHA384, SHA512.
@@ -274,7 +799,20 @@ public class Gobl {
      * @throws IOException If there is an error parsing the invoice.
      */
     public String digest(@NonNull Invoice invoice, String algorithm) throws IOException {
-        return digest(jsonCanoniser.parse(invoice), algorithm);
+        val md = messageDigest(algorithm);
+        parallelCanoniser.digest(documents.get(Invoice.class).toTree(invoice), md);
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /**
+     * Creates a SHA-256 digest for an invoice that is going to be edited and digested again, e.g. a draft.
+     * Changes have to be reported to the returned {@link IncrementalDigest}. Its digest equals {@link #digest(Invoice)}.
+     *
+     * @param invoice The invoice to calculate the digest for.
+     * @return incremental digest of the invoice
+     */
+    public IncrementalDigest incrementalDigest(@NonNull Invoice invoice) {
+        return new IncrementalDigest(invoice, documents.get(Invoice.class).schema(), "SHA-256");
     }
 
     /**
@@ -285,13 +823,7 @@ public class Gobl {
      * @throws IllegalStateException if the SHA-256 algorithm is not available
      */
     public String digest(@NonNull String canonicalJson) {
-        try {
-            val md = MessageDigest.getInstance("SHA-256");
-            val sha = md.digest(canonicalJson.getBytes());
-            return HexFormat.of().formatHex(sha);
-        } catch (NoSuchAlgorithmException ex) {
-            throw new NoSuchDigestAlgorithmException(ex);
-        }
+        return digest(canonicalJson, "SHA-256");
     }
 
     /**
@@ -303,16 +835,46 @@ public class Gobl {
      * @throws NoSuchDigestAlgorithmException if the specified algorithm is not supported
      */
     public String digest(@NonNull String canonicalJson, String algorithm) {
+        return digest(canonicalJson.getBytes(StandardCharsets.UTF_8), algorithm);
+    }
+
+    /**
+     * Computes the SHA-256 digest of the given UTF-8 encoded canonical JSON.
+     *
+     * @param canonicalJson the canonical JSON bytes, e.g. from {@link JsonCanoniser#canonicalise(Object)}
+     * @return the hash digest of the canonical JSON as a hexadecimal string
+     */
+    public String digest(byte @NonNull [] canonicalJson) {
+        return digest(canonicalJson, "SHA-256");
+    }
+
+    /**
+     * Generates a hash digest of the given UTF-8 encoded canonical JSON using the specified algorithm.
+     *
+     * @param canonicalJson the canonical JSON bytes
+     * @param algorithm the algorithm to use for generating the digest, one of: MD5, SHA1, SHA256, SHA384, SHA512.
+     * @return the hash digest of the canonical JSON as a hexadecimal string
+     * @throws NoSuchDigestAlgorithmException if the specified algorithm is not supported
+     */
+    public String digest(byte @NonNull [] canonicalJson, String algorithm) {
+        return HexFormat.of().formatHex(messageDigest(algorithm).digest(canonicalJson));
+    }
+
+    private static MessageDigest messageDigest(String algorithm) {
         try {
-            val md = MessageDigest.getInstance(algorithm);
-            val sha = md.digest(canonicalJson.getBytes());
-            return HexFormat.of().formatHex(sha);
+            return MessageDigest.getInstance(algorithm);
         } catch (NoSuchAlgorithmException ex) {
             throw new NoSuchDigestAlgorithmException(ex);
         }
     }
 
-    protected Header makeHeader(@NonNull String digestString) {
+    /**
+     * Creates an envelope header with a new UUID for a document with the given SHA-256 digest.
+     *
+     * @param digestString hex encoded SHA-256 digest of the canonical document
+     * @return the header to sign
+     */
+    public Header makeHeader(@NonNull String digestString) {
 
             Header header = new Header();
             Digest digest = new Digest();
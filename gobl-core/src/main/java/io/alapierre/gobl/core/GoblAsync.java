@@ -0,0 +1,224 @@
+package io.alapierre.gobl.core;
+
+import io.jsonwebtoken.security.SignatureException;
+import lombok.NonNull;
+import org.gobl.model.Invoice;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.interfaces.ECPrivateKey;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Non-blocking counterparts of the {@link Gobl} methods, returning {@link CompletableFuture}s.
+ * <p>
+ * Work is split by kind: files are read and written with {@link java.nio.channels.AsynchronousFileChannel}, so no
+ * thread of the caller waits for the disk; parsing, canonicalisation and ECDSA run on a bounded CPU pool; reading a
+ * caller's {@link InputStream}, which may block, and completing the returned futures happen on the caller's
+ * executor, virtual threads by default. Dependent stages attached by the caller therefore never run on, or
+ * starve, the CPU pool.
+ * <p>
+ * Futures fail with the exception the blocking method would throw, e.g. {@link IOException} or
+ * {@link SignatureException}. Like {@link Gobl}, an instance is thread-safe.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class GoblAsync {
+
+    @FunctionalInterface
+    private interface Task<T> {
+        T call() throws Exception;
+    }
+
+    private final Gobl gobl;
+    private final Executor executor;
+    private final Executor cpu;
+
+    /**
+     * Uses virtual threads (Java 21+, a cached thread pool otherwise, see {@link GoblExecutors}) for blocking reads
+     * and completions and the common fork-join pool for CPU-bound work.
+     *
+     * @param gobl instance doing the work
+     */
+    public GoblAsync(@NonNull Gobl gobl) {
+        this(gobl, GoblExecutors.newPerTaskExecutor("gobl-async"), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param gobl     instance doing the work
+     * @param executor runs blocking stream reads and completes the returned futures
+     * @param cpu      bounded pool for parsing, canonicalisation and signing
+     */
+    public GoblAsync(@NonNull Gobl gobl, @NonNull Executor executor, @NonNull Executor cpu) {
+        this.gobl = gobl;
+        this.executor = executor;
+        this.cpu = cpu;
+    }
+
+    /**
+     * @return the synchronous instance behind this one
+     */
+    public Gobl gobl() {
+        return gobl;
+    }
+
+    /**
+     * @param source invoice JSON file
+     * @return the parsed invoice
+     */
+    public CompletableFuture<Invoice> parseInvoiceAsync(@NonNull Path source) {
+        return deliver(AsyncFiles.read(source)
+                .thenCompose(content -> supply(() -> gobl.parseInvoice(new ByteArrayInputStream(content)), cpu)));
+    }
+
+    /**
+     * @param source invoice JSON stream, read on the caller's executor and closed when read
+     * @return the parsed invoice
+     */
+    public CompletableFuture<Invoice> parseInvoiceAsync(@NonNull InputStream source) {
+        return deliver(readAll(source)
+                .thenCompose(content -> supply(() -> gobl.parseInvoice(new ByteArrayInputStream(content)), cpu)));
+    }
+
+    /**
+     * Writes the invoice JSON, replacing the file if it exists.
+     *
+     * @param invoice invoice to save
+     * @param target  file to write
+     * @return completed when the file is written
+     */
+    public CompletableFuture<Void> saveInvoiceAsync(@NonNull Invoice invoice, @NonNull Path target) {
+        return deliver(supply(() -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            gobl.saveInvoice(invoice, out);
+            return out.toByteArray();
+        }, cpu).thenCompose(content -> AsyncFiles.write(target, content)));
+    }
+
+    /**
+     * @see Gobl#signInvoice(Path, ECPrivateKey, UUID)
+     */
+    public CompletableFuture<String> signInvoiceAsync(@NonNull Path invoiceFile, @NonNull ECPrivateKey privateKey,
+                                                      @NonNull UUID kid) {
+        return deliver(AsyncFiles.read(invoiceFile).thenCompose(content -> sign(content, privateKey, kid)));
+    }
+
+    /**
+     * @param source invoice JSON stream, read on the caller's executor and closed when read
+     * @see Gobl#signInvoice(InputStream, ECPrivateKey, UUID)
+     */
+    public CompletableFuture<String> signInvoiceAsync(@NonNull InputStream source, @NonNull ECPrivateKey privateKey,
+                                                      @NonNull UUID kid) {
+        return deliver(readAll(source).thenCompose(content -> sign(content, privateKey, kid)));
+    }
+
+    /**
+     * @see Gobl#signInvoice(Invoice, ECPrivateKey, UUID)
+     */
+    public CompletableFuture<String> signInvoiceAsync(@NonNull Invoice invoice, @NonNull ECPrivateKey privateKey,
+                                                      @NonNull UUID kid) {
+        return deliver(supply(() -> gobl.signInvoice(invoice, privateKey, kid), cpu));
+    }
+
+    /**
+     * Signs an invoice file and writes the envelope to another file, without blocking on either.
+     *
+     * @param invoiceFile  invoice JSON file
+     * @param envelopeFile file the envelope is written to, replaced if it exists
+     * @param privateKey   the private key used for signing
+     * @param kid          the key identifier
+     * @return completed when the envelope is written
+     */
+    public CompletableFuture<Void> signInvoiceAsync(@NonNull Path invoiceFile, @NonNull Path envelopeFile,
+                                                    @NonNull ECPrivateKey privateKey, @NonNull UUID kid) {
+        return deliver(AsyncFiles.read(invoiceFile)
+                .thenCompose(content -> sign(content, privateKey, kid))
+                .thenCompose(envelope -> AsyncFiles.write(envelopeFile, envelope.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * @see Gobl#extractFromEnvelope(java.io.File, Class, Key)
+     */
+    public <T> CompletableFuture<T> extractFromEnvelopeAsync(@NonNull Path envelopeFile, @NonNull Class<T> clazz,
+                                                             @NonNull Key key) {
+        return deliver(AsyncFiles.read(envelopeFile).thenCompose(content -> extract(content, clazz, key)));
+    }
+
+    /**
+     * @param source envelope JSON stream, read on the caller's executor and closed when read
+     * @see Gobl#extractFromEnvelope(InputStream, Class, Key)
+     */
+    public <T> CompletableFuture<T> extractFromEnvelopeAsync(@NonNull InputStream source, @NonNull Class<T> clazz,
+                                                             @NonNull Key key) {
+        return deliver(readAll(source).thenCompose(content -> extract(content, clazz, key)));
+    }
+
+    private CompletableFuture<String> sign(byte[] content, ECPrivateKey privateKey, UUID kid) {
+        return supply(() -> gobl.signInvoice(new ByteArrayInputStream(content), privateKey, kid), cpu);
+    }
+
+    private <T> CompletableFuture<T> extract(byte[] content, Class<T> clazz, Key key) {
+        return supply(() -> gobl.extractFromEnvelope(new ByteArrayInputStream(content), clazz, key), cpu);
+    }
+
+    private CompletableFuture<byte[]> readAll(InputStream source) {
+        return supply(() -> {
+            try (source) {
+                return source.readAllBytes();
+            }
+        }, executor);
+    }
+
+    /**
+     * Hands the outcome over to the caller's executor, so stages attached to the returned future don't run on the
+     * CPU pool or on an I/O thread of the file channel.
+     */
+    private <T> CompletableFuture<T> deliver(CompletableFuture<T> stage) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        stage.whenComplete((value, failure) -> {
+            try {
+                executor.execute(() -> {
+                    if (failure == null) result.complete(value);
+                    else result.completeExceptionally(unwrap(failure));
+                });
+            } catch (RuntimeException e) { // rejected
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs the task on the executor; the future fails with the task's own exception, not a wrapper.
+     */
+    private static <T> CompletableFuture<T> supply(Task<T> task, Executor executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) { // rejected
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+    }
+}
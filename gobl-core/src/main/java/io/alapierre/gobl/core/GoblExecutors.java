@@ -0,0 +1,48 @@
+package io.alapierre.gobl.core;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors shared by the modules built on {@link Gobl}.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public final class GoblExecutors {
+
+    private GoblExecutors() {
+    }
+
+    /**
+     * Creates an executor for blocking work with one virtual thread per task on Java 21+, or a cached pool of
+     * daemon threads otherwise. Virtual threads are looked up reflectively so the library still runs on Java 17.
+     *
+     * @param threadName prefix of the names of the fallback pool's threads
+     * @return the executor, to be shut down by the caller
+     */
+    public static ExecutorService newPerTaskExecutor(@NonNull String threadName) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            log.debug("Virtual threads not available, using a cached thread pool");
+        } catch (ReflectiveOperationException e) {
+            log.warn("Can't create a virtual thread executor, using a cached thread pool", e);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threads = runnable -> {
+            Thread thread = new Thread(runnable, threadName + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threads);
+    }
+}
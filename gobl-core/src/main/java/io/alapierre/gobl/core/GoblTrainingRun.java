@@ -0,0 +1,43 @@
+package io.alapierre.gobl.core;
+
+import io.alapierre.gobl.core.signature.KeySupport;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.gobl.model.Invoice;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Training run for an AppCDS archive: exercises the signing and verification paths so the classes they load end up
+ * in the archive. Run it once with the application's class path, which must contain only jar files:
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=gobl.jsa -cp app.jar:lib/* io.alapierre.gobl.core.GoblTrainingRun [invoice.json...]
+ * java -XX:SharedArchiveFile=gobl.jsa -cp app.jar:lib/* com.example.SigningJob
+ * </pre>
+ * Without arguments the embedded sample invoice is used (see {@link Gobl#warmUp()}); invoice files given as
+ * arguments are signed and verified as well, so classes only they need are archived too.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class GoblTrainingRun {
+
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+        Gobl gobl = new Gobl();
+        gobl.warmUp();
+
+        val keys = new KeySupport().generate();
+        for (String file : args) {
+            Invoice invoice = gobl.parseInvoice(Path.of(file));
+            String envelope = gobl.signInvoice(invoice, keys.privateKey(), UUID.randomUUID());
+            gobl.extractFromEnvelope(new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8)),
+                    Invoice.class, keys.publicKey());
+        }
+        log.info("training run finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
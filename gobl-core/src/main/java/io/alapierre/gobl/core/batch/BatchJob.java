@@ -0,0 +1,304 @@
+package io.alapierre.gobl.core.batch;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * A signing job split into shards, kept in a directory that every worker process can reach (a local directory or
+ * a shared file system). The directory holds everything needed to coordinate workers, there is no coordinator:
+ * <pre>
+ * job.properties            input source and number of shards, written last when the job is planned
+ * shards/00000.items        items of a shard, one per line: an input file path or "offset length" of an NDJSON line
+ * leases/00000.lease        lease of the worker processing the shard, see {@link ShardLease}
+ * checkpoints/00000.ckpt    progress of the shard, see {@link Checkpoint}
+ * segments/00000-*.ndjson   envelopes and errors of a shard written by one attempt between two checkpoints,
+ * segments/00000-*.errors   removed when the shard is complete
+ * output/00000.ndjson       signed envelopes of the shard, one per line, in item order, once the shard is complete
+ * output/00000.errors       items that could not be signed, one per line with the reason
+ * </pre>
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public final class BatchJob {
+
+    /**
+     * Kind of input a job was planned from.
+     */
+    public enum Source {
+        /** every {@code *.json} file of a directory is one invoice */
+        DIRECTORY,
+        /** every non-blank line of a file is one invoice */
+        NDJSON
+    }
+
+    public static final int DEFAULT_SHARD_SIZE = 1000;
+
+    static final String PROPERTIES = "job.properties";
+
+    private final Path directory;
+    private final Source source;
+    private final Path input;
+    private final int shards;
+
+    private BatchJob(Path directory, Source source, Path input, int shards) {
+        this.directory = directory;
+        this.source = source;
+        this.input = input;
+        this.shards = shards;
+    }
+
+    /**
+     * Plans a job signing every {@code *.json} file of {@code inputDirectory}, in file name order.
+     *
+     * @param inputDirectory directory with invoice files
+     * @param jobDirectory   job directory, created if needed
+     * @param shardSize      number of invoices per shard
+     * @return planned job
+     * @throws IOException                if the input can't be listed or the job can't be written
+     * @throws FileAlreadyExistsException if a job was already planned in {@code jobDirectory}
+     */
+    public static BatchJob planDirectory(@NonNull Path inputDirectory, @NonNull Path jobDirectory, int shardSize) throws IOException {
+        Path input = inputDirectory.toAbsolutePath();
+        try (ShardWriter writer = new ShardWriter(prepare(jobDirectory), shardSize);
+             Stream<Path> files = Files.list(input)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".json") && Files.isRegularFile(f))
+                    .sorted().toList()) {
+                writer.add(file.toString());
+            }
+            return writer.finish(Source.DIRECTORY, input);
+        }
+    }
+
+    /**
+     * Plans a job signing every non-blank line of an NDJSON file. Only line offsets are recorded, the file is
+     * read once while planning.
+     *
+     * @param ndjson       file with one invoice per line
+     * @param jobDirectory job directory, created if needed
+     * @param shardSize    number of invoices per shard
+     * @return planned job
+     * @throws IOException                if the input can't be read or the job can't be written
+     * @throws FileAlreadyExistsException if a job was already planned in {@code jobDirectory}
+     */
+    public static BatchJob planNdjson(@NonNull Path ndjson, @NonNull Path jobDirectory, int shardSize) throws IOException {
+        Path input = ndjson.toAbsolutePath();
+        try (ShardWriter writer = new ShardWriter(prepare(jobDirectory), shardSize);
+             InputStream in = new BufferedInputStream(Files.newInputStream(input), 1 << 16)) {
+            long offset = 0;
+            long start = 0;
+            boolean blank = true;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    if (!blank) writer.add(start + " " + (offset - start));
+                    start = offset + 1;
+                    blank = true;
+                } else if (b != ' ' && b != '\t' && b != '\r') {
+                    blank = false;
+                }
+                offset++;
+            }
+            if (!blank) writer.add(start + " " + (offset - start));
+            return writer.finish(Source.NDJSON, input);
+        }
+    }
+
+    /**
+     * Opens a planned job.
+     *
+     * @param jobDirectory job directory
+     * @return the job
+     * @throws IOException if the job was not planned (yet) or can't be read
+     */
+    public static BatchJob open(@NonNull Path jobDirectory) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(jobDirectory.resolve(PROPERTIES), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return new BatchJob(jobDirectory, Source.valueOf(properties.getProperty("source")),
+                Path.of(properties.getProperty("input")), Integer.parseInt(properties.getProperty("shards")));
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public Source source() {
+        return source;
+    }
+
+    public int shardCount() {
+        return shards;
+    }
+
+    /**
+     * @return {@code true} once every shard has been completed
+     * @throws IOException if a checkpoint can't be read
+     */
+    public boolean isComplete() throws IOException {
+        for (int shard = 0; shard < shards; shard++) {
+            if (!Checkpoint.read(checkpointFile(shard)).complete()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return output files of all shards in shard order; together they hold the envelopes in input order
+     */
+    public List<Path> outputs() {
+        List<Path> outputs = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) outputs.add(outputFile(shard));
+        return outputs;
+    }
+
+    List<String> items(int shard) throws IOException {
+        return Files.readAllLines(directory.resolve("shards").resolve(name(shard) + ".items"), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return channel to read NDJSON items from, or null for a directory job
+     */
+    FileChannel openInput() throws IOException {
+        return source == Source.NDJSON ? FileChannel.open(input, StandardOpenOption.READ) : null;
+    }
+
+    /**
+     * @param item  item of a shard
+     * @param input channel returned by {@link #openInput()}
+     * @return invoice JSON bytes
+     */
+    byte[] read(String item, FileChannel input) throws IOException {
+        if (source == Source.DIRECTORY) return Files.readAllBytes(Path.of(item));
+
+        int separator = item.indexOf(' ');
+        long offset = Long.parseLong(item.substring(0, separator));
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.parseInt(item.substring(separator + 1)));
+        while (buffer.hasRemaining()) {
+            if (input.read(buffer, offset + buffer.position()) < 0) throw new EOFException("Input was truncated: " + this.input);
+        }
+        return buffer.array();
+    }
+
+    Path leaseFile(int shard) {
+        return directory.resolve("leases").resolve(name(shard) + ".lease");
+    }
+
+    Path checkpointFile(int shard) {
+        return directory.resolve("checkpoints").resolve(name(shard) + ".ckpt");
+    }
+
+    /**
+     * @param segment id of a segment of the shard, see {@link Checkpoint#segments()}
+     */
+    Path segmentFile(int shard, String segment) {
+        return directory.resolve("segments").resolve(name(shard) + "-" + segment + ".ndjson");
+    }
+
+    /**
+     * @param segment id of a segment of the shard, see {@link Checkpoint#segments()}
+     */
+    Path segmentErrorFile(int shard, String segment) {
+        return directory.resolve("segments").resolve(name(shard) + "-" + segment + ".errors");
+    }
+
+    /**
+     * @return segment files of the shard, committed or left behind by interrupted or superseded attempts
+     */
+    List<Path> segmentFiles(int shard) throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("segments"))) {
+            return files.filter(file -> file.getFileName().toString().startsWith(name(shard) + "-")).toList();
+        }
+    }
+
+    Path outputFile(int shard) {
+        return directory.resolve("output").resolve(name(shard) + ".ndjson");
+    }
+
+    Path errorFile(int shard) {
+        return directory.resolve("output").resolve(name(shard) + ".errors");
+    }
+
+    private static String name(int shard) {
+        return String.format("%05d", shard);
+    }
+
+    private static Path prepare(Path jobDirectory) throws IOException {
+        if (Files.exists(jobDirectory.resolve(PROPERTIES))) throw new FileAlreadyExistsException(jobDirectory.resolve(PROPERTIES).toString());
+        for (String sub : List.of("shards", "leases", "checkpoints", "segments", "output")) {
+            Files.createDirectories(jobDirectory.resolve(sub));
+        }
+        return jobDirectory;
+    }
+
+    private static final class ShardWriter implements AutoCloseable {
+
+        private final Path directory;
+        private final int shardSize;
+        private int shards;
+        private int items;
+        private Writer current;
+
+        ShardWriter(Path directory, int shardSize) {
+            if (shardSize < 1) throw new IllegalArgumentException("Shard size must be positive: " + shardSize);
+            this.directory = directory;
+            this.shardSize = shardSize;
+        }
+
+        void add(String item) throws IOException {
+            if (current == null || items == shardSize) {
+                if (current != null) current.close();
+                current = Files.newBufferedWriter(directory.resolve("shards").resolve(name(shards++) + ".items"),
+                        StandardCharsets.UTF_8);
+                items = 0;
+            }
+            current.write(item);
+            current.write('\n');
+            items++;
+        }
+
+        BatchJob finish(Source source, Path input) throws IOException {
+            close();
+            Properties properties = new Properties();
+            properties.setProperty("source", source.name());
+            properties.setProperty("input", input.toString());
+            properties.setProperty("shards", Integer.toString(shards));
+
+            Path tmp = directory.resolve(PROPERTIES + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "GOBL signing job");
+            }
+            Files.move(tmp, directory.resolve(PROPERTIES), StandardCopyOption.ATOMIC_MOVE);
+            log.info("Planned {} shards of {} in {}", shards, input, directory);
+            return new BatchJob(directory, source, input, shards);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.alapierre.gobl.core.batch;
+
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.jsonwebtoken.security.Jwk;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.interfaces.ECPrivateKey;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line entry point of batch signing. Plan the job once, then start as many workers as needed, on any
+ * machine that sees the job directory under the same path:
+ * <pre>
+ * java -cp ... io.alapierre.gobl.core.batch.BatchRunner plan invoices/ job/ 1000
+ * java -cp ... io.alapierre.gobl.core.batch.BatchRunner run job/ id_es256.jwk
+ * </pre>
+ * A worker stopped with SIGTERM checkpoints its shard before exiting; a killed worker's shard is taken over when
+ * its lease times out.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class BatchRunner {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 2 && "plan".equals(args[0])) {
+            plan(args);
+        } else if (args.length >= 3 && "run".equals(args[0])) {
+            run(args);
+        } else {
+            System.err.println("Usage: BatchRunner plan <input-directory | input.ndjson> <job-directory> [shard-size]");
+            System.err.println("       BatchRunner run <job-directory> <private-key.jwk> [kid]");
+            System.exit(2);
+        }
+    }
+
+    private static void plan(String[] args) throws Exception {
+        Path input = Path.of(args[1]);
+        Path jobDirectory = Path.of(args[2]);
+        int shardSize = args.length > 3 ? Integer.parseInt(args[3]) : BatchJob.DEFAULT_SHARD_SIZE;
+
+        BatchJob job = Files.isDirectory(input)
+                ? BatchJob.planDirectory(input, jobDirectory, shardSize)
+                : BatchJob.planNdjson(input, jobDirectory, shardSize);
+        System.out.println("planned " + job.shardCount() + " shards");
+    }
+
+    private static void run(String[] args) throws Exception {
+        Jwk<?> jwk = new KeySupport().loadJwk(Path.of(args[2]));
+        String kid = args.length > 3 ? args[3] : jwk.getId();
+        if (kid == null) throw new IllegalArgumentException("Private key JWK has no kid, pass it as an argument");
+
+        Gobl gobl = new Gobl();
+        BatchWorker worker = new BatchWorker(gobl, BatchJob.open(Path.of(args[1])), (ECPrivateKey) jwk.toKey(),
+                UUID.fromString(kid));
+
+        CountDownLatch finished = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            worker.stop();
+            try {
+                if (!finished.await(30, TimeUnit.SECONDS)) log.warn("Worker did not checkpoint in time");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "gobl-batch-shutdown"));
+
+        try {
+            BatchWorker.Summary summary = worker.run();
+            System.out.println("signed " + summary.signed() + ", failed " + summary.failed() + " in " + summary.shards() + " shards");
+        } finally {
+            finished.countDown();
+        }
+    }
+}
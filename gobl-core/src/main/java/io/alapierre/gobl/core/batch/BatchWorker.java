@@ -0,0 +1,267 @@
+package io.alapierre.gobl.core.batch;
+
+import io.alapierre.gobl.core.Gobl;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.interfaces.ECPrivateKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Signs the shards of a {@link BatchJob} with {@link Gobl#signInvoice(java.io.InputStream, ECPrivateKey, UUID)}.
+ * <p>
+ * Any number of workers, in one or many processes on machines sharing the job directory, can run the same job:
+ * each worker claims shards through a {@link ShardLease}, signs their items in order into a segment file of its
+ * own and commits the segment with a {@link Checkpoint} every {@code checkpointInterval} items. A shard
+ * interrupted by a crash is taken over once its lease times out and resumes right after its last checkpoint; a
+ * worker that lost its lease can't commit, so it never changes output committed by the new owner. The segments of
+ * a completed shard are joined into its output file. Invoices that can't be signed are recorded in the shard's
+ * error file and do not stop the run.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class BatchWorker {
+
+    public static final Duration DEFAULT_LEASE_TIMEOUT = Duration.ofMinutes(2);
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 100;
+
+    /**
+     * Work done by one {@link #run()}.
+     *
+     * @param shards shards completed by this worker
+     * @param signed invoices signed
+     * @param failed invoices that could not be signed
+     */
+    public record Summary(int shards, long signed, long failed) {}
+
+    private final Gobl gobl;
+    private final BatchJob job;
+    private final ECPrivateKey privateKey;
+    private final UUID kid;
+    private final Duration leaseTimeout;
+    private final int checkpointInterval;
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    private volatile boolean stopped;
+
+    public BatchWorker(@NonNull Gobl gobl, @NonNull BatchJob job, @NonNull ECPrivateKey privateKey, @NonNull UUID kid) {
+        this(gobl, job, privateKey, kid, DEFAULT_LEASE_TIMEOUT, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * @param leaseTimeout       heartbeat age after which a shard of a crashed worker is taken over; the heartbeat
+     *                           is renewed every third of it
+     * @param checkpointInterval number of items between checkpoints, i.e. the most work repeated after a crash
+     */
+    public BatchWorker(@NonNull Gobl gobl, @NonNull BatchJob job, @NonNull ECPrivateKey privateKey, @NonNull UUID kid,
+                       @NonNull Duration leaseTimeout, int checkpointInterval) {
+        if (checkpointInterval < 1) throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+        this.gobl = gobl;
+        this.job = job;
+        this.privateKey = privateKey;
+        this.kid = kid;
+        this.leaseTimeout = leaseTimeout;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * @return id written to the lease files of this worker
+     */
+    public String owner() {
+        return owner;
+    }
+
+    /**
+     * Processes shards until the job is complete. While the remaining shards are leased by other workers, this
+     * worker waits and takes over any whose lease times out.
+     *
+     * @return work done by this worker
+     * @throws IOException if the job directory, the input or the output can't be accessed
+     */
+    public Summary run() throws IOException {
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gobl-batch-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, leaseTimeout.toMillis() / 3);
+        int shards = 0;
+        long[] counts = new long[2];
+        try (FileChannel input = job.openInput()) {
+            while (!stopped) {
+                boolean pending = false;
+                boolean claimed = false;
+                for (int shard = 0; shard < job.shardCount() && !stopped; shard++) {
+                    if (Checkpoint.read(job.checkpointFile(shard)).complete()) continue;
+                    pending = true;
+
+                    ShardLease lease = ShardLease.tryAcquire(job.leaseFile(shard), owner, leaseTimeout);
+                    if (lease == null) continue;
+                    claimed = true;
+
+                    ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(() -> renew(lease), period, period, TimeUnit.MILLISECONDS);
+                    try {
+                        if (process(shard, lease, input, counts)) shards++;
+                    } finally {
+                        renewal.cancel(false);
+                        lease.close();
+                    }
+                }
+                if (!pending) break;
+                // the remaining shards are leased by others: wait until they finish or their leases time out
+                if (!claimed && !pause(period)) break;
+            }
+        } finally {
+            heartbeat.shutdownNow();
+        }
+        log.info("Worker {} completed {} shards: {} signed, {} failed", owner, shards, counts[0], counts[1]);
+        return new Summary(shards, counts[0], counts[1]);
+    }
+
+    /**
+     * Asks {@link #run()} to checkpoint and return after the item in progress.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return {@code true} if the shard was completed
+     */
+    private boolean process(int shard, ShardLease lease, FileChannel input, long[] counts) throws IOException {
+        // the checkpoint may have been completed between the check and taking the lease
+        Checkpoint checkpoint = Checkpoint.read(job.checkpointFile(shard));
+        if (checkpoint.complete()) return false;
+
+        List<String> items = job.items(shard);
+        List<String> segments = new ArrayList<>(checkpoint.segments());
+        if (checkpoint.items() > 0) log.info("Resuming shard {} at item {}", shard, checkpoint.items());
+
+        int i = (int) checkpoint.items();
+        while (i < items.size()) {
+            String segment = UUID.randomUUID().toString();
+            try (FileChannel output = create(job.segmentFile(shard, segment));
+                 FileChannel errors = create(job.segmentErrorFile(shard, segment))) {
+                do {
+                    String item = items.get(i++);
+                    byte[] invoice = job.read(item, input);
+                    try {
+                        write(output, singleLine(gobl.signInvoice(new ByteArrayInputStream(invoice), privateKey, kid)));
+                        counts[0]++;
+                    } catch (Exception e) {
+                        log.warn("Can't sign {}: {}", item, e.toString());
+                        write(errors, item + "\t" + singleLine(String.valueOf(e)));
+                        counts[1]++;
+                    }
+                } while (i < items.size() && i % checkpointInterval != 0 && !stopped);
+                output.force(false);
+                errors.force(false);
+            }
+            if (!lease.held()) {
+                log.warn("Lost the lease of shard {}, leaving it to {}", shard, job.leaseFile(shard));
+                return false;
+            }
+            segments.add(segment);
+            new Checkpoint(i, segments, false).write(job.checkpointFile(shard));
+            if (stopped && i < items.size()) return false;
+        }
+
+        join(shard, segments, job.outputFile(shard), job::segmentFile);
+        join(shard, segments, job.errorFile(shard), job::segmentErrorFile);
+        if (!lease.held()) {
+            log.warn("Lost the lease of shard {}, leaving it to {}", shard, job.leaseFile(shard));
+            return false;
+        }
+        new Checkpoint(i, segments, true).write(job.checkpointFile(shard));
+        for (Path file : job.segmentFiles(shard)) Files.deleteIfExists(file);
+        return true;
+    }
+
+    /**
+     * Replaces the target atomically with the concatenated segment files.
+     */
+    private static void join(int shard, List<String> segments, Path target, BiFunction<Integer, String, Path> files)
+            throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                for (String segment : segments) {
+                    try (FileChannel in = FileChannel.open(files.apply(shard, segment), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        for (long done = 0; done < size; ) done += in.transferTo(done, size - done, out);
+                    }
+                }
+                out.force(false);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void renew(ShardLease lease) {
+        try {
+            if (!lease.renew()) log.warn("Lease taken over by another worker");
+        } catch (IOException e) {
+            log.warn("Can't renew lease", e);
+        }
+    }
+
+    private static FileChannel create(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static void write(FileChannel channel, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    /**
+     * Drops line breaks and the indentation after them; JSON strings can't contain raw line breaks, so the
+     * document is unchanged.
+     */
+    static String singleLine(String text) {
+        StringBuilder line = new StringBuilder(text.length());
+        boolean indent = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                indent = true;
+            } else if (!(indent && c == ' ')) {
+                indent = false;
+                line.append(c);
+            }
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package io.alapierre.gobl.core.batch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Progress of a shard. Each attempt writes its output to segment files of its own, and a checkpoint commits them by
+ * listing them; segments written after the last checkpoint, or by a worker that lost the lease, are never part of
+ * the shard's output. Every item therefore ends up in the output exactly once however often the shard is
+ * interrupted or taken over.
+ *
+ * @param items    number of items of the shard processed so far
+ * @param segments ids of the committed segments holding the output of those items, in item order
+ * @param complete {@code true} once all items are processed and the segments joined into the shard's output
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+record Checkpoint(long items, List<String> segments, boolean complete) {
+
+    static final Checkpoint START = new Checkpoint(0, List.of(), false);
+
+    Checkpoint {
+        segments = List.copyOf(segments);
+    }
+
+    /**
+     * @return the checkpoint, or {@link #START} if the shard was never checkpointed
+     */
+    static Checkpoint read(Path file) throws IOException {
+        if (!Files.exists(file)) return START;
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        String segments = properties.getProperty("segments");
+        return new Checkpoint(Long.parseLong(properties.getProperty("items")),
+                segments.isEmpty() ? List.of() : List.of(segments.split(",")),
+                Boolean.parseBoolean(properties.getProperty("complete")));
+    }
+
+    /**
+     * Replaces the checkpoint atomically, so a crash leaves either the previous or the new one.
+     */
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("items", Long.toString(items));
+        properties.setProperty("segments", String.join(",", segments));
+        properties.setProperty("complete", Boolean.toString(complete));
+
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.alapierre.gobl.core.batch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * File-based lease on a shard. The lease file is created exclusively ({@code O_CREAT|O_EXCL}) and holds the owner
+ * id; its modification time is the heartbeat, refreshed by {@link #renew()}. A lease whose heartbeat is older than
+ * the timeout is considered abandoned by a crashed worker: it is moved aside with an atomic rename and created again.
+ * Two workers may judge the same heartbeat stale; the second rename then moves the lease the first one just
+ * created, so a worker that finds another owner or heartbeat in the file it moved puts it back and backs off.
+ * <p>
+ * A worker can still lose its lease without noticing at once, e.g. after a pause longer than the timeout, so
+ * holders check {@link #held()} before committing work, and uncommitted work of a superseded holder is discarded,
+ * see {@link Checkpoint}.
+ * <p>
+ * The timeout must be well above the renewal interval and the clock skew between machines sharing the file system.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+final class ShardLease implements Closeable {
+
+    private final Path file;
+    private final String owner;
+
+    private ShardLease(Path file, String owner) {
+        this.file = file;
+        this.owner = owner;
+    }
+
+    /**
+     * @param file    lease file
+     * @param owner   unique id of the worker
+     * @param timeout age of the heartbeat after which the lease may be taken over
+     * @return the lease, or null if another worker holds it
+     * @throws IOException if the lease file can't be read or written
+     */
+    static ShardLease tryAcquire(Path file, String owner, Duration timeout) throws IOException {
+        if (create(file, owner)) return new ShardLease(file, owner);
+
+        FileTime heartbeat;
+        String staleOwner;
+        try {
+            heartbeat = Files.getLastModifiedTime(file);
+            staleOwner = Files.readString(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            // released in the meantime
+            return create(file, owner) ? new ShardLease(file, owner) : null;
+        }
+        if (heartbeat.toInstant().plus(timeout).isAfter(Instant.now())) return null;
+        return takeOver(file, owner, staleOwner, heartbeat);
+    }
+
+    /**
+     * Replaces a lease judged abandoned.
+     *
+     * @param file       lease file
+     * @param owner      unique id of the worker
+     * @param staleOwner owner read from the lease file when it was judged abandoned
+     * @param heartbeat  heartbeat read from the lease file when it was judged abandoned
+     * @return the lease, or null if the lease file changed since it was read
+     * @throws IOException if the lease file can't be read or written
+     */
+    static ShardLease takeOver(Path file, String owner, String staleOwner, FileTime heartbeat) throws IOException {
+        Path stale = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".stale");
+        try {
+            Files.move(file, stale, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return null; // another worker took it over first
+        }
+        if (!heartbeat.equals(Files.getLastModifiedTime(stale)) || !staleOwner.equals(Files.readString(stale, StandardCharsets.UTF_8))) {
+            // renewed or already taken over by another worker since it was read
+            restore(file, stale);
+            return null;
+        }
+        log.warn("Taking over lease {} abandoned by {}", file, staleOwner);
+        Files.deleteIfExists(stale);
+        return create(file, owner) ? new ShardLease(file, owner) : null;
+    }
+
+    /**
+     * @return {@code true} while the lease file still names this owner
+     * @throws IOException if the lease file can't be read
+     */
+    boolean held() throws IOException {
+        try {
+            return owner.equals(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Refreshes the heartbeat.
+     *
+     * @return {@code false} if the lease was lost to another worker
+     * @throws IOException if the lease file can't be updated
+     */
+    boolean renew() throws IOException {
+        if (!held()) return false;
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        return true;
+    }
+
+    /**
+     * Deletes the lease file if it is still held.
+     */
+    @Override
+    public void close() throws IOException {
+        if (held()) Files.deleteIfExists(file);
+    }
+
+    /**
+     * Puts a lease moved aside by mistake back, unless a new one was created in the meantime.
+     */
+    private static void restore(Path file, Path stale) throws IOException {
+        try {
+            Files.createLink(file, stale);
+        } catch (FileAlreadyExistsException e) {
+            log.warn("Lease {} was created again before it could be restored", file);
+        } finally {
+            Files.deleteIfExists(stale);
+        }
+    }
+
+    private static boolean create(Path file, String owner) throws IOException {
+        try {
+            Files.writeString(file, owner, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.alapierre.gobl.core.bundle;
+
+import java.util.UUID;
+
+/**
+ * Row of the bundle index: where an envelope is stored and what it claims to contain.
+ *
+ * @param uuid           envelope {@code head.uuid}
+ * @param digestAlg      algorithm of the document digest, {@code head.dig.alg}
+ * @param digest         document digest, {@code head.dig.val}
+ * @param offset         position of the entry's ZIP local header in the bundle
+ * @param compressedSize length of the deflated envelope
+ * @param size           length of the envelope JSON
+ * @param crc            CRC-32 of the envelope JSON
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public record BundleEntry(UUID uuid, String digestAlg, String digest, long offset, int compressedSize, int size, long crc) {
+
+    /**
+     * @return name of the entry in the ZIP archive
+     */
+    public String name() {
+        return uuid + ".json";
+    }
+
+    String toLine() {
+        return uuid + "\t" + digestAlg + "\t" + digest + "\t" + offset + "\t" + compressedSize + "\t" + size + "\t" + crc;
+    }
+
+    static BundleEntry parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 7) throw new IllegalArgumentException("Bundle index line has " + fields.length + " fields");
+        return new BundleEntry(UUID.fromString(fields[0]), fields[1], fields[2], Long.parseLong(fields[3]),
+                Integer.parseInt(fields[4]), Integer.parseInt(fields[5]), Long.parseLong(fields[6]));
+    }
+}
@@ -0,0 +1,255 @@
+package io.alapierre.gobl.core.bundle;
+
+import io.alapierre.ksef.fa.model.gobl.EnvelopSerializer;
+import io.alapierre.ksef.fa.model.gobl.exceptions.JsonParserException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gobl.model.Header;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes signed envelopes into a bundle read by {@link EnvelopeBundle}.
+ * <p>
+ * A bundle is a ZIP archive, so auditors can open it with any ZIP tool: every envelope is a deflated entry named
+ * {@code <uuid>.json}, followed by the stored entry {@value EnvelopeBundle#INDEX} with the uuid, digest and offset
+ * of every envelope. The archive comment points at the index, so a reader finds any envelope with two reads and
+ * without walking the central directory.
+ * <p>
+ * Envelopes are compressed on {@code parallelism} threads and written in the order they were added; at most
+ * {@code 2 * parallelism} of them wait in memory. The bundle is written to a temporary file and moved into place by
+ * {@link #close()}. The ZIP format without ZIP64 limits a bundle to 65,534 envelopes and 4 GiB.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class BundleWriter implements Closeable {
+
+    private record Compressed(BundleEntry entry, byte[] data) {}
+
+    private final EnvelopSerializer envelopes = new EnvelopSerializer();
+    private final Path file;
+    private final Path tmp;
+    private final FileChannel channel;
+    private final ExecutorService workers;
+    private final int window;
+    private final int level;
+    private final int dosTime = ZipFormat.dosTime(LocalDateTime.now());
+    private final Deque<Future<Compressed>> pending = new ArrayDeque<>();
+    private final List<BundleEntry> entries = new ArrayList<>();
+    private final Set<UUID> uuids = new HashSet<>();
+    private long position;
+    private boolean closed;
+    /** first exception thrown by {@link #add(byte[])}, after which the bundle can't be completed */
+    private Exception failure;
+
+    private BundleWriter(Path file, int parallelism, int level) throws IOException {
+        this.file = file;
+        Path directory = file.toAbsolutePath().getParent();
+        this.tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        this.channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "gobl-bundle-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.window = 2 * parallelism;
+        this.level = level;
+    }
+
+    /**
+     * Creates a bundle compressed on all available processors.
+     *
+     * @param file bundle file, replaced by {@link #close()} if it exists
+     * @return writer of the bundle
+     * @throws IOException if the temporary file can't be created
+     */
+    public static BundleWriter create(@NonNull Path file) throws IOException {
+        return create(file, Runtime.getRuntime().availableProcessors(), Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param file        bundle file, replaced by {@link #close()} if it exists
+     * @param parallelism number of compressing threads
+     * @param level       deflate level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @return writer of the bundle
+     * @throws IOException if the temporary file can't be created
+     */
+    public static BundleWriter create(@NonNull Path file, int parallelism, int level) throws IOException {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < 0 || level > 9)) {
+            throw new IllegalArgumentException("Invalid deflate level: " + level);
+        }
+        return new BundleWriter(file, parallelism, level);
+    }
+
+    /**
+     * Adds an envelope. Its header is read and the envelope compressed in the background, so an envelope without
+     * {@code head.uuid} and {@code head.dig}, or with a uuid already in the bundle, may be reported by a later call.
+     *
+     * @param envelope UTF-8 encoded envelope JSON, must not be modified afterwards
+     * @throws IOException if the bundle can't be written
+     * @throws IllegalArgumentException if this or an earlier envelope has no uuid or digest or is a duplicate
+     * @throws JsonParserException if this or an earlier envelope is not valid JSON
+     * @throws IllegalStateException if the writer is closed or an earlier call failed
+     */
+    public synchronized void add(byte @NonNull [] envelope) throws IOException {
+        if (closed) throw new IllegalStateException("Bundle writer is closed");
+        if (failure != null) throw new IllegalStateException("Bundle writer failed on an earlier envelope", failure);
+        pending.add(workers.submit(() -> compress(envelope)));
+        try {
+            while (pending.size() > window) writeNext();
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of envelopes added so far
+     */
+    public synchronized int size() {
+        return entries.size() + pending.size();
+    }
+
+    /**
+     * Writes the remaining envelopes, the index and the central directory and moves the bundle into place. If any
+     * envelope was rejected, here or by an earlier {@link #add(byte[])}, the bundle is discarded and the existing
+     * file left as it was.
+     *
+     * @throws IOException if the bundle can't be written or an earlier call failed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (failure != null) throw new IOException("Bundle " + file + " not written, an envelope was rejected", failure);
+            while (!pending.isEmpty()) writeNext();
+            finish();
+            channel.force(false);
+            channel.close();
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.debug("Bundle {} written with {} envelopes, {} bytes", file, entries.size(), position);
+        } finally {
+            workers.shutdownNow();
+            channel.close();
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private Compressed compress(byte[] envelope) {
+        Header head = envelopes.peek(envelope).head();
+        if (head.getUuid() == null) throw new IllegalArgumentException("Envelope has no head.uuid");
+        if (head.getDig() == null || head.getDig().getVal() == null) {
+            throw new IllegalArgumentException("Envelope " + head.getUuid() + " has no head.dig");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(envelope);
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(envelope);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, envelope.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) out.write(buffer, 0, deflater.deflate(buffer));
+            byte[] data = out.toByteArray();
+            return new Compressed(new BundleEntry(head.getUuid(), head.getDig().getAlg(), head.getDig().getVal(),
+                    -1, data.length, envelope.length, crc.getValue()), data);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        Compressed compressed;
+        try {
+            compressed = pending.remove().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing envelopes");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IOException(e.getCause());
+        }
+
+        BundleEntry entry = compressed.entry();
+        if (!uuids.add(entry.uuid())) throw new IllegalArgumentException("Duplicate envelope " + entry.uuid());
+        entry = new BundleEntry(entry.uuid(), entry.digestAlg(), entry.digest(), position,
+                entry.compressedSize(), entry.size(), entry.crc());
+        ByteBuffer header = ZipFormat.localHeader(entry.name(), ZipFormat.DEFLATED, dosTime, entry.crc(),
+                entry.compressedSize(), entry.size());
+        reserve(header.remaining() + (long) compressed.data().length, entries.size() + 2);
+        ZipFormat.write(channel, header);
+        ZipFormat.write(channel, ByteBuffer.wrap(compressed.data()));
+        position = channel.position();
+        entries.add(entry);
+    }
+
+    private void finish() throws IOException {
+        StringBuilder index = new StringBuilder(EnvelopeBundle.INDEX_HEADER).append('\n');
+        for (BundleEntry entry : entries) index.append(entry.toLine()).append('\n');
+        byte[] indexBytes = index.toString().getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(indexBytes);
+
+        long indexOffset = position;
+        ByteBuffer header = ZipFormat.localHeader(EnvelopeBundle.INDEX, ZipFormat.STORED, dosTime, crc.getValue(),
+                indexBytes.length, indexBytes.length);
+        reserve(header.remaining() + (long) indexBytes.length, entries.size() + 1);
+        ZipFormat.write(channel, header);
+        ZipFormat.write(channel, ByteBuffer.wrap(indexBytes));
+
+        int directorySize = ZipFormat.centralHeaderSize(EnvelopeBundle.INDEX);
+        for (BundleEntry entry : entries) directorySize += ZipFormat.centralHeaderSize(entry.name());
+        long directoryOffset = channel.position();
+        reserve(directorySize + (long) ZipFormat.END_SIZE, entries.size() + 1);
+
+        ByteBuffer directory = ZipFormat.buffer(directorySize);
+        for (BundleEntry entry : entries) {
+            ZipFormat.centralHeader(directory, entry.name(), ZipFormat.DEFLATED, dosTime, entry.crc(),
+                    entry.compressedSize(), entry.size(), entry.offset());
+        }
+        ZipFormat.centralHeader(directory, EnvelopeBundle.INDEX, ZipFormat.STORED, dosTime, crc.getValue(),
+                indexBytes.length, indexBytes.length, indexOffset);
+        ZipFormat.write(channel, directory.flip());
+        ZipFormat.write(channel, ZipFormat.end(entries.size() + 1, directorySize, directoryOffset,
+                EnvelopeBundle.COMMENT_PREFIX + indexOffset));
+        position = channel.position();
+    }
+
+    /**
+     * Fails before the bundle outgrows 32-bit ZIP offsets or 16-bit entry counts.
+     */
+    private void reserve(long bytes, int entryCount) throws IOException {
+        if (channel.position() + bytes > ZipFormat.MAX_OFFSET || entryCount > ZipFormat.MAX_ENTRIES) {
+            throw new IOException("Bundle exceeds 65,534 envelopes or 4 GiB, split it into several bundles");
+        }
+    }
+}
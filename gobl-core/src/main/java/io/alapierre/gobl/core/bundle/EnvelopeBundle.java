@@ -0,0 +1,276 @@
+package io.alapierre.gobl.core.bundle;
+
+import io.alapierre.gobl.core.Gobl;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gobl.model.Header;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read access to a bundle written by {@link BundleWriter}.
+ * <p>
+ * Opening a bundle reads only its index; {@link #read(UUID)} fetches a single envelope with two positional reads
+ * and inflates nothing else. Reads don't share state, so any number of threads can read the same bundle, which is
+ * what {@link #verify(Gobl, Key)} does to check all envelopes on all cores.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class EnvelopeBundle implements Closeable {
+
+    /** name of the index entry */
+    public static final String INDEX = "gobl-index.tsv";
+
+    static final String INDEX_HEADER = "uuid\tdig.alg\tdig.val\toffset\tcompressed\tsize\tcrc32";
+    static final String COMMENT_PREFIX = "gobl-bundle/1 index=";
+
+    /**
+     * Outcome of {@link #verify(Gobl, Key)}.
+     *
+     * @param verified number of envelopes whose signature is valid and whose header matches the index
+     * @param failures reason of the failure by envelope uuid, sorted by uuid
+     */
+    public record Verification(int verified, Map<UUID, String> failures) {
+
+        /**
+         * @return {@code true} if every envelope of the bundle was verified
+         */
+        public boolean valid() {
+            return failures.isEmpty();
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long indexOffset;
+    private final List<BundleEntry> entries;
+    private final Map<UUID, BundleEntry> byUuid;
+
+    private EnvelopeBundle(Path file, FileChannel channel, long indexOffset, List<BundleEntry> entries) {
+        this.file = file;
+        this.channel = channel;
+        this.indexOffset = indexOffset;
+        this.entries = Collections.unmodifiableList(entries);
+        Map<UUID, BundleEntry> map = new HashMap<>(entries.size() * 2);
+        for (BundleEntry entry : entries) map.put(entry.uuid(), entry);
+        this.byUuid = map;
+    }
+
+    /**
+     * @param file bundle file
+     * @return the opened bundle, close it when done
+     * @throws IOException if the file can't be read or is not a bundle
+     */
+    public static EnvelopeBundle open(@NonNull Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long indexOffset = indexOffset(file, channel);
+            List<BundleEntry> entries = readIndex(file, channel, indexOffset);
+            log.debug("Opened bundle {} with {} envelopes", file, entries.size());
+            return new EnvelopeBundle(file, channel, indexOffset, entries);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of envelopes in the bundle
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return index of the bundle, in the order the envelopes were written
+     */
+    public List<BundleEntry> entries() {
+        return entries;
+    }
+
+    /**
+     * @param uuid envelope uuid
+     * @return index entry of the envelope, empty if it is not in the bundle
+     */
+    public Optional<BundleEntry> entry(@NonNull UUID uuid) {
+        return Optional.ofNullable(byUuid.get(uuid));
+    }
+
+    /**
+     * @param uuid envelope uuid
+     * @return UTF-8 encoded envelope JSON
+     * @throws IOException if the envelope can't be read or is damaged
+     * @throws NoSuchElementException if the envelope is not in the bundle
+     */
+    public byte[] read(@NonNull UUID uuid) throws IOException {
+        BundleEntry entry = byUuid.get(uuid);
+        if (entry == null) throw new NoSuchElementException("No envelope " + uuid + " in " + file);
+        return read(entry);
+    }
+
+    /**
+     * @param entry entry of {@link #entries()}
+     * @return UTF-8 encoded envelope JSON
+     * @throws IOException if the envelope can't be read or is damaged
+     */
+    public byte[] read(@NonNull BundleEntry entry) throws IOException {
+        ByteBuffer header = ZipFormat.read(channel, entry.offset(), ZipFormat.LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != ZipFormat.LOCAL_HEADER || header.getShort(8) != ZipFormat.DEFLATED) {
+            throw new IOException("No deflated entry at offset " + entry.offset() + " of " + file);
+        }
+        long dataOffset = entry.offset() + ZipFormat.LOCAL_HEADER_SIZE
+                + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+        if (dataOffset + entry.compressedSize() > indexOffset) {
+            throw new IOException("Entry " + entry.uuid() + " overruns the index of " + file);
+        }
+
+        ByteBuffer compressed = ZipFormat.read(channel, dataOffset, entry.compressedSize());
+        byte[] envelope = new byte[entry.size()];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < envelope.length && !inflater.finished() && !inflater.needsInput()) {
+                length += inflater.inflate(envelope, length, envelope.length - length);
+            }
+            if (length != envelope.length) throw new IOException("Entry " + entry.uuid() + " of " + file + " is truncated");
+        } catch (DataFormatException e) {
+            throw new IOException("Entry " + entry.uuid() + " of " + file + " is damaged", e);
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(envelope);
+        if (crc.getValue() != entry.crc()) throw new IOException("CRC of entry " + entry.uuid() + " of " + file + " doesn't match");
+        return envelope;
+    }
+
+    /**
+     * Verifies every envelope of the bundle on the common fork-join pool, see {@link #verify(Gobl, Key, ForkJoinPool)}.
+     */
+    public Verification verify(@NonNull Gobl gobl, @NonNull Key key) {
+        return verify(gobl, key, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Verifies every envelope of the bundle the way {@link Gobl#verify(java.io.InputStream, Key)} does, and checks
+     * that its {@code head.uuid} and {@code head.dig} are the ones in the index. Envelopes are read and verified in
+     * parallel on {@code pool}; a failed envelope doesn't stop the others.
+     *
+     * @param gobl instance used to verify, its {@link Gobl#documents()} must know the document types of the bundle
+     * @param key  public key the envelopes are signed with
+     * @param pool pool the envelopes are verified on
+     * @return number of verified envelopes and the reasons of the failures
+     */
+    public Verification verify(@NonNull Gobl gobl, @NonNull Key key, @NonNull ForkJoinPool pool) {
+        Map<UUID, String> failures = new ConcurrentHashMap<>();
+        pool.submit(() -> entries.parallelStream().forEach(entry -> {
+            String failure = check(gobl, key, entry);
+            if (failure != null) failures.put(entry.uuid(), failure);
+        })).join();
+        if (!failures.isEmpty()) log.debug("{} of {} envelopes of {} failed verification", failures.size(), entries.size(), file);
+        return new Verification(entries.size() - failures.size(), Collections.unmodifiableMap(new TreeMap<>(failures)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return reason why the envelope is not valid, or null if it is
+     */
+    private String check(Gobl gobl, Key key, BundleEntry entry) {
+        try {
+            byte[] envelope = read(entry);
+            Header head = gobl.peekEnvelope(envelope).head();
+            if (!entry.uuid().equals(head.getUuid())) return "Envelope uuid " + head.getUuid() + " doesn't match the index";
+            if (head.getDig() == null || !Objects.equals(entry.digest(), head.getDig().getVal())
+                    || !Objects.equals(entry.digestAlg(), head.getDig().getAlg())) {
+                return "Envelope digest doesn't match the index";
+            }
+            gobl.verify(new ByteArrayInputStream(envelope), key);
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return e.toString();
+        }
+    }
+
+    /**
+     * Finds the end of central directory record and reads the index offset from its comment.
+     */
+    private static long indexOffset(Path file, FileChannel channel) throws IOException {
+        long size = channel.size();
+        int tailLength = (int) Math.min(size, ZipFormat.END_SIZE + 0xFFFF);
+        ByteBuffer tail = ZipFormat.read(channel, size - tailLength, tailLength);
+        for (int i = tailLength - ZipFormat.END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) != ZipFormat.END_OF_CENTRAL_DIRECTORY) continue;
+            int commentLength = tail.getShort(i + 20) & 0xFFFF;
+            if (i + ZipFormat.END_SIZE + commentLength != tailLength) continue;
+
+            String comment = new String(tail.array(), i + ZipFormat.END_SIZE, commentLength, StandardCharsets.UTF_8);
+            if (!comment.startsWith(COMMENT_PREFIX)) break;
+            try {
+                return Long.parseLong(comment.substring(COMMENT_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                break;
+            }
+        }
+        throw new IOException(file + " is not a GOBL envelope bundle");
+    }
+
+    private static List<BundleEntry> readIndex(Path file, FileChannel channel, long offset) throws IOException {
+        ByteBuffer header = ZipFormat.read(channel, offset, ZipFormat.LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != ZipFormat.LOCAL_HEADER || header.getShort(8) != ZipFormat.STORED) {
+            throw new IOException("No index at offset " + offset + " of " + file);
+        }
+        int nameLength = header.getShort(26) & 0xFFFF;
+        int extraLength = header.getShort(28) & 0xFFFF;
+        int size = header.getInt(22);
+        ByteBuffer name = ZipFormat.read(channel, offset + ZipFormat.LOCAL_HEADER_SIZE, nameLength);
+        if (!INDEX.equals(StandardCharsets.UTF_8.decode(name).toString()) || size < 0) {
+            throw new IOException("No index at offset " + offset + " of " + file);
+        }
+
+        ByteBuffer data = ZipFormat.read(channel, offset + ZipFormat.LOCAL_HEADER_SIZE + nameLength + extraLength, size);
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate());
+        if ((int) crc.getValue() != header.getInt(14)) throw new IOException("Index of " + file + " is damaged");
+
+        String[] lines = StandardCharsets.UTF_8.decode(data).toString().split("\n");
+        if (!INDEX_HEADER.equals(lines[0])) throw new IOException("Unsupported index format in " + file);
+        List<BundleEntry> entries = new ArrayList<>(lines.length - 1);
+        try {
+            for (int i = 1; i < lines.length; i++) entries.add(BundleEntry.parse(lines[i]));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Index of " + file + " is damaged", e);
+        }
+        return entries;
+    }
+}
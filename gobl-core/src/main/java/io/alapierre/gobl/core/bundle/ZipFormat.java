@@ -0,0 +1,125 @@
+package io.alapierre.gobl.core.bundle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * The subset of the ZIP format (APPNOTE 6.3) written by {@link BundleWriter}: deflated or stored entries with sizes
+ * and CRC in the local header, UTF-8 names, no ZIP64, no data descriptors.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+final class ZipFormat {
+
+    static final int LOCAL_HEADER = 0x04034b50;
+    static final int CENTRAL_HEADER = 0x02014b50;
+    static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    static final int LOCAL_HEADER_SIZE = 30;
+    static final int CENTRAL_HEADER_SIZE = 46;
+    static final int END_SIZE = 22;
+
+    static final short STORED = 0;
+    static final short DEFLATED = 8;
+
+    /** the archive must fit 32-bit offsets and 16-bit entry counts */
+    static final long MAX_OFFSET = 0xFFFFFFFFL;
+    static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final short VERSION = 20;
+    private static final short UTF8_NAMES = 0x0800;
+
+    private ZipFormat() {
+    }
+
+    static ByteBuffer localHeader(String name, short method, int dosTime, long crc, int compressedSize, int size) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = buffer(LOCAL_HEADER_SIZE + nameBytes.length)
+                .putInt(LOCAL_HEADER)
+                .putShort(VERSION)
+                .putShort(UTF8_NAMES)
+                .putShort(method)
+                .putInt(dosTime)
+                .putInt((int) crc)
+                .putInt(compressedSize)
+                .putInt(size)
+                .putShort((short) nameBytes.length)
+                .putShort((short) 0)
+                .put(nameBytes);
+        return header.flip();
+    }
+
+    static void centralHeader(ByteBuffer directory, String name, short method, int dosTime, long crc,
+                              int compressedSize, int size, long offset) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        directory.putInt(CENTRAL_HEADER)
+                .putShort(VERSION)
+                .putShort(VERSION)
+                .putShort(UTF8_NAMES)
+                .putShort(method)
+                .putInt(dosTime)
+                .putInt((int) crc)
+                .putInt(compressedSize)
+                .putInt(size)
+                .putShort((short) nameBytes.length)
+                .putShort((short) 0) // extra field
+                .putShort((short) 0) // comment
+                .putShort((short) 0) // disk
+                .putShort((short) 0) // internal attributes
+                .putInt(0)           // external attributes
+                .putInt((int) offset)
+                .put(nameBytes);
+    }
+
+    static int centralHeaderSize(String name) {
+        return CENTRAL_HEADER_SIZE + name.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    static ByteBuffer end(int entries, int directorySize, long directoryOffset, String comment) {
+        byte[] commentBytes = comment.getBytes(StandardCharsets.UTF_8);
+        return buffer(END_SIZE + commentBytes.length)
+                .putInt(END_OF_CENTRAL_DIRECTORY)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) entries)
+                .putShort((short) entries)
+                .putInt(directorySize)
+                .putInt((int) directoryOffset)
+                .putShort((short) commentBytes.length)
+                .put(commentBytes)
+                .flip();
+    }
+
+    /**
+     * @return MS-DOS date and time, the resolution is two seconds
+     */
+    static int dosTime(LocalDateTime time) {
+        int date = (time.getYear() - 1980) << 9 | time.getMonthValue() << 5 | time.getDayOfMonth();
+        int clock = time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() / 2;
+        return date << 16 | clock;
+    }
+
+    static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    /**
+     * Positional read; safe for concurrent use of the channel.
+     */
+    static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = buffer(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of bundle");
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,222 @@
+package io.alapierre.gobl.core.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.alapierre.gobl.core.exceptions.NoSuchDigestAlgorithmException;
+import io.alapierre.gobl.core.signature.SigningKey;
+import io.alapierre.ksef.fa.model.gobl.FastAccessors;
+import lombok.NonNull;
+import org.gobl.model.Header;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of signatures and verification results, for documents that are signed or verified again:
+ * retries, replays, resends. Entries are content-addressed, so a hit is only possible for the same canonical
+ * document and the same key material:
+ * <ul>
+ *     <li>signatures are keyed by the document digest and, for every signing key, its {@code kid} and a SHA-256
+ *     fingerprint of the encoded private key; a hit returns the same header and signatures, so a retry produces
+ *     the same envelope,</li>
+ *     <li>verification results are keyed by the document digest, a SHA-256 of the JWS (which includes the
+ *     {@code kid}) and a fingerprint of the encoded public key, so a result is never reused for another key or
+ *     another signature.</li>
+ * </ul>
+ * Keys without an encoded form (e.g. held in a hardware token) are never cached. The size is bounded by an
+ * estimate of the retained bytes; least recently used entries are evicted first. Thread-safe.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class SignatureCache {
+
+    /**
+     * Cached signing result. The generated {@link Header} is mutable, so the record keeps its own copy and hands out
+     * a fresh one from {@link #header()}: changing a header taken from a hit can't alter what later hits return.
+     *
+     * @param header signed envelope header
+     * @param sigs   signatures, in the order of the signing keys
+     */
+    public record Signed(Header header, List<String> sigs) {
+
+        public Signed {
+            header = copy(header);
+            sigs = List.copyOf(sigs);
+        }
+
+        /**
+         * @return a copy of the signed header
+         */
+        @Override
+        public Header header() {
+            return copy(header);
+        }
+
+        private static Header copy(@NonNull Header header) {
+            return HEADERS.convertValue(header, Header.class);
+        }
+    }
+
+    /**
+     * Cache counters.
+     *
+     * @param hits      lookups that found an entry
+     * @param misses    lookups that found nothing
+     * @param evictions entries removed to stay within the size limit
+     * @param entries   current number of entries
+     * @param bytes     estimated size of the current entries
+     */
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes) {}
+
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private static final ObjectMapper HEADERS = FastAccessors.apply(new ObjectMapper());
+
+    // LinkedHashMap entry, key String and the digests inside it
+    private static final int ENTRY_OVERHEAD = 160;
+    // generated Header with its Digest and UUID
+    private static final int HEADER_SIZE = 240;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Object> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SignatureCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes upper bound of the estimated memory held by the cache
+     */
+    public SignatureCache(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Cache size must be positive: " + maxBytes);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param digest hex SHA-256 digest of the canonical document
+     * @param keys   signing keys in signature order
+     * @return cache key, or null if a key can't be fingerprinted
+     */
+    public static String signingKey(@NonNull String digest, @NonNull List<SigningKey> keys) {
+        StringBuilder key = new StringBuilder("s:").append(digest);
+        for (SigningKey signingKey : keys) {
+            String fingerprint = fingerprint(signingKey.privateKey());
+            if (fingerprint == null) return null;
+            key.append(':').append(signingKey.kid()).append('/').append(fingerprint);
+        }
+        return key.toString();
+    }
+
+    /**
+     * @param digest    hex SHA-256 digest of the canonical document
+     * @param jws       the signature
+     * @param publicKey key the signature is verified with
+     * @return cache key, or null if the key can't be fingerprinted
+     */
+    public static String verificationKey(@NonNull String digest, @NonNull String jws, @NonNull Key publicKey) {
+        String fingerprint = fingerprint(publicKey);
+        if (fingerprint == null) return null;
+        return "v:" + digest + ':' + sha256(jws.getBytes(StandardCharsets.UTF_8)) + ':' + fingerprint;
+    }
+
+    /**
+     * @param key see {@link #signingKey(String, List)}
+     * @return cached signatures or null
+     */
+    public Signed signed(@NonNull String key) {
+        return (Signed) get(key);
+    }
+
+    /**
+     * @param key    see {@link #signingKey(String, List)}
+     * @param signed header and signatures to reuse
+     */
+    public void putSigned(@NonNull String key, @NonNull Signed signed) {
+        put(key, signed);
+    }
+
+    /**
+     * @param key see {@link #verificationKey(String, String, Key)}
+     * @return cached verification outcome or null
+     */
+    public Boolean verified(@NonNull String key) {
+        return (Boolean) get(key);
+    }
+
+    /**
+     * @param key   see {@link #verificationKey(String, String, Key)}
+     * @param valid verification outcome
+     */
+    public void putVerified(@NonNull String key, boolean valid) {
+        put(key, valid);
+    }
+
+    /**
+     * @return hit, miss and eviction counters since the cache was created, and its current size
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), bytes);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private synchronized Object get(String key) {
+        Object value = entries.get(key);
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    private synchronized void put(String key, Object value) {
+        long size = weight(key, value);
+        if (size > maxBytes) return;
+        Object previous = entries.put(key, value);
+        if (previous != null) bytes -= weight(key, previous);
+        bytes += size;
+
+        Iterator<Map.Entry<String, Object>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Object> entry = eldest.next();
+            bytes -= weight(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long weight(String key, Object value) {
+        long size = ENTRY_OVERHEAD + 2L * key.length();
+        if (value instanceof Signed signed) {
+            size += HEADER_SIZE;
+            for (String sig : signed.sigs()) size += 40 + 2L * sig.length();
+        }
+        return size;
+    }
+
+    private static String fingerprint(Key key) {
+        byte[] encoded = key.getEncoded();
+        return encoded == null ? null : sha256(encoded);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new NoSuchDigestAlgorithmException(ex);
+        }
+    }
+}
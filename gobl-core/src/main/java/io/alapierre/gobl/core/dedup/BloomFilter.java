@@ -0,0 +1,235 @@
+package io.alapierre.gobl.core.dedup;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Thread-safe Bloom filter over SHA-256 digests, kept in a direct or memory-mapped buffer.
+ * <p>
+ * Bit positions are derived from the digest itself (double hashing on its first two 64-bit words), so no extra
+ * hashing is done. Bits are set with atomic {@code OR} operations, so concurrent {@link #put(byte[])} calls never
+ * lose updates. A filter created with {@link #create(Path, long, double)} or {@link #open(Path)} lives in a
+ * memory-mapped file and is persisted by the operating system; call {@link #force()} to flush it explicitly.
+ * <p>
+ * File layout: {@code magic (int) | version (int) | hash functions (int) | reserved (int) | bit count (long) |
+ * reserved (long) | bits (long[])}.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class BloomFilter {
+
+    private static final int MAGIC = 0x47424c4d;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final long MAX_BITS = (Integer.MAX_VALUE - HEADER_SIZE - 7L) / 8 * 64;
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final ByteBuffer buffer;
+    private final long bits;
+    private final int hashFunctions;
+
+    private BloomFilter(ByteBuffer buffer, long bits, int hashFunctions) {
+        this.buffer = buffer;
+        this.bits = bits;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Creates an in-memory filter sized for the expected number of digests and false-positive probability.
+     *
+     * @param expectedInsertions expected number of distinct digests
+     * @param fpp                desired false-positive probability, e.g. {@code 0.001}
+     * @return empty filter
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        long bits = optimalBits(expectedInsertions, fpp);
+        return allocate(bits, optimalHashFunctions(expectedInsertions, bits));
+    }
+
+    /**
+     * Creates an in-memory filter that uses at most the given number of bytes. The false-positive probability
+     * follows from the budget, see {@link #expectedFpp(long)}.
+     *
+     * @param memoryBudget       maximum size of the bit array in bytes
+     * @param expectedInsertions expected number of distinct digests
+     * @return empty filter
+     */
+    public static BloomFilter withMemoryBudget(long memoryBudget, long expectedInsertions) {
+        long bits = checkBits(memoryBudget / 8 * 64);
+        return allocate(bits, optimalHashFunctions(expectedInsertions, bits));
+    }
+
+    /**
+     * Creates a new filter in a memory-mapped file.
+     *
+     * @param file               file to create, must not exist
+     * @param expectedInsertions expected number of distinct digests
+     * @param fpp                desired false-positive probability
+     * @return empty filter backed by the file
+     * @throws IOException if the file can't be created or mapped
+     */
+    public static BloomFilter create(@NonNull Path file, long expectedInsertions, double fpp) throws IOException {
+        long bits = optimalBits(expectedInsertions, fpp);
+        int hashFunctions = optimalHashFunctions(expectedInsertions, bits);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + bits / 8);
+            writeHeader(buffer, bits, hashFunctions);
+            return new BloomFilter(buffer, bits, hashFunctions);
+        }
+    }
+
+    /**
+     * Maps an existing filter file written by {@link #create(Path, long, double)} or {@link #save(Path)}. Changes
+     * made through the returned filter are written back to the file.
+     *
+     * @param file filter file
+     * @return filter backed by the file
+     * @throws IOException if the file can't be mapped or is not a filter file
+     */
+    public static BloomFilter open(@NonNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException("Not a Bloom filter file: " + file);
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            long bits = buffer.getLong(16);
+            int hashFunctions = buffer.getInt(8);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || size != HEADER_SIZE + bits / 8 || hashFunctions < 1)
+                throw new IOException("Not a Bloom filter file or unsupported version: " + file);
+
+            return new BloomFilter(buffer, bits, hashFunctions);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the filter to the given file, which can be reopened with {@link #open(Path)}.
+     *
+     * @param file target file, replaced if it exists
+     * @throws IOException if the file can't be written
+     */
+    public void save(@NonNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer snapshot = buffer.duplicate().clear();
+            while (snapshot.hasRemaining()) channel.write(snapshot);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Flushes a memory-mapped filter to disk. Does nothing for an in-memory filter.
+     */
+    public void force() {
+        if (buffer instanceof MappedByteBuffer mapped) mapped.force();
+    }
+
+    /**
+     * @param digest raw digest, at least 16 bytes
+     * @return {@code false} if the digest was definitely never added, {@code true} if it might have been
+     */
+    public boolean mightContain(byte @NonNull [] digest) {
+        long h1 = word(digest, 0);
+        long h2 = word(digest, 8);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            long word = (long) WORDS.getVolatile(buffer, offset(bit));
+            if ((word & mask(bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds the digest to the filter.
+     *
+     * @param digest raw digest, at least 16 bytes
+     * @return {@code true} if any bit changed, i.e. the digest was definitely not in the filter before
+     */
+    public boolean put(byte @NonNull [] digest) {
+        long h1 = word(digest, 0);
+        long h2 = word(digest, 8);
+        boolean changed = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            long mask = mask(bit);
+            long previous = (long) WORDS.getAndBitwiseOr(buffer, offset(bit), mask);
+            changed |= (previous & mask) == 0;
+        }
+        return changed;
+    }
+
+    /**
+     * @return size of the bit array in bits
+     */
+    public long bitSize() {
+        return bits;
+    }
+
+    /**
+     * @return number of bit positions checked per digest
+     */
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * @param insertions number of distinct digests added
+     * @return theoretical false-positive probability after the given number of insertions
+     */
+    public double expectedFpp(long insertions) {
+        return Math.pow(1 - Math.exp(-hashFunctions * (double) insertions / bits), hashFunctions);
+    }
+
+    private static BloomFilter allocate(long bits, int hashFunctions) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) (HEADER_SIZE + bits / 8) + 7).alignedSlice(8);
+        buffer.limit(HEADER_SIZE + (int) (bits / 8));
+        writeHeader(buffer, bits, hashFunctions);
+        return new BloomFilter(buffer.slice(), bits, hashFunctions);
+    }
+
+    private static void writeHeader(ByteBuffer buffer, long bits, int hashFunctions) {
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, hashFunctions).putLong(16, bits);
+    }
+
+    private static long optimalBits(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) throw new IllegalArgumentException("Expected insertions must be positive");
+        if (fpp <= 0 || fpp >= 1) throw new IllegalArgumentException("False-positive probability must be between 0 and 1");
+        double bits = -expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2));
+        return checkBits(((long) Math.ceil(bits) + 63) / 64 * 64);
+    }
+
+    private static int optimalHashFunctions(long expectedInsertions, long bits) {
+        if (expectedInsertions <= 0) throw new IllegalArgumentException("Expected insertions must be positive");
+        return Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+    }
+
+    private static long checkBits(long bits) {
+        if (bits < 64) throw new IllegalArgumentException("Bloom filter must have at least 64 bits");
+        if (bits > MAX_BITS) throw new IllegalArgumentException("Bloom filter can't be larger than " + MAX_BITS / 8 + " bytes");
+        return bits;
+    }
+
+    private static int offset(long bit) {
+        return HEADER_SIZE + (int) (bit >>> 6) * Long.BYTES;
+    }
+
+    private static long mask(long bit) {
+        return 1L << (bit & 63);
+    }
+
+    private static long word(byte[] digest, int from) {
+        if (digest.length < from + 8) throw new IllegalArgumentException("Digest must be at least 16 bytes long");
+        long word = 0;
+        for (int i = from; i < from + 8; i++) word = (word << 8) | (digest[i] & 0xff);
+        return word;
+    }
+}
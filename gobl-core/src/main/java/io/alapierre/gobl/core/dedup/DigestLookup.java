@@ -0,0 +1,47 @@
+package io.alapierre.gobl.core.dedup;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact, authoritative set of already seen digests, consulted by {@link DuplicateDetector} only when the Bloom
+ * filter reports a possible match. Typically backed by the table where invoices are stored.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public interface DigestLookup {
+
+    /**
+     * @param digest hex encoded canonical digest
+     * @return {@code true} if a document with this digest was already ingested
+     */
+    boolean contains(String digest);
+
+    /**
+     * Called for every digest accepted as new. Implementations backed by a store that already records ingested
+     * documents can leave this empty.
+     *
+     * @param digest hex encoded canonical digest
+     */
+    default void record(String digest) {
+    }
+
+    /**
+     * @return thread-safe lookup keeping all digests in memory
+     */
+    static DigestLookup inMemory() {
+        Set<String> digests = ConcurrentHashMap.newKeySet();
+        return new DigestLookup() {
+            @Override
+            public boolean contains(String digest) {
+                return digests.contains(digest);
+            }
+
+            @Override
+            public void record(String digest) {
+                digests.add(digest);
+            }
+        };
+    }
+}
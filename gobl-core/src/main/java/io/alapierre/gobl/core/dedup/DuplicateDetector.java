@@ -0,0 +1,125 @@
+package io.alapierre.gobl.core.dedup;
+
+import io.alapierre.gobl.core.Gobl;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gobl.model.Invoice;
+
+import java.io.IOException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flags invoices that were already ingested, based on their canonical digest ({@link Gobl#digest(Invoice)}).
+ * <p>
+ * A {@link BloomFilter} answers most checks from memory: a digest the filter has never seen is new and the exact
+ * {@link DigestLookup} is not consulted at all. Only possible matches are confirmed with the lookup, so its cost is
+ * paid for real duplicates and for the configured false-positive rate.
+ * <p>
+ * The detector is safe to call concurrently. Checks of the same digest are serialised on a lock stripe, so two
+ * threads ingesting the same invoice at the same time can't both see it as new.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class DuplicateDetector {
+
+    private static final int STRIPES = 64;
+
+    private final Gobl gobl;
+    private final BloomFilter filter;
+    private final DigestLookup lookup;
+    private final Object[] stripes = new Object[STRIPES];
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    public DuplicateDetector(@NonNull BloomFilter filter, @NonNull DigestLookup lookup) {
+        this(new Gobl(), filter, lookup);
+    }
+
+    public DuplicateDetector(@NonNull Gobl gobl, @NonNull BloomFilter filter, @NonNull DigestLookup lookup) {
+        this.gobl = gobl;
+        this.filter = filter;
+        this.lookup = lookup;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    /**
+     * Checks whether the invoice was seen before and records it as seen.
+     *
+     * @param invoice invoice to check
+     * @return {@code true} if an invoice with the same canonical digest was already recorded
+     * @throws IOException if the invoice can't be canonicalised
+     */
+    public boolean checkAndRecord(@NonNull Invoice invoice) throws IOException {
+        return checkAndRecord(gobl.digest(invoice));
+    }
+
+    /**
+     * Checks whether the digest was seen before and records it as seen.
+     *
+     * @param digest hex encoded SHA-256 canonical digest
+     * @return {@code true} if the digest was already recorded
+     */
+    public boolean checkAndRecord(@NonNull String digest) {
+        checks.increment();
+        byte[] raw = HexFormat.of().parseHex(digest);
+
+        synchronized (stripes[Math.floorMod(digest.hashCode(), STRIPES)]) {
+            if (filter.mightContain(raw)) {
+                lookups.increment();
+                if (lookup.contains(digest)) {
+                    duplicates.increment();
+                    log.debug("duplicate digest {}", digest);
+                    return true;
+                }
+            }
+            filter.put(raw);
+            lookup.record(digest);
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether the invoice was seen before without recording it.
+     *
+     * @param invoice invoice to check
+     * @return {@code true} if an invoice with the same canonical digest was already recorded
+     * @throws IOException if the invoice can't be canonicalised
+     */
+    public boolean isDuplicate(@NonNull Invoice invoice) throws IOException {
+        String digest = gobl.digest(invoice);
+        return filter.mightContain(HexFormat.of().parseHex(digest)) && lookup.contains(digest);
+    }
+
+    /**
+     * @return number of digests checked with {@code checkAndRecord}
+     */
+    public long checks() {
+        return checks.sum();
+    }
+
+    /**
+     * @return number of checks that had to consult the exact {@link DigestLookup}
+     */
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return number of duplicates found
+     */
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    /**
+     * @return number of exact lookups caused by Bloom filter false positives
+     */
+    public long falsePositives() {
+        return lookups.sum() - duplicates.sum();
+    }
+}
@@ -0,0 +1,90 @@
+package io.alapierre.gobl.core.document;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.NonNull;
+import org.gobl.model.Invoice;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps document classes to GOBL schema IDs and keeps a reader and writer per class, so signing and verifying a mix
+ * of document types resolves each type only once.
+ * <p>
+ * The registry is thread-safe and types can be registered at any time; {@link Invoice} is always registered.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class DocumentRegistry {
+
+    public static final String INVOICE_SCHEMA = "https://gobl.org/draft-0/bill/invoice";
+
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, DocumentType<?>> byType = new ConcurrentHashMap<>();
+    private final Map<String, DocumentType<?>> bySchema = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * @param mapper configured mapper the readers and writers are created from
+     */
+    public DocumentRegistry(@NonNull ObjectMapper mapper) {
+        this.mapper = mapper;
+        register(Invoice.class, INVOICE_SCHEMA);
+    }
+
+    /**
+     * Registers a document type. Registering the same class and schema again has no effect.
+     *
+     * @param type   document class, e.g. a class generated from the GOBL note or receipt schema
+     * @param schema schema ID of the document
+     * @return this registry
+     * @throws IllegalArgumentException if the class or the schema is already registered with a different mapping
+     */
+    public synchronized <T> DocumentRegistry register(@NonNull Class<T> type, @NonNull String schema) {
+        DocumentType<?> existing = byType.get(type);
+        if (existing != null) {
+            if (existing.schema().equals(schema)) return this;
+            throw new IllegalArgumentException(type.getName() + " is already registered as " + existing.schema());
+        }
+        existing = bySchema.get(schema);
+        if (existing != null) {
+            throw new IllegalArgumentException(schema + " is already registered for " + existing.type().getName());
+        }
+
+        DocumentType<T> documentType = new DocumentType<>(type, schema, reader(type), mapper.writerFor(type));
+        byType.put(type, documentType);
+        bySchema.put(schema, documentType);
+        return this;
+    }
+
+    /**
+     * @param type document class
+     * @return registered document type
+     * @throws IllegalArgumentException if the class is not registered
+     */
+    @SuppressWarnings("unchecked")
+    public <T> DocumentType<T> get(@NonNull Class<T> type) {
+        DocumentType<T> documentType = (DocumentType<T>) byType.get(type);
+        if (documentType == null) throw new IllegalArgumentException("Unregistered document type " + type.getName());
+        return documentType;
+    }
+
+    /**
+     * @param schema schema ID from a document's {@code $schema}
+     * @return document type registered for the schema
+     */
+    public Optional<DocumentType<?>> forSchema(@NonNull String schema) {
+        return Optional.ofNullable(bySchema.get(schema));
+    }
+
+    /**
+     * @param type any class, registered or not
+     * @return reader bound to the class, created on first use
+     */
+    public ObjectReader reader(@NonNull Class<?> type) {
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+}
@@ -0,0 +1,58 @@
+package io.alapierre.gobl.core.document;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.alapierre.ksef.fa.model.gobl.exceptions.JsonParserException;
+import lombok.NonNull;
+
+import java.io.IOException;
+
+/**
+ * A document type that can be placed in an envelope: its class, its GOBL schema ID and a reader and writer
+ * resolved once for the class.
+ *
+ * @param type   document class
+ * @param schema schema ID written to the document's {@code $schema}, e.g. {@code https://gobl.org/draft-0/bill/invoice}
+ * @param reader reader bound to {@code type}
+ * @param writer writer bound to {@code type}
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public record DocumentType<T>(@NonNull Class<T> type, @NonNull String schema,
+                              @NonNull ObjectReader reader, @NonNull ObjectWriter writer) {
+
+    /**
+     * Binds a document JSON tree, e.g. the {@code doc} of an envelope.
+     *
+     * @param node document JSON
+     * @return the document
+     * @throws JsonParserException if the JSON can't be bound to {@code type}
+     */
+    public T read(@NonNull JsonNode node) {
+        try {
+            return reader.readValue(node);
+        } catch (IOException e) {
+            throw new JsonParserException(e);
+        }
+    }
+
+    /**
+     * Converts a document to a JSON tree with {@code $schema} set to this type's schema ID.
+     *
+     * @param document document to convert
+     * @return JSON tree of the document
+     */
+    public ObjectNode toTree(@NonNull T document) {
+        try (TokenBuffer buffer = new TokenBuffer(null, false)) {
+            writer.writeValue(buffer, document);
+            ObjectNode node = reader.readTree(buffer.asParser(reader));
+            node.put("$schema", schema);
+            return node;
+        } catch (IOException e) {
+            throw new JsonParserException(e);
+        }
+    }
+}
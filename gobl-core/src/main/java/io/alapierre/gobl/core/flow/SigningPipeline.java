@@ -0,0 +1,145 @@
+package io.alapierre.gobl.core.flow;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.document.DocumentType;
+import io.alapierre.gobl.core.signature.EcdsaSigner;
+import io.alapierre.gobl.core.signature.JsonCanoniser;
+import lombok.NonNull;
+import org.gobl.model.Header;
+import org.gobl.model.Invoice;
+
+import java.io.ByteArrayInputStream;
+import java.security.interfaces.ECPrivateKey;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+/**
+ * Signs a stream of invoices: raw invoice JSON goes in, envelope JSON comes out. The work is split into
+ * parse → canonicalise → digest → sign → write stages, each a {@link StageProcessor} with its own parallelism and
+ * bounded buffer, so a slow subscriber throttles the source instead of filling the heap. Stages run on their own
+ * daemon threads, which end when the pipeline is idle.
+ * <pre>{@code
+ * SigningPipeline pipeline = new SigningPipeline(gobl, privateKey, kid);
+ * pipeline.subscribe(sink);
+ * source.subscribe(pipeline);
+ * }</pre>
+ * Envelopes are published in completion order, not in the order invoices arrive. The first invoice that can't be
+ * parsed or signed fails the pipeline: the source is cancelled and the subscriber gets {@code onError}.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class SigningPipeline implements Flow.Processor<byte[], String> {
+
+    /**
+     * Number of items each stage processes at once.
+     */
+    public record Parallelism(int parse, int canonicalise, int digest, int sign, int write) {
+
+        /**
+         * @param threads parallelism of every stage
+         * @return the same parallelism for all stages
+         */
+        public static Parallelism of(int threads) {
+            return new Parallelism(threads, threads, threads, threads, threads);
+        }
+
+        /**
+         * @return one item per processor in each stage
+         */
+        public static Parallelism defaults() {
+            return of(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    private record Canonical(ObjectNode doc, byte[] json) {}
+
+    private record Digested(ObjectNode doc, Header header) {}
+
+    private record Signed(ObjectNode doc, Header header, String sig) {}
+
+    private final StageProcessor<byte[], Invoice> parse;
+    private final StageProcessor<Signed, String> write;
+
+    /**
+     * Pipeline with {@link Parallelism#defaults()} and {@link Flow#defaultBufferSize()} items buffered between
+     * stages.
+     *
+     * @param gobl       used to parse, digest and write envelopes
+     * @param privateKey the private key used for signing
+     * @param kid        the key identifier
+     */
+    public SigningPipeline(@NonNull Gobl gobl, @NonNull ECPrivateKey privateKey, @NonNull UUID kid) {
+        this(gobl, privateKey, kid, Parallelism.defaults(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * @param gobl        used to parse, digest and write envelopes
+     * @param privateKey  the private key used for signing
+     * @param kid         the key identifier
+     * @param parallelism number of items each stage processes at once
+     * @param bufferSize  number of items buffered after each stage
+     */
+    public SigningPipeline(@NonNull Gobl gobl, @NonNull ECPrivateKey privateKey, @NonNull UUID kid,
+                           @NonNull Parallelism parallelism, int bufferSize) {
+        Executor executor = Executors.newCachedThreadPool(StageProcessor.daemonThreads("gobl-pipeline"));
+        JsonCanoniser canoniser = new JsonCanoniser();
+        EcdsaSigner signer = new EcdsaSigner();
+        DocumentType<Invoice> invoiceType = gobl.documents().get(Invoice.class);
+        String keyId = kid.toString();
+
+        parse = new StageProcessor<>("parse",
+                json -> gobl.parseInvoice(new ByteArrayInputStream(json)),
+                parallelism.parse(), bufferSize, executor);
+        StageProcessor<Invoice, Canonical> canonicalise = new StageProcessor<>("canonicalise",
+                invoice -> {
+                    // digest the document as it goes into the envelope, with $schema set and empty values dropped
+                    ObjectNode doc = invoiceType.toTree(invoice);
+                    return new Canonical(doc, canoniser.canonicalise(doc));
+                },
+                parallelism.canonicalise(), bufferSize, executor);
+        StageProcessor<Canonical, Digested> digest = new StageProcessor<>("digest",
+                canonical -> new Digested(canonical.doc(), gobl.makeHeader(gobl.digest(canonical.json()))),
+                parallelism.digest(), bufferSize, executor);
+        StageProcessor<Digested, Signed> sign = new StageProcessor<>("sign",
+                digested -> new Signed(digested.doc(), digested.header(), signer.sign(privateKey, keyId, digested.header())),
+                parallelism.sign(), bufferSize, executor);
+        write = new StageProcessor<>("write",
+                signed -> gobl.writeEnvelope(signed.header(), List.of(signed.sig()), signed.doc()),
+                parallelism.write(), bufferSize, executor);
+
+        parse.subscribe(canonicalise);
+        canonicalise.subscribe(digest);
+        digest.subscribe(sign);
+        sign.subscribe(write);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        write.subscribe(subscriber);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        parse.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(byte[] item) {
+        parse.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        parse.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        parse.onComplete();
+    }
+}
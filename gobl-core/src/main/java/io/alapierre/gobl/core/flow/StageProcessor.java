@@ -0,0 +1,157 @@
+package io.alapierre.gobl.core.flow;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One step of a {@link SigningPipeline}: applies a function to every item on its own {@code parallelism} worker
+ * threads and publishes the results through a bounded buffer.
+ * <p>
+ * Demand is propagated upstream: the stage requests a new item only after a result has been handed over to the
+ * downstream buffer, and handing over blocks while that buffer is full. A slow subscriber therefore throttles every
+ * stage before it, and the source, instead of letting items pile up. Only the stage's own workers wait for buffer
+ * space; results are handed to subscribers by a separate delivery executor. Results are published in completion
+ * order. Idle worker threads are daemon threads that end on their own.
+ * <p>
+ * The first exception thrown by the function cancels the upstream subscription and completes the stage
+ * exceptionally. Nothing is requested from upstream until the stage has a subscriber, so stages may be connected in
+ * any order.
+ *
+ * @param <I> input item type
+ * @param <O> output item type
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class StageProcessor<I, O> extends SubmissionPublisher<O> implements Flow.Processor<I, O> {
+
+    /**
+     * Stage function, may throw checked exceptions.
+     */
+    @FunctionalInterface
+    public interface Step<I, O> {
+        O apply(I item) throws Exception;
+    }
+
+    private final String name;
+    private final Step<I, O> step;
+    private final int parallelism;
+    private final ThreadPoolExecutor workers;
+
+    // items received and not yet published, plus one while the upstream is not complete
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final AtomicBoolean failed = new AtomicBoolean();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Flow.Subscription upstream;
+
+    /**
+     * @param name        stage name used in logs
+     * @param step        function applied to every item, must not return null
+     * @param parallelism number of worker threads, the maximum number of items processed at once
+     * @param bufferSize  maximum number of results buffered for each subscriber
+     * @param delivery    hands results to subscribers; must not be starved by blocked workers, so don't pass a
+     *                    bounded pool that also runs the steps
+     */
+    public StageProcessor(@NonNull String name, @NonNull Step<I, O> step, int parallelism, int bufferSize,
+                          @NonNull Executor delivery) {
+        super(delivery, bufferSize);
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        this.name = name;
+        this.step = step;
+        this.parallelism = parallelism;
+        this.workers = new ThreadPoolExecutor(parallelism, parallelism, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("gobl-" + name));
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param prefix thread name prefix
+     * @return factory of daemon threads named {@code prefix-N}
+     */
+    static ThreadFactory daemonThreads(String prefix) {
+        val counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void onSubscribe(@NonNull Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        start();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super O> subscriber) {
+        super.subscribe(subscriber);
+        start();
+    }
+
+    private void start() {
+        if (upstream != null && hasSubscribers() && started.compareAndSet(false, true)) upstream.request(parallelism);
+    }
+
+    @Override
+    public void onNext(@NonNull I item) {
+        if (failed.get()) return;
+        pending.incrementAndGet();
+        workers.execute(() -> process(item));
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        settle();
+    }
+
+    private void process(I item) {
+        try {
+            if (!failed.get()) submit(step.apply(item)); // blocks while the downstream buffer is full
+        } catch (Exception e) {
+            log.debug("stage {} failed: {}", name, e.getMessage());
+            upstream.cancel();
+            fail(e);
+        } finally {
+            if (!settle() && !failed.get()) {
+                if (hasSubscribers()) upstream.request(1);
+                else upstream.cancel(); // all subscribers cancelled, stop reading the source
+            }
+        }
+    }
+
+    private boolean settle() {
+        if (pending.decrementAndGet() != 0) return false;
+        if (!failed.get()) close();
+        return true;
+    }
+
+    private void fail(Throwable throwable) {
+        if (failed.compareAndSet(false, true)) closeExceptionally(throwable);
+    }
+
+    @Override
+    public String toString() {
+        return "StageProcessor[" + name + ", parallelism=" + parallelism + ", buffer=" + getMaxBufferCapacity() + "]";
+    }
+}
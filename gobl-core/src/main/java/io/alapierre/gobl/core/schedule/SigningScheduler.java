@@ -0,0 +1,283 @@
+package io.alapierre.gobl.core.schedule;
+
+import io.alapierre.gobl.core.Gobl;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.security.Key;
+import java.security.interfaces.ECPrivateKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs signing and verification for latency-sensitive and bulk callers on one set of worker threads without letting
+ * the bulk work delay the interactive one.
+ * <p>
+ * Every request goes to a {@link Lane}. Interactive requests wait in one queue ordered by deadline (earliest
+ * deadline first); bulk requests are spread over one deque per worker. A worker that becomes free always takes
+ * the most urgent interactive request first, then bulk work from its own deque, then steals bulk work from the
+ * other deques, so bulk jobs use every idle core. Tasks are not preempted: an interactive request arriving while
+ * all workers sign bulk invoices waits at most for the shortest of those to finish, not for the bulk backlog.
+ * <p>
+ * A request with a deadline fails with {@link TimeoutException} when the deadline passes. If it is still queued at
+ * that point, or its future was cancelled, it is dropped without running; a request already running finishes and
+ * its result is discarded.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class SigningScheduler implements AutoCloseable {
+
+    /**
+     * Priority class of a request.
+     */
+    public enum Lane {
+        /** single documents someone is waiting for, served before any bulk work */
+        INTERACTIVE,
+        /** backfills and batch jobs, run on capacity not needed by interactive requests */
+        BULK
+    }
+
+    /**
+     * @param completed requests that ran, successfully or not
+     * @param expired   requests dropped because their deadline passed before they started
+     * @param cancelled requests dropped because their future was cancelled before they started
+     * @param stolen    bulk requests run by a worker other than the one they were queued for
+     */
+    public record Stats(long completed, long expired, long cancelled, long stolen) {}
+
+    private final class Task<T> implements Runnable {
+
+        /** nanoseconds since the scheduler started, {@link #NO_DEADLINE} for none */
+        final long deadline;
+        final long sequence = sequences.getAndIncrement();
+        final Callable<T> work;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(long deadline, Callable<T> work) {
+            this.deadline = deadline;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                if (future.isCancelled()) cancelled.increment();
+                else expired.increment();
+                return;
+            }
+            if (deadline != NO_DEADLINE && deadline <= now()) {
+                future.completeExceptionally(new TimeoutException("Deadline passed before the request started"));
+                expired.increment();
+                return;
+            }
+            try {
+                future.complete(work.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                completed.increment();
+            }
+        }
+    }
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final Gobl gobl;
+    private final long origin = System.nanoTime();
+    private final AtomicLong sequences = new AtomicLong();
+    private final PriorityBlockingQueue<Task<?>> interactive = new PriorityBlockingQueue<>(64,
+            Comparator.<Task<?>>comparingLong(task -> task.deadline).thenComparingLong(task -> task.sequence));
+    private final List<ConcurrentLinkedDeque<Task<?>>> bulk = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger nextBulk = new AtomicInteger();
+    private final AtomicInteger idle = new AtomicInteger();
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder stolen = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates a scheduler with one worker per available processor.
+     *
+     * @param gobl instance doing the work
+     */
+    public SigningScheduler(@NonNull Gobl gobl) {
+        this(gobl, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param gobl    instance doing the work
+     * @param workers number of worker threads, usually the number of cores available for signing
+     */
+    public SigningScheduler(@NonNull Gobl gobl, int workers) {
+        if (workers < 1) throw new IllegalArgumentException("Number of workers must be positive: " + workers);
+        this.gobl = gobl;
+        for (int i = 0; i < workers; i++) bulk.add(new ConcurrentLinkedDeque<>());
+        for (int i = 0; i < workers; i++) {
+            int self = i;
+            Thread thread = new Thread(() -> work(self), "gobl-scheduler-" + i);
+            thread.setDaemon(true);
+            this.workers.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Signs an invoice, see {@link Gobl#signInvoice(java.io.InputStream, ECPrivateKey, UUID)}.
+     *
+     * @param lane       priority class of the request
+     * @param invoice    UTF-8 encoded invoice JSON
+     * @param privateKey the private key used for signing
+     * @param kid        the key identifier
+     * @param timeout    time after which the request fails with {@link TimeoutException}, null for no deadline
+     * @return the envelope JSON
+     */
+    public CompletableFuture<String> signInvoice(@NonNull Lane lane, byte @NonNull [] invoice,
+                                                 @NonNull ECPrivateKey privateKey, @NonNull UUID kid, Duration timeout) {
+        return submit(lane, timeout, () -> gobl.signInvoice(new ByteArrayInputStream(invoice), privateKey, kid));
+    }
+
+    /**
+     * Verifies an envelope and returns its document, see {@link Gobl#extractFromEnvelope(java.io.InputStream, Class, Key)}.
+     *
+     * @param lane     priority class of the request
+     * @param envelope UTF-8 encoded envelope JSON
+     * @param clazz    document class
+     * @param key      the public key used for signature verification
+     * @param timeout  time after which the request fails with {@link TimeoutException}, null for no deadline
+     * @return the verified document
+     */
+    public <T> CompletableFuture<T> extractFromEnvelope(@NonNull Lane lane, byte @NonNull [] envelope,
+                                                        @NonNull Class<T> clazz, @NonNull Key key, Duration timeout) {
+        return submit(lane, timeout, () -> gobl.extractFromEnvelope(new ByteArrayInputStream(envelope), clazz, key));
+    }
+
+    /**
+     * Schedules any work, e.g. several calls that have to run together.
+     *
+     * @param lane    priority class of the request
+     * @param timeout time after which the request fails with {@link TimeoutException}, null for no deadline
+     * @param work    work to run on a worker thread
+     * @return result of the work
+     * @throws RejectedExecutionException if the scheduler is closed
+     */
+    public <T> CompletableFuture<T> submit(@NonNull Lane lane, Duration timeout, @NonNull Callable<T> work) {
+        if (closed) throw new RejectedExecutionException("Scheduler is closed");
+        long deadline = NO_DEADLINE;
+        if (timeout != null) {
+            if (timeout.isNegative()) throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+            deadline = now() + timeout.toNanos();
+        }
+
+        Task<T> task = new Task<>(deadline, work);
+        if (timeout != null) task.future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (lane == Lane.INTERACTIVE) {
+            interactive.add(task);
+        } else {
+            bulk.get(Math.floorMod(nextBulk.getAndIncrement(), bulk.size())).addLast(task);
+        }
+        if (idle.get() > 0) wakeUp.release();
+        return task.future;
+    }
+
+    /**
+     * @return number of requests waiting in the lane
+     */
+    public int queued(@NonNull Lane lane) {
+        if (lane == Lane.INTERACTIVE) return interactive.size();
+        int size = 0;
+        for (ConcurrentLinkedDeque<Task<?>> deque : bulk) size += deque.size();
+        return size;
+    }
+
+    public Stats stats() {
+        return new Stats(completed.sum(), expired.sum(), cancelled.sum(), stolen.sum());
+    }
+
+    /**
+     * Stops the workers after their current request. Queued requests are cancelled.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        wakeUp.release(workers.size());
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        CancellationException reason = new CancellationException("Scheduler closed");
+        for (Task<?> task; (task = interactive.poll()) != null; ) task.future.completeExceptionally(reason);
+        for (ConcurrentLinkedDeque<Task<?>> deque : bulk) {
+            for (Task<?> task; (task = deque.poll()) != null; ) task.future.completeExceptionally(reason);
+        }
+        log.debug("Scheduler closed, {}", stats());
+    }
+
+    private void work(int self) {
+        while (!closed) {
+            Task<?> task = next(self);
+            if (task == null) {
+                // announce before the last look, so a request queued after it finds this worker idle and wakes it
+                idle.incrementAndGet();
+                task = next(self);
+                if (task == null) {
+                    try {
+                        wakeUp.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } finally {
+                        idle.decrementAndGet();
+                    }
+                    continue;
+                }
+                idle.decrementAndGet();
+            }
+            task.run();
+        }
+    }
+
+    private Task<?> next(int self) {
+        Task<?> task = interactive.poll();
+        if (task != null) return task;
+        task = bulk.get(self).pollFirst();
+        if (task != null) return task;
+        for (int i = 1; i < bulk.size(); i++) {
+            task = bulk.get((self + i) % bulk.size()).pollLast();
+            if (task != null) {
+                stolen.increment();
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+}
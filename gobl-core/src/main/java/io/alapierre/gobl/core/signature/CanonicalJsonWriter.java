@@ -0,0 +1,175 @@
+package io.alapierre.gobl.core.signature;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Serialises a JSON tree into RFC 8785 canonical form: object properties sorted by their UTF-16 code units, no
+ * whitespace, numbers formatted by {@link JcsNumberFormatter} and strings by {@link JcsStringEscaper}.
+ * <p>
+ * Output goes to an internal growable byte array which is reused after {@link #reset()}, so a writer kept per
+ * thread does not allocate for the serialised bytes once it has grown to the usual document size. Not thread-safe.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class CanonicalJsonWriter {
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buffer;
+    private int size;
+
+    public CanonicalJsonWriter() {
+        this(1024);
+    }
+
+    public CanonicalJsonWriter(int initialCapacity) {
+        buffer = new byte[Math.max(initialCapacity, 64)];
+    }
+
+    /**
+     * Appends the canonical form of the node.
+     *
+     * @param node JSON tree
+     * @return this writer
+     * @throws IllegalArgumentException if the tree contains values that have no JSON representation
+     */
+    public CanonicalJsonWriter write(@NonNull JsonNode node) {
+        switch (node.getNodeType()) {
+            case OBJECT -> writeObject(node);
+            case ARRAY -> writeArray(node);
+            case STRING -> writeString(node.textValue());
+            case NUMBER -> writeNumber(node);
+            case BOOLEAN -> writeRaw(node.booleanValue() ? TRUE : FALSE);
+            case NULL, MISSING -> writeRaw(NULL);
+            case BINARY -> writeString(node.asText());
+            default -> throw new IllegalArgumentException("Can't canonicalise JSON node of type " + node.getNodeType());
+        }
+        return this;
+    }
+
+    /**
+     * Appends a single raw byte, e.g. a separator between independently written values.
+     *
+     * @param b byte to append
+     * @return this writer
+     */
+    public CanonicalJsonWriter writeByte(char b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+        return this;
+    }
+
+    /**
+     * Appends the value as a canonical JSON string.
+     *
+     * @param value string to append
+     */
+    public void writeString(@NonNull String value) {
+        ensureCapacity(JcsStringEscaper.maxLength(value.length()));
+        size = JcsStringEscaper.escape(value, buffer, size);
+    }
+
+    /**
+     * @return number of bytes written since the last {@link #reset()}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return capacity of the internal buffer
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Discards the written bytes, keeping the internal buffer for reuse.
+     *
+     * @return this writer
+     */
+    public CanonicalJsonWriter reset() {
+        size = 0;
+        return this;
+    }
+
+    /**
+     * @return copy of the written bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Feeds the written bytes to the digest without copying them.
+     *
+     * @param digest message digest to update
+     */
+    public void writeTo(@NonNull MessageDigest digest) {
+        digest.update(buffer, 0, size);
+    }
+
+    public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+        outputStream.write(buffer, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private void writeObject(JsonNode node) {
+        String[] names = new String[node.size()];
+        int i = 0;
+        for (Iterator<String> it = node.fieldNames(); it.hasNext(); ) names[i++] = it.next();
+        Arrays.sort(names);
+
+        writeByte('{');
+        for (int n = 0; n < names.length; n++) {
+            if (n > 0) writeByte(',');
+            writeString(names[n]);
+            writeByte(':');
+            write(node.get(names[n]));
+        }
+        writeByte('}');
+    }
+
+    private void writeArray(JsonNode node) {
+        writeByte('[');
+        for (int i = 0; i < node.size(); i++) {
+            if (i > 0) writeByte(',');
+            write(node.get(i));
+        }
+        writeByte(']');
+    }
+
+    private void writeNumber(JsonNode node) {
+        ensureCapacity(JcsNumberFormatter.MAX_LENGTH);
+        if (node.isIntegralNumber() && node.canConvertToLong()) size = JcsNumberFormatter.format(node.longValue(), buffer, size);
+        else size = JcsNumberFormatter.format(node.doubleValue(), buffer, size);
+    }
+
+    private void writeRaw(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            int capacity = Math.max(buffer.length * 2, size + additional);
+            buffer = Arrays.copyOf(buffer, capacity);
+        }
+    }
+}
@@ -2,24 +2,44 @@ package io.alapierre.gobl.core.signature;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.alapierre.ksef.fa.model.gobl.FastAccessors;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.io.Deserializer;
+import io.jsonwebtoken.io.Serializer;
+import io.jsonwebtoken.jackson.io.JacksonDeserializer;
+import io.jsonwebtoken.jackson.io.JacksonSerializer;
 import io.jsonwebtoken.security.SignatureException;
+import lombok.NonNull;
 import lombok.val;
 import org.gobl.model.Header;
 
+import java.io.IOException;
+import java.security.PublicKey;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
+import java.util.Base64;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
+ * Signs and verifies GOBL header signatures as ES256 JWS. Thread-safe.
+ * <p>
+ * The JSON serializer and deserializer are passed to jjwt explicitly: without them every builder and parser looks
+ * them up with a {@link java.util.ServiceLoader}, which jjwt 0.12 does not guard against concurrent first use.
+ *
  * @author Adrian Lapierre {@literal al@alapierre.io}
  * Copyrights by original author 2024.01.18
  */
 public class EcdsaSigner {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Serializer<Map<String, ?>> JSON_SERIALIZER = new JacksonSerializer<>();
+    private static final Deserializer<Map<String, ?>> JSON_DESERIALIZER = new JacksonDeserializer<>();
+
+    private final ObjectMapper objectMapper = FastAccessors.apply(new ObjectMapper());
 
     /**
      * Signs the provided object using the given private key and subject.
@@ -34,6 +54,7 @@ public class EcdsaSigner {
         Map<String, Object> jsonContent = objectMapper.convertValue(object, new TypeReference<>() {});
 
         return Jwts.builder()
+                .json(JSON_SERIALIZER)
                 .claims(jsonContent)
                 .subject(subject)
                 .signWith(privateKey, Jwts.SIG.ES256)
@@ -51,6 +72,7 @@ public class EcdsaSigner {
     public String sign(ECPrivateKey privateKey, String kid, Header header) {
 
         return Jwts.builder()
+                .json(JSON_SERIALIZER)
                 .claim("uuid", header.getUuid())
                 .claim("dig", header.getDig())
                 .header().add("kid", kid).and()
@@ -67,11 +89,54 @@ public class EcdsaSigner {
      * @throws SignatureException If the signature verification fails or the JWT does not contain a "dig" claim.
      */
     public Dig verify(ECPublicKey publicKey, String jwsString) {
-
-        Jws<Claims> jws = Jwts.parser()
+        return dig(Jwts.parser()
+                .json(JSON_DESERIALIZER)
                 .verifyWith(publicKey)
                     .build()
-                    .parseSignedClaims(jwsString); //  or parseSignedContent(jwsString)
+                    .parseSignedClaims(jwsString)); //  or parseSignedContent(jwsString)
+    }
+
+    /**
+     * Verifies the signature of a compact JWT string with the public key found by its {@code kid} header.
+     *
+     * @param keys      returns the public key for a {@code kid} (null if the JWS has none), or null if it is unknown
+     * @param jwsString The compact JWT string to be verified.
+     * @return The Dig object extracted from the JWT payload.
+     * @throws SignatureException If the key is unknown, the signature verification fails or the JWT does not
+     *                            contain a "dig" claim.
+     */
+    public Dig verify(@NonNull Function<String, ? extends PublicKey> keys, String jwsString) {
+        return dig(Jwts.parser()
+                .json(JSON_DESERIALIZER)
+                .keyLocator(header -> {
+                    String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+                    PublicKey key = keys.apply(kid);
+                    if (key == null) throw new SignatureException("No public key for kid " + kid);
+                    return key;
+                })
+                .build()
+                .parseSignedClaims(jwsString));
+    }
+
+    /**
+     * Reads the {@code kid} header of a compact JWS without verifying it.
+     *
+     * @param jwsString The compact JWT string.
+     * @return the key identifier or null if the JWS has none
+     * @throws MalformedJwtException if the JWS header can't be read
+     */
+    public String keyId(@NonNull String jwsString) {
+        int dot = jwsString.indexOf('.');
+        if (dot < 0) throw new MalformedJwtException("Not a compact JWS");
+        try {
+            val kid = objectMapper.readTree(Base64.getUrlDecoder().decode(jwsString.substring(0, dot))).get("kid");
+            return kid == null || kid.isNull() ? null : kid.asText();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MalformedJwtException("Invalid JWS header", e);
+        }
+    }
+
+    private Dig dig(Jws<Claims> jws) {
 
         val map = jws.getPayload().get("dig", Map.class);
 
@@ -0,0 +1,77 @@
+package io.alapierre.gobl.core.signature;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Position of a document in a batch signed with one {@link MerkleTree} root and the audit path leading to it.
+ * <p>
+ * Stored in the envelope's {@code head.meta} as three string entries, so the header stays valid GOBL:
+ * {@code merkle-index}, {@code merkle-size} and {@code merkle-path} (comma separated hex hashes, leaf first).
+ *
+ * @param index leaf index of the document in the batch
+ * @param size  number of documents in the batch
+ * @param path  hex encoded sibling hashes from the leaf up to the root
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public record InclusionProof(long index, long size, @NonNull List<String> path) {
+
+    public static final String META_INDEX = "merkle-index";
+    public static final String META_SIZE = "merkle-size";
+    public static final String META_PATH = "merkle-path";
+
+    /**
+     * @param tree  batch tree
+     * @param index leaf index
+     * @return proof for the leaf
+     */
+    public static InclusionProof of(@NonNull MerkleTree tree, int index) {
+        HexFormat hex = HexFormat.of();
+        return new InclusionProof(index, tree.size(), tree.path(index).stream().map(hex::formatHex).toList());
+    }
+
+    /**
+     * @param digest document digest
+     * @return the root this proof leads to from {@code digest}, or null if the proof is malformed
+     */
+    public byte[] root(byte @NonNull [] digest) {
+        try {
+            HexFormat hex = HexFormat.of();
+            return MerkleTree.rootFromPath(digest, index, size, path.stream().map(hex::parseHex).toList());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param meta {@code head.meta} node to write the proof to
+     */
+    public void writeTo(@NonNull ObjectNode meta) {
+        meta.put(META_INDEX, String.valueOf(index));
+        meta.put(META_SIZE, String.valueOf(size));
+        meta.put(META_PATH, String.join(",", path));
+    }
+
+    /**
+     * @param meta {@code head.meta} node, may be missing
+     * @return the proof, or null if {@code meta} has none or it is malformed
+     */
+    public static InclusionProof readFrom(@NonNull JsonNode meta) {
+        JsonNode index = meta.get(META_INDEX);
+        JsonNode size = meta.get(META_SIZE);
+        JsonNode path = meta.get(META_PATH);
+        if (index == null || size == null || path == null) return null;
+        try {
+            List<String> hashes = path.asText().isEmpty() ? List.of() : Arrays.asList(path.asText().split(","));
+            return new InclusionProof(Long.parseLong(index.asText()), Long.parseLong(size.asText()), hashes);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
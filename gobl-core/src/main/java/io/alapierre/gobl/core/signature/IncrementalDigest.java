@@ -0,0 +1,299 @@
+package io.alapierre.gobl.core.signature;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.alapierre.gobl.core.exceptions.NoSuchDigestAlgorithmException;
+import io.alapierre.ksef.fa.model.gobl.FastAccessors;
+import lombok.NonNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Digest of a document that is edited in place, e.g. an invoice draft re-signed after every change.
+ * <p>
+ * The canonical bytes of every top-level property and of every element of {@code lines} are cached separately.
+ * After an edit the caller reports what changed ({@link #lineChanged(int)}, {@link #fieldChanged(String)}, ...)
+ * and only those parts are serialised and canonicalised again. The digest itself is the same SHA-256 (or other
+ * algorithm) of the whole canonical document as {@link JsonCanoniser} produces; hashing restarts from a saved
+ * {@link MessageDigest} state taken just before the first changed part, so only the bytes after it are hashed
+ * again.
+ * <p>
+ * A document created with a schema ID is digested with {@code $schema} set to it, the way
+ * {@code DocumentType.toTree} places documents in an envelope.
+ * <p>
+ * Changes that are not reported are not seen. Not thread-safe.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class IncrementalDigest {
+
+    public static final String LINES = "lines";
+    public static final String SCHEMA = "$schema";
+
+    /**
+     * Minimal number of bytes hashed between two saved digest states.
+     */
+    private static final int CHECKPOINT_INTERVAL = 16 * 1024;
+
+    private static final byte[] OPEN_OBJECT = {'{'};
+    private static final byte[] CLOSE_OBJECT = {'}'};
+    private static final byte[] CLOSE_ARRAY = {']'};
+    private static final byte[] COMMA = {','};
+
+    private final ObjectMapper mapper = FastAccessors.apply(new ObjectMapper());
+    private final CanonicalJsonWriter writer = new CanonicalJsonWriter();
+    private final Object document;
+    private final String schema;
+    private final MessageDigest initial;
+    private final Map<String, AnnotatedMember> accessors = new HashMap<>();
+    private final AnnotatedMember anyGetter;
+
+    /**
+     * Canonical {@code "name":value} bytes of the top-level properties other than lines, sorted by name.
+     */
+    private final TreeMap<String, byte[]> fields = new TreeMap<>();
+    private final List<byte[]> lines = new ArrayList<>();
+    private byte[] linesPrefix;
+
+    private List<byte[]> hashed = List.of();
+    /**
+     * Saved digest states, {@code checkpoints[i]} is the state before {@code hashed.get(i)} or null.
+     */
+    private MessageDigest[] checkpoints = new MessageDigest[0];
+
+    public IncrementalDigest(@NonNull Object document) {
+        this(document, "SHA-256");
+    }
+
+    /**
+     * @param document  document to digest, e.g. an {@code Invoice}
+     * @param algorithm digest algorithm, e.g. SHA-256
+     * @throws NoSuchDigestAlgorithmException if the algorithm is not supported
+     */
+    public IncrementalDigest(@NonNull Object document, @NonNull String algorithm) {
+        this(document, null, algorithm);
+    }
+
+    /**
+     * @param document  document to digest, e.g. an {@code Invoice}
+     * @param schema    schema ID digested as the document's {@code $schema} or null to digest the document as is
+     * @param algorithm digest algorithm, e.g. SHA-256
+     * @throws NoSuchDigestAlgorithmException if the algorithm is not supported
+     */
+    public IncrementalDigest(@NonNull Object document, String schema, @NonNull String algorithm) {
+        this.document = document;
+        this.schema = schema;
+        try {
+            this.initial = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new NoSuchDigestAlgorithmException(ex);
+        }
+
+        BeanDescription description = mapper.getSerializationConfig().introspect(mapper.constructType(document.getClass()));
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (property.getAccessor() != null) accessors.put(property.getName(), property.getAccessor());
+        }
+        anyGetter = description.findAnyGetter();
+        refresh();
+    }
+
+    /**
+     * Serialises the whole document again, e.g. after changes that were not tracked.
+     */
+    public void refresh() {
+        fields.clear();
+        lines.clear();
+        linesPrefix = null;
+
+        JsonNode tree = mapper.valueToTree(document);
+        for (Iterator<Map.Entry<String, JsonNode>> it = tree.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (LINES.equals(field.getKey()) && field.getValue().isArray()) {
+                linesPrefix = linesPrefix();
+                for (JsonNode line : field.getValue()) lines.add(canonical(line));
+            } else {
+                fields.put(field.getKey(), property(field.getKey(), field.getValue()));
+            }
+        }
+        if (schema != null) fields.put(SCHEMA, property(SCHEMA, TextNode.valueOf(schema)));
+    }
+
+    /**
+     * Reports a changed top-level property, including one that was set or cleared. {@code "lines"} re-reads all lines.
+     *
+     * @param name JSON name of the property
+     */
+    public void fieldChanged(@NonNull String name) {
+        if (schema != null && SCHEMA.equals(name)) return;
+        Object value = value(name);
+        boolean present = !isEmpty(value);
+
+        if (LINES.equals(name)) {
+            lines.clear();
+            linesPrefix = present ? linesPrefix() : null;
+            if (present) for (Object line : (Iterable<?>) value) lines.add(canonical(line));
+        } else if (present) {
+            fields.put(name, property(name, mapper.valueToTree(value)));
+        } else {
+            fields.remove(name);
+        }
+    }
+
+    /**
+     * Reports that the line at the index was modified.
+     *
+     * @param index index of the line in the document
+     */
+    public void lineChanged(int index) {
+        lines.set(index, canonical(line(index)));
+    }
+
+    /**
+     * Reports that a line was inserted at the index.
+     *
+     * @param index index of the new line in the document
+     */
+    public void lineInserted(int index) {
+        if (linesPrefix == null) {
+            fieldChanged(LINES);
+            return;
+        }
+        lines.add(index, canonical(line(index)));
+    }
+
+    /**
+     * Reports that the line previously at the index was removed.
+     *
+     * @param index index of the removed line
+     */
+    public void lineRemoved(int index) {
+        lines.remove(index);
+        if (lines.isEmpty()) linesPrefix = null;
+    }
+
+    /**
+     * @return hex encoded digest of the canonical document
+     */
+    public String digest() {
+        return HexFormat.of().formatHex(digestBytes());
+    }
+
+    /**
+     * @return digest of the canonical document
+     */
+    public byte[] digestBytes() {
+        List<byte[]> parts = layout();
+
+        int unchanged = 0;
+        int common = Math.min(parts.size(), hashed.size());
+        while (unchanged < common && parts.get(unchanged) == hashed.get(unchanged)) unchanged++;
+
+        int start = Math.min(unchanged, checkpoints.length - 1);
+        while (start > 0 && checkpoints[start] == null) start--;
+        start = Math.max(start, 0);
+
+        MessageDigest[] states = new MessageDigest[parts.size() + 1];
+        if (start > 0) System.arraycopy(checkpoints, 0, states, 0, start + 1);
+        MessageDigest md = clone(start > 0 ? checkpoints[start] : initial);
+
+        int sinceCheckpoint = 0;
+        for (int i = start; i < parts.size(); i++) {
+            if (sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+                states[i] = clone(md);
+                sinceCheckpoint = 0;
+            }
+            byte[] part = parts.get(i);
+            md.update(part);
+            sinceCheckpoint += part.length;
+        }
+
+        hashed = parts;
+        checkpoints = states;
+        return md.digest();
+    }
+
+    private List<byte[]> layout() {
+        List<byte[]> parts = new ArrayList<>(fields.size() * 2 + lines.size() * 2 + 4);
+        parts.add(OPEN_OBJECT);
+
+        boolean linesWritten = linesPrefix == null;
+        for (Map.Entry<String, byte[]> field : fields.entrySet()) {
+            if (!linesWritten && LINES.compareTo(field.getKey()) < 0) {
+                if (parts.size() > 1) parts.add(COMMA);
+                addLines(parts);
+                linesWritten = true;
+            }
+            if (parts.size() > 1) parts.add(COMMA);
+            parts.add(field.getValue());
+        }
+        if (!linesWritten) {
+            if (parts.size() > 1) parts.add(COMMA);
+            addLines(parts);
+        }
+        parts.add(CLOSE_OBJECT);
+        return parts;
+    }
+
+    private void addLines(List<byte[]> parts) {
+        parts.add(linesPrefix);
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) parts.add(COMMA);
+            parts.add(lines.get(i));
+        }
+        parts.add(CLOSE_ARRAY);
+    }
+
+    private Object line(int index) {
+        Object value = value(LINES);
+        if (!(value instanceof List<?> list)) throw new IllegalStateException("Document has no lines");
+        return list.get(index);
+    }
+
+    private Object value(String name) {
+        AnnotatedMember accessor = accessors.get(name);
+        if (accessor != null) return accessor.getValue(document);
+        if (anyGetter != null && anyGetter.getValue(document) instanceof Map<?, ?> additional) return additional.get(name);
+        return null;
+    }
+
+    /**
+     * Same rule as the {@code NON_EMPTY} inclusion used by the generated model.
+     */
+    private static boolean isEmpty(Object value) {
+        if (value == null) return true;
+        if (value instanceof Collection<?> collection) return collection.isEmpty();
+        if (value instanceof Map<?, ?> map) return map.isEmpty();
+        if (value instanceof CharSequence text) return text.length() == 0;
+        return value.getClass().isArray() && java.lang.reflect.Array.getLength(value) == 0;
+    }
+
+    private byte[] canonical(Object value) {
+        JsonNode node = value instanceof JsonNode json ? json : mapper.valueToTree(value);
+        return writer.reset().write(node).toByteArray();
+    }
+
+    private byte[] property(String name, JsonNode value) {
+        writer.reset().writeString(name);
+        return writer.writeByte(':').write(value).toByteArray();
+    }
+
+    private byte[] linesPrefix() {
+        writer.reset().writeString(LINES);
+        return writer.writeByte(':').writeByte('[').toByteArray();
+    }
+
+    private static MessageDigest clone(MessageDigest md) {
+        try {
+            return (MessageDigest) md.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Digest " + md.getAlgorithm() + " can't be resumed", e);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package io.alapierre.gobl.core.signature;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats IEEE-754 doubles the way ECMAScript {@code Number.prototype.toString} does, as required by
+ * <a href="https://www.rfc-editor.org/rfc/rfc8785#section-3.2.2.3">RFC 8785 (JSON Canonicalization Scheme)</a>.
+ * <p>
+ * The shortest digit string that round-trips to the same double is found with the Ryu algorithm (Ulf Adams, PLDI
+ * 2018), working only on primitive longs, and written straight into the caller's byte array, so formatting does not
+ * allocate. The lookup tables of powers of five are computed once when the class is loaded.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class JcsNumberFormatter {
+
+    /**
+     * Maximum number of bytes written by {@link #format(double, byte[], int)}, e.g. {@code -0.0000012345678901234567}.
+     */
+    public static final int MAX_LENGTH = 25;
+
+    private static final int MANTISSA_BITS = 52;
+    private static final int EXPONENT_BITS = 11;
+    private static final int BIAS = 1023;
+
+    private static final int POW5_BITCOUNT = 125;
+    private static final int POW5_INV_BITCOUNT = 125;
+    private static final int POW5_TABLE_SIZE = 326;
+    private static final int POW5_INV_TABLE_SIZE = 342;
+
+    private static final long[] POW5_SPLIT = new long[POW5_TABLE_SIZE * 2];
+    private static final long[] POW5_INV_SPLIT = new long[POW5_INV_TABLE_SIZE * 2];
+
+    static {
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        BigInteger five = BigInteger.valueOf(5);
+        for (int i = 0; i < Math.max(POW5_TABLE_SIZE, POW5_INV_TABLE_SIZE); i++) {
+            BigInteger pow = five.pow(i);
+            int bits = pow.bitLength();
+            if (i < POW5_TABLE_SIZE) {
+                BigInteger split = pow.shiftRight(bits - POW5_BITCOUNT);
+                POW5_SPLIT[2 * i] = split.and(mask64).longValue();
+                POW5_SPLIT[2 * i + 1] = split.shiftRight(64).longValue();
+            }
+            if (i < POW5_INV_TABLE_SIZE) {
+                BigInteger inverse = BigInteger.ONE.shiftLeft(bits - 1 + POW5_INV_BITCOUNT).divide(pow).add(BigInteger.ONE);
+                POW5_INV_SPLIT[2 * i] = inverse.and(mask64).longValue();
+                POW5_INV_SPLIT[2 * i + 1] = inverse.shiftRight(64).longValue();
+            }
+        }
+    }
+
+    private JcsNumberFormatter() {
+    }
+
+    /**
+     * Formats the value as a string, for tests and diagnostics. Use {@link #format(double, byte[], int)} on hot paths.
+     *
+     * @param value finite double
+     * @return ECMAScript representation of the value
+     */
+    public static String toString(double value) {
+        byte[] buffer = new byte[MAX_LENGTH];
+        int length = format(value, buffer, 0);
+        return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes an integer as a canonical JSON number. Values beyond &plusmn;2<sup>53</sup> are not exactly representable
+     * as doubles, so, like in every other JCS implementation, they are written as the nearest double.
+     *
+     * @param value  integer value
+     * @param buffer target array, must have at least {@link #MAX_LENGTH} bytes available after {@code offset}
+     * @param offset position of the first written byte
+     * @return position after the last written byte
+     */
+    public static int format(long value, byte[] buffer, int offset) {
+        if (value < -(1L << MANTISSA_BITS + 1) || value > (1L << MANTISSA_BITS + 1)) return format((double) value, buffer, offset);
+
+        int pos = offset;
+        if (value < 0) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        return writeDigits(value, decimalLength(value), buffer, pos);
+    }
+
+    /**
+     * Writes the ECMAScript representation of the value as ASCII bytes.
+     *
+     * @param value  finite double
+     * @param buffer target array, must have at least {@link #MAX_LENGTH} bytes available after {@code offset}
+     * @param offset position of the first written byte
+     * @return position after the last written byte
+     * @throws IllegalArgumentException if the value is NaN or infinite, which JSON can't represent
+     */
+    public static int format(double value, byte[] buffer, int offset) {
+
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            throw new IllegalArgumentException("NaN and Infinity are not allowed in canonical JSON");
+
+        long bits = Double.doubleToRawLongBits(value);
+        int pos = offset;
+        if (value == 0) {
+            buffer[pos++] = '0';
+            return pos;
+        }
+        if (bits < 0) buffer[pos++] = '-';
+
+        long ieeeMantissa = bits & ((1L << MANTISSA_BITS) - 1);
+        int ieeeExponent = (int) ((bits >>> MANTISSA_BITS) & ((1 << EXPONENT_BITS) - 1));
+
+        long output;
+        int exponent;
+
+        // integers up to 2^53 are printed exactly, without running the shortest-digits search
+        if (ieeeExponent >= BIAS && ieeeExponent <= BIAS + MANTISSA_BITS) {
+            long m2 = (1L << MANTISSA_BITS) | ieeeMantissa;
+            int shift = BIAS + MANTISSA_BITS - ieeeExponent;
+            if ((m2 & ((1L << shift) - 1)) == 0) {
+                output = m2 >>> shift;
+                exponent = 0;
+                while (output % 10 == 0) {
+                    output /= 10;
+                    exponent++;
+                }
+                return writeDecimal(output, exponent, buffer, pos);
+            }
+        }
+
+        int e2;
+        long m2;
+        if (ieeeExponent == 0) {
+            e2 = 1 - BIAS - MANTISSA_BITS - 2;
+            m2 = ieeeMantissa;
+        } else {
+            e2 = ieeeExponent - BIAS - MANTISSA_BITS - 2;
+            m2 = (1L << MANTISSA_BITS) | ieeeMantissa;
+        }
+        boolean acceptBounds = (m2 & 1) == 0;
+
+        long mv = 4 * m2;
+        int mmShift = ieeeMantissa != 0 || ieeeExponent <= 1 ? 1 : 0;
+
+        long vr;
+        long vp;
+        long vm;
+        int e10;
+        boolean vmIsTrailingZeros = false;
+        boolean vrIsTrailingZeros = false;
+
+        if (e2 >= 0) {
+            int q = log10Pow2(e2) - (e2 > 3 ? 1 : 0);
+            e10 = q;
+            int k = POW5_INV_BITCOUNT + pow5bits(q) - 1;
+            int i = -e2 + q + k;
+            vr = mulShift(4 * m2, POW5_INV_SPLIT, q, i);
+            vp = mulShift(4 * m2 + 2, POW5_INV_SPLIT, q, i);
+            vm = mulShift(4 * m2 - 1 - mmShift, POW5_INV_SPLIT, q, i);
+            if (q <= 21) {
+                if (mv % 5 == 0) {
+                    vrIsTrailingZeros = multipleOfPowerOf5(mv, q);
+                } else if (acceptBounds) {
+                    vmIsTrailingZeros = multipleOfPowerOf5(mv - 1 - mmShift, q);
+                } else if (multipleOfPowerOf5(mv + 2, q)) {
+                    vp--;
+                }
+            }
+        } else {
+            int q = log10Pow5(-e2) - (-e2 > 1 ? 1 : 0);
+            e10 = q + e2;
+            int i = -e2 - q;
+            int k = pow5bits(i) - POW5_BITCOUNT;
+            int j = q - k;
+            vr = mulShift(4 * m2, POW5_SPLIT, i, j);
+            vp = mulShift(4 * m2 + 2, POW5_SPLIT, i, j);
+            vm = mulShift(4 * m2 - 1 - mmShift, POW5_SPLIT, i, j);
+            if (q <= 1) {
+                vrIsTrailingZeros = true;
+                if (acceptBounds) {
+                    vmIsTrailingZeros = mmShift == 1;
+                } else {
+                    vp--;
+                }
+            } else if (q < 63) {
+                vrIsTrailingZeros = (mv & ((1L << q) - 1)) == 0;
+            }
+        }
+
+        int removed = 0;
+        int lastRemovedDigit = 0;
+        if (vmIsTrailingZeros || vrIsTrailingZeros) {
+            while (vp / 10 > vm / 10) {
+                vmIsTrailingZeros &= vm % 10 == 0;
+                vrIsTrailingZeros &= lastRemovedDigit == 0;
+                lastRemovedDigit = (int) (vr % 10);
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            if (vmIsTrailingZeros) {
+                while (vm % 10 == 0) {
+                    vrIsTrailingZeros &= lastRemovedDigit == 0;
+                    lastRemovedDigit = (int) (vr % 10);
+                    vr /= 10;
+                    vp /= 10;
+                    vm /= 10;
+                    removed++;
+                }
+            }
+            if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0) {
+                // exactly halfway: round to even
+                lastRemovedDigit = 4;
+            }
+            output = vr + ((vr == vm && (!acceptBounds || !vmIsTrailingZeros)) || lastRemovedDigit >= 5 ? 1 : 0);
+        } else {
+            boolean roundUp = false;
+            if (vp / 100 > vm / 100) {
+                roundUp = vr % 100 >= 50;
+                vr /= 100;
+                vp /= 100;
+                vm /= 100;
+                removed += 2;
+            }
+            while (vp / 10 > vm / 10) {
+                roundUp = vr % 10 >= 5;
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            output = vr + (vr == vm || roundUp ? 1 : 0);
+        }
+        exponent = e10 + removed;
+
+        return writeDecimal(output, exponent, buffer, pos);
+    }
+
+    /**
+     * Writes {@code digits * 10^exponent} using the ECMAScript rules: plain notation for decimal exponents in
+     * {@code [-7, 21)}, scientific notation with an explicit exponent sign otherwise.
+     */
+    private static int writeDecimal(long digits, int exponent, byte[] buffer, int pos) {
+
+        int length = decimalLength(digits);
+        int n = exponent + length;
+
+        if (length <= n && n <= 21) {
+            pos = writeDigits(digits, length, buffer, pos);
+            for (int i = 0; i < n - length; i++) buffer[pos++] = '0';
+        } else if (0 < n && n <= 21) {
+            writeDigits(digits, length, buffer, pos + 1);
+            System.arraycopy(buffer, pos + 1, buffer, pos, n);
+            buffer[pos + n] = '.';
+            pos += length + 1;
+        } else if (-6 < n && n <= 0) {
+            buffer[pos++] = '0';
+            buffer[pos++] = '.';
+            for (int i = 0; i < -n; i++) buffer[pos++] = '0';
+            pos = writeDigits(digits, length, buffer, pos);
+        } else {
+            writeDigits(digits, length, buffer, pos + 1);
+            buffer[pos] = buffer[pos + 1];
+            if (length > 1) {
+                buffer[pos + 1] = '.';
+                pos += length + 1;
+            } else {
+                pos++;
+            }
+            buffer[pos++] = 'e';
+            int e = n - 1;
+            buffer[pos++] = (byte) (e < 0 ? '-' : '+');
+            e = Math.abs(e);
+            if (e >= 100) buffer[pos++] = (byte) ('0' + e / 100);
+            if (e >= 10) buffer[pos++] = (byte) ('0' + e / 10 % 10);
+            buffer[pos++] = (byte) ('0' + e % 10);
+        }
+        return pos;
+    }
+
+    private static int writeDigits(long value, int length, byte[] buffer, int pos) {
+        for (int i = pos + length - 1; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + length;
+    }
+
+    private static int decimalLength(long value) {
+        int length = 1;
+        for (long limit = 10; length < 19 && value >= limit; limit *= 10) length++;
+        return length;
+    }
+
+    /**
+     * Computes {@code (m * mul) >> j} for a 55-bit {@code m} and a 125-bit multiplier stored as two longs.
+     */
+    private static long mulShift(long m, long[] table, int index, int j) {
+        long mulLow = table[2 * index];
+        long mulHigh = table[2 * index + 1];
+
+        long high1 = Math.multiplyHigh(m, mulLow) + (mulLow < 0 ? m : 0);
+        long low2 = m * mulHigh;
+        long high2 = Math.multiplyHigh(m, mulHigh);
+
+        long sumLow = low2 + high1;
+        long sumHigh = high2 + (Long.compareUnsigned(sumLow, low2) < 0 ? 1 : 0);
+
+        int shift = j - 64;
+        if (shift == 0) return sumLow;
+        if (shift < 64) return (sumHigh << (64 - shift)) | (sumLow >>> shift);
+        return sumHigh >>> (shift - 64);
+    }
+
+    private static int pow5bits(int e) {
+        return ((e * 1217359) >>> 19) + 1;
+    }
+
+    private static int log10Pow2(int e) {
+        return (e * 78913) >>> 18;
+    }
+
+    private static int log10Pow5(int e) {
+        return (e * 732923) >>> 20;
+    }
+
+    private static boolean multipleOfPowerOf5(long value, int p) {
+        int count = 0;
+        while (value > 0 && value % 5 == 0) {
+            value /= 5;
+            count++;
+        }
+        return count >= p;
+    }
+}
@@ -0,0 +1,90 @@
+package io.alapierre.gobl.core.signature;
+
+/**
+ * Writes JSON strings as required by
+ * <a href="https://www.rfc-editor.org/rfc/rfc8785#section-3.2.2.2">RFC 8785 (JSON Canonicalization Scheme)</a>:
+ * UTF-8 encoded, with only {@code "}, {@code \} and control characters escaped, using the short forms
+ * <code>\b \t \n \f \r</code> where they exist and lower-case <code>&#92;u00XX</code> otherwise. Everything else, including
+ * {@code /} and non-ASCII characters, is written verbatim.
+ * <p>
+ * The string is encoded straight into the caller's byte array, without intermediate objects.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class JcsStringEscaper {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private JcsStringEscaper() {
+    }
+
+    /**
+     * @param length number of UTF-16 chars of the string
+     * @return number of bytes {@link #escape(CharSequence, byte[], int)} may write for a string of that length
+     */
+    public static int maxLength(int length) {
+        return 2 + 6 * length;
+    }
+
+    /**
+     * Writes the value as a quoted, escaped JSON string.
+     *
+     * @param value  string to write
+     * @param buffer target array, must have at least {@link #maxLength(int)} bytes available after {@code offset}
+     * @param offset position of the first written byte
+     * @return position after the last written byte
+     * @throws IllegalArgumentException if the value contains an unpaired surrogate, which is not valid Unicode
+     */
+    public static int escape(CharSequence value, byte[] buffer, int offset) {
+        int pos = offset;
+        buffer[pos++] = '"';
+
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') buffer[pos++] = '\\';
+                buffer[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                buffer[pos++] = '\\';
+                switch (c) {
+                    case '\b' -> buffer[pos++] = 'b';
+                    case '\t' -> buffer[pos++] = 't';
+                    case '\n' -> buffer[pos++] = 'n';
+                    case '\f' -> buffer[pos++] = 'f';
+                    case '\r' -> buffer[pos++] = 'r';
+                    default -> {
+                        buffer[pos++] = 'u';
+                        buffer[pos++] = '0';
+                        buffer[pos++] = '0';
+                        buffer[pos++] = HEX[c >> 4];
+                        buffer[pos++] = HEX[c & 0xf];
+                    }
+                }
+            } else if (c < 0x800) {
+                buffer[pos++] = (byte) (0xc0 | c >> 6);
+                buffer[pos++] = (byte) (0x80 | c & 0x3f);
+            } else if (!Character.isSurrogate(c)) {
+                buffer[pos++] = (byte) (0xe0 | c >> 12);
+                buffer[pos++] = (byte) (0x80 | c >> 6 & 0x3f);
+                buffer[pos++] = (byte) (0x80 | c & 0x3f);
+            } else {
+                char low = i + 1 < length ? value.charAt(i + 1) : 0;
+                if (!Character.isHighSurrogate(c) || !Character.isLowSurrogate(low))
+                    throw new IllegalArgumentException("Unpaired surrogate at index " + i);
+
+                int cp = Character.toCodePoint(c, low);
+                buffer[pos++] = (byte) (0xf0 | cp >> 18);
+                buffer[pos++] = (byte) (0x80 | cp >> 12 & 0x3f);
+                buffer[pos++] = (byte) (0x80 | cp >> 6 & 0x3f);
+                buffer[pos++] = (byte) (0x80 | cp & 0x3f);
+                i++;
+            }
+        }
+
+        buffer[pos++] = '"';
+        return pos;
+    }
+}
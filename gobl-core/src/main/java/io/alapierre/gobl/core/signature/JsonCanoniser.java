@@ -2,23 +2,32 @@ package io.alapierre.gobl.core.signature;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import io.alapierre.ksef.fa.model.gobl.FastAccessors;
 import lombok.NonNull;
 
 import java.io.IOException;
-import java.util.TreeMap;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 
 /**
+ * Produces the canonical JSON form used for GOBL digests, following RFC 8785 (JSON Canonicalization Scheme) so
+ * digests match other GOBL implementations.
+ * <p>
+ * Canonical bytes are written by a {@link CanonicalJsonWriter} kept per thread, so repeated calls reuse the same
+ * output buffer; {@link #digest(JsonNode, MessageDigest)} hashes them without copying. Thread-safe.
+ *
  * @author Adrian Lapierre {@literal al@alapierre.io}
  * Copyrights by original author 2024.01.21
  */
 public class JsonCanoniser {
 
-    private final ObjectMapper canonicalMapper = new ObjectMapper();
+    /**
+     * Buffers that grew above this size while canonicalising an exceptionally large document are not kept per thread.
+     */
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
 
-    public JsonCanoniser() {
-        canonicalMapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
-    }
+    private final ObjectMapper canonicalMapper = FastAccessors.apply(new ObjectMapper());
+    private final ThreadLocal<CanonicalJsonWriter> writers = ThreadLocal.withInitial(CanonicalJsonWriter::new);
 
     public String parse(@NonNull byte[] content) throws IOException {
         return parse(canonicalMapper.readTree(content));
@@ -29,9 +38,70 @@ public class JsonCanoniser {
     }
 
     public String parse(@NonNull JsonNode jsonNode) throws IOException {
-        @SuppressWarnings("unchecked")
-        TreeMap<String, Object> map = canonicalMapper.convertValue(jsonNode, TreeMap.class);
-        return canonicalMapper.writeValueAsString(map);
+        return new String(canonicalise(jsonNode), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param content JSON document
+     * @return UTF-8 encoded canonical JSON
+     * @throws IOException if the content is not valid JSON
+     */
+    public byte[] canonicalise(@NonNull byte[] content) throws IOException {
+        return canonicalise(canonicalMapper.readTree(content));
+    }
+
+    /**
+     * @param object object to serialise
+     * @return UTF-8 encoded canonical JSON
+     */
+    public byte[] canonicalise(@NonNull Object object) {
+        return canonicalise((JsonNode) canonicalMapper.valueToTree(object));
+    }
+
+    /**
+     * @param jsonNode JSON tree
+     * @return UTF-8 encoded canonical JSON
+     */
+    public byte[] canonicalise(@NonNull JsonNode jsonNode) {
+        CanonicalJsonWriter writer = writer();
+        try {
+            return writer.write(jsonNode).toByteArray();
+        } finally {
+            release(writer);
+        }
+    }
+
+    /**
+     * Feeds the canonical form of the tree to the message digest without materialising it as an array or a String.
+     *
+     * @param jsonNode JSON tree
+     * @param digest   message digest to update
+     */
+    public void digest(@NonNull JsonNode jsonNode, @NonNull MessageDigest digest) {
+        CanonicalJsonWriter writer = writer();
+        try {
+            writer.write(jsonNode).writeTo(digest);
+        } finally {
+            release(writer);
+        }
+    }
+
+    /**
+     * Feeds the canonical form of the object to the message digest.
+     *
+     * @param object object to serialise
+     * @param digest message digest to update
+     */
+    public void digest(@NonNull Object object, @NonNull MessageDigest digest) {
+        digest((JsonNode) canonicalMapper.valueToTree(object), digest);
+    }
+
+    private CanonicalJsonWriter writer() {
+        return writers.get().reset();
+    }
+
+    private void release(CanonicalJsonWriter writer) {
+        if (writer.capacity() > MAX_RETAINED_BUFFER) writers.remove();
     }
 
 }
@@ -1,12 +1,18 @@
 package io.alapierre.gobl.core.signature;
 
+import io.jsonwebtoken.io.Deserializer;
+import io.jsonwebtoken.io.Serializer;
+import io.jsonwebtoken.jackson.io.JacksonDeserializer;
+import io.jsonwebtoken.jackson.io.JacksonSerializer;
 import io.jsonwebtoken.security.EcPrivateJwk;
 import io.jsonwebtoken.security.EcPublicJwk;
+import io.jsonwebtoken.security.Jwk;
 import io.jsonwebtoken.security.Jwks;
 import lombok.extern.slf4j.Slf4j;
-import lombok.val;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.Key;
@@ -15,15 +21,24 @@ import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
+import java.util.Map;
 import java.util.UUID;
 
 /**
+ * Generates, saves and loads EC keys as JWK. Stateless, thread-safe.
+ * <p>
+ * Like {@link EcdsaSigner}, the JSON serializer and deserializer are passed to jjwt explicitly instead of being
+ * looked up with a {@link java.util.ServiceLoader} on every call.
+ *
  * @author Adrian Lapierre {@literal al@alapierre.io}
  * Copyrights by original author 2024.01.18
  */
 @Slf4j
 public class KeySupport {
 
+    private static final Serializer<Map<String, ?>> JSON_SERIALIZER = new JacksonSerializer<>();
+    private static final Deserializer<Map<String, ?>> JSON_DESERIALIZER = new JacksonDeserializer<>();
+
     public KeyPairHolder<ECPrivateKey, ECPublicKey> generate() {
 
         try {
@@ -52,14 +67,24 @@ public class KeySupport {
     }
 
     public Key loadKey(Path path) throws Exception {
+        return loadJwk(path).toKey();
+    }
+
+    /**
+     * Loads a key with its JWK parameters, e.g. to read its {@code kid}.
+     *
+     * @param path JWK file
+     * @return the parsed JWK
+     * @throws IOException if the file can't be read
+     */
+    public Jwk<?> loadJwk(Path path) throws IOException {
 
         String jwkJson = Files.readString(path);
 
-        val jwk = Jwks.parser()
+        return Jwks.parser()
+                .json(JSON_DESERIALIZER)
                 .build()
                 .parse(jwkJson);
-
-        return jwk.toKey();
     }
 
     public String toJsonString(ECPrivateKey key) {
@@ -69,7 +94,7 @@ public class KeySupport {
                 .id(UUID.randomUUID().toString())
                 .build();
 
-        return Jwks.UNSAFE_JSON(secretJwk);
+        return toJson(secretJwk);
     }
 
     public String toJsonString(ECPublicKey key) {
@@ -79,6 +104,15 @@ public class KeySupport {
                 .id(UUID.randomUUID().toString())
                 .build();
 
-        return Jwks.UNSAFE_JSON(secretJwk);
+        return toJson(secretJwk);
+    }
+
+    /**
+     * Same output as {@link Jwks#UNSAFE_JSON(Jwk)}, private key parameters included.
+     */
+    private static String toJson(Jwk<?> jwk) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        JSON_SERIALIZER.serialize(jwk, out);
+        return out.toString(StandardCharsets.UTF_8);
     }
 }
@@ -0,0 +1,144 @@
+package io.alapierre.gobl.core.signature;
+
+import io.alapierre.gobl.core.exceptions.NoSuchDigestAlgorithmException;
+import lombok.NonNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SHA-256 Merkle tree over document digests, shaped as in RFC 6962 section 2.1: leaves are hashed as
+ * {@code SHA-256(0x00 || digest)}, inner nodes as {@code SHA-256(0x01 || left || right)} and a node without a right
+ * sibling is promoted to the next level unchanged.
+ * <p>
+ * The tree keeps every level, so inclusion proofs for all leaves are read without rehashing. Immutable and
+ * thread-safe once built.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class MerkleTree {
+
+    /**
+     * {@code dig.alg} of a signature over a batch root; such signatures are rejected by regular verification.
+     */
+    public static final String ALG = "merkle-sha256";
+
+    private static final byte LEAF = 0x00;
+    private static final byte NODE = 0x01;
+
+    private final byte[][][] levels;
+
+    private MerkleTree(byte[][][] levels) {
+        this.levels = levels;
+    }
+
+    /**
+     * @param digests document digests in batch order, at least one
+     * @return tree over the digests
+     */
+    public static MerkleTree of(@NonNull List<byte[]> digests) {
+        if (digests.isEmpty()) throw new IllegalArgumentException("Merkle tree needs at least one leaf");
+        MessageDigest md = sha256();
+
+        List<byte[][]> levels = new ArrayList<>();
+        byte[][] level = new byte[digests.size()][];
+        for (int i = 0; i < level.length; i++) {
+            level[i] = leafHash(md, digests.get(i));
+        }
+        levels.add(level);
+
+        while (level.length > 1) {
+            byte[][] parent = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < parent.length; i++) {
+                int left = 2 * i;
+                parent[i] = left + 1 < level.length ? nodeHash(md, level[left], level[left + 1]) : level[left];
+            }
+            levels.add(parent);
+            level = parent;
+        }
+        return new MerkleTree(levels.toArray(byte[][][]::new));
+    }
+
+    /**
+     * @return number of leaves
+     */
+    public int size() {
+        return levels[0].length;
+    }
+
+    /**
+     * @return the tree head hash
+     */
+    public byte[] root() {
+        return levels[levels.length - 1][0].clone();
+    }
+
+    /**
+     * @param index leaf index
+     * @return sibling hashes from the leaf up to the root (RFC 6962 audit path)
+     */
+    public List<byte[]> path(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException(index);
+        List<byte[]> path = new ArrayList<>(levels.length);
+        for (int level = 0; level < levels.length - 1; level++) {
+            int sibling = index ^ 1;
+            if (sibling < levels[level].length) path.add(levels[level][sibling].clone());
+            index >>= 1;
+        }
+        return path;
+    }
+
+    /**
+     * Computes the root an audit path leads to, following RFC 9162 section 2.1.3.2.
+     *
+     * @param digest document digest
+     * @param index  leaf index
+     * @param size   number of leaves in the tree
+     * @param path   sibling hashes from the leaf up
+     * @return the root hash, or null if the path does not fit a tree of {@code size} leaves
+     */
+    public static byte[] rootFromPath(byte @NonNull [] digest, long index, long size, @NonNull List<byte[]> path) {
+        if (index < 0 || index >= size) return null;
+        MessageDigest md = sha256();
+        long fn = index;
+        long sn = size - 1;
+        byte[] hash = leafHash(md, digest);
+        for (byte[] sibling : path) {
+            if (sn == 0) return null;
+            if ((fn & 1) == 1 || fn == sn) {
+                hash = nodeHash(md, sibling, hash);
+                while ((fn & 1) == 0 && fn != 0) {
+                    fn >>= 1;
+                    sn >>= 1;
+                }
+            } else {
+                hash = nodeHash(md, hash, sibling);
+            }
+            fn >>= 1;
+            sn >>= 1;
+        }
+        return sn == 0 ? hash : null;
+    }
+
+    private static byte[] leafHash(MessageDigest md, byte[] digest) {
+        md.update(LEAF);
+        return md.digest(digest);
+    }
+
+    private static byte[] nodeHash(MessageDigest md, byte[] left, byte[] right) {
+        md.update(NODE);
+        md.update(left);
+        return md.digest(right);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new NoSuchDigestAlgorithmException(ex);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package io.alapierre.gobl.core.signature;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.alapierre.ksef.fa.model.gobl.FastAccessors;
+import lombok.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Canonicalises very large documents on a fork-join pool.
+ * <p>
+ * Arrays with at least {@code threshold} elements (in practice invoice {@code lines}) are split into chunks of
+ * {@code chunkSize} elements, each chunk is written by its own {@link CanonicalJsonWriter} in parallel and the
+ * buffers are fed to the output in document order, so the result is byte for byte the same as
+ * {@link JsonCanoniser}. Documents without such an array are handed to the sequential canoniser, so small
+ * invoices don't pay for task scheduling.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class ParallelCanoniser {
+
+    public static final int DEFAULT_THRESHOLD = 512;
+    public static final int DEFAULT_CHUNK_SIZE = 128;
+
+    /**
+     * Large arrays are only looked for this deep; {@code lines} sits at depth 1 in an invoice and 2 in an envelope.
+     */
+    private static final int MAX_SPLIT_DEPTH = 4;
+
+    private final ObjectMapper mapper = FastAccessors.apply(new ObjectMapper());
+    private final JsonCanoniser sequential = new JsonCanoniser();
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final int chunkSize;
+
+    public ParallelCanoniser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param pool      pool the chunks are canonicalised on
+     * @param threshold minimal number of array elements worth splitting
+     * @param chunkSize number of array elements canonicalised by a single task
+     */
+    public ParallelCanoniser(@NonNull ForkJoinPool pool, int threshold, int chunkSize) {
+        if (threshold < 2) throw new IllegalArgumentException("threshold must be at least 2");
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be positive");
+        this.pool = pool;
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Feeds the canonical form of the tree to the message digest.
+     *
+     * @param jsonNode JSON tree
+     * @param digest   message digest to update
+     */
+    public void digest(@NonNull JsonNode jsonNode, @NonNull MessageDigest digest) {
+        if (!splittable(jsonNode, 0)) {
+            sequential.digest(jsonNode, digest);
+            return;
+        }
+        for (CanonicalJsonWriter part : plan(jsonNode)) part.writeTo(digest);
+    }
+
+    /**
+     * Feeds the canonical form of the object to the message digest.
+     *
+     * @param object object to serialise
+     * @param digest message digest to update
+     */
+    public void digest(@NonNull Object object, @NonNull MessageDigest digest) {
+        digest((JsonNode) mapper.valueToTree(object), digest);
+    }
+
+    /**
+     * @param jsonNode JSON tree
+     * @return UTF-8 encoded canonical JSON, identical to {@link JsonCanoniser#canonicalise(JsonNode)}
+     */
+    public byte[] canonicalise(@NonNull JsonNode jsonNode) {
+        if (!splittable(jsonNode, 0)) return sequential.canonicalise(jsonNode);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeTo(jsonNode, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the canonical form of the tree to the stream.
+     *
+     * @param jsonNode     JSON tree
+     * @param outputStream target stream
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeTo(@NonNull JsonNode jsonNode, @NonNull OutputStream outputStream) throws IOException {
+        if (!splittable(jsonNode, 0)) {
+            outputStream.write(sequential.canonicalise(jsonNode));
+            return;
+        }
+        for (CanonicalJsonWriter part : plan(jsonNode)) part.writeTo(outputStream);
+    }
+
+    private Iterable<CanonicalJsonWriter> plan(JsonNode jsonNode) {
+        Plan plan = new Plan();
+        plan.write(jsonNode, 0);
+        return plan.finish();
+    }
+
+    private boolean splittable(JsonNode node, int depth) {
+        if (!node.isContainerNode() || depth > MAX_SPLIT_DEPTH) return false;
+        if (node.isArray() && node.size() >= threshold) return true;
+        for (JsonNode child : node) {
+            if (splittable(child, depth + 1)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ordered list of output parts: buffers written on the calling thread interleaved with forked chunk tasks.
+     */
+    private final class Plan {
+
+        private final List<Object> parts = new ArrayList<>();
+        private CanonicalJsonWriter current = new CanonicalJsonWriter();
+
+        void write(JsonNode node, int depth) {
+            if (!splittable(node, depth)) current.write(node);
+            else if (node.isArray() && node.size() >= threshold) writeChunked(node);
+            else if (node.isArray()) writeArray(node, depth);
+            else writeObject(node, depth);
+        }
+
+        private void writeObject(JsonNode node, int depth) {
+            String[] names = new String[node.size()];
+            int i = 0;
+            for (Iterator<String> it = node.fieldNames(); it.hasNext(); ) names[i++] = it.next();
+            Arrays.sort(names);
+
+            current.writeByte('{');
+            for (int n = 0; n < names.length; n++) {
+                if (n > 0) current.writeByte(',');
+                current.writeString(names[n]);
+                current.writeByte(':');
+                write(node.get(names[n]), depth + 1);
+            }
+            current.writeByte('}');
+        }
+
+        private void writeArray(JsonNode node, int depth) {
+            current.writeByte('[');
+            for (int i = 0; i < node.size(); i++) {
+                if (i > 0) current.writeByte(',');
+                write(node.get(i), depth + 1);
+            }
+            current.writeByte(']');
+        }
+
+        private void writeChunked(JsonNode node) {
+            current.writeByte('[');
+            parts.add(current);
+            for (int start = 0; start < node.size(); start += chunkSize) {
+                int from = start;
+                int to = Math.min(start + chunkSize, node.size());
+                parts.add(pool.submit(() -> writeChunk(node, from, to)));
+            }
+            current = new CanonicalJsonWriter();
+            current.writeByte(']');
+        }
+
+        List<CanonicalJsonWriter> finish() {
+            parts.add(current);
+            List<CanonicalJsonWriter> result = new ArrayList<>(parts.size());
+            try {
+                for (Object part : parts) {
+                    if (part instanceof ForkJoinTask<?> task) result.add((CanonicalJsonWriter) task.join());
+                    else result.add((CanonicalJsonWriter) part);
+                }
+            } catch (RuntimeException e) {
+                for (Object part : parts) {
+                    if (part instanceof ForkJoinTask<?> task) task.cancel(false);
+                }
+                throw e;
+            }
+            return result;
+        }
+    }
+
+    private static CanonicalJsonWriter writeChunk(JsonNode array, int from, int to) {
+        CanonicalJsonWriter writer = new CanonicalJsonWriter(64 * 1024);
+        for (int i = from; i < to; i++) {
+            if (i > 0) writer.writeByte(',');
+            writer.write(array.get(i));
+        }
+        return writer;
+    }
+}
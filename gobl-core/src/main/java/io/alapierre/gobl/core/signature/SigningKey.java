@@ -0,0 +1,17 @@
+package io.alapierre.gobl.core.signature;
+
+import lombok.NonNull;
+
+import java.security.interfaces.ECPrivateKey;
+import java.util.UUID;
+
+/**
+ * A private key and the identifier written to the {@code kid} header of its signatures.
+ *
+ * @param privateKey signing key
+ * @param kid        key identifier
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public record SigningKey(@NonNull ECPrivateKey privateKey, @NonNull UUID kid) {
+}
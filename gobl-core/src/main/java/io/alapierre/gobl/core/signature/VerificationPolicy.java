@@ -0,0 +1,54 @@
+package io.alapierre.gobl.core.signature;
+
+/**
+ * Decides whether an envelope with several signatures is accepted.
+ * <p>
+ * A signature counts as valid when its key is known, the JWS verifies and its digest matches the document. Valid
+ * signatures made with the same {@code kid} count once.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class VerificationPolicy {
+
+    /**
+     * Every signature in the envelope must be valid.
+     */
+    public static final VerificationPolicy ALL = new VerificationPolicy(0);
+
+    /**
+     * At least one signature must be valid; signatures by unknown keys are ignored.
+     */
+    public static final VerificationPolicy ANY = new VerificationPolicy(1);
+
+    private final int threshold;
+
+    private VerificationPolicy(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param keys number of distinct keys that must have made a valid signature
+     * @return policy requiring {@code keys} valid signatures; other signatures are ignored
+     */
+    public static VerificationPolicy atLeast(int keys) {
+        if (keys < 1) throw new IllegalArgumentException("Threshold must be positive: " + keys);
+        return keys == 1 ? ANY : new VerificationPolicy(keys);
+    }
+
+    /**
+     * @param validKeys  number of distinct keys with a valid signature
+     * @param valid      number of valid signatures
+     * @param signatures number of signatures in the envelope
+     * @return true if the envelope is accepted
+     */
+    public boolean accepts(int validKeys, int valid, int signatures) {
+        if (signatures == 0) return false;
+        return threshold == 0 ? valid == signatures : validKeys >= threshold;
+    }
+
+    @Override
+    public String toString() {
+        return threshold == 0 ? "ALL" : threshold == 1 ? "ANY" : "atLeast(" + threshold + ")";
+    }
+}
@@ -0,0 +1,183 @@
+package io.alapierre.gobl.core.view;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import io.alapierre.ksef.fa.model.gobl.CodeInterningModule;
+import io.alapierre.ksef.fa.model.gobl.FastAccessors;
+import io.alapierre.ksef.fa.model.gobl.exceptions.JsonParserException;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Typed read-only access to the fields of a signed invoice envelope that routing and filtering usually need,
+ * without building the {@link org.gobl.model.Envelope} or a JSON tree.
+ * <p>
+ * Accessors are named after the {@code org.gobl.model} getters they mirror and return null when the field is
+ * missing. Anything else is available by JSON Pointer through {@link #json()}. The signatures are not verified.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class EnvelopeView {
+
+    private static final ObjectMapper mapper = FastAccessors.apply(new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .registerModule(new CodeInterningModule()));
+
+    private final JsonView json;
+
+    private EnvelopeView(JsonView json) {
+        this.json = json;
+    }
+
+    /**
+     * @param envelope UTF-8 encoded envelope, not copied
+     * @return view of the envelope
+     * @throws JsonParserException if the bytes are not a JSON document
+     */
+    public static EnvelopeView of(byte @NonNull [] envelope) {
+        return new EnvelopeView(JsonView.of(envelope));
+    }
+
+    /**
+     * @param envelope UTF-8 encoded envelope between position and limit, e.g. from an envelope store; not copied
+     * @return view of the envelope
+     * @throws JsonParserException if the bytes are not a JSON document
+     */
+    public static EnvelopeView of(@NonNull ByteBuffer envelope) {
+        return new EnvelopeView(JsonView.of(envelope));
+    }
+
+    /**
+     * @return the underlying view for access by JSON Pointer
+     */
+    public JsonView json() {
+        return json;
+    }
+
+    /**
+     * @return {@code head.uuid}
+     */
+    public UUID getUuid() {
+        String uuid = json.text("/head/uuid");
+        return uuid == null ? null : UUID.fromString(uuid);
+    }
+
+    /**
+     * @return {@code head.dig.val}, hex encoded digest of the document
+     */
+    public String getDigest() {
+        return json.text("/head/dig/val");
+    }
+
+    /**
+     * @return {@code head.dig.alg}
+     */
+    public String getDigestAlgorithm() {
+        return json.text("/head/dig/alg");
+    }
+
+    /**
+     * @return compact JWS signatures from {@code sigs}
+     */
+    public List<String> getSigs() {
+        return json.strings("/sigs");
+    }
+
+    /**
+     * @return {@code $schema} of the enclosed document
+     */
+    public String getDocumentSchema() {
+        return json.text("/doc/$schema");
+    }
+
+    public String getType() {
+        return json.text("/doc/type");
+    }
+
+    public String getSeries() {
+        return json.text("/doc/series");
+    }
+
+    public String getCode() {
+        return json.text("/doc/code");
+    }
+
+    public String getIssueDate() {
+        return json.text("/doc/issue_date");
+    }
+
+    public String getCurrency() {
+        return json.text("/doc/currency");
+    }
+
+    public String getSupplierName() {
+        return json.text("/doc/supplier/name");
+    }
+
+    public String getSupplierTaxCountry() {
+        return json.text("/doc/supplier/tax_id/country");
+    }
+
+    public String getSupplierTaxCode() {
+        return json.text("/doc/supplier/tax_id/code");
+    }
+
+    public String getCustomerName() {
+        return json.text("/doc/customer/name");
+    }
+
+    public String getCustomerTaxCountry() {
+        return json.text("/doc/customer/tax_id/country");
+    }
+
+    public String getCustomerTaxCode() {
+        return json.text("/doc/customer/tax_id/code");
+    }
+
+    /**
+     * @return number of invoice lines
+     */
+    public int getLineCount() {
+        return json.size("/doc/lines");
+    }
+
+    public BigDecimal getSum() {
+        return json.decimal("/doc/totals/sum");
+    }
+
+    public BigDecimal getTax() {
+        return json.decimal("/doc/totals/tax");
+    }
+
+    public BigDecimal getTotalWithTax() {
+        return json.decimal("/doc/totals/total_with_tax");
+    }
+
+    public BigDecimal getPayable() {
+        return json.decimal("/doc/totals/payable");
+    }
+
+    /**
+     * Binds the enclosed document, parsing only its bytes.
+     *
+     * @param clazz document class, e.g. {@link org.gobl.model.Invoice}
+     * @return the document
+     * @throws JsonParserException if the envelope has no document or it can't be bound
+     */
+    public <T> T getDoc(@NonNull Class<T> clazz) {
+        ByteBuffer doc = json.raw("/doc");
+        if (doc == null) throw new JsonParserException("Envelop must contains document in 'doc' attribute");
+        try {
+            return mapper.readValue(new ByteBufferBackedInputStream(doc), clazz);
+        } catch (IOException e) {
+            throw new JsonParserException(e);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package io.alapierre.gobl.core.view;
+
+import io.alapierre.ksef.fa.model.gobl.exceptions.JsonParserException;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of a JSON document kept in its original bytes.
+ * <p>
+ * Creating the view scans the bytes once and records where every value (and the member name in front of it)
+ * starts and ends in a few {@code int} arrays; nothing is decoded and the bytes are not copied. Values are found
+ * by JSON Pointer (RFC 6901), e.g. {@code /doc/supplier/tax_id/code}, and decoded only when asked for.
+ * <p>
+ * The scan checks the structure of the document but not every detail of the JSON grammar, e.g. digits in numbers
+ * or escapes in strings are checked only when the value is decoded. The view is immutable and can be shared
+ * between threads as long as the underlying bytes are not modified.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class JsonView {
+
+    public enum Type { OBJECT, ARRAY, STRING, NUMBER, TRUE, FALSE, NULL }
+
+    private static final Type[] TYPES = Type.values();
+    private static final int TYPE_MASK = 0x0f;
+    private static final int ESCAPED_VALUE = 0x10;
+    private static final int ESCAPED_KEY = 0x20;
+    private static final int MAX_DEPTH = 512;
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final ByteBuffer bytes;
+
+    // token i: flags, value span [start, end), member name span [keyStart, keyEnd) without quotes or -1,
+    // and last = index of the first token after the subtree of i
+    private byte[] flags;
+    private int[] start;
+    private int[] end;
+    private int[] keyStart;
+    private int[] keyEnd;
+    private int[] last;
+    private int count;
+
+    private JsonView(ByteBuffer bytes) {
+        this.bytes = bytes;
+        // start small and grow while scanning, sizing from the input would cost more than the bytes themselves
+        flags = new byte[INITIAL_CAPACITY];
+        start = new int[INITIAL_CAPACITY];
+        end = new int[INITIAL_CAPACITY];
+        keyStart = new int[INITIAL_CAPACITY];
+        keyEnd = new int[INITIAL_CAPACITY];
+        last = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @param json UTF-8 encoded JSON document, not copied
+     * @return view of the document
+     * @throws JsonParserException if the bytes are not a JSON document
+     */
+    public static JsonView of(byte @NonNull [] json) {
+        return of(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * @param json UTF-8 encoded JSON document between position and limit, e.g. a record mapped from disk; not copied
+     * @return view of the document
+     * @throws JsonParserException if the bytes are not a JSON document
+     */
+    public static JsonView of(@NonNull ByteBuffer json) {
+        JsonView view = new JsonView(json.slice());
+        view.scan();
+        return view;
+    }
+
+    /**
+     * @param pointer JSON Pointer, {@code ""} for the whole document
+     * @return true if the document has a value at the pointer
+     */
+    public boolean has(@NonNull String pointer) {
+        return find(pointer) >= 0;
+    }
+
+    /**
+     * @param pointer JSON Pointer
+     * @return type of the value or null if there is no value at the pointer
+     */
+    public Type type(@NonNull String pointer) {
+        int token = find(pointer);
+        return token < 0 ? null : type(token);
+    }
+
+    /**
+     * @param pointer JSON Pointer
+     * @return decoded string, or the literal text of a number or boolean; null if there is no such value or it is null
+     */
+    public String text(@NonNull String pointer) {
+        int token = find(pointer);
+        if (token < 0) return null;
+        return switch (type(token)) {
+            case STRING -> decodeString(start[token] + 1, end[token] - 1, (flags[token] & ESCAPED_VALUE) != 0);
+            case NUMBER, TRUE, FALSE -> ascii(start[token], end[token]);
+            case NULL -> null;
+            default -> throw new JsonParserException("Value at " + pointer + " is " + type(token) + ", not a scalar");
+        };
+    }
+
+    /**
+     * Decodes a number, or a string holding a number as GOBL amounts do.
+     *
+     * @param pointer JSON Pointer
+     * @return decoded number or null if there is no value at the pointer
+     * @throws JsonParserException if the value is not a number
+     */
+    public BigDecimal decimal(@NonNull String pointer) {
+        String text = text(pointer);
+        if (text == null) return null;
+        try {
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            throw new JsonParserException("Value at " + pointer + " is not a number: " + text, e);
+        }
+    }
+
+    /**
+     * @param pointer JSON Pointer to an array or object
+     * @return number of elements or members, 0 if there is no value at the pointer
+     */
+    public int size(@NonNull String pointer) {
+        int token = find(pointer);
+        if (token < 0) return 0;
+        int size = 0;
+        for (int child = token + 1; child < last[token]; child = last[child]) size++;
+        return size;
+    }
+
+    /**
+     * @param pointer JSON Pointer to an array of strings
+     * @return decoded strings, empty if there is no value at the pointer
+     */
+    public List<String> strings(@NonNull String pointer) {
+        int token = find(pointer);
+        if (token < 0) return List.of();
+        if (type(token) != Type.ARRAY) throw new JsonParserException("Value at " + pointer + " is not an array");
+
+        List<String> result = new ArrayList<>();
+        for (int child = token + 1; child < last[token]; child = last[child]) {
+            if (type(child) != Type.STRING) throw new JsonParserException("Array at " + pointer + " contains " + type(child));
+            result.add(decodeString(start[child] + 1, end[child] - 1, (flags[child] & ESCAPED_VALUE) != 0));
+        }
+        return result;
+    }
+
+    /**
+     * @param pointer JSON Pointer to an object
+     * @return member names in document order, empty if there is no value at the pointer
+     */
+    public List<String> names(@NonNull String pointer) {
+        int token = find(pointer);
+        if (token < 0 || type(token) != Type.OBJECT) return List.of();
+
+        List<String> result = new ArrayList<>();
+        for (int child = token + 1; child < last[token]; child = last[child]) {
+            result.add(decodeString(keyStart[child], keyEnd[child], (flags[child] & ESCAPED_KEY) != 0));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the raw JSON text of a value without copying it, e.g. to hand a sub-document to a parser or to forward
+     * it unchanged.
+     *
+     * @param pointer JSON Pointer
+     * @return read-only buffer with the value's bytes, or null if there is no value at the pointer
+     */
+    public ByteBuffer raw(@NonNull String pointer) {
+        int token = find(pointer);
+        if (token < 0) return null;
+        return bytes.slice(start[token], end[token] - start[token]).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param pointer JSON Pointer
+     * @return view of the sub-document at the pointer, sharing the bytes, or null if there is no value at the pointer
+     */
+    public JsonView view(@NonNull String pointer) {
+        int token = find(pointer);
+        return token < 0 ? null : of(bytes.slice(start[token], end[token] - start[token]));
+    }
+
+    /**
+     * @return number of values in the document
+     */
+    public int valueCount() {
+        return count;
+    }
+
+    /**
+     * Resolves a JSON Pointer.
+     *
+     * @param pointer JSON Pointer
+     * @return token index or -1
+     */
+    private int find(String pointer) {
+        if (pointer.isEmpty()) return 0;
+        if (pointer.charAt(0) != '/') throw new IllegalArgumentException("Invalid JSON Pointer: " + pointer);
+
+        int token = 0;
+        int from = 1;
+        while (token >= 0) {
+            int to = pointer.indexOf('/', from);
+            if (to < 0) to = pointer.length();
+            String reference = pointer.substring(from, to);
+            if (reference.indexOf('~') >= 0) reference = reference.replace("~1", "/").replace("~0", "~");
+
+            token = switch (type(token)) {
+                case OBJECT -> member(token, reference);
+                case ARRAY -> element(token, reference);
+                default -> -1;
+            };
+            if (to == pointer.length()) return token;
+            from = to + 1;
+        }
+        return -1;
+    }
+
+    private int member(int object, String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        for (int child = object + 1; child < last[object]; child = last[child]) {
+            if ((flags[child] & ESCAPED_KEY) != 0) {
+                if (name.equals(decodeString(keyStart[child], keyEnd[child], true))) return child;
+            } else if (equals(keyStart[child], keyEnd[child], key)) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    private int element(int array, String reference) {
+        int index;
+        try {
+            index = Integer.parseInt(reference);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (index < 0) return -1;
+        for (int child = array + 1; child < last[array]; child = last[child]) {
+            if (index-- == 0) return child;
+        }
+        return -1;
+    }
+
+    private boolean equals(int from, int to, byte[] key) {
+        if (to - from != key.length) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (bytes.get(from + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    private Type type(int token) {
+        return TYPES[flags[token] & TYPE_MASK];
+    }
+
+    private String ascii(int from, int to) {
+        return decode(from, to, StandardCharsets.US_ASCII);
+    }
+
+    private String decode(int from, int to, Charset charset) {
+        if (bytes.hasArray()) return new String(bytes.array(), bytes.arrayOffset() + from, to - from, charset);
+        byte[] copy = new byte[to - from];
+        bytes.get(from, copy);
+        return new String(copy, charset);
+    }
+
+    private String decodeString(int from, int to, boolean escaped) {
+        if (!escaped) return decode(from, to, StandardCharsets.UTF_8);
+
+        StringBuilder sb = new StringBuilder(to - from);
+        int plain = from;
+        int i = from;
+        while (i < to) {
+            if (bytes.get(i) != '\\') {
+                i++;
+                continue;
+            }
+            sb.append(decode(plain, i, StandardCharsets.UTF_8));
+            char c = (char) bytes.get(i + 1);
+            switch (c) {
+                case '"', '\\', '/' -> sb.append(c);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (i + 6 > to) throw new JsonParserException("Invalid \\u escape at offset " + i);
+                    try {
+                        sb.append((char) Integer.parseInt(ascii(i + 2, i + 6), 16));
+                    } catch (NumberFormatException e) {
+                        throw new JsonParserException("Invalid \\u escape at offset " + i, e);
+                    }
+                    i += 4;
+                }
+                default -> throw new JsonParserException("Invalid escape at offset " + i);
+            }
+            i += 2;
+            plain = i;
+        }
+        sb.append(decode(plain, to, StandardCharsets.UTF_8));
+        return sb.toString();
+    }
+
+    // ---- scanning
+
+    private void scan() {
+        int position = value(skipWhitespace(0), -1, 0, 0);
+        if (skipWhitespace(position) != bytes.limit()) throw error("Unexpected content", position);
+    }
+
+    /**
+     * Records the value starting at the position and everything inside it.
+     *
+     * @return position after the value
+     */
+    private int value(int position, int nameStart, int nameFlags, int depth) {
+        if (depth > MAX_DEPTH) throw error("Document nested too deeply", position);
+        if (position >= bytes.limit()) throw error("Unexpected end of document", position);
+
+        int token = add(position, nameStart, nameFlags);
+        byte b = bytes.get(position);
+        int after = switch (b) {
+            case '{' -> object(token, position + 1, depth);
+            case '[' -> array(token, position + 1, depth);
+            case '"' -> {
+                int close = string(position + 1);
+                setType(token, Type.STRING, close < 0 ? ESCAPED_VALUE : 0);
+                yield Math.abs(close) + 1;
+            }
+            case 't' -> literal(token, position, "true", Type.TRUE);
+            case 'f' -> literal(token, position, "false", Type.FALSE);
+            case 'n' -> literal(token, position, "null", Type.NULL);
+            default -> {
+                if (b != '-' && (b < '0' || b > '9')) throw error("Unexpected character '" + (char) b + "'", position);
+                int p = position + 1;
+                while (p < bytes.limit() && isNumberChar(bytes.get(p))) p++;
+                setType(token, Type.NUMBER, 0);
+                yield p;
+            }
+        };
+        end[token] = after;
+        last[token] = count;
+        return after;
+    }
+
+    private int object(int token, int position, int depth) {
+        setType(token, Type.OBJECT, 0);
+        int p = skipWhitespace(position);
+        if (p < bytes.limit() && bytes.get(p) == '}') return p + 1;
+
+        while (true) {
+            if (p >= bytes.limit() || bytes.get(p) != '"') throw error("Expected member name", p);
+            int close = string(p + 1);
+            int nameFlags = close < 0 ? ESCAPED_KEY : 0;
+            close = Math.abs(close);
+            int colon = skipWhitespace(close + 1);
+            if (colon >= bytes.limit() || bytes.get(colon) != ':') throw error("Expected ':'", colon);
+
+            int child = count;
+            p = value(skipWhitespace(colon + 1), p + 1, nameFlags, depth + 1);
+            keyEnd[child] = close;
+
+            p = skipWhitespace(p);
+            if (p >= bytes.limit()) throw error("Unterminated object", p);
+            if (bytes.get(p) == '}') return p + 1;
+            if (bytes.get(p) != ',') throw error("Expected ',' or '}'", p);
+            p = skipWhitespace(p + 1);
+        }
+    }
+
+    private int array(int token, int position, int depth) {
+        setType(token, Type.ARRAY, 0);
+        int p = skipWhitespace(position);
+        if (p < bytes.limit() && bytes.get(p) == ']') return p + 1;
+
+        while (true) {
+            p = skipWhitespace(value(p, -1, 0, depth + 1));
+            if (p >= bytes.limit()) throw error("Unterminated array", p);
+            if (bytes.get(p) == ']') return p + 1;
+            if (bytes.get(p) != ',') throw error("Expected ',' or ']'", p);
+            p = skipWhitespace(p + 1);
+        }
+    }
+
+    /**
+     * @param position first byte after the opening quote
+     * @return position of the closing quote, negated if the string contains escapes
+     */
+    private int string(int position) {
+        boolean escaped = false;
+        for (int p = position; p < bytes.limit(); p++) {
+            byte b = bytes.get(p);
+            if (b == '"') return escaped ? -p : p;
+            if (b == '\\') {
+                escaped = true;
+                p++;
+            }
+        }
+        throw error("Unterminated string", position);
+    }
+
+    private int literal(int token, int position, String literal, Type type) {
+        int to = position + literal.length();
+        if (to > bytes.limit()) throw error("Unexpected end of document", position);
+        for (int i = 0; i < literal.length(); i++) {
+            if (bytes.get(position + i) != literal.charAt(i)) throw error("Invalid literal", position);
+        }
+        setType(token, type, 0);
+        return to;
+    }
+
+    private int add(int position, int nameStart, int nameFlags) {
+        if (count == start.length) grow();
+        start[count] = position;
+        keyStart[count] = nameStart;
+        keyEnd[count] = -1;
+        flags[count] = (byte) nameFlags;
+        return count++;
+    }
+
+    private void setType(int token, Type type, int extra) {
+        flags[token] = (byte) (flags[token] | type.ordinal() | extra);
+    }
+
+    private void grow() {
+        int capacity = start.length * 2;
+        flags = Arrays.copyOf(flags, capacity);
+        start = Arrays.copyOf(start, capacity);
+        end = Arrays.copyOf(end, capacity);
+        keyStart = Arrays.copyOf(keyStart, capacity);
+        keyEnd = Arrays.copyOf(keyEnd, capacity);
+        last = Arrays.copyOf(last, capacity);
+    }
+
+    private int skipWhitespace(int position) {
+        int p = position;
+        while (p < bytes.limit()) {
+            byte b = bytes.get(p);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') break;
+            p++;
+        }
+        return p;
+    }
+
+    private static boolean isNumberChar(byte b) {
+        return (b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-';
+    }
+
+    private static JsonParserException error(String message, int position) {
+        return new JsonParserException(message + " at offset " + position);
+    }
+}
@@ -0,0 +1,156 @@
+package io.alapierre.gobl.core;
+
+import io.alapierre.gobl.core.signature.JsonCanoniser;
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.alapierre.gobl.core.view.JsonView;
+import io.alapierre.ksef.fa.model.gobl.TestInvoices;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fails when a hot path allocates more bytes per operation than its budget in {@code allocation-budget.properties}.
+ * <p>
+ * Allocations are summed over all threads, so work moved to {@code ParallelCanoniser} workers still counts. A budget
+ * can be overridden with a system property of the same name, e.g. {@code -Dgobl.allocation.digest.large=4000000}.
+ * Budgets leave about 2.5 times the measured value as headroom; lower them when an optimisation lands.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+class AllocationBudgetTest {
+
+    static final String[] SIZES = {"small", "large"};
+    static final int LARGE_LINES = 1000;
+
+    static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    static final Properties budgets = new Properties();
+    static final Map<String, byte[]> invoices = new HashMap<>();
+
+    final Gobl gobl = new Gobl();
+    final JsonCanoniser canoniser = new JsonCanoniser();
+
+    static ECPrivateKey privateKey;
+    static ECPublicKey publicKey;
+    static final UUID kid = UUID.randomUUID();
+
+    @BeforeAll
+    static void prepare() throws Exception {
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "thread allocation measurement not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budget.properties")) {
+            budgets.load(in);
+        }
+
+        Path invoice = Path.of("src/test/resources/invoice.json");
+        invoices.put("small", Files.readAllBytes(invoice));
+        invoices.put("large", TestInvoices.largeInvoiceBytes(invoice, LARGE_LINES));
+
+        val keys = new KeySupport().generate();
+        privateKey = keys.privateKey();
+        publicKey = keys.publicKey();
+    }
+
+    @Test
+    void digest() throws Exception {
+        for (String size : SIZES) {
+            Invoice invoice = parse(size);
+            assertWithinBudget("digest", size, () -> gobl.digest(invoice));
+        }
+    }
+
+    @Test
+    void sign() throws Exception {
+        for (String size : SIZES) {
+            Invoice invoice = parse(size);
+            assertWithinBudget("sign", size, () -> gobl.signInvoice(invoice, privateKey, kid));
+        }
+    }
+
+    @Test
+    void extract() throws Exception {
+        for (String size : SIZES) {
+            byte[] envelope = gobl.signInvoice(parse(size), privateKey, kid).getBytes(StandardCharsets.UTF_8);
+            assertWithinBudget("extract", size,
+                    () -> gobl.extractFromEnvelope(new ByteArrayInputStream(envelope), Invoice.class, publicKey));
+        }
+    }
+
+    @Test
+    void canonicalise() throws Exception {
+        for (String size : SIZES) {
+            byte[] json = invoices.get(size);
+            assertWithinBudget("canonicalise", size, () -> canoniser.parse(json));
+        }
+    }
+
+    @Test
+    void view() throws Exception {
+        for (String size : SIZES) {
+            byte[] json = invoices.get(size);
+            assertWithinBudget("view", size, () -> JsonView.of(json));
+        }
+    }
+
+    private Invoice parse(String size) {
+        return gobl.parseInvoice(new ByteArrayInputStream(invoices.get(size)));
+    }
+
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    private static void assertWithinBudget(String operation, String size, Operation op) throws Exception {
+        String key = "gobl.allocation." + operation + "." + size;
+        String configured = System.getProperty(key, budgets.getProperty(key));
+        assertNotNull(configured, "No allocation budget for " + key);
+        long budget = Long.parseLong(configured.trim());
+
+        int iterations = "small".equals(size) ? 500 : 20;
+        for (int i = 0; i < iterations; i++) assertNotNull(op.run()); // warm-up: class loading, caches, JIT
+
+        long perOperation = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) { // keep the best round, another test thread may be noisy
+            long before = allocatedBytes();
+            for (int i = 0; i < iterations; i++) assertNotNull(op.run());
+            perOperation = Math.min(perOperation, (allocatedBytes() - before) / iterations);
+        }
+
+        log.info("{}: {} bytes/op, budget {}", key, perOperation, budget);
+        assertTrue(perOperation <= budget,
+                key + " allocates " + perOperation + " bytes per operation, budget is " + budget);
+    }
+
+    /**
+     * Allocated bytes of all live threads; a thread that ends between two calls takes its count with it,
+     * which can only make the measurement lower.
+     */
+    private static long allocatedBytes() {
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,110 @@
+package io.alapierre.gobl.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class BatchSigningTest {
+
+    static final int BATCH = 37;
+
+    static final Gobl gobl = new Gobl();
+    static final ObjectMapper mapper = new ObjectMapper();
+    static final List<Invoice> invoices = new ArrayList<>();
+    static final UUID kid = UUID.randomUUID();
+    static ECPrivateKey privateKey;
+    static PublicKey publicKey;
+    static List<String> envelopes;
+
+    @BeforeAll
+    static void prepare() throws Exception {
+        val template = Files.readString(Path.of("src/test/resources/invoice.json"));
+        for (int i = 0; i < BATCH; i++) {
+            invoices.add(gobl.parseInvoice(stream(template.replace("\"123456789\"", "\"INV/" + i + "\""))));
+        }
+        val keys = new KeySupport().generate();
+        privateKey = keys.privateKey();
+        publicKey = keys.publicKey();
+        envelopes = gobl.signBatch(invoices, privateKey, kid);
+    }
+
+    @Test
+    void everyEnvelopeVerifiesWithOneRootCheck() throws Exception {
+        assertEquals(BATCH, envelopes.size());
+        int[] lookups = new int[1];
+        val verifier = new BatchVerifier(gobl, k -> {
+            lookups[0]++;
+            return kid.toString().equals(k) ? publicKey : null;
+        });
+
+        for (int i = 0; i < BATCH; i++) {
+            val envelope = mapper.readTree(envelopes.get(i));
+            assertEquals(gobl.digest(invoices.get(i)), envelope.at("/head/dig/val").asText());
+            assertEquals(String.valueOf(i), envelope.at("/head/meta/merkle-index").asText());
+            assertEquals(invoices.get(i), verifier.verify(stream(envelopes.get(i)), Invoice.class));
+        }
+        assertEquals(1, verifier.verifiedRoots());
+        assertEquals(1, lookups[0]);
+    }
+
+    @Test
+    void tamperedDocumentOrProofFails() throws Exception {
+        val verifier = gobl.batchVerifier(Map.of(kid.toString(), publicKey));
+
+        val tampered = (ObjectNode) mapper.readTree(envelopes.get(5));
+        ((ObjectNode) tampered.get("doc")).put("code", "INV/6");
+        assertThrows(SignatureException.class, () -> verifier.verify(stream(tampered.toString()), Invoice.class));
+
+        val moved = (ObjectNode) mapper.readTree(envelopes.get(5));
+        ((ObjectNode) moved.at("/head/meta")).put("merkle-index", "6");
+        assertThrows(SignatureException.class, () -> verifier.verify(stream(moved.toString()), Invoice.class));
+
+        val noProof = (ObjectNode) mapper.readTree(envelopes.get(5));
+        ((ObjectNode) noProof.get("head")).remove("meta");
+        assertThrows(SignatureException.class, () -> verifier.verify(stream(noProof.toString()), Invoice.class));
+    }
+
+    @Test
+    void rootSignedByAnotherKeyFails() throws Exception {
+        val other = new KeySupport().generate().publicKey();
+        val verifier = gobl.batchVerifier(Map.of(kid.toString(), other));
+
+        assertThrows(SignatureException.class, () -> verifier.verify(stream(envelopes.get(0)), Invoice.class));
+        assertEquals(0, verifier.verifiedRoots());
+        assertThrows(SignatureException.class, () -> gobl.batchVerifier(Map.of()).verify(stream(envelopes.get(0)), Invoice.class));
+    }
+
+    @Test
+    void regularVerificationRejectsBatchEnvelope() {
+        assertThrows(SignatureException.class,
+                () -> gobl.extractFromEnvelope(stream(envelopes.get(0)), Invoice.class, publicKey));
+        assertThrows(IllegalArgumentException.class, () -> gobl.signBatch(List.of(), privateKey, kid));
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,143 @@
+package io.alapierre.gobl.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.alapierre.gobl.core.signature.IncrementalDigest;
+import io.alapierre.gobl.core.signature.JsonCanoniser;
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.alapierre.ksef.fa.model.gobl.FastAccessors;
+import io.alapierre.ksef.fa.model.gobl.InvoiceSerializer;
+import io.alapierre.ksef.fa.model.gobl.TestInvoices;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that generated accessors don't change a single byte of the output and compares parse and serialise
+ * throughput of a large invoice with and without them.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class FastAccessorsTest {
+
+    static final int LINES = 5_000;
+    static final int ROUNDS = 10;
+    static final int PASSES = 4;
+
+    static byte[] invoice;
+
+    @BeforeAll
+    static void prepare() throws Exception {
+        invoice = TestInvoices.largeInvoiceBytes(Path.of("src/test/resources/invoice.json"), LINES);
+    }
+
+    @AfterEach
+    void reset() {
+        FastAccessors.setEnabled(false);
+    }
+
+    @Test
+    void registersTheModuleOnlyWhenEnabled() {
+        assertTrue(FastAccessors.apply(new ObjectMapper()).getRegisteredModuleIds().isEmpty());
+        FastAccessors.setEnabled(true);
+        assertFalse(FastAccessors.apply(new ObjectMapper()).getRegisteredModuleIds().isEmpty());
+    }
+
+    @Test
+    void outputIsByteIdentical() throws Exception {
+        val reflective = Output.of(invoice);
+        FastAccessors.setEnabled(true);
+        val generated = Output.of(invoice);
+
+        assertEquals(reflective.serialised(), generated.serialised());
+        assertArrayEquals(reflective.smile(), generated.smile());
+        assertArrayEquals(reflective.canonical(), generated.canonical());
+        assertEquals(reflective.digests(), generated.digests());
+    }
+
+    @Test
+    void envelopesSignedWithGeneratedAccessorsVerify() throws Exception {
+        val keys = new KeySupport().generate();
+        FastAccessors.setEnabled(true);
+        val gobl = new Gobl();
+        String envelope = gobl.signInvoice(new ByteArrayInputStream(invoice), keys.privateKey(), UUID.randomUUID());
+
+        FastAccessors.setEnabled(false);
+        Invoice verified = new Gobl().extractFromEnvelope(
+                new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8)), Invoice.class, keys.publicKey());
+        assertEquals(LINES, verified.getLines().size());
+    }
+
+    /**
+     * Benchmark, excluded from the default build: {@code mvn test -Dgroups=benchmark -Dgobl.test.excludedGroups=}.
+     */
+    @Test
+    @Tag("benchmark")
+    void printsParseAndSerialiseThroughput() {
+        val reflective = new InvoiceSerializer();
+        FastAccessors.setEnabled(true);
+        val generated = new InvoiceSerializer();
+
+        double[] reflectiveRates = {0, 0};
+        double[] generatedRates = {0, 0};
+        for (int pass = 0; pass < PASSES; pass++) { // alternated, so both get the same JIT and GC conditions
+            best(reflectiveRates, measure(reflective));
+            best(generatedRates, measure(generated));
+        }
+        System.out.printf("%d-line invoice, best of %d rounds (invoices/s): parse %.1f -> %.1f, serialise %.1f -> %.1f%n",
+                LINES, PASSES * ROUNDS, reflectiveRates[0], generatedRates[0], reflectiveRates[1], generatedRates[1]);
+    }
+
+    /**
+     * Everything the mappers of one configuration write for the invoice.
+     */
+    private record Output(String serialised, byte[] smile, byte[] canonical, List<String> digests) {
+
+        static Output of(byte[] content) throws Exception {
+            val serializer = new InvoiceSerializer();
+            val gobl = new Gobl();
+            Invoice invoice = serializer.fromStream(new ByteArrayInputStream(content));
+            List<String> digests = new ArrayList<>();
+            digests.add(gobl.digest(invoice));
+            digests.add(gobl.digest(invoice, "SHA-512"));
+            digests.add(new IncrementalDigest(invoice).digest());
+            return new Output(serializer.toString(invoice), serializer.toSmile(invoice),
+                    new JsonCanoniser().canonicalise(invoice), digests);
+        }
+    }
+
+    /**
+     * @return best parse and serialise rates of the serializer
+     */
+    private static double[] measure(InvoiceSerializer serializer) {
+        Invoice parsed = serializer.fromStream(new ByteArrayInputStream(invoice));
+        long parse = Long.MAX_VALUE;
+        long serialise = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            parsed = serializer.fromStream(new ByteArrayInputStream(invoice));
+            long middle = System.nanoTime();
+            assertTrue(serializer.toString(parsed).length() > invoice.length / 2);
+            long end = System.nanoTime();
+            parse = Math.min(parse, middle - start);
+            serialise = Math.min(serialise, end - middle);
+        }
+        return new double[] {1e9 / parse, 1e9 / serialise};
+    }
+
+    private static void best(double[] best, double[] rates) {
+        for (int i = 0; i < best.length; i++) best[i] = Math.max(best[i], rates[i]);
+    }
+}
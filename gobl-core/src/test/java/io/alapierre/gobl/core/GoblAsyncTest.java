@@ -0,0 +1,136 @@
+package io.alapierre.gobl.core;
+
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class GoblAsyncTest {
+
+    static final Path INVOICE = Path.of("src/test/resources/invoice.json");
+
+    final ExecutorService callers = Executors.newFixedThreadPool(2, named("caller"));
+    final ExecutorService cpu = Executors.newFixedThreadPool(2, named("cpu"));
+    final GoblAsync async = new GoblAsync(new Gobl(), callers, cpu);
+    final KeySupport keySupport = new KeySupport();
+
+    @TempDir
+    Path tmp;
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+        cpu.shutdownNow();
+    }
+
+    @Test
+    void signsFileToFileAndExtracts() throws Exception {
+        val keys = keySupport.generate();
+        Path envelope = tmp.resolve("envelope.json");
+
+        async.signInvoiceAsync(INVOICE, envelope, keys.privateKey(), UUID.randomUUID()).get(30, TimeUnit.SECONDS);
+
+        Invoice expected = async.gobl().parseInvoice(INVOICE);
+        Invoice fromFile = async.extractFromEnvelopeAsync(envelope, Invoice.class, keys.publicKey()).get(30, TimeUnit.SECONDS);
+        Invoice fromStream = async.extractFromEnvelopeAsync(Files.newInputStream(envelope), Invoice.class, keys.publicKey())
+                .get(30, TimeUnit.SECONDS);
+        assertEquals(expected.getCode(), fromFile.getCode());
+        assertEquals(expected.getLines().size(), fromStream.getLines().size());
+
+        Path saved = tmp.resolve("saved.json");
+        async.saveInvoiceAsync(fromFile, saved).get(30, TimeUnit.SECONDS);
+        assertEquals(expected.getCode(), async.parseInvoiceAsync(saved).get(30, TimeUnit.SECONDS).getCode());
+    }
+
+    @Test
+    void dependentStagesRunOnTheCallersExecutor() throws Exception {
+        val keys = keySupport.generate();
+        // hold the CPU pool until all stages are attached, so none of them runs on the test thread
+        CountDownLatch attached = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) cpu.execute(() -> await(attached));
+
+        List<CompletableFuture<String>> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            threads.add(async.signInvoiceAsync(INVOICE, keys.privateKey(), UUID.randomUUID())
+                    .thenApply(envelope -> {
+                        assertTrue(envelope.contains("\"sigs\""));
+                        return Thread.currentThread().getName();
+                    }));
+        }
+        CompletableFuture<String> parsed = async.parseInvoiceAsync(new ByteArrayInputStream(Files.readAllBytes(INVOICE)))
+                .thenApply(invoice -> Thread.currentThread().getName());
+        attached.countDown();
+
+        for (CompletableFuture<String> thread : threads) {
+            assertTrue(thread.get(30, TimeUnit.SECONDS).startsWith("caller-"), thread.get());
+        }
+        assertTrue(parsed.get(30, TimeUnit.SECONDS).startsWith("caller-"), parsed.get());
+    }
+
+    @Test
+    void failuresCarryTheOriginalException() throws Exception {
+        val keys = keySupport.generate();
+        val missing = async.signInvoiceAsync(tmp.resolve("missing.json"), keys.privateKey(), UUID.randomUUID());
+        val e = assertThrows(ExecutionException.class, () -> missing.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(NoSuchFileException.class, e.getCause());
+
+        String envelope = async.signInvoiceAsync(INVOICE, keys.privateKey(), UUID.randomUUID()).get(30, TimeUnit.SECONDS);
+        val otherKey = keySupport.generate().publicKey();
+        val forged = async.extractFromEnvelopeAsync(
+                new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8)), Invoice.class, otherKey);
+        val failure = assertThrows(ExecutionException.class, () -> forged.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(SignatureException.class, failure.getCause());
+    }
+
+    @Test
+    void defaultsToItsOwnExecutor() throws Exception {
+        val keys = keySupport.generate();
+        String envelope = new GoblAsync(new Gobl()).signInvoiceAsync(INVOICE, keys.privateKey(), UUID.randomUUID())
+                .get(30, TimeUnit.SECONDS);
+        assertNotNull(new Gobl().extractFromEnvelope(new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8)),
+                Invoice.class, keys.publicKey()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory named(String prefix) {
+        val counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package io.alapierre.gobl.core;
+
+import io.alapierre.gobl.core.signature.KeySupport;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers one shared {@link Gobl} instance from many threads and checks every result against values computed
+ * single-threaded.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class GoblConcurrencyTest {
+
+    static final int THREADS = 200;
+    static final int ITERATIONS = 25;
+    static final int VARIANTS = 16;
+
+    static final Gobl gobl = new Gobl();
+    static final List<String> json = new ArrayList<>();
+    static final List<String> digests = new ArrayList<>();
+    static ECPrivateKey privateKey;
+    static ECPublicKey publicKey;
+
+    @TempDir
+    static Path tmp;
+
+    @BeforeAll
+    static void prepare() throws Exception {
+        val template = Files.readString(Path.of("src/test/resources/invoice.json"));
+        for (int i = 0; i < VARIANTS; i++) {
+            val variant = template.replace("\"123456789\"", "\"INV/" + i + "\"");
+            json.add(variant);
+            digests.add(new Gobl().digest(new Gobl().parseInvoice(new ByteArrayInputStream(variant.getBytes(StandardCharsets.UTF_8)))));
+        }
+        assertEquals(VARIANTS, digests.stream().distinct().count());
+
+        val keys = new KeySupport().generate();
+        privateKey = keys.privateKey();
+        publicKey = keys.publicKey();
+    }
+
+    @Test
+    void parseAndDigest() throws Exception {
+        run((thread, i) -> {
+            int variant = (thread + i) % VARIANTS;
+            Invoice invoice = gobl.parseInvoice(new ByteArrayInputStream(json.get(variant).getBytes(StandardCharsets.UTF_8)));
+            assertEquals(digests.get(variant), gobl.digest(invoice));
+        });
+    }
+
+    @Test
+    void saveAndParse() throws Exception {
+        run((thread, i) -> {
+            int variant = (thread * 7 + i) % VARIANTS;
+            Invoice invoice = gobl.parseInvoice(new ByteArrayInputStream(json.get(variant).getBytes(StandardCharsets.UTF_8)));
+            val out = new ByteArrayOutputStream();
+            gobl.saveInvoice(invoice, out);
+            assertEquals(invoice, gobl.parseInvoice(new ByteArrayInputStream(out.toByteArray())));
+        });
+    }
+
+    @Test
+    void signAndVerify() throws Exception {
+        val kid = UUID.randomUUID();
+        run((thread, i) -> {
+            if (i % 5 != 0) return;
+            int variant = (thread + i) % VARIANTS;
+            String envelope = gobl.signInvoice(new ByteArrayInputStream(json.get(variant).getBytes(StandardCharsets.UTF_8)), privateKey, kid);
+
+            val file = tmp.resolve(thread + "-" + i + ".json");
+            Files.writeString(file, envelope);
+            Invoice invoice = gobl.extractFromEnvelope(file.toFile(), Invoice.class, publicKey);
+
+            assertEquals(digests.get(variant), gobl.digest(invoice));
+            assertEquals(digests.get(variant), gobl.peekEnvelope(file.toFile()).head().getDig().getVal());
+            assertEquals(kid.toString(), gobl.peekEnvelope(file.toFile()).kid());
+        });
+    }
+
+    @Test
+    void saveAndLoadKeys() throws Exception {
+        val keySupport = new KeySupport();
+        run((thread, i) -> {
+            if (i % 5 != 0) return;
+            val file = tmp.resolve("key-" + thread + "-" + i + ".jwk");
+            keySupport.save(privateKey, file);
+            assertEquals(privateKey, keySupport.loadKey(file));
+            assertNotNull(keySupport.loadJwk(file).getId());
+        });
+    }
+
+    private interface Step {
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    private static void run(Step step) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        step.run(thread, i);
+                        completed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                try {
+                    future.get(2, TimeUnit.MINUTES);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error error) throw error;
+                    throw (Exception) e.getCause();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(THREADS * ITERATIONS, completed.get());
+    }
+}
@@ -1,18 +1,24 @@
 package io.alapierre.gobl.core;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.alapierre.gobl.core.exceptions.NoSuchDigestAlgorithmException;
 import io.alapierre.gobl.core.signature.EcdsaSigner;
 import io.alapierre.gobl.core.signature.JsonCanoniser;
 import io.alapierre.gobl.core.signature.KeySupport;
+import io.alapierre.ksef.fa.model.gobl.EnvelopSerializer;
+import io.alapierre.ksef.fa.model.gobl.InvoiceSerializer;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.val;
 import org.gobl.model.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.Key;
@@ -109,6 +115,22 @@ class GoblTest {
         assertFalse(env.getSigs().isEmpty());
     }
 
+    @Test
+    void signInvoiceToStream() throws Exception {
+
+        KeySupport keySupport = new KeySupport();
+        val keys = keySupport.generate();
+
+        val invoice = gobl.parseInvoice("src/test/resources/invoice.json");
+        val out = new ByteArrayOutputStream();
+        gobl.signInvoice(invoice, keys.privateKey(), UUID.randomUUID(), out);
+
+        val env = objectMapper.readValue(out.toByteArray(), Envelope.class);
+        assertEquals("b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893", env.getHead().getDig().getVal());
+        val verified = gobl.extractFromEnvelope(new ByteArrayInputStream(out.toByteArray()), Invoice.class, keys.publicKey());
+        assertEquals(invoice.getCode(), verified.getCode());
+    }
+
     @Test
     void parse() throws Exception {
 
@@ -147,6 +169,19 @@ class GoblTest {
     }
 
     @Test
+    void digestOfInvoiceWithoutSchemaMatchesSignedDigest() throws Exception {
+        val json = (ObjectNode) objectMapper.readTree(new File("src/test/resources/invoice.json"));
+        json.remove("$schema");
+        val invoice = gobl.parseInvoice(new ByteArrayInputStream(objectMapper.writeValueAsBytes(json)));
+
+        val envelope = gobl.signInvoice(invoice, new KeySupport().generate().privateKey(), UUID.randomUUID());
+        val dig = objectMapper.readValue(envelope, Envelope.class).getHead().getDig().getVal();
+
+        assertEquals(dig, gobl.digest(invoice));
+        assertEquals(dig, gobl.incrementalDigest(invoice).digest());
+    }
+
+        @Test
     void digestObjectWithAlg() throws Exception {
         val invoice = gobl.parseInvoice("src/test/resources/invoice.json");
         val sig = gobl.digest(invoice, "sha256");
@@ -171,6 +206,28 @@ class GoblTest {
         assertEquals("b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893", dig);
     }
 
+    @Test
+    void digestAfterSmileRoundTrip() throws Exception {
+        val serializer = new InvoiceSerializer();
+        val invoice = gobl.parseInvoice("src/test/resources/invoice.json");
+
+        val decoded = serializer.fromSmile(serializer.toSmile(invoice));
+
+        assertEquals(invoice, decoded);
+        assertEquals("b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893", gobl.digest(decoded));
+    }
+
+    @Test
+    void envelopeDigestAfterSmileRoundTrip() throws Exception {
+        val serializer = new EnvelopSerializer();
+        val envelope = serializer.fromFile(new File("src/test/resources/invoice-signed.json"));
+
+        val decoded = serializer.fromSmile(serializer.toSmile(envelope));
+
+        assertEquals(envelope, decoded);
+        assertEquals(envelope.getHead().getDig().getVal(), gobl.digest(new JsonCanoniser().parse(decoded.getDoc())));
+    }
+
     @Test
     void signAndCheckSignature() throws Exception {
 
@@ -295,4 +352,24 @@ class GoblTest {
         });
     }
 
+    @Test
+    void peekEnvelope() throws Exception {
+
+        val peek = gobl.peekEnvelope(new File("src/test/resources/invoice-signed.json"));
+
+        assertEquals(UUID.fromString("c5aa890a-f107-47c9-8ac2-2510476a28b8"), peek.head().getUuid());
+        assertEquals("b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893", peek.head().getDig().getVal());
+        assertEquals("93d2ab59-4944-49e2-a793-2b313eb5259b", peek.kid());
+        assertEquals(2, gobl.peekEnvelope(new File("src/test/resources/invoice-two-signatures.json")).kids().size());
+    }
+
+    @Test
+    void peekEnvelopeDoesNotReadDocument() throws Exception {
+
+        val envelope = Files.readString(Path.of("src/test/resources/invoice-signed.json"));
+        val truncated = envelope.substring(0, envelope.indexOf("\"doc\"") + 10);
+
+        val peek = gobl.peekEnvelope(truncated.getBytes(StandardCharsets.UTF_8));
+        assertEquals("93d2ab59-4944-49e2-a793-2b313eb5259b", peek.kid());
+    }
 }
@@ -0,0 +1,154 @@
+package io.alapierre.gobl.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alapierre.gobl.core.cache.SignatureCache;
+import io.alapierre.gobl.core.signature.EcdsaSigner;
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.alapierre.gobl.core.signature.SigningKey;
+import io.alapierre.gobl.core.signature.VerificationPolicy;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class MultiSignatureTest {
+
+    static final Gobl gobl = new Gobl();
+    static final List<SigningKey> signingKeys = new ArrayList<>();
+    static final Map<String, PublicKey> publicKeys = new HashMap<>();
+    static Invoice invoice;
+    static String envelope;
+
+    @BeforeAll
+    static void prepare() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            val keys = new KeySupport().generate();
+            val kid = UUID.randomUUID();
+            signingKeys.add(new SigningKey(keys.privateKey(), kid));
+            publicKeys.put(kid.toString(), keys.publicKey());
+        }
+        invoice = gobl.parseInvoice(Path.of("src/test/resources/invoice.json"));
+        envelope = gobl.signInvoice(invoice, signingKeys);
+    }
+
+    @Test
+    void signsOneHeaderWithAllKeys() throws Exception {
+        val node = new ObjectMapper().readTree(envelope);
+        val sigs = node.get("sigs");
+        assertEquals(3, sigs.size());
+
+        val signer = new EcdsaSigner();
+        for (int i = 0; i < 3; i++) {
+            val dig = signer.verify(publicKeys::get, sigs.get(i).asText());
+            assertEquals(gobl.digest(invoice), dig.val());
+            assertEquals(node.at("/head/dig/val").asText(), dig.val());
+        }
+    }
+
+    @Test
+    void allPolicy() throws Exception {
+        assertEquals(invoice, verify(envelope, publicKeys, VerificationPolicy.ALL));
+
+        val missing = new HashMap<>(publicKeys);
+        missing.remove(signingKeys.get(1).kid().toString());
+        assertThrows(SignatureException.class, () -> verify(envelope, missing, VerificationPolicy.ALL));
+    }
+
+    @Test
+    void anyPolicy() throws Exception {
+        val kid = signingKeys.get(2).kid().toString();
+        assertEquals(invoice, verify(envelope, Map.of(kid, publicKeys.get(kid)), VerificationPolicy.ANY));
+
+        // a single key without kid lookup keeps working for co-signed envelopes
+        val single = gobl.extractFromEnvelope(new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8)),
+                Invoice.class, publicKeys.get(kid));
+        assertEquals(invoice, single);
+
+        val other = new KeySupport().generate().publicKey();
+        assertThrows(SignatureException.class, () -> verify(envelope, Map.of(kid, other), VerificationPolicy.ANY));
+    }
+
+    @Test
+    void thresholdPolicy() throws Exception {
+        val two = new HashMap<>(publicKeys);
+        two.remove(signingKeys.get(0).kid().toString());
+        assertEquals(invoice, verify(envelope, two, VerificationPolicy.atLeast(2)));
+        assertThrows(SignatureException.class, () -> verify(envelope, two, VerificationPolicy.atLeast(3)));
+        assertThrows(IllegalArgumentException.class, () -> VerificationPolicy.atLeast(0));
+    }
+
+    @Test
+    void sameKeyCountsOnce() throws Exception {
+        val key = signingKeys.get(0);
+        val twice = gobl.signInvoice(invoice, List.of(key, key));
+        val keys = Map.of(key.kid().toString(), publicKeys.get(key.kid().toString()));
+
+        assertEquals(invoice, verify(twice, keys, VerificationPolicy.ALL));
+        assertThrows(SignatureException.class, () -> verify(twice, keys, VerificationPolicy.atLeast(2)));
+    }
+
+    @Test
+    void tamperedDocumentFails() throws Exception {
+        val mapper = new ObjectMapper();
+        val node = (ObjectNode) mapper.readTree(envelope);
+        ((ObjectNode) node.get("doc")).put("code", "tampered");
+        val tampered = mapper.writeValueAsString(node);
+
+        assertThrows(SignatureException.class, () -> verify(tampered, publicKeys, VerificationPolicy.ANY));
+    }
+
+    @Test
+    void signatureWithoutKidFindsNoKey() throws Exception {
+        val signingKey = signingKeys.get(0);
+        String kidless = Jwts.builder()
+                .claim("dig", Map.of("alg", "sha256", "val", gobl.digest(invoice)))
+                .signWith(signingKey.privateKey(), Jwts.SIG.ES256)
+                .compact();
+        val mapper = new ObjectMapper();
+        val node = (ObjectNode) mapper.readTree(envelope);
+        node.putArray("sigs").add(kidless);
+        String unnamed = mapper.writeValueAsString(node);
+
+        // Map.of and ConcurrentHashMap throw on get(null)
+        val keys = Map.of(signingKey.kid().toString(), publicKeys.get(signingKey.kid().toString()));
+        assertThrows(SignatureException.class, () -> verify(unnamed, keys, VerificationPolicy.ANY));
+        assertThrows(SignatureException.class, () -> verify(unnamed, new ConcurrentHashMap<>(keys), VerificationPolicy.ANY));
+        assertThrows(SignatureException.class, () -> new Gobl(new SignatureCache()).verify(
+                new ByteArrayInputStream(unnamed.getBytes(StandardCharsets.UTF_8)), Invoice.class, keys, VerificationPolicy.ANY));
+
+        val batch = (ObjectNode) mapper.readTree(gobl.signBatch(List.of(invoice), signingKey.privateKey(), signingKey.kid()).get(0));
+        batch.putArray("sigs").add(kidless);
+        assertThrows(SignatureException.class, () -> gobl.batchVerifier(keys)
+                .verify(new ByteArrayInputStream(mapper.writeValueAsBytes(batch)), Invoice.class));
+    }
+
+    @Test
+    void emptyKeyListIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> gobl.signInvoice(invoice, List.of()));
+    }
+
+    private static Invoice verify(String envelope, Map<String, PublicKey> keys, VerificationPolicy policy) throws IOException {
+        return gobl.verify(new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8)), Invoice.class, keys, policy);
+    }
+}
@@ -0,0 +1,162 @@
+package io.alapierre.gobl.core;
+
+import io.alapierre.gobl.core.cache.SignatureCache;
+import io.alapierre.gobl.core.signature.KeySupport;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records an AppCDS archive with {@link GoblTrainingRun} and compares the time from JVM start to the first signed
+ * envelope with and without it. The class path is repackaged as jars because CDS does not archive classes loaded
+ * from directories.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class StartupBenchmarkTest {
+
+    static final int RUNS = 3;
+    static final String MARKER = "first envelope signed";
+
+    @TempDir
+    Path tmp;
+
+    /**
+     * Child JVM: signs one invoice and reports it, nothing else.
+     */
+    public static class FirstEnvelope {
+        public static void main(String[] args) throws Exception {
+            Gobl gobl = new Gobl();
+            Invoice invoice = gobl.parseInvoice(Path.of(args[0]));
+            val keys = new KeySupport().generate();
+            String envelope = gobl.signInvoice(invoice, keys.privateKey(), UUID.randomUUID());
+            System.out.println(MARKER + " " + envelope.length());
+        }
+    }
+
+    @Test
+    void warmUpDoesNotUseTheCache() {
+        val cache = new SignatureCache();
+        new Gobl(cache).warmUp();
+        assertEquals(new SignatureCache.Stats(0, 0, 0, 0, 0), cache.stats());
+    }
+
+    @Test
+    void trainingRunRecordsArchiveUsedAtStartup() throws Exception {
+        String classPath = jarClassPath();
+        Path archive = train(classPath);
+
+        val classLoading = run(List.of("-XX:SharedArchiveFile=" + archive, "-Xlog:class+load=info", "-cp", classPath,
+                FirstEnvelope.class.getName(), invoice()), MARKER);
+        assertTrue(classLoading.output().stream().anyMatch(line ->
+                line.contains(Gobl.class.getName() + " source: shared objects file")), "Gobl was not loaded from the archive");
+    }
+
+    /**
+     * Benchmark, excluded from the default build: {@code mvn test -Dgroups=benchmark -Dgobl.test.excludedGroups=}.
+     * Timings depend on the machine, so they are printed rather than asserted.
+     */
+    @Test
+    @Tag("benchmark")
+    void printsStartupTimeWithAndWithoutArchive() throws Exception {
+        String classPath = jarClassPath();
+        Path archive = train(classPath);
+
+        long[] cold = new long[RUNS];
+        long[] archived = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            cold[i] = run(List.of("-cp", classPath, FirstEnvelope.class.getName(), invoice()), MARKER).millis();
+            archived[i] = run(List.of("-XX:SharedArchiveFile=" + archive, "-cp", classPath,
+                    FirstEnvelope.class.getName(), invoice()), MARKER).millis();
+        }
+        Arrays.sort(cold);
+        Arrays.sort(archived);
+        System.out.printf("JVM start to first signed envelope, median of %d: %d ms cold, %d ms with AppCDS archive%n",
+                RUNS, cold[RUNS / 2], archived[RUNS / 2]);
+    }
+
+    private Path train(String classPath) throws IOException, InterruptedException {
+        Path archive = tmp.resolve("gobl.jsa");
+        run(List.of("-XX:ArchiveClassesAtExit=" + archive, "-cp", classPath,
+                GoblTrainingRun.class.getName(), invoice()), "training run finished");
+        assertTrue(Files.size(archive) > 0, "archive not written");
+        return archive;
+    }
+
+    private static String invoice() {
+        return Path.of("src/test/resources/invoice.json").toAbsolutePath().toString();
+    }
+
+    private record Result(long millis, List<String> output) {}
+
+    private Result run(List<String> args, String marker) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(args);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long millis = -1;
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (millis < 0 && line.contains(marker)) millis = (System.nanoTime() - start) / 1_000_000;
+                output.add(line);
+            }
+        }
+        assertTrue(process.waitFor(2, TimeUnit.MINUTES), "child JVM did not finish");
+        assertEquals(0, process.exitValue(), () -> String.join("\n", output));
+        assertTrue(millis >= 0, () -> "no '" + marker + "' in output:\n" + String.join("\n", output));
+        return new Result(millis, output);
+    }
+
+    private String jarClassPath() throws IOException {
+        String classPath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        List<String> jars = new ArrayList<>();
+        for (String entry : classPath.split(File.pathSeparator)) {
+            Path path = Path.of(entry);
+            if (Files.isDirectory(path)) {
+                Path jar = tmp.resolve("classes-" + jars.size() + ".jar");
+                jar(path, jar);
+                jars.add(jar.toString());
+            } else if (Files.isRegularFile(path)) {
+                jars.add(entry);
+            }
+        }
+        return String.join(File.pathSeparator, jars);
+    }
+
+    private static void jar(Path directory, Path jar) throws IOException {
+        try (OutputStream out = Files.newOutputStream(jar);
+             JarOutputStream jarOut = new JarOutputStream(out);
+             Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                jarOut.putNextEntry(new JarEntry(directory.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, jarOut);
+                jarOut.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package io.alapierre.gobl.core.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.jsonwebtoken.security.Jwk;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.Key;
+import java.security.interfaces.ECPrivateKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class BatchWorkerTest {
+
+    static final Gobl gobl = new Gobl();
+    static final ObjectMapper mapper = new ObjectMapper();
+    static final Path PRIVATE_KEY = Path.of("src/test/resources/id_es256.jwk");
+
+    static ObjectNode template;
+    static ECPrivateKey privateKey;
+    static Key publicKey;
+    static UUID kid;
+
+    @TempDir
+    Path tmp;
+
+    @BeforeAll
+    static void prepare() throws Exception {
+        template = (ObjectNode) mapper.readTree(Path.of("src/test/resources/invoice.json").toFile());
+        val keySupport = new KeySupport();
+        Jwk<?> jwk = keySupport.loadJwk(PRIVATE_KEY);
+        privateKey = (ECPrivateKey) jwk.toKey();
+        kid = UUID.fromString(jwk.getId());
+        publicKey = keySupport.loadKey(Path.of("src/test/resources/id_es256.pub.jwk"));
+    }
+
+    @Test
+    void signsEveryLineOfAnNdjsonFile() throws Exception {
+        Path input = tmp.resolve("invoices.ndjson");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            lines.add(invoice(i));
+            if (i == 10) lines.add("   ");
+            if (i == 20) lines.add("{\"code\": ");
+        }
+        Files.write(input, lines);
+
+        val job = BatchJob.planNdjson(input, tmp.resolve("job"), 4);
+        assertEquals(7, job.shardCount());
+
+        val summary = new BatchWorker(gobl, job, privateKey, kid).run();
+        assertEquals(new BatchWorker.Summary(7, 25, 1), summary);
+        assertTrue(job.isComplete());
+        assertEquals(codes(0, 25), signedCodes(job));
+        assertEquals(1, errorLines(job));
+    }
+
+    @Test
+    void resumesAfterTheLastCheckpoint() throws Exception {
+        Path input = Files.createDirectory(tmp.resolve("in"));
+        for (int i = 0; i < 10; i++) Files.writeString(input.resolve(String.format("inv-%02d.json", i)), invoice(i));
+        val job = BatchJob.planDirectory(input, tmp.resolve("job"), 10);
+        new BatchWorker(gobl, job, privateKey, kid, Duration.ofSeconds(1), 3).run();
+
+        // crash after the checkpoint at item 3: one more envelope and a torn one in the next segment, lease left behind
+        Path output = job.outputFile(0);
+        List<String> signed = Files.readAllLines(output);
+        Files.write(job.segmentFile(0, "committed"), signed.subList(0, 3));
+        Files.writeString(job.segmentErrorFile(0, "committed"), "");
+        new Checkpoint(3, List.of("committed"), false).write(job.checkpointFile(0));
+        Files.write(job.segmentFile(0, "interrupted"), List.of(signed.get(3), "{\"head\":"));
+        Files.delete(output);
+        Files.writeString(job.leaseFile(0), "crashed-worker");
+        assertNull(ShardLease.tryAcquire(job.leaseFile(0), "impatient", Duration.ofSeconds(1)), "fresh lease was taken over");
+        Files.setLastModifiedTime(job.leaseFile(0), FileTime.from(Instant.now().minusSeconds(60)));
+        assertFalse(job.isComplete());
+
+        val summary = new BatchWorker(gobl, job, privateKey, kid, Duration.ofSeconds(1), 3).run();
+
+        assertEquals(new BatchWorker.Summary(1, 7, 0), summary);
+        List<String> resumed = Files.readAllLines(output);
+        assertEquals(signed.subList(0, 3), resumed.subList(0, 3));
+        assertEquals(codes(0, 10), signedCodes(job));
+        assertFalse(Files.exists(job.leaseFile(0)));
+        assertEquals(List.of(), job.segmentFiles(0));
+    }
+
+    @Test
+    void staleLeaseIsTakenOverOnce() throws Exception {
+        Path file = tmp.resolve("shard.lease");
+        Files.writeString(file, "crashed-worker");
+        FileTime heartbeat = FileTime.from(Instant.now().minusSeconds(60));
+        Files.setLastModifiedTime(file, heartbeat);
+
+        try (val first = ShardLease.tryAcquire(file, "first", Duration.ofSeconds(1))) {
+            assertNotNull(first);
+            // a second worker judged the same heartbeat stale before the first one took over
+            assertNull(ShardLease.takeOver(file, "second", "crashed-worker", heartbeat));
+            assertTrue(first.held());
+            assertTrue(first.renew());
+        }
+        try (val files = Files.list(tmp)) {
+            assertEquals(List.of(), files.toList());
+        }
+    }
+
+    @Test
+    void supersededWorkerDoesNotChangeCommittedOutput() throws Exception {
+        Path input = Files.createDirectory(tmp.resolve("in"));
+        for (int i = 0; i < 6; i++) Files.writeString(input.resolve(String.format("inv-%02d.json", i)), invoice(i));
+        val job = BatchJob.planDirectory(input, tmp.resolve("job"), 10);
+
+        AtomicInteger calls = new AtomicInteger();
+        List<Checkpoint> committed = new ArrayList<>();
+        Gobl paused = new Gobl() {
+            @Override
+            public String signInvoice(InputStream source, ECPrivateKey key, UUID kid) throws IOException {
+                int call = calls.incrementAndGet();
+                // the worker missed its heartbeats and another one took the shard over
+                if (call == 2) Files.writeString(job.leaseFile(0), "new-owner");
+                // what the new owner would resume from once the superseded worker reached its checkpoint
+                if (call == 4) {
+                    committed.add(Checkpoint.read(job.checkpointFile(0)));
+                    assertFalse(Files.exists(job.outputFile(0)));
+                }
+                return super.signInvoice(source, key, kid);
+            }
+        };
+        // the new owner never renews, so the first worker takes the shard back after the timeout and completes it
+        val summary = new BatchWorker(paused, job, privateKey, kid, Duration.ofSeconds(1), 3).run();
+
+        assertEquals(List.of(Checkpoint.START), committed);
+        assertEquals(new BatchWorker.Summary(1, 9, 0), summary);
+        assertEquals(codes(0, 6), signedCodes(job));
+        assertEquals(List.of(), job.segmentFiles(0));
+    }
+
+    @Test
+    void processesShareTheJob() throws Exception {
+        Path input = tmp.resolve("invoices.ndjson");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40; i++) lines.add(invoice(i));
+        Files.write(input, lines);
+        Path jobDirectory = tmp.resolve("job");
+        run("plan", input.toString(), jobDirectory.toString(), "2");
+
+        List<Process> workers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) workers.add(start("run", jobDirectory.toString(), PRIVATE_KEY.toAbsolutePath().toString()));
+        for (Process worker : workers) await(worker);
+
+        val job = BatchJob.open(jobDirectory);
+        assertTrue(job.isComplete());
+        assertEquals(codes(0, 40), signedCodes(job));
+    }
+
+    private static String invoice(int i) throws IOException {
+        ObjectNode invoice = template.deepCopy();
+        invoice.put("code", "INV/" + i);
+        return mapper.writeValueAsString(invoice);
+    }
+
+    private static List<String> codes(int from, int to) {
+        List<String> codes = new ArrayList<>();
+        for (int i = from; i < to; i++) codes.add("INV/" + i);
+        return codes;
+    }
+
+    /**
+     * @return codes of the verified envelopes of all shards, in output order
+     */
+    private static List<String> signedCodes(BatchJob job) throws IOException {
+        List<String> codes = new ArrayList<>();
+        for (Path output : job.outputs()) {
+            for (String envelope : Files.readAllLines(output)) {
+                Invoice invoice = gobl.extractFromEnvelope(new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8)),
+                        Invoice.class, publicKey);
+                codes.add(invoice.getCode());
+            }
+        }
+        return codes;
+    }
+
+    private static long errorLines(BatchJob job) throws IOException {
+        long count = 0;
+        for (int shard = 0; shard < job.shardCount(); shard++) {
+            if (Files.exists(job.errorFile(shard))) count += Files.readAllLines(job.errorFile(shard)).size();
+        }
+        return count;
+    }
+
+    private void run(String... args) throws Exception {
+        await(start(args));
+    }
+
+    private Process start(String... args) throws IOException {
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("surefire.test.class.path", System.getProperty("java.class.path")),
+                BatchRunner.class.getName()));
+        command.addAll(List.of(args));
+        Path log = Files.createTempFile(tmp, "worker", ".log");
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+    }
+
+    private static void await(Process process) throws Exception {
+        assertTrue(process.waitFor(2, TimeUnit.MINUTES), "process did not finish");
+        assertEquals(0, process.exitValue(), () -> String.join("\n", process.info().commandLine().orElse("")));
+    }
+}
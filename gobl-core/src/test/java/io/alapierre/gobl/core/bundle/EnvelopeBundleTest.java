@@ -0,0 +1,181 @@
+package io.alapierre.gobl.core.bundle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.signature.KeyPairHolder;
+import io.alapierre.gobl.core.signature.KeySupport;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class EnvelopeBundleTest {
+
+    static final Gobl gobl = new Gobl();
+    static final ObjectMapper mapper = new ObjectMapper();
+
+    static KeyPairHolder<ECPrivateKey, ECPublicKey> keys;
+    static List<byte[]> envelopes;
+
+    @TempDir
+    Path tmp;
+
+    @BeforeAll
+    static void prepare() throws Exception {
+        keys = new KeySupport().generate();
+        envelopes = signed(keys.privateKey(), 40);
+    }
+
+    @Test
+    void readsSingleEnvelopesAndOpensAsZip() throws Exception {
+        Path file = tmp.resolve("2026-10.gobl.zip");
+        try (val writer = BundleWriter.create(file, 3, 6)) {
+            for (byte[] envelope : envelopes) writer.add(envelope);
+            assertEquals(envelopes.size(), writer.size());
+        }
+
+        try (val bundle = EnvelopeBundle.open(file)) {
+            assertEquals(envelopes.size(), bundle.size());
+            for (int i : new int[] {0, 17, envelopes.size() - 1}) {
+                UUID uuid = gobl.peekEnvelope(envelopes.get(i)).head().getUuid();
+                assertEquals(uuid, bundle.entries().get(i).uuid(), "envelopes are written in order");
+                assertArrayEquals(envelopes.get(i), bundle.read(uuid));
+            }
+            assertTrue(bundle.entry(UUID.randomUUID()).isEmpty());
+            assertThrows(NoSuchElementException.class, () -> bundle.read(UUID.randomUUID()));
+        }
+
+        try (val zip = new ZipFile(file.toFile())) {
+            assertEquals(envelopes.size() + 1, zip.size());
+            assertNotNull(zip.getEntry(EnvelopeBundle.INDEX));
+            UUID uuid = gobl.peekEnvelope(envelopes.get(5)).head().getUuid();
+            try (val in = zip.getInputStream(zip.getEntry(uuid + ".json"))) {
+                assertArrayEquals(envelopes.get(5), in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void verificationReportsEachInvalidEnvelope() throws Exception {
+        val otherKeys = new KeySupport().generate();
+        byte[] foreign = signed(otherKeys.privateKey(), 1).get(0);
+        ObjectNode tampered = (ObjectNode) mapper.readTree(envelopes.get(3));
+        ((ObjectNode) tampered.get("doc")).put("code", "FORGED");
+
+        List<byte[]> content = new ArrayList<>(envelopes);
+        content.set(3, mapper.writeValueAsBytes(tampered));
+        content.add(foreign);
+        Path file = tmp.resolve("bundle.zip");
+        try (val writer = BundleWriter.create(file)) {
+            for (byte[] envelope : content) writer.add(envelope);
+        }
+
+        try (val bundle = EnvelopeBundle.open(file)) {
+            val verification = bundle.verify(gobl, keys.publicKey());
+            assertFalse(verification.valid());
+            assertEquals(envelopes.size() - 1, verification.verified());
+            assertEquals(Set.of(uuid(content.get(3)), uuid(foreign)), verification.failures().keySet());
+        }
+        try (val bundle = EnvelopeBundle.open(file)) {
+            assertTrue(bundle.verify(gobl, otherKeys.publicKey()).failures().containsKey(uuid(envelopes.get(0))));
+        }
+    }
+
+    @Test
+    void detectsDamageAndDuplicates() throws Exception {
+        Path file = tmp.resolve("bundle.zip");
+        try (val writer = BundleWriter.create(file, 2, 1)) {
+            for (byte[] envelope : envelopes.subList(0, 5)) writer.add(envelope);
+        }
+
+        try (val bundle = EnvelopeBundle.open(file)) {
+            BundleEntry damaged = bundle.entries().get(2);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                long middle = damaged.offset() + ZipFormat.LOCAL_HEADER_SIZE + damaged.name().length() + damaged.compressedSize() / 2;
+                channel.write(ByteBuffer.wrap(new byte[] {0x55, 0x55, 0x55, 0x55}), middle);
+            }
+            assertThrows(IOException.class, () -> bundle.read(damaged));
+            assertArrayEquals(envelopes.get(1), bundle.read(bundle.entries().get(1)));
+
+            val verification = bundle.verify(gobl, keys.publicKey());
+            assertEquals(4, verification.verified());
+            assertEquals(Set.of(damaged.uuid()), verification.failures().keySet());
+        }
+
+        Path duplicates = tmp.resolve("duplicates.zip");
+        val writer = BundleWriter.create(duplicates);
+        writer.add(envelopes.get(0));
+        writer.add(envelopes.get(0));
+        assertThrows(IllegalArgumentException.class, writer::close);
+        assertFalse(Files.exists(duplicates));
+
+        Files.writeString(duplicates, "PK not a bundle");
+        assertThrows(IOException.class, () -> EnvelopeBundle.open(duplicates));
+    }
+
+    @Test
+    void envelopeRejectedByAddDiscardsTheBundle() throws Exception {
+        Path file = tmp.resolve("rejected.zip");
+        val writer = BundleWriter.create(file, 1, 1); // a window of 2, so the rejection surfaces in a later add()
+        writer.add(envelopes.get(0));
+        writer.add("not an envelope".getBytes(StandardCharsets.UTF_8));
+        RuntimeException rejected = null;
+        for (byte[] envelope : envelopes.subList(1, 10)) {
+            try {
+                writer.add(envelope);
+            } catch (RuntimeException e) {
+                rejected = e;
+                break;
+            }
+        }
+        assertNotNull(rejected, "the invalid envelope was not reported by add()");
+        assertThrows(IllegalStateException.class, () -> writer.add(envelopes.get(20)));
+
+        val e = assertThrows(IOException.class, writer::close);
+        assertSame(rejected, e.getCause());
+        assertFalse(Files.exists(file));
+        try (val files = Files.list(tmp)) {
+            assertEquals(0, files.count(), "temporary file left behind");
+        }
+    }
+
+    private static UUID uuid(byte[] envelope) {
+        return gobl.peekEnvelope(envelope).head().getUuid();
+    }
+
+    private static List<byte[]> signed(ECPrivateKey privateKey, int count) throws IOException {
+        val template = (ObjectNode) mapper.readTree(Path.of("src/test/resources/invoice.json").toFile());
+        List<byte[]> signed = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            template.put("code", "INV/" + i);
+            String envelope = gobl.signInvoice(new ByteArrayInputStream(mapper.writeValueAsBytes(template)),
+                    privateKey, UUID.randomUUID());
+            signed.add(envelope.getBytes(StandardCharsets.UTF_8));
+        }
+        return signed;
+    }
+}
@@ -0,0 +1,153 @@
+package io.alapierre.gobl.core.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.signature.KeyPairHolder;
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.alapierre.gobl.core.signature.SigningKey;
+import io.alapierre.gobl.core.signature.VerificationPolicy;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class SignatureCacheTest {
+
+    final SignatureCache cache = new SignatureCache();
+    final Gobl gobl = new Gobl(cache);
+    final KeyPairHolder<ECPrivateKey, ECPublicKey> keys = new KeySupport().generate();
+    final UUID kid = UUID.randomUUID();
+
+    @Test
+    void signingIsReused() throws Exception {
+        val invoice = invoice();
+        String first = gobl.signInvoice(invoice, keys.privateKey(), kid);
+        String retry = gobl.signInvoice(invoice(), keys.privateKey(), kid);
+
+        assertEquals(first, retry);
+        assertEquals(1, cache.stats().hits());
+        assertEquals(invoice, verify(retry, keys.publicKey()));
+
+        assertNotEquals(first, gobl.signInvoice(invoice, keys.privateKey(), UUID.randomUUID()));
+        assertNotEquals(first, gobl.signInvoice(invoice, new KeySupport().generate().privateKey(), kid));
+        assertNotEquals(first, new Gobl().signInvoice(invoice, keys.privateKey(), kid));
+    }
+
+    @Test
+    void streamSigningIsReused() throws Exception {
+        byte[] json = Files.readAllBytes(Path.of("src/test/resources/invoice.json"));
+        String first = gobl.signInvoice(new ByteArrayInputStream(json), keys.privateKey(), kid);
+        String retry = gobl.signInvoice(new ByteArrayInputStream(json), keys.privateKey(), kid);
+
+        assertEquals(first, retry);
+        assertEquals(1, cache.stats().hits());
+        assertEquals(first, gobl.signInvoice(invoice(), keys.privateKey(), kid));
+    }
+
+    @Test
+    void cachedHeaderCantBeChanged() throws Exception {
+        val header = gobl.makeHeader("ab".repeat(32));
+        String key = SignatureCache.signingKey("ab".repeat(32), List.of(new SigningKey(keys.privateKey(), kid)));
+        cache.putSigned(key, new SignatureCache.Signed(header, List.of("sig")));
+        header.getDig().setVal("changed by the caller");
+
+        val hit = cache.signed(key);
+        assertEquals("ab".repeat(32), hit.header().getDig().getVal());
+        hit.header().getDig().setVal("changed by a hit");
+        hit.header().setUuid(UUID.randomUUID());
+        assertEquals("ab".repeat(32), cache.signed(key).header().getDig().getVal());
+        assertEquals(header.getUuid(), cache.signed(key).header().getUuid());
+        assertThrows(UnsupportedOperationException.class, () -> hit.sigs().add("another"));
+    }
+
+    @Test
+    void verificationIsReused() throws Exception {
+        String envelope = new Gobl().signInvoice(invoice(), keys.privateKey(), kid);
+
+        assertEquals(invoice(), verify(envelope, keys.publicKey()));
+        val afterFirst = cache.stats();
+        assertEquals(invoice(), verify(envelope, keys.publicKey()));
+
+        assertEquals(afterFirst.hits() + 1, cache.stats().hits());
+        assertEquals(afterFirst.entries(), cache.stats().entries());
+    }
+
+    @Test
+    void resultIsNeverReusedForAnotherKey() throws Exception {
+        String envelope = new Gobl().signInvoice(invoice(), keys.privateKey(), kid);
+        val other = new KeySupport().generate().publicKey();
+
+        assertThrows(SignatureException.class, () -> verify(envelope, other));
+        assertEquals(invoice(), verify(envelope, keys.publicKey()));
+        assertThrows(SignatureException.class, () -> verify(envelope, other));
+
+        // same kid, different key
+        assertThrows(SignatureException.class, () -> gobl.verify(stream(envelope), Invoice.class,
+                Map.of(kid.toString(), other), VerificationPolicy.ALL));
+    }
+
+    @Test
+    void changedDocumentIsVerifiedAgain() throws Exception {
+        String envelope = new Gobl().signInvoice(invoice(), keys.privateKey(), kid);
+        assertEquals(invoice(), verify(envelope, keys.publicKey()));
+
+        val mapper = new ObjectMapper();
+        val node = (ObjectNode) mapper.readTree(envelope);
+        ((ObjectNode) node.get("doc")).put("code", "tampered");
+        assertThrows(SignatureException.class, () -> verify(mapper.writeValueAsString(node), keys.publicKey()));
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        val small = new SignatureCache(4_000);
+        String digest = "ab".repeat(32);
+        Key key = keys.publicKey();
+
+        small.putVerified(SignatureCache.verificationKey(digest, "jws-0", key), true);
+        for (int i = 1; i < 50; i++) {
+            small.verified(SignatureCache.verificationKey(digest, "jws-0", key)); // keeps the first entry recent
+            small.putVerified(SignatureCache.verificationKey(digest, "jws-" + i, key), i % 2 == 0);
+        }
+
+        val stats = small.stats();
+        assertTrue(stats.bytes() <= 4_000, "cache holds " + stats.bytes() + " bytes");
+        assertTrue(stats.evictions() > 0);
+        assertEquals(Boolean.TRUE, small.verified(SignatureCache.verificationKey(digest, "jws-0", key)));
+        assertNull(small.verified(SignatureCache.verificationKey(digest, "jws-1", key)));
+        assertEquals(Boolean.FALSE, small.verified(SignatureCache.verificationKey(digest, "jws-49", key)));
+
+        assertNotEquals(SignatureCache.verificationKey(digest, "jws-0", key),
+                SignatureCache.verificationKey(digest, "jws-0", new KeySupport().generate().publicKey()));
+    }
+
+    private Invoice verify(String envelope, Key publicKey) throws IOException {
+        return gobl.extractFromEnvelope(stream(envelope), Invoice.class, publicKey);
+    }
+
+    private Invoice invoice() throws IOException {
+        return gobl.parseInvoice(Path.of("src/test/resources/invoice.json"));
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
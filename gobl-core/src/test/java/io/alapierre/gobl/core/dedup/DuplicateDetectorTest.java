@@ -0,0 +1,122 @@
+package io.alapierre.gobl.core.dedup;
+
+import io.alapierre.gobl.core.Gobl;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class DuplicateDetectorTest {
+
+    final Gobl gobl = new Gobl();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void detectResentInvoice() throws Exception {
+
+        val detector = new DuplicateDetector(BloomFilter.create(1000, 0.01), DigestLookup.inMemory());
+
+        val invoice = gobl.parseInvoice("src/test/resources/invoice.json");
+        val resent = gobl.parseInvoice("src/test/resources/invoice.json");
+
+        assertFalse(detector.checkAndRecord(invoice));
+        assertTrue(detector.isDuplicate(resent));
+        assertTrue(detector.checkAndRecord(resent));
+
+        resent.setCode("987654321");
+        assertFalse(detector.checkAndRecord(resent));
+        assertEquals(1, detector.duplicates());
+    }
+
+    @Test
+    void falsePositivesStayNearConfiguredRate() throws Exception {
+
+        int n = 20_000;
+        val filter = BloomFilter.create(n, 0.01);
+        val detector = new DuplicateDetector(filter, DigestLookup.inMemory());
+
+        for (int i = 0; i < n; i++) assertFalse(detector.checkAndRecord(digest("invoice-" + i)));
+        for (int i = 0; i < n; i++) assertTrue(detector.checkAndRecord(digest("invoice-" + i)));
+
+        int falsePositives = 0;
+        for (int i = 0; i < n; i++) if (filter.mightContain(HexFormat.of().parseHex(digest("other-" + i)))) falsePositives++;
+
+        assertTrue(falsePositives < n * 0.02, "false positives: " + falsePositives);
+        assertEquals(n, detector.duplicates());
+    }
+
+    @Test
+    void memoryBudget() {
+        val filter = BloomFilter.withMemoryBudget(1024, 1000);
+        assertEquals(8192, filter.bitSize());
+        assertTrue(filter.expectedFpp(1000) < 0.05);
+    }
+
+    @Test
+    void persistAndMap() throws Exception {
+
+        val file = dir.resolve("digests.bloom");
+        val filter = BloomFilter.create(file, 1000, 0.001);
+        val first = HexFormat.of().parseHex(digest("first"));
+        filter.put(first);
+        filter.force();
+
+        val mapped = BloomFilter.open(file);
+        assertTrue(mapped.mightContain(first));
+        assertFalse(mapped.mightContain(HexFormat.of().parseHex(digest("second"))));
+
+        val inMemory = BloomFilter.create(1000, 0.001);
+        inMemory.put(first);
+        val saved = dir.resolve("saved.bloom");
+        inMemory.save(saved);
+        assertTrue(BloomFilter.open(saved).mightContain(first));
+    }
+
+    @Test
+    void concurrentIngestReportsEachDigestOnce() throws Exception {
+
+        int threads = 8;
+        int digests = 2_000;
+        val detector = new DuplicateDetector(BloomFilter.create(digests, 0.01), DigestLookup.inMemory());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    int fresh = 0;
+                    for (int i = 0; i < digests; i++) if (!detector.checkAndRecord(digest("invoice-" + i))) fresh++;
+                    return fresh;
+                }));
+            }
+
+            int fresh = 0;
+            for (val future : futures) fresh += future.get();
+            assertEquals(digests, fresh);
+            assertEquals((long) digests * (threads - 1), detector.duplicates());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String digest(String value) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+}
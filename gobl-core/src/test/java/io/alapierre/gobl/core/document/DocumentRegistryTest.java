@@ -0,0 +1,148 @@
+package io.alapierre.gobl.core.document;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.signature.KeyPairHolder;
+import io.alapierre.gobl.core.signature.KeySupport;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.gobl.model.Party;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class DocumentRegistryTest {
+
+    static final String RECEIPT_SCHEMA = "https://gobl.org/draft-0/bill/receipt";
+
+    /**
+     * Shaped like the classes generated into {@code org.gobl.model}: unknown properties such as {@code $schema} are
+     * kept, so the document digests the same after binding.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Receipt {
+        private String code;
+        private String total;
+        @JsonIgnore
+        private Map<String, Object> additionalProperties = new LinkedHashMap<>();
+
+        Receipt(String code, String total) {
+            this(code, total, new LinkedHashMap<>());
+        }
+
+        @JsonAnyGetter
+        public Map<String, Object> getAdditionalProperties() {
+            return additionalProperties;
+        }
+
+        @JsonAnySetter
+        public void setAdditionalProperty(String name, Object value) {
+            additionalProperties.put(name, value);
+        }
+    }
+
+    final Gobl gobl = new Gobl();
+    final UUID kid = UUID.randomUUID();
+    final KeyPairHolder<ECPrivateKey, ECPublicKey> keys = new KeySupport().generate();
+
+    @Test
+    void invoiceIsRegisteredByDefault() {
+        val type = gobl.documents().get(Invoice.class);
+        assertEquals(DocumentRegistry.INVOICE_SCHEMA, type.schema());
+        assertSame(type, gobl.documents().forSchema(DocumentRegistry.INVOICE_SCHEMA).orElseThrow());
+        assertSame(gobl.documents().reader(Invoice.class), gobl.documents().reader(Invoice.class));
+        assertThrows(IllegalArgumentException.class, () -> gobl.documents().get(Receipt.class));
+    }
+
+    @Test
+    void genericSignMatchesSignInvoice() throws Exception {
+        val invoice = gobl.parseInvoice(Path.of("src/test/resources/invoice.json"));
+
+        String envelope = gobl.sign(invoice, keys.privateKey(), kid);
+
+        val peek = gobl.peekEnvelope(envelope.getBytes(StandardCharsets.UTF_8));
+        assertEquals("b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893", peek.head().getDig().getVal());
+        assertEquals(invoice, gobl.verify(stream(envelope), Invoice.class, keys.publicKey()));
+    }
+
+    @Test
+    void signedDocumentWithoutSchemaVerifies() throws Exception {
+        val invoice = new Invoice().withCode("A-1").withSupplier(new Party().withName("Supplier"));
+
+        String envelope = gobl.sign(invoice, keys.privateKey(), kid);
+
+        val verified = gobl.verify(stream(envelope), Invoice.class, keys.publicKey());
+        assertEquals("A-1", verified.getCode());
+        assertEquals(DocumentRegistry.INVOICE_SCHEMA, verified.getAdditionalProperties().get("$schema"));
+    }
+
+    @Test
+    void signedInvoiceWithoutSchemaVerifies() throws Exception {
+        val invoice = new Invoice().withCode("A-1").withSupplier(new Party().withName("Supplier"));
+        val verified = gobl.verify(stream(gobl.signInvoice(invoice, keys.privateKey(), kid)), Invoice.class, keys.publicKey());
+        assertEquals("A-1", verified.getCode());
+
+        // no $schema, plus values the envelope leaves out
+        String json = "{\"code\":\"A-2\",\"series\":null,\"lines\":[],\"supplier\":{\"name\":\"Supplier\"}}";
+        String envelope = gobl.signInvoice(stream(json), keys.privateKey(), kid);
+        val fromStream = gobl.verify(stream(envelope), Invoice.class, keys.publicKey());
+        assertEquals("A-2", fromStream.getCode());
+        assertEquals(DocumentRegistry.INVOICE_SCHEMA, fromStream.getAdditionalProperties().get("$schema"));
+    }
+
+    @Test
+    void mixedDocumentTypes() throws Exception {
+        gobl.documents().register(Receipt.class, RECEIPT_SCHEMA);
+        gobl.documents().register(Receipt.class, RECEIPT_SCHEMA); // idempotent
+
+        val invoice = gobl.parseInvoice(Path.of("src/test/resources/invoice.json"));
+        val receipt = new Receipt("R-1", "12.30");
+        List<String> batch = List.of(
+                gobl.sign(invoice, keys.privateKey(), kid),
+                gobl.sign(receipt, keys.privateKey(), kid));
+
+        assertEquals(invoice, gobl.verify(stream(batch.get(0)), keys.publicKey()));
+        val verified = (Receipt) gobl.verify(stream(batch.get(1)), keys.publicKey());
+        assertEquals("R-1", verified.getCode());
+        assertEquals("12.30", verified.getTotal());
+        assertEquals(verified, gobl.verify(stream(batch.get(1)), Receipt.class, keys.publicKey()));
+
+        assertThrows(IllegalArgumentException.class, () -> gobl.verify(stream(batch.get(1)), Invoice.class, keys.publicKey()));
+        assertThrows(IllegalArgumentException.class, () -> gobl.documents().register(Receipt.class, "https://example.com/other"));
+        assertThrows(IllegalArgumentException.class, () -> gobl.documents().register(Invoice.class, RECEIPT_SCHEMA));
+    }
+
+    @Test
+    void signInvoiceUsesRegisteredSchema() throws Exception {
+        String envelope = gobl.signInvoice(new ByteArrayInputStream(Files.readAllBytes(Path.of("src/test/resources/invoice.json"))),
+                keys.privateKey(), kid);
+        assertEquals(DocumentRegistry.INVOICE_SCHEMA, gobl.viewEnvelope(envelope.getBytes(StandardCharsets.UTF_8)).getDocumentSchema());
+    }
+
+    private static InputStream stream(String envelope) {
+        return new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,185 @@
+package io.alapierre.gobl.core.flow;
+
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.signature.KeySupport;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class SigningPipelineTest {
+
+    static final Gobl gobl = new Gobl();
+    static final UUID kid = UUID.randomUUID();
+    static String template;
+    static ECPrivateKey privateKey;
+    static ECPublicKey publicKey;
+
+    @BeforeAll
+    static void prepare() throws Exception {
+        template = Files.readString(Path.of("src/test/resources/invoice.json"));
+        val keys = new KeySupport().generate();
+        privateKey = keys.privateKey();
+        publicKey = keys.publicKey();
+    }
+
+    @Test
+    void signsEveryInvoice() throws Exception {
+        int count = 200;
+        val pipeline = new SigningPipeline(gobl, privateKey, kid, SigningPipeline.Parallelism.of(3), 16);
+        val sink = new CollectingSubscriber(Long.MAX_VALUE);
+        pipeline.subscribe(sink);
+
+        Set<String> expected = new HashSet<>();
+        try (val source = new SubmissionPublisher<byte[]>()) {
+            source.subscribe(pipeline);
+            for (int i = 0; i < count; i++) {
+                byte[] json = invoice(i);
+                expected.add(gobl.digest(gobl.parseInvoice(new ByteArrayInputStream(json))));
+                source.submit(json);
+            }
+        }
+        sink.done.get(60, TimeUnit.SECONDS);
+
+        assertEquals(count, sink.items.size());
+        Set<String> signed = new HashSet<>();
+        for (String envelope : sink.items) {
+            Invoice invoice = gobl.extractFromEnvelope(new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8)),
+                    Invoice.class, publicKey);
+            signed.add(gobl.digest(invoice));
+        }
+        assertEquals(expected, signed);
+    }
+
+    @Test
+    void invoiceWithoutSchemaVerifies() throws Exception {
+        val pipeline = new SigningPipeline(gobl, privateKey, kid, SigningPipeline.Parallelism.of(1), 4);
+        val sink = new CollectingSubscriber(Long.MAX_VALUE);
+        pipeline.subscribe(sink);
+
+        try (val source = new SubmissionPublisher<byte[]>()) {
+            source.subscribe(pipeline);
+            source.submit("{\"code\":\"A-1\",\"series\":null,\"lines\":[]}".getBytes(StandardCharsets.UTF_8));
+        }
+        sink.done.get(60, TimeUnit.SECONDS);
+
+        assertEquals(1, sink.items.size());
+        Invoice invoice = gobl.extractFromEnvelope(new ByteArrayInputStream(sink.items.get(0).getBytes(StandardCharsets.UTF_8)),
+                Invoice.class, publicKey);
+        assertEquals("A-1", invoice.getCode());
+    }
+
+    @Test
+    void slowSinkThrottlesTheSource() throws Exception {
+        val requested = new AtomicLong();
+        Flow.Publisher<byte[]> endless = subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+            long sent;
+
+            @Override
+            public synchronized void request(long n) {
+                requested.addAndGet(n);
+                for (long i = 0; i < n; i++) subscriber.onNext(invoice((int) sent++));
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+
+        val pipeline = new SigningPipeline(gobl, privateKey, kid, SigningPipeline.Parallelism.of(2), 4);
+        val sink = new CollectingSubscriber(5);
+        pipeline.subscribe(sink);
+        endless.subscribe(pipeline);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (sink.items.size() < 5 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        Thread.sleep(500); // let the stages fill their buffers
+
+        assertEquals(5, sink.items.size());
+        // per stage: 2 in progress, a buffer of 4 and a few items in hand-over
+        assertTrue(requested.get() < 60, "source was asked for " + requested.get() + " items");
+
+        long before = requested.get();
+        sink.subscription.request(20);
+        deadline = System.currentTimeMillis() + 10_000;
+        while (sink.items.size() < 25 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertEquals(25, sink.items.size());
+        assertTrue(requested.get() > before);
+        sink.subscription.cancel();
+    }
+
+    @Test
+    void invalidInvoiceFailsThePipeline() throws Exception {
+        val pipeline = new SigningPipeline(gobl, privateKey, kid);
+        val sink = new CollectingSubscriber(Long.MAX_VALUE);
+        pipeline.subscribe(sink);
+
+        try (val source = new SubmissionPublisher<byte[]>()) {
+            source.subscribe(pipeline);
+            source.submit(invoice(1));
+            source.submit("{not json".getBytes(StandardCharsets.UTF_8));
+        }
+
+        val failure = assertThrows(Exception.class, () -> sink.done.get(60, TimeUnit.SECONDS));
+        assertNotNull(failure.getCause());
+    }
+
+    private static byte[] invoice(int i) {
+        return template.replace("\"123456789\"", "\"INV/" + i + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    static class CollectingSubscriber implements Flow.Subscriber<String> {
+        final List<String> items = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final long initialDemand;
+        volatile Flow.Subscription subscription;
+
+        CollectingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialDemand);
+        }
+
+        @Override
+        public void onNext(String item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
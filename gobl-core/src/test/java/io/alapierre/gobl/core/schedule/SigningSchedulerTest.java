@@ -0,0 +1,187 @@
+package io.alapierre.gobl.core.schedule;
+
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.schedule.SigningScheduler.Lane;
+import io.alapierre.gobl.core.signature.KeyPairHolder;
+import io.alapierre.gobl.core.signature.KeySupport;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class SigningSchedulerTest {
+
+    static final Gobl gobl = new Gobl();
+    static final UUID kid = UUID.randomUUID();
+
+    static KeyPairHolder<ECPrivateKey, ECPublicKey> keys;
+    static byte[] invoice;
+
+    @BeforeAll
+    static void prepare() throws Exception {
+        keys = new KeySupport().generate();
+        invoice = Files.readAllBytes(Path.of("src/test/resources/invoice.json"));
+    }
+
+    @Test
+    void interactiveRequestsOvertakeQueuedBulkWork() throws Exception {
+        try (val scheduler = new SigningScheduler(gobl, 1)) {
+            CountDownLatch release = blockWorkers(scheduler, 1);
+            List<String> order = new CopyOnWriteArrayList<>();
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                String name = "bulk-" + i;
+                futures.add(scheduler.submit(Lane.BULK, null, () -> order.add(name)));
+            }
+            futures.add(scheduler.submit(Lane.INTERACTIVE, Duration.ofSeconds(30), () -> order.add("late deadline")));
+            futures.add(scheduler.submit(Lane.INTERACTIVE, Duration.ofSeconds(10), () -> order.add("early deadline")));
+            assertEquals(3, scheduler.queued(Lane.BULK));
+            assertEquals(2, scheduler.queued(Lane.INTERACTIVE));
+
+            release.countDown();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            assertEquals(List.of("early deadline", "late deadline", "bulk-0", "bulk-1", "bulk-2"), order);
+        }
+    }
+
+    @Test
+    void expiredAndCancelledRequestsDoNotRun() throws Exception {
+        try (val scheduler = new SigningScheduler(gobl, 1)) {
+            CountDownLatch release = blockWorkers(scheduler, 1);
+            AtomicBoolean ran = new AtomicBoolean();
+            val expiring = scheduler.submit(Lane.INTERACTIVE, Duration.ofMillis(50), () -> ran.getAndSet(true));
+            val cancelled = scheduler.signInvoice(Lane.BULK, invoice, keys.privateKey(), kid, null);
+            cancelled.cancel(false);
+
+            val e = assertThrows(ExecutionException.class, () -> expiring.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, e.getCause());
+
+            release.countDown();
+            String envelope = scheduler.signInvoice(Lane.BULK, invoice, keys.privateKey(), kid, Duration.ofSeconds(30))
+                    .get(30, TimeUnit.SECONDS);
+            Invoice verified = scheduler.extractFromEnvelope(Lane.INTERACTIVE, envelope.getBytes(StandardCharsets.UTF_8),
+                    Invoice.class, keys.publicKey(), Duration.ofSeconds(30)).get(30, TimeUnit.SECONDS);
+            assertNotNull(verified.getCode());
+
+            assertFalse(ran.get());
+            val stats = scheduler.stats();
+            assertEquals(1, stats.expired());
+            assertEquals(1, stats.cancelled());
+        }
+    }
+
+    @Test
+    void idleWorkersStealBulkWork() throws Exception {
+        try (val scheduler = new SigningScheduler(gobl, 2)) {
+            CountDownLatch release = blockWorkers(scheduler, 2);
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                long millis = i % 2 == 0 ? 20 : 0; // the first deque gets all the slow tasks
+                futures.add(scheduler.submit(Lane.BULK, null, () -> {
+                    Thread.sleep(millis);
+                    return null;
+                }));
+            }
+            release.countDown();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            assertTrue(scheduler.stats().stolen() > 0, scheduler.stats().toString());
+        }
+    }
+
+    /**
+     * Load test: a bulk backfill keeps every worker busy while a client sends interactive requests one by one. With
+     * lanes, interactive latency stays close to the time of a single signature; the same requests queued behind the
+     * backfill, as with a plain FIFO pool, wait for the whole backlog.
+     * <p>
+     * Benchmark, excluded from the default build: {@code mvn test -Dgroups=benchmark -Dgobl.test.excludedGroups=}.
+     */
+    @Test
+    @Tag("benchmark")
+    void interactiveLatencyStaysFlatUnderBulkLoad() throws Exception {
+        int workers = Runtime.getRuntime().availableProcessors();
+        try (val scheduler = new SigningScheduler(gobl, workers)) {
+            interactiveLatencies(scheduler, Lane.BULK, 0, 500 * workers); // warm-up
+
+            long[] idle = interactiveLatencies(scheduler, Lane.INTERACTIVE, 30, 0);
+            long[] lanes = interactiveLatencies(scheduler, Lane.INTERACTIVE, 30, 1000 * workers);
+            long[] fifo = interactiveLatencies(scheduler, Lane.BULK, 10, 300 * workers);
+
+            System.out.printf("interactive p50/p99 (ms): idle %.1f/%.1f, under bulk load with lanes %.1f/%.1f, "
+                            + "queued behind bulk %.1f/%.1f (%d workers)%n",
+                    millis(idle, 50), millis(idle, 99), millis(lanes, 50), millis(lanes, 99),
+                    millis(fifo, 50), millis(fifo, 99), workers);
+            assertTrue(percentile(lanes, 99) * 5 < percentile(fifo, 99),
+                    "interactive p99 with lanes is not well below the FIFO p99");
+        }
+    }
+
+    /**
+     * Queues a bulk backfill, then measures requests sent one at a time in the given lane while it runs.
+     *
+     * @return sorted latencies in nanoseconds
+     */
+    private static long[] interactiveLatencies(SigningScheduler scheduler, Lane lane, int requests, int backfill)
+            throws Exception {
+        List<CompletableFuture<String>> bulk = new ArrayList<>();
+        for (int i = 0; i < backfill; i++) bulk.add(scheduler.signInvoice(Lane.BULK, invoice, keys.privateKey(), kid, null));
+
+        long[] latencies = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            scheduler.signInvoice(lane, invoice, keys.privateKey(), kid, Duration.ofMinutes(1)).get(1, TimeUnit.MINUTES);
+            latencies[i] = System.nanoTime() - start;
+        }
+        for (CompletableFuture<String> future : bulk) future.get(5, TimeUnit.MINUTES);
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile / 100.0) - 1)];
+    }
+
+    private static double millis(long[] sorted, int percentile) {
+        return percentile(sorted, percentile) / 1e6;
+    }
+
+    /**
+     * Occupies the workers until the returned latch is released, so requests can be queued in a known state.
+     */
+    private static CountDownLatch blockWorkers(SigningScheduler scheduler, int workers) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(workers);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < workers; i++) {
+            scheduler.submit(Lane.INTERACTIVE, null, () -> {
+                started.countDown();
+                return release.await(30, TimeUnit.SECONDS);
+            });
+        }
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        return release;
+    }
+}
@@ -0,0 +1,107 @@
+package io.alapierre.gobl.core.signature;
+
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.ksef.fa.model.gobl.TestInvoices;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.gobl.model.Line;
+import org.gobl.model.Note;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class IncrementalDigestTest {
+
+    static final Path INVOICE = Path.of("src/test/resources/invoice.json");
+
+    final Gobl gobl = new Gobl();
+
+    @Test
+    void initialDigest() throws Exception {
+        val invoice = gobl.parseInvoice(INVOICE);
+        assertEquals("b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893", gobl.incrementalDigest(invoice).digest());
+    }
+
+    @Test
+    void lineEdits() throws Exception {
+        val invoice = largeInvoice(2000);
+        val digest = gobl.incrementalDigest(invoice);
+        assertEquals(gobl.digest(invoice), digest.digest());
+
+        invoice.getLines().get(1500).setQuantity("42");
+        digest.lineChanged(1500);
+        assertEquals(gobl.digest(invoice), digest.digest());
+
+        invoice.getLines().get(3).setQuantity("7");
+        digest.lineChanged(3);
+        assertEquals(gobl.digest(invoice), digest.digest());
+
+        Line inserted = largeInvoice(1).getLines().get(0);
+        inserted.setI(9999);
+        invoice.getLines().add(10, inserted);
+        digest.lineInserted(10);
+        assertEquals(gobl.digest(invoice), digest.digest());
+
+        invoice.getLines().remove(1999);
+        digest.lineRemoved(1999);
+        assertEquals(gobl.digest(invoice), digest.digest());
+
+        assertEquals(digest.digest(), digest.digest());
+    }
+
+    @Test
+    void fieldEdits() throws Exception {
+        val invoice = largeInvoice(300);
+        val digest = gobl.incrementalDigest(invoice);
+
+        invoice.setCode("INV-2");
+        digest.fieldChanged("code");
+        assertEquals(gobl.digest(invoice), digest.digest());
+
+        val note = new Note();
+        note.setText("changed");
+        invoice.setNotes(List.of(note));
+        digest.fieldChanged("notes");
+        assertEquals(gobl.digest(invoice), digest.digest());
+
+        invoice.setSeries("S1");
+        digest.fieldChanged("series");
+        assertEquals(gobl.digest(invoice), digest.digest());
+
+        invoice.setNotes(List.of());
+        digest.fieldChanged("notes");
+        invoice.setSeries(null);
+        digest.fieldChanged("series");
+        assertEquals(gobl.digest(invoice), digest.digest());
+
+        invoice.setLines(new ArrayList<>(invoice.getLines().subList(0, 5)));
+        digest.fieldChanged("lines");
+        assertEquals(gobl.digest(invoice), digest.digest());
+    }
+
+    @Test
+    void unreportedChangeIsNotSeenUntilRefresh() throws Exception {
+        val invoice = largeInvoice(10);
+        val digest = gobl.incrementalDigest(invoice);
+        val before = digest.digest();
+
+        invoice.getLines().get(2).setQuantity("3");
+        assertEquals(before, digest.digest());
+
+        digest.refresh();
+        assertEquals(gobl.digest(invoice), digest.digest());
+    }
+
+    private Invoice largeInvoice(int lines) throws Exception {
+        return gobl.parseInvoice(new ByteArrayInputStream(TestInvoices.largeInvoiceBytes(INVOICE, lines)));
+    }
+}
@@ -0,0 +1,123 @@
+package io.alapierre.gobl.core.signature;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test vectors from RFC 8785 and numbers checked against an independent ECMAScript formatter.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class JsonCanoniserTest {
+
+    final JsonCanoniser canoniser = new JsonCanoniser();
+    final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void numberVectors() throws Exception {
+
+        val lines = Files.readAllLines(Path.of("src/test/resources/jcs-numbers.txt"));
+        byte[] buffer = new byte[JcsNumberFormatter.MAX_LENGTH];
+        int checked = 0;
+
+        for (String line : lines) {
+            if (line.startsWith("#")) continue;
+            val parts = line.split(",");
+            double value = Double.longBitsToDouble(Long.parseUnsignedLong(parts[0], 16));
+
+            int length = JcsNumberFormatter.format(value, buffer, 0);
+            assertEquals(parts[1], new String(buffer, 0, length, StandardCharsets.US_ASCII), parts[0]);
+            assertEquals(value == 0 ? 0 : value, Double.parseDouble(parts[1]));
+            checked++;
+        }
+        assertTrue(checked > 1000);
+    }
+
+    @Test
+    void integers() {
+        assertEquals("9007199254740992", format(9007199254740992L));
+        assertEquals("-9007199254740992", format(-9007199254740992L));
+        assertEquals("9007199254740992", format(9007199254740993L));
+        assertEquals("9223372036854776000", format(Long.MAX_VALUE));
+        assertEquals("-9223372036854776000", format(Long.MIN_VALUE));
+        assertEquals("0", format(0L));
+    }
+
+    @Test
+    void rejectNonFiniteNumbers() {
+        assertThrows(IllegalArgumentException.class, () -> JcsNumberFormatter.toString(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> JcsNumberFormatter.toString(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void rfcPrimitiveDataTypesExample() throws Exception {
+
+        val input = """
+                {
+                  "numbers": [333333333.33333329, 1E30, 4.50, 2e-3, 0.000000000000000000000000001],
+                  "string": "\\u20ac$\\u000F\\u000aA'\\u0042\\u0022\\u005c\\\\\\"\\/",
+                  "literals": [null, true, false]
+                }""";
+
+        val expected = "{\"literals\":[null,true,false],\"numbers\":[333333333.3333333,1e+30,4.5,0.002,1e-27],"
+                + "\"string\":\"\u20ac$\\u000f\\nA'B\\\"\\\\\\\\\\\"/\"}";
+
+        assertEquals(expected, canoniser.parse(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rfcSortingExample() throws Exception {
+
+        val input = """
+                {
+                  "\\u20ac": "Euro Sign",
+                  "\\r": "Carriage Return",
+                  "\\ufb33": "Hebrew Letter Dalet With Dagesh",
+                  "1": "One",
+                  "\\ud83d\\ude00": "Emoji: Grinning Face",
+                  "\\u0080": "Control",
+                  "\\u00f6": "Latin Small Letter O With Diaeresis"
+                }""";
+
+        val expected = "{\"\\r\":\"Carriage Return\",\"1\":\"One\",\"\u0080\":\"Control\","
+                + "\"\u00f6\":\"Latin Small Letter O With Diaeresis\",\"\u20ac\":\"Euro Sign\","
+                + "\"\ud83d\ude00\":\"Emoji: Grinning Face\",\"\ufb33\":\"Hebrew Letter Dalet With Dagesh\"}";
+
+        val canonical = canoniser.canonicalise(input.getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), canonical);
+    }
+
+    @Test
+    void escapeControlCharacters() throws Exception {
+        val node = mapper.createObjectNode().put("s", "\b\t\n\f\r\u0000\u001f\u007f/");
+        assertEquals("{\"s\":\"\\b\\t\\n\\f\\r\\u0000\\u001f\u007f/\"}", canoniser.parse(node));
+    }
+
+    @Test
+    void rejectUnpairedSurrogate() {
+        val node = mapper.createObjectNode().put("s", "\ud83d");
+        assertThrows(IllegalArgumentException.class, () -> canoniser.canonicalise(node));
+    }
+
+    @Test
+    void invoiceDigestUnchanged() throws Exception {
+        val canonical = canoniser.canonicalise(Files.readAllBytes(Path.of("src/test/resources/invoice.json")));
+        val md = MessageDigest.getInstance("SHA-256");
+        assertEquals("b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893", HexFormat.of().formatHex(md.digest(canonical)));
+    }
+
+    private static String format(long value) {
+        byte[] buffer = new byte[JcsNumberFormatter.MAX_LENGTH];
+        return new String(buffer, 0, JcsNumberFormatter.format(value, buffer, 0), StandardCharsets.US_ASCII);
+    }
+}
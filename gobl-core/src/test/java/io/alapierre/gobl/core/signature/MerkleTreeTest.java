@@ -0,0 +1,84 @@
+package io.alapierre.gobl.core.signature;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class MerkleTreeTest {
+
+    @Test
+    void everyLeafProvesTheRoot() throws Exception {
+        for (int size = 1; size <= 40; size++) {
+            List<byte[]> digests = digests(size);
+            MerkleTree tree = MerkleTree.of(digests);
+            for (int i = 0; i < size; i++) {
+                byte[] root = MerkleTree.rootFromPath(digests.get(i), i, size, tree.path(i));
+                assertArrayEquals(tree.root(), root, "size " + size + " index " + i);
+            }
+        }
+    }
+
+    @Test
+    void wrongLeafOrPositionDoesNotProveTheRoot() throws Exception {
+        List<byte[]> digests = digests(7);
+        MerkleTree tree = MerkleTree.of(digests);
+
+        assertFalse(MessageDigest.isEqual(tree.root(), MerkleTree.rootFromPath(digests.get(3), 2, 7, tree.path(2))));
+        assertFalse(MessageDigest.isEqual(tree.root(), MerkleTree.rootFromPath(digests.get(3), 3, 7, tree.path(4))));
+        assertNull(MerkleTree.rootFromPath(digests.get(3), 3, 4, tree.path(3)));
+        assertNull(MerkleTree.rootFromPath(digests.get(3), 7, 7, tree.path(3)));
+    }
+
+    @Test
+    void rfc6962Shape() throws Exception {
+        List<byte[]> d = digests(3);
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[][] leaves = new byte[3][];
+        for (int i = 0; i < 3; i++) {
+            md.update((byte) 0);
+            leaves[i] = md.digest(d.get(i));
+        }
+        md.update((byte) 1);
+        md.update(leaves[0]);
+        byte[] left = md.digest(leaves[1]);
+        md.update((byte) 1);
+        md.update(left);
+        byte[] root = md.digest(leaves[2]);
+
+        assertArrayEquals(root, MerkleTree.of(d).root());
+        assertEquals(1, MerkleTree.of(d).path(2).size());
+        assertArrayEquals(leaves[0], MerkleTree.of(d.subList(0, 1)).root());
+    }
+
+    @Test
+    void proofSurvivesMetaRoundTrip() throws Exception {
+        List<byte[]> digests = digests(5);
+        MerkleTree tree = MerkleTree.of(digests);
+        var meta = new com.fasterxml.jackson.databind.ObjectMapper().createObjectNode();
+        InclusionProof.of(tree, 4).writeTo(meta);
+
+        InclusionProof proof = InclusionProof.readFrom(meta);
+        assertEquals(InclusionProof.of(tree, 4), proof);
+        assertArrayEquals(tree.root(), proof.root(digests.get(4)));
+
+        meta.put(InclusionProof.META_PATH, "zz");
+        assertNull(InclusionProof.readFrom(meta).root(digests.get(4)));
+    }
+
+    private static List<byte[]> digests(int size) throws Exception {
+        List<byte[]> digests = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            digests.add(MessageDigest.getInstance("SHA-256").digest(("doc " + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        return digests;
+    }
+}
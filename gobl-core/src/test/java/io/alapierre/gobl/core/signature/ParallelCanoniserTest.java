@@ -0,0 +1,70 @@
+package io.alapierre.gobl.core.signature;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alapierre.ksef.fa.model.gobl.TestInvoices;
+import lombok.val;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class ParallelCanoniserTest {
+
+    static final Path INVOICE = Path.of("src/test/resources/invoice.json");
+    static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    final ObjectMapper mapper = new ObjectMapper();
+    final JsonCanoniser sequential = new JsonCanoniser();
+    final ParallelCanoniser parallel = new ParallelCanoniser(pool, 16, 7);
+
+    @AfterAll
+    static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void largeInvoiceMatchesSequential() throws Exception {
+        val invoice = TestInvoices.largeInvoice(INVOICE, 1000);
+
+        assertArrayEquals(sequential.canonicalise(invoice), parallel.canonicalise(invoice));
+
+        val expected = MessageDigest.getInstance("SHA-256");
+        sequential.digest(invoice, expected);
+        val actual = MessageDigest.getInstance("SHA-256");
+        parallel.digest(invoice, actual);
+        assertArrayEquals(expected.digest(), actual.digest());
+    }
+
+    @Test
+    void largeArrayInsideEnvelope() throws Exception {
+        val envelope = mapper.createObjectNode();
+        envelope.putObject("head").put("uuid", "0190ee6c-2b8f-7000-8000-000000000000");
+        envelope.set("doc", TestInvoices.largeInvoice(INVOICE, 100));
+        envelope.putArray("sigs").add("sig");
+
+        assertArrayEquals(sequential.canonicalise(envelope), parallel.canonicalise(envelope));
+    }
+
+    @Test
+    void smallInvoiceUsesSequentialPath() throws Exception {
+        val invoice = mapper.readTree(INVOICE.toFile());
+        assertArrayEquals(sequential.canonicalise(invoice), parallel.canonicalise(invoice));
+    }
+
+    @Test
+    void chunkFailurePropagates() throws Exception {
+        val invoice = TestInvoices.largeInvoice(INVOICE, 100);
+        ((ObjectNode) invoice.withArray("lines").get(57)).put("notes", "\ud83d");
+
+        assertThrows(IllegalArgumentException.class, () -> parallel.canonicalise(invoice));
+    }
+}
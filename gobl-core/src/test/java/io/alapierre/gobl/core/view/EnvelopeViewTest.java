@@ -0,0 +1,100 @@
+package io.alapierre.gobl.core.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.ksef.fa.model.gobl.exceptions.JsonParserException;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class EnvelopeViewTest {
+
+    final Gobl gobl = new Gobl();
+
+    @Test
+    void typedAccessors() throws Exception {
+        val view = gobl.viewEnvelope(Files.readAllBytes(Path.of("src/test/resources/invoice-signed.json")));
+
+        assertEquals(UUID.fromString("c5aa890a-f107-47c9-8ac2-2510476a28b8"), view.getUuid());
+        assertEquals("b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893", view.getDigest());
+        assertEquals("sha256", view.getDigestAlgorithm());
+        assertEquals(1, view.getSigs().size());
+        assertTrue(view.getSigs().get(0).startsWith("eyJraWQiOiI5M2Qy"));
+        assertEquals("https://gobl.org/draft-0/bill/invoice", view.getDocumentSchema());
+
+        assertEquals("standard", view.getType());
+        assertEquals("123456789", view.getCode());
+        assertNull(view.getSeries());
+        assertEquals("2024-01-15", view.getIssueDate());
+        assertEquals("PLN", view.getCurrency());
+        assertEquals("ABC sp. z o.o.", view.getSupplierName());
+        assertEquals("PL", view.getSupplierTaxCountry());
+        assertEquals("6891152920", view.getSupplierTaxCode());
+        assertEquals("2222222222", view.getCustomerTaxCode());
+        assertEquals(1, view.getLineCount());
+        assertEquals(new BigDecimal("100.00"), view.getSum());
+        assertEquals(new BigDecimal("123.00"), view.getPayable());
+    }
+
+    @Test
+    void documentMatchesExtract() throws Exception {
+        val file = Path.of("src/test/resources/invoice-signed.json");
+        val view = EnvelopeView.of(ByteBuffer.wrap(Files.readAllBytes(file)));
+
+        assertEquals(gobl.extractFromEnvelope(file.toFile(), Invoice.class), view.getDoc(Invoice.class));
+        assertEquals("Łomianki", view.json().text("/doc/supplier/addresses/0/locality"));
+    }
+
+    @Test
+    void jsonPointer() {
+        val json = "{\"a/b\":{\"m~n\":[10, -2.5e3, true, null, \"x\\\"\\u0105\\ud83d\\ude00\"]}, \"k\\u0065y\": \"v\", \"e\": {}}";
+        val view = JsonView.of(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(JsonView.Type.ARRAY, view.type("/a~1b/m~0n"));
+        assertEquals(5, view.size("/a~1b/m~0n"));
+        assertEquals("10", view.text("/a~1b/m~0n/0"));
+        assertEquals(new BigDecimal("-2.5e3"), view.decimal("/a~1b/m~0n/1"));
+        assertEquals("true", view.text("/a~1b/m~0n/2"));
+        assertNull(view.text("/a~1b/m~0n/3"));
+        assertEquals("x\"ą😀", view.text("/a~1b/m~0n/4"));
+        assertEquals("v", view.text("/key"));
+        assertEquals(List.of("a/b", "key", "e"), view.names(""));
+        assertEquals(0, view.size("/e"));
+        assertFalse(view.has("/a~1b/m~0n/5"));
+        assertFalse(view.has("/missing/deeper"));
+        assertEquals("{}", StandardCharsets.UTF_8.decode(view.raw("/e")).toString());
+        assertEquals("v", view.view("").text("/key"));
+    }
+
+    @Test
+    void sameValuesAsJackson() throws Exception {
+        val bytes = Files.readAllBytes(Path.of("src/test/resources/invoice.json"));
+        val tree = new ObjectMapper().readTree(bytes);
+        val view = JsonView.of(bytes);
+
+        assertEquals(tree.at("/totals/taxes/categories/0/rates/0/percent").asText(), view.text("/totals/taxes/categories/0/rates/0/percent"));
+        assertEquals(tree.at("/lines/0/i").asText(), view.text("/lines/0/i"));
+        assertEquals(tree.at("/supplier/addresses/0/locality").asText(), view.text("/supplier/addresses/0/locality"));
+    }
+
+    @Test
+    void rejectMalformed() {
+        for (String json : List.of("", "{", "{\"a\" 1}", "[1,]", "[1 2]", "{\"a\":tru}", "\"abc", "{} x", "{\"a\":1,}")) {
+            assertThrows(JsonParserException.class, () -> JsonView.of(json.getBytes(StandardCharsets.UTF_8)), json);
+        }
+    }
+}
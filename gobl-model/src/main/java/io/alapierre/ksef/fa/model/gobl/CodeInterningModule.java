@@ -0,0 +1,120 @@
+package io.alapierre.ksef.fa.model.gobl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jackson module that deduplicates the values of low-cardinality code fields (currency, country, tax category,
+ * rate...) while documents are read, so a million invoice lines share a handful of {@code "PLN"} or {@code "VAT"}
+ * strings instead of holding a copy each.
+ * <p>
+ * A field is selected by property name, e.g. {@code currency}, or by simple class name and property name, e.g.
+ * {@code CategoryTotal.code}. Values are kept in a pool of bounded size shared by all mappers using the module;
+ * once it is full, new values are returned as they are.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class CodeInterningModule extends SimpleModule {
+
+    public static final Set<String> DEFAULT_FIELDS = Set.of(
+            "currency", "country", "zone", "cat", "rate", "percent", "unit", "key", "alg", "type",
+            "CategoryTotal.code", "RateTotal.percent");
+
+    public static final int DEFAULT_POOL_SIZE = 16_384;
+
+    private static final StringPool sharedPool = new StringPool(DEFAULT_POOL_SIZE);
+
+    public CodeInterningModule() {
+        this(DEFAULT_FIELDS, sharedPool);
+    }
+
+    /**
+     * @param fields property names or {@code ClassName.property} of the String fields to deduplicate
+     * @param pool   pool the values are taken from
+     */
+    public CodeInterningModule(@NonNull Set<String> fields, @NonNull StringPool pool) {
+        super("gobl-code-interning");
+        InterningDeserializer deserializer = new InterningDeserializer(pool);
+        setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public BeanDeserializerBuilder updateBuilder(DeserializationConfig config, BeanDescription beanDesc,
+                                                         BeanDeserializerBuilder builder) {
+                String className = beanDesc.getBeanClass().getSimpleName();
+                for (SettableBeanProperty property : properties(builder)) { // copied, the builder is modified in the loop
+                    if (!property.getType().hasRawClass(String.class) || property.hasValueDeserializer()) continue;
+                    if (fields.contains(property.getName()) || fields.contains(className + "." + property.getName())) {
+                        builder.addOrReplaceProperty(property.withValueDeserializer(deserializer), true);
+                    }
+                }
+                return builder;
+            }
+        });
+    }
+
+    private static List<SettableBeanProperty> properties(BeanDeserializerBuilder builder) {
+        List<SettableBeanProperty> properties = new ArrayList<>();
+        builder.getProperties().forEachRemaining(properties::add);
+        return properties;
+    }
+
+    /**
+     * Bounded pool of canonical String instances, safe for concurrent use.
+     */
+    public static final class StringPool {
+
+        private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+        private final int maxSize;
+
+        public StringPool(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * @param value value to deduplicate
+         * @return the pooled instance equal to {@code value}, or {@code value} itself
+         */
+        public String intern(@NonNull String value) {
+            String pooled = values.get(value);
+            if (pooled != null) return pooled;
+            if (values.size() >= maxSize) return value;
+            pooled = values.putIfAbsent(value, value);
+            return pooled == null ? value : pooled;
+        }
+
+        public int size() {
+            return values.size();
+        }
+    }
+
+    static final class InterningDeserializer extends StdScalarDeserializer<String> {
+
+        private final transient StringPool pool;
+
+        InterningDeserializer(StringPool pool) {
+            super(String.class);
+            this.pool = pool;
+        }
+
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String value = StringDeserializer.instance.deserialize(p, ctxt);
+            return value == null ? null : pool.intern(value);
+        }
+    }
+}
@@ -1,7 +1,20 @@
 package io.alapierre.ksef.fa.model.gobl;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.alapierre.ksef.fa.model.gobl.exceptions.JsonParserException;
 import lombok.NonNull;
 import org.gobl.model.Envelope;
+import org.gobl.model.Header;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @author Adrian Lapierre {@literal al@alapierre.io}
@@ -11,4 +24,77 @@ public class EnvelopSerializer extends GoblSerializer<Envelope> {
     public EnvelopSerializer() {
         super(Envelope.class);
     }
+
+    /**
+     * Reads {@code head} and the key identifiers of {@code sigs} without binding the document. Parsing stops as
+     * soon as both have been read, so for envelopes written in the usual order ({@code head}, {@code sigs},
+     * {@code doc}) the document is never read; a document placed before them is skipped token by token.
+     *
+     * @param file envelope JSON file
+     * @return envelope header and signature key identifiers
+     * @throws JsonParserException if the envelope can't be parsed or has no {@code head}
+     */
+    public EnvelopePeek peek(@NonNull File file) {
+        try (JsonParser parser = getMapper().createParser(file)) {
+            return peek(parser);
+        } catch (IOException e) {
+            throw new JsonParserException(e);
+        }
+    }
+
+    public EnvelopePeek peek(@NonNull InputStream inputStream) {
+        try (JsonParser parser = getMapper().createParser(inputStream)) {
+            return peek(parser);
+        } catch (IOException e) {
+            throw new JsonParserException(e);
+        }
+    }
+
+    public EnvelopePeek peek(byte @NonNull [] envelope) {
+        try (JsonParser parser = getMapper().createParser(envelope)) {
+            return peek(parser);
+        } catch (IOException e) {
+            throw new JsonParserException(e);
+        }
+    }
+
+    private EnvelopePeek peek(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) throw new JsonParserException("Envelope must be a JSON object");
+
+        Header head = null;
+        List<String> kids = null;
+
+        while ((head == null || kids == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("head".equals(name)) {
+                head = getMapper().readValue(parser, Header.class);
+            } else if ("sigs".equals(name) && parser.currentToken() == JsonToken.START_ARRAY) {
+                kids = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.VALUE_STRING) kids.add(kid(parser.getText()));
+                if (parser.currentToken() != JsonToken.END_ARRAY) throw new JsonParserException("'sigs' must contain JWS strings");
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (head == null) throw new JsonParserException("Envelope does not contain 'head' attribute");
+        return new EnvelopePeek(head, kids == null ? List.of() : Collections.unmodifiableList(kids));
+    }
+
+    /**
+     * @param jws compact JWS
+     * @return {@code kid} from the protected header, not verified
+     */
+    private String kid(String jws) {
+        int dot = jws.indexOf('.');
+        if (dot < 0) throw new JsonParserException("Signature is not a compact JWS");
+        try {
+            JsonNode header = getMapper().readTree(Base64.getUrlDecoder().decode(jws.substring(0, dot)));
+            JsonNode kid = header.get("kid");
+            return kid == null || kid.isNull() ? null : kid.asText();
+        } catch (IllegalArgumentException | IOException e) {
+            throw new JsonParserException("Can't read JWS header", e);
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package io.alapierre.ksef.fa.model.gobl;
+
+import org.gobl.model.Header;
+
+import java.util.List;
+
+/**
+ * Routing data read from an envelope without its document.
+ *
+ * @param head envelope header ({@code head})
+ * @param kids key identifiers from the protected headers of {@code sigs}, in signature order; null for a signature
+ *             without a {@code kid}
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public record EnvelopePeek(Header head, List<String> kids) {
+
+    /**
+     * @return key identifier of the first signature or null if the envelope is not signed
+     */
+    public String kid() {
+        return kids.isEmpty() ? null : kids.get(0);
+    }
+}
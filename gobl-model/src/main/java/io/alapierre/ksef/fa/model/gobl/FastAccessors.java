@@ -0,0 +1,55 @@
+package io.alapierre.ksef.fa.model.gobl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import lombok.NonNull;
+
+/**
+ * Opt-in switch that makes every GOBL mapper access model properties through accessors generated with
+ * {@code LambdaMetafactory} (the Jackson Blackbird module) instead of reflection, which speeds up binding of
+ * documents with many lines.
+ * <p>
+ * The switch is read when a mapper is created, i.e. when a {@code GoblSerializer}, {@code Gobl} or signer is
+ * constructed, so set it at startup: with {@code -Dgobl.jackson.fastAccessors=true} or
+ * {@link #setEnabled(boolean)}. Output is the same either way; only the way getters and setters are invoked
+ * changes.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class FastAccessors {
+
+    public static final String PROPERTY = "gobl.jackson.fastAccessors";
+
+    private static volatile boolean enabled = Boolean.getBoolean(PROPERTY);
+
+    private FastAccessors() {
+    }
+
+    /**
+     * @return {@code true} if mappers created from now on use generated accessors
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns generated accessors on or off for mappers created from now on; existing mappers are not changed.
+     *
+     * @param enabled {@code true} to use generated accessors
+     */
+    public static void setEnabled(boolean enabled) {
+        FastAccessors.enabled = enabled;
+    }
+
+    /**
+     * Registers the accessor module in the mapper if the switch is on.
+     *
+     * @param mapper mapper being configured
+     * @return the same mapper
+     */
+    public static ObjectMapper apply(@NonNull ObjectMapper mapper) {
+        if (enabled) mapper.registerModule(new BlackbirdModule());
+        return mapper;
+    }
+}
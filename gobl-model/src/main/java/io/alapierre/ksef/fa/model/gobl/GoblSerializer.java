@@ -5,6 +5,10 @@ import com.fasterxml.jackson.core.exc.StreamWriteException;
 import com.fasterxml.jackson.databind.DatabindException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import io.alapierre.ksef.fa.model.gobl.exceptions.JsonParserException;
 import lombok.NonNull;
 
@@ -14,26 +18,53 @@ import java.io.InputStream;
 import java.io.OutputStream;
 
 /**
+ * Reads and writes GOBL documents as JSON or Smile.
+ * <p>
+ * Mappers are configured once in the constructor and all reads and writes go through immutable
+ * {@link ObjectReader}/{@link ObjectWriter} instances, so a serializer is thread-safe and one instance can be
+ * shared by any number of threads.
+ *
  * @author Adrian Lapierre {@literal al@alapierre.io}
  * Copyrights by original author 2024.01.16
  */
 public abstract class GoblSerializer<T> {
 
-    private final Class<T> modelClass;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build());
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final ObjectReader smileReader;
+    private final ObjectWriter smileWriter;
 
     public GoblSerializer(@NonNull Class<T> modelClass) {
 
-        this.modelClass = modelClass;
+        for (ObjectMapper m : new ObjectMapper[] {mapper, smileMapper}) {
+            m.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+            m.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
+            m.configure(DeserializationFeature.FAIL_ON_NUMBERS_FOR_ENUMS, false);
+            m.registerModule(new CodeInterningModule());
+            FastAccessors.apply(m);
+        }
+
+        this.reader = mapper.readerFor(modelClass);
+        this.writer = mapper.writerWithDefaultPrettyPrinter();
+        this.smileReader = smileMapper.readerFor(modelClass);
+        this.smileWriter = smileMapper.writer();
+    }
 
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        mapper.configure(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES, false);
-        mapper.configure(DeserializationFeature.FAIL_ON_NUMBERS_FOR_ENUMS, false);
+    /**
+     * @return the JSON mapper; it must not be reconfigured
+     */
+    protected ObjectMapper getMapper() {
+        return mapper;
     }
 
     public T fromFile(@NonNull File file) {
         try {
-            return mapper.readValue(file, modelClass);
+            return reader.readValue(file);
         } catch (IOException e) {
             throw new JsonParserException(e);
         }
@@ -41,7 +72,7 @@ public abstract class GoblSerializer<T> {
 
     public T fromString(@NonNull String jsonString) {
         try {
-            return mapper.readValue(jsonString, modelClass);
+            return reader.readValue(jsonString);
         } catch (IOException e) {
             throw new JsonParserException(e);
         }
@@ -49,7 +80,7 @@ public abstract class GoblSerializer<T> {
 
     public T fromStream(@NonNull InputStream inputStream) {
         try {
-            return mapper.readValue(inputStream, modelClass);
+            return reader.readValue(inputStream);
         } catch (IOException e) {
             throw new JsonParserException(e);
         }
@@ -57,7 +88,7 @@ public abstract class GoblSerializer<T> {
 
     public void toFile(@NonNull File file, @NonNull T value) throws IOException {
         try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(file, value);
+            writer.writeValue(file, value);
         } catch (StreamWriteException | DatabindException e) {
             throw new JsonParserException(e);
         }
@@ -65,7 +96,7 @@ public abstract class GoblSerializer<T> {
 
     public void toStream(@NonNull OutputStream outputStream, @NonNull T value) throws IOException {
         try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(outputStream, value);
+            writer.writeValue(outputStream, value);
         } catch (StreamWriteException | DatabindException e) {
             throw new JsonParserException(e);
         }
@@ -73,9 +104,55 @@ public abstract class GoblSerializer<T> {
 
     public String toString(@NonNull T value) {
         try {
-            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(value);
+            return writer.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new JsonParserException(e);
+        }
+    }
+
+    /**
+     * Encodes the value in the binary Smile format. Smile keeps the JSON data model (and Jackson's number types)
+     * unchanged, so a decoded document canonicalises to exactly the same bytes as the JSON it was created from,
+     * while repeated property names and short values are written only once.
+     *
+     * @param value the value to encode
+     * @return Smile encoded value
+     */
+    public byte[] toSmile(@NonNull T value) {
+        try {
+            return smileWriter.writeValueAsBytes(value);
         } catch (JsonProcessingException e) {
             throw new JsonParserException(e);
         }
     }
+
+    public void toSmile(@NonNull OutputStream outputStream, @NonNull T value) throws IOException {
+        try {
+            smileWriter.writeValue(outputStream, value);
+        } catch (StreamWriteException | DatabindException e) {
+            throw new JsonParserException(e);
+        }
+    }
+
+    /**
+     * Decodes a value written by {@link #toSmile(Object)}.
+     *
+     * @param smile Smile encoded value
+     * @return decoded value
+     */
+    public T fromSmile(byte @NonNull [] smile) {
+        try {
+            return smileReader.readValue(smile);
+        } catch (IOException e) {
+            throw new JsonParserException(e);
+        }
+    }
+
+    public T fromSmile(@NonNull InputStream inputStream) {
+        try {
+            return smileReader.readValue(inputStream);
+        } catch (IOException e) {
+            throw new JsonParserException(e);
+        }
+    }
 }
@@ -28,4 +28,17 @@ class GoblSerializerTest {
 
     }
 
+    @Test
+    void smileRoundTrip() {
+
+        val serializer = new InvoiceSerializer();
+        val invoice = serializer.fromFile(new File("src/test/resources/invoice.json"));
+
+        val smile = serializer.toSmile(invoice);
+        val decoded = serializer.fromSmile(smile);
+
+        assertEquals(invoice, decoded);
+        assertTrue(smile.length < serializer.toString(invoice).length());
+    }
+
 }
@@ -0,0 +1,54 @@
+package io.alapierre.ksef.fa.model.gobl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.val;
+import org.gobl.model.Invoice;
+import org.gobl.model.Line;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks what keeps a large invoice small in memory: codes shared through {@link CodeInterningModule} and
+ * additional properties maps allocated only for unknown fields.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class ModelFootprintTest {
+
+    static final Path INVOICE = Path.of("src/test/resources/invoice.json");
+
+    final ObjectMapper plain = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    void codesAreShared() throws Exception {
+        byte[] json = TestInvoices.largeInvoiceBytes(INVOICE, 100);
+        val invoice = new InvoiceSerializer().fromStream(new ByteArrayInputStream(json));
+        val first = invoice.getLines().get(0);
+        val last = invoice.getLines().get(99);
+
+        assertSame(first.getItem().getCurrency(), last.getItem().getCurrency());
+        assertSame(first.getTaxes().get(0).getCat(), last.getTaxes().get(0).getCat());
+        assertSame(first.getTaxes().get(0).getPercent(), last.getTaxes().get(0).getPercent());
+        assertNotSame(first.getItem().getName(), last.getItem().getName());
+        assertEquals(plain.readValue(json, Invoice.class), invoice);
+    }
+
+    @Test
+    void additionalPropertiesAreAllocatedOnDemand() throws Exception {
+        val invoice = new InvoiceSerializer().fromStream(new ByteArrayInputStream(TestInvoices.largeInvoiceBytes(INVOICE, 1)));
+        Field field = Line.class.getDeclaredField("additionalProperties");
+        field.setAccessible(true);
+
+        assertNull(field.get(invoice.getLines().get(0)));
+        assertTrue(invoice.getLines().get(0).getAdditionalProperties().isEmpty());
+        assertEquals(Set.of("$schema"), invoice.getAdditionalProperties().keySet());
+    }
+}
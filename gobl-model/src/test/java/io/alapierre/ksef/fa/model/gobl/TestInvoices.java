@@ -0,0 +1,53 @@
+package io.alapierre.ksef.fa.model.gobl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Invoices for tests, shared with the modules depending on the model through its test jar.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class TestInvoices {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private TestInvoices() {
+    }
+
+    /**
+     * Builds an invoice with many lines from a small one. Every line is a copy of the first line of the template
+     * with its own {@code i}, quantity and item name, and the item priced in PLN.
+     *
+     * @param template invoice JSON file
+     * @param lines    number of lines
+     * @return the invoice tree
+     * @throws IOException if the template can't be read
+     */
+    public static ObjectNode largeInvoice(Path template, int lines) throws IOException {
+        val invoice = (ObjectNode) mapper.readTree(template.toFile());
+        val first = (ObjectNode) invoice.withArray("lines").get(0);
+        ArrayNode array = invoice.putArray("lines");
+        for (int i = 0; i < lines; i++) {
+            val line = first.deepCopy();
+            line.put("i", i + 1);
+            line.put("quantity", String.valueOf(i % 17 + 1));
+            ((ObjectNode) line.get("item")).put("name", "item " + i).put("currency", "PLN");
+            array.add(line);
+        }
+        return invoice;
+    }
+
+    /**
+     * @return JSON of the invoice built by {@link #largeInvoice(Path, int)}
+     */
+    public static byte[] largeInvoiceBytes(Path template, int lines) throws IOException {
+        return mapper.writeValueAsBytes(largeInvoice(template, lines));
+    }
+}
@@ -0,0 +1,227 @@
+package io.alapierre.gobl.server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.GoblExecutors;
+import io.alapierre.gobl.core.signature.KeySupport;
+import io.alapierre.ksef.fa.model.gobl.exceptions.JsonParserException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.Jwk;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.gobl.model.Invoice;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Signing and verification over HTTP, built on the JDK {@link HttpServer} so it needs no framework.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code POST /sign} - invoice JSON in, signed envelope JSON out</li>
+ *     <li>{@code POST /verify} - envelope JSON in, verified invoice JSON out; {@code 422} if the signature is invalid</li>
+ *     <li>{@code POST /digest} - invoice JSON in, {@code {"alg":"sha256","val":"..."}} out</li>
+ *     <li>{@code GET /metrics} - request counters in the Prometheus text format</li>
+ * </ul>
+ * Request bodies are parsed straight from the connection and responses are written to it. At most
+ * {@link ServerConfig#maxConcurrentRequests()} requests are processed at once; any request above the limit is
+ * answered with {@code 503} and {@code Retry-After} before its body is read. {@code /metrics} is not limited.
+ * <p>
+ * Requests run on virtual threads when the JVM supports them (Java 21+) and on a cached thread pool otherwise.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class GoblServer implements Closeable {
+
+    public static final String SIGN = "sign";
+    public static final String VERIFY = "verify";
+    public static final String DIGEST = "digest";
+
+    private static final String JSON = "application/json";
+
+    private final ServerConfig config;
+    private final Gobl gobl = new Gobl();
+    private final Semaphore permits;
+    private final ServerMetrics metrics;
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    private GoblServer(ServerConfig config) throws IOException {
+        this.config = config;
+        this.permits = new Semaphore(config.maxConcurrentRequests());
+        this.metrics = new ServerMetrics(config.maxConcurrentRequests(), SIGN, VERIFY, DIGEST);
+        this.executor = GoblExecutors.newPerTaskExecutor("gobl-server");
+
+        server = HttpServer.create(config.address(), 0);
+        server.setExecutor(executor);
+        server.createContext("/" + SIGN, exchange -> handle(exchange, SIGN, this::sign));
+        server.createContext("/" + VERIFY, exchange -> handle(exchange, VERIFY, this::verify));
+        server.createContext("/" + DIGEST, exchange -> handle(exchange, DIGEST, this::digest));
+        server.createContext("/metrics", this::metrics);
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param config server configuration
+     * @return running server
+     * @throws IOException if the server can't bind to the address
+     */
+    public static GoblServer start(@NonNull ServerConfig config) throws IOException {
+        GoblServer server = new GoblServer(config);
+        server.server.start();
+        log.info("GOBL server listening on {}, max {} concurrent requests", server.address(), config.maxConcurrentRequests());
+        return server;
+    }
+
+    /**
+     * @return address the server listens on, with the actual port
+     */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    public ServerMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops accepting connections, waits up to a second for running requests and releases the threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    private void sign(HttpExchange exchange) throws IOException {
+        Invoice invoice = gobl.parseInvoice(exchange.getRequestBody());
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        gobl.signInvoice(invoice, config.signingKey(), config.kid(), exchange.getResponseBody());
+    }
+
+    private void verify(HttpExchange exchange) throws IOException {
+        Invoice invoice = gobl.extractFromEnvelope(exchange.getRequestBody(), Invoice.class, config.verificationKey());
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        gobl.saveInvoice(invoice, exchange.getResponseBody());
+    }
+
+    private void digest(HttpExchange exchange) throws IOException {
+        Invoice invoice = gobl.parseInvoice(exchange.getRequestBody());
+        String body = "{\"alg\":\"sha256\",\"val\":\"" + gobl.digest(invoice) + "\"}";
+        send(exchange, 200, JSON, body);
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "text/plain", "Method not allowed");
+                return;
+            }
+            send(exchange, 200, "text/plain; version=0.0.4", metrics.toPrometheus());
+        }
+    }
+
+    private void handle(HttpExchange exchange, String endpoint, Endpoint handler) throws IOException {
+        try (exchange) {
+            if (!permits.tryAcquire()) {
+                metrics.reject();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, "text/plain", "Server busy");
+                return;
+            }
+
+            long start = System.nanoTime();
+            int status = 200;
+            metrics.started();
+            try {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    status = 405;
+                    send(exchange, status, "text/plain", "Method not allowed");
+                } else {
+                    handler.handle(exchange);
+                }
+            } catch (JsonParserException | JsonProcessingException | IllegalArgumentException e) {
+                status = 400;
+                sendError(exchange, status, e);
+            } catch (JwtException e) {
+                status = 422;
+                sendError(exchange, status, e);
+            } catch (Exception e) {
+                status = 500;
+                log.error("Error processing {} request", endpoint, e);
+                sendError(exchange, status, e);
+            } finally {
+                // release first: once in-flight drops, the permit must already be available to the next request
+                permits.release();
+                metrics.completed(endpoint, status, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, Exception e) {
+        if (exchange.getResponseCode() != -1) return; // headers already sent, nothing meaningful can be added
+        try {
+            send(exchange, status, "text/plain", e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+        } catch (IOException ex) {
+            log.debug("Can't send error response", ex);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Runs the server: {@code GoblServer <port> <private-key.jwk> <public-key.jwk> [max-concurrent-requests]}.
+     * The {@code kid} of the private key must be a UUID.
+     *
+     * @param args command line arguments
+     * @throws IOException if a key can't be read or the server can't start
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: GoblServer <port> <private-key.jwk> <public-key.jwk> [max-concurrent-requests]");
+            System.exit(2);
+        }
+
+        KeySupport keySupport = new KeySupport();
+        Jwk<?> privateJwk = keySupport.loadJwk(Path.of(args[1]));
+        Jwk<?> publicJwk = keySupport.loadJwk(Path.of(args[2]));
+        if (privateJwk.getId() == null) throw new IllegalArgumentException("Private key JWK has no kid");
+
+        ServerConfig config = ServerConfig.defaults((ECPrivateKey) privateJwk.toKey(), UUID.fromString(privateJwk.getId()),
+                        (ECPublicKey) publicJwk.toKey())
+                .withAddress(new InetSocketAddress(Integer.parseInt(args[0])));
+        if (args.length > 3) config = config.withMaxConcurrentRequests(Integer.parseInt(args[3]));
+
+        GoblServer server = start(config);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "gobl-server-shutdown"));
+    }
+}
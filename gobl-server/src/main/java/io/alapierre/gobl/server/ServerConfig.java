@@ -0,0 +1,53 @@
+package io.alapierre.gobl.server;
+
+import java.net.InetSocketAddress;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.UUID;
+
+/**
+ * Configuration of a {@link GoblServer}.
+ *
+ * @param address               address to listen on; port 0 picks a free port
+ * @param maxConcurrentRequests number of requests processed at the same time; requests above it are rejected at
+ *                              once with {@code 503 Service Unavailable}
+ * @param signingKey            key used by {@code /sign}
+ * @param kid                   identifier of the signing key, put in the signature header
+ * @param verificationKey       key used by {@code /verify}
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public record ServerConfig(InetSocketAddress address, int maxConcurrentRequests, ECPrivateKey signingKey, UUID kid,
+                           ECPublicKey verificationKey) {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 256;
+
+    public ServerConfig {
+        if (address == null) throw new IllegalArgumentException("Address must not be null");
+        if (maxConcurrentRequests < 1) throw new IllegalArgumentException("At least one concurrent request must be allowed");
+        if (signingKey == null || kid == null) throw new IllegalArgumentException("Signing key and its kid must not be null");
+        if (verificationKey == null) throw new IllegalArgumentException("Verification key must not be null");
+    }
+
+    /**
+     * Default configuration: port 8080 on all interfaces, 256 concurrent requests.
+     *
+     * @param signingKey      key used by {@code /sign}
+     * @param kid             identifier of the signing key
+     * @param verificationKey key used by {@code /verify}
+     * @return default configuration
+     */
+    public static ServerConfig defaults(ECPrivateKey signingKey, UUID kid, ECPublicKey verificationKey) {
+        return new ServerConfig(new InetSocketAddress(DEFAULT_PORT), DEFAULT_MAX_CONCURRENT_REQUESTS, signingKey, kid, verificationKey);
+    }
+
+    public ServerConfig withAddress(InetSocketAddress address) {
+        return new ServerConfig(address, maxConcurrentRequests, signingKey, kid, verificationKey);
+    }
+
+    public ServerConfig withMaxConcurrentRequests(int maxConcurrentRequests) {
+        return new ServerConfig(address, maxConcurrentRequests, signingKey, kid, verificationKey);
+    }
+}
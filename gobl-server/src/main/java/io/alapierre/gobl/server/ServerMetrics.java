@@ -0,0 +1,98 @@
+package io.alapierre.gobl.server;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters of a {@link GoblServer}, exported by {@code GET /metrics} in the Prometheus text format.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public class ServerMetrics {
+
+    private final Map<String, Endpoint> endpoints = new TreeMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final int limit;
+
+    ServerMetrics(int limit, String... endpoints) {
+        this.limit = limit;
+        for (String endpoint : endpoints) this.endpoints.put(endpoint, new Endpoint());
+    }
+
+    /**
+     * @param endpoint endpoint name, e.g. {@code sign}
+     * @return number of requests processed by the endpoint, including failed ones
+     */
+    public long requests(String endpoint) {
+        return endpoints.get(endpoint).requests.sum();
+    }
+
+    /**
+     * @param endpoint endpoint name
+     * @return number of requests answered with a 4xx or 5xx status
+     */
+    public long errors(String endpoint) {
+        return endpoints.get(endpoint).errors.sum();
+    }
+
+    /**
+     * @return number of requests rejected because the concurrency limit was reached
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of requests being processed
+     */
+    public long inFlight() {
+        return inFlight.sum();
+    }
+
+    void started() {
+        inFlight.increment();
+    }
+
+    void completed(String endpoint, int status, long nanos) {
+        Endpoint e = endpoints.get(endpoint);
+        e.requests.increment();
+        if (status >= 400) e.errors.increment();
+        e.nanos.add(nanos);
+        inFlight.decrement(); // last, so a request no longer in flight is already counted
+    }
+
+    void reject() {
+        rejected.increment();
+    }
+
+    String toPrometheus() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("# TYPE gobl_requests_total counter\n");
+        endpoints.forEach((name, e) -> line(sb, "gobl_requests_total", name, e.requests.sum()));
+        sb.append("# TYPE gobl_request_errors_total counter\n");
+        endpoints.forEach((name, e) -> line(sb, "gobl_request_errors_total", name, e.errors.sum()));
+        sb.append("# TYPE gobl_request_duration_seconds_sum counter\n");
+        endpoints.forEach((name, e) -> sb.append("gobl_request_duration_seconds_sum{endpoint=\"").append(name).append("\"} ")
+                .append(e.nanos.sum() / 1e9).append('\n'));
+        sb.append("# TYPE gobl_requests_rejected_total counter\n")
+                .append("gobl_requests_rejected_total ").append(rejected.sum()).append('\n');
+        sb.append("# TYPE gobl_requests_in_flight gauge\n")
+                .append("gobl_requests_in_flight ").append(inFlight.sum()).append('\n');
+        sb.append("# TYPE gobl_concurrency_limit gauge\n")
+                .append("gobl_concurrency_limit ").append(limit).append('\n');
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, String metric, String endpoint, long value) {
+        sb.append(metric).append("{endpoint=\"").append(endpoint).append("\"} ").append(value).append('\n');
+    }
+
+    private static final class Endpoint {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+}
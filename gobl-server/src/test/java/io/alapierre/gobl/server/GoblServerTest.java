@@ -0,0 +1,220 @@
+package io.alapierre.gobl.server;
+
+import io.alapierre.gobl.core.Gobl;
+import io.alapierre.gobl.core.signature.KeySupport;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+class GoblServerTest {
+
+    static final String EXPECTED_DIGEST = "b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893";
+
+    final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    final UUID kid = UUID.randomUUID();
+    byte[] invoice;
+    ECPrivateKey privateKey;
+    ECPublicKey publicKey;
+    GoblServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        invoice = Files.readAllBytes(Path.of("src/test/resources/invoice.json"));
+        val keys = new KeySupport().generate();
+        privateKey = keys.privateKey();
+        publicKey = keys.publicKey();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.close();
+    }
+
+    @Test
+    void signAndVerify() throws Exception {
+        start(8);
+
+        val signed = post("/sign", invoice);
+        assertEquals(200, signed.statusCode());
+        val peek = new Gobl().peekEnvelope(signed.body().getBytes(StandardCharsets.UTF_8));
+        assertEquals(EXPECTED_DIGEST, peek.head().getDig().getVal());
+        assertEquals(kid.toString(), peek.kid());
+
+        val verified = post("/verify", signed.body().getBytes(StandardCharsets.UTF_8));
+        assertEquals(200, verified.statusCode());
+        val invoice = new Gobl().parseInvoice(new ByteArrayInputStream(verified.body().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(EXPECTED_DIGEST, new Gobl().digest(invoice));
+    }
+
+    @Test
+    void digest() throws Exception {
+        start(8);
+
+        val response = post("/digest", invoice);
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"alg\":\"sha256\",\"val\":\"" + EXPECTED_DIGEST + "\"}", response.body());
+    }
+
+    @Test
+    void errors() throws Exception {
+        start(8);
+
+        assertEquals(400, post("/digest", "{not json".getBytes(StandardCharsets.UTF_8)).statusCode());
+        assertEquals(405, client.send(request("/sign").GET().build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        val otherKey = new KeySupport().generate();
+        val foreign = new Gobl().signInvoice(new ByteArrayInputStream(invoice), otherKey.privateKey(), kid);
+        assertEquals(422, post("/verify", foreign.getBytes(StandardCharsets.UTF_8)).statusCode());
+
+        assertEquals(3, server.metrics().errors(GoblServer.SIGN) + server.metrics().errors(GoblServer.DIGEST)
+                + server.metrics().errors(GoblServer.VERIFY));
+    }
+
+    @Test
+    void rejectAboveConcurrencyLimit() throws Exception {
+        start(1);
+
+        // holds the only permit: headers and half of the body are sent, the rest only after the 503 check
+        try (Socket socket = new Socket("127.0.0.1", server.address().getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /digest HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+                    + "Content-Length: " + invoice.length + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(invoice, 0, invoice.length / 2);
+            out.flush();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (server.metrics().inFlight() == 0 && System.nanoTime() < deadline) Thread.sleep(5);
+
+            val rejected = post("/digest", invoice);
+            assertEquals(503, rejected.statusCode());
+            assertEquals("1", rejected.headers().firstValue("Retry-After").orElseThrow());
+
+            out.write(invoice, invoice.length / 2, invoice.length - invoice.length / 2);
+            out.flush();
+            String status = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            assertEquals("HTTP/1.1 200 OK", status);
+        }
+
+        awaitIdle();
+        assertEquals(200, post("/digest", invoice).statusCode());
+        assertEquals(1, server.metrics().rejected());
+    }
+
+    @Test
+    void metrics() throws Exception {
+        start(8);
+        post("/digest", invoice);
+        awaitIdle();
+
+        val response = client.send(request("/metrics").GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("gobl_requests_total{endpoint=\"digest\"} 1\n"), response.body());
+        assertTrue(response.body().contains("gobl_concurrency_limit 8\n"), response.body());
+    }
+
+    /**
+     * Local load test: many concurrent clients against a small concurrency limit. Every request must either succeed
+     * with a correct result or be rejected with 503.
+     */
+    @Test
+    void concurrentLoad() throws Exception {
+        start(16);
+
+        int clients = 64;
+        int requestsPerClient = 40;
+        val ok = new AtomicInteger();
+        val busy = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        try {
+            for (int c = 0; c < clients; c++) {
+                int clientNo = c;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        String path = (clientNo + i) % 4 == 0 ? "/sign" : "/digest";
+                        val response = post(path, invoice);
+                        if (response.statusCode() == 503) {
+                            busy.incrementAndGet();
+                            continue;
+                        }
+                        assertEquals(200, response.statusCode(), response.body());
+                        assertTrue(response.body().contains(EXPECTED_DIGEST));
+                        ok.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get(2, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info("{} requests in {} ms: {} ok, {} rejected", clients * requestsPerClient, millis, ok.get(), busy.get());
+        assertEquals(clients * requestsPerClient, ok.get() + busy.get());
+        assertTrue(ok.get() > 0);
+        assertEquals(busy.get(), server.metrics().rejected());
+
+        awaitIdle();
+        assertEquals(0, server.metrics().inFlight());
+    }
+
+    /**
+     * The response is on the wire before the handler releases its permit, so wait for the bookkeeping to finish.
+     * The permit is released and the request counted before in-flight is decremented, so once this returns no
+     * permit is held and the metrics are complete.
+     */
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (server.metrics().inFlight() > 0 && System.nanoTime() < deadline) Thread.sleep(5);
+    }
+
+    private void start(int maxConcurrentRequests) throws IOException {
+        server = GoblServer.start(ServerConfig.defaults(privateKey, kid, publicKey)
+                .withAddress(new InetSocketAddress("127.0.0.1", 0))
+                .withMaxConcurrentRequests(maxConcurrentRequests));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.address().getPort() + path))
+                .timeout(java.time.Duration.ofSeconds(30));
+    }
+
+    private HttpResponse<String> post(String path, byte[] body) throws IOException, InterruptedException {
+        return client.send(request(path).POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,90 @@
+package io.alapierre.gobl.store;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.alapierre.gobl.store.exceptions.StoreException;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Identifiers taken from the {@code head} of an envelope.
+ *
+ * @param uuid   value of {@code head.uuid}
+ * @param digest value of {@code head.dig.val}, decoded from hex
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+record EnvelopeHead(UUID uuid, byte[] digest) {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Reads {@code head.uuid} and {@code head.dig.val} with a streaming parser, skipping {@code doc} and
+     * {@code sigs} without building them.
+     *
+     * @param envelope envelope JSON bytes
+     * @return envelope head identifiers
+     * @throws StoreException if the envelope is not valid JSON or has no uuid or digest in its head
+     */
+    static EnvelopeHead read(byte @NonNull [] envelope) {
+        try (JsonParser parser = JSON_FACTORY.createParser(envelope)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new StoreException("Envelope must be a JSON object");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if ("head".equals(name)) return readHead(parser);
+                parser.skipChildren();
+            }
+            throw new StoreException("Envelope does not contain 'head' attribute");
+        } catch (IOException e) {
+            throw new StoreException("Can't parse envelope", e);
+        }
+    }
+
+    private static EnvelopeHead readHead(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) throw new StoreException("Envelope 'head' must be a JSON object");
+        UUID uuid = null;
+        String digest = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("uuid".equals(name)) {
+                uuid = parseUuid(parser.currentToken() == JsonToken.VALUE_STRING ? parser.getText() : null);
+            } else if ("dig".equals(name) && parser.currentToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String digName = parser.currentName();
+                    parser.nextToken();
+                    if ("val".equals(digName)) digest = parser.getValueAsString();
+                    else parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (uuid == null) throw new StoreException("Envelope head does not contain 'uuid' attribute");
+        if (digest == null) throw new StoreException("Envelope head does not contain 'dig.val' attribute");
+
+        try {
+            return new EnvelopeHead(uuid, HexFormat.of().parseHex(digest));
+        } catch (IllegalArgumentException e) {
+            throw new StoreException("Envelope digest is not a hex string: " + digest, e);
+        }
+    }
+
+    private static UUID parseUuid(String uuid) {
+        if (uuid == null) throw new StoreException("Envelope head.uuid is not a string");
+        try {
+            return UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            throw new StoreException("Envelope head.uuid is not a UUID: " + uuid, e);
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package io.alapierre.gobl.store;
+
+import io.alapierre.gobl.store.exceptions.StoreException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only archive of signed envelopes.
+ * <p>
+ * Envelopes are appended to segment files in a single directory instead of one file per document. Every
+ * envelope can be fetched by its {@code head.uuid} or {@code head.dig.val}. Sealed segments are memory-mapped
+ * and have a compact sorted index on disk, the segment currently written to is indexed in memory and rebuilt by
+ * rescanning its tail when the store is opened, so a crash loses at most records that were not yet synced.
+ * <p>
+ * The store is safe for concurrent use: appends are serialised, reads do not block appends. With
+ * {@link StoreConfig.SyncMode#GROUP_COMMIT} concurrent writers waiting for durability share a single fsync.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class EnvelopeStore implements Closeable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.log");
+
+    private final Path directory;
+    private final StoreConfig config;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object syncMonitor = new Object();
+
+    private volatile State state;
+    private volatile boolean closed;
+
+    private long appendSeq;
+    private long syncedSeq;
+    private boolean syncing;
+
+    private EnvelopeStore(Path directory, StoreConfig config) {
+        this.directory = directory;
+        this.config = config;
+    }
+
+    /**
+     * Opens the store in the given directory with the default configuration, creating it if needed.
+     *
+     * @param directory store directory
+     * @return opened store
+     * @throws IOException if the directory or segment files can't be read or created
+     */
+    public static EnvelopeStore open(@NonNull Path directory) throws IOException {
+        return open(directory, StoreConfig.defaults());
+    }
+
+    /**
+     * Opens the store in the given directory, creating it if needed. Segment indexes that are missing or damaged
+     * are rebuilt and a torn record at the end of the last segment is truncated.
+     *
+     * @param directory store directory
+     * @param config    store configuration
+     * @return opened store
+     * @throws IOException if the directory or segment files can't be read or created
+     */
+    public static EnvelopeStore open(@NonNull Path directory, @NonNull StoreConfig config) throws IOException {
+        Files.createDirectories(directory);
+        EnvelopeStore store = new EnvelopeStore(directory, config);
+        store.recover();
+        return store;
+    }
+
+    /**
+     * Appends the envelope to the store. With {@link StoreConfig.SyncMode#GROUP_COMMIT} the method returns once
+     * the envelope is durable on disk.
+     *
+     * @param envelope signed envelope JSON
+     * @return location of the stored envelope
+     * @throws IOException    if the envelope can't be written
+     * @throws StoreException if the envelope has no {@code head.uuid} or {@code head.dig.val}, or is already stored
+     */
+    public RecordLocation append(byte @NonNull [] envelope) throws IOException {
+
+        val head = EnvelopeHead.read(envelope);
+        RecordLocation location;
+        long seq;
+
+        writeLock.lock();
+        try {
+            ensureOpen();
+            if (contains(head.uuid())) throw new StoreException("Envelope " + head.uuid() + " is already stored");
+
+            State current = state;
+            if (current.active.size() > 0 && current.active.size() + Segment.recordSize(head, envelope.length) > config.segmentSize()) {
+                current = roll(current);
+            }
+
+            long offset = current.active.append(head, envelope);
+            location = new RecordLocation(current.active.id(), offset, envelope.length);
+            current.register(head, location);
+            seq = ++appendSeq;
+        } finally {
+            writeLock.unlock();
+        }
+
+        if (config.syncMode() == StoreConfig.SyncMode.GROUP_COMMIT) awaitDurable(seq);
+        return location;
+    }
+
+    /**
+     * Appends the envelope to the store.
+     *
+     * @param envelope signed envelope JSON
+     * @return location of the stored envelope
+     * @throws IOException if the envelope can't be written
+     * @see #append(byte[])
+     */
+    public RecordLocation append(@NonNull String envelope) throws IOException {
+        return append(envelope.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Finds the envelope by {@code head.uuid}.
+     *
+     * @param uuid envelope uuid
+     * @return read-only view of the envelope bytes, backed by the mapped segment file when the segment is sealed
+     * @throws IOException if the segment can't be read
+     */
+    public Optional<ByteBuffer> find(@NonNull UUID uuid) throws IOException {
+        State current = state;
+
+        RecordLocation location = current.byUuid.get(uuid);
+        if (location != null) return Optional.of(current.active.read(location.offset()).payload());
+
+        for (int i = current.sealed.size() - 1; i >= 0; i--) {
+            SealedSegment sealed = current.sealed.get(i);
+            long offset = sealed.index.find(uuid);
+            if (offset >= 0) return Optional.of(sealed.segment.read(offset).payload());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Finds the most recently stored envelope with the given {@code head.dig.val}.
+     *
+     * @param digest hex encoded document digest
+     * @return read-only view of the envelope bytes
+     * @throws IOException if the segment can't be read
+     */
+    public Optional<ByteBuffer> findByDigest(@NonNull String digest) throws IOException {
+        byte[] raw = HexFormat.of().parseHex(digest);
+        State current = state;
+
+        RecordLocation location = current.byDigest.get(HexFormat.of().formatHex(raw));
+        if (location != null) return Optional.of(current.active.read(location.offset()).payload());
+
+        for (int i = current.sealed.size() - 1; i >= 0; i--) {
+            SealedSegment sealed = current.sealed.get(i);
+            long[] candidates = sealed.index.candidates(raw);
+            for (int c = candidates.length - 1; c >= 0; c--) {
+                val record = sealed.segment.read(candidates[c]);
+                if (Arrays.equals(record.digest(), raw)) return Optional.of(record.payload());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the envelope with the given {@code head.uuid} as a byte array.
+     *
+     * @param uuid envelope uuid
+     * @return envelope bytes
+     * @throws IOException if the segment can't be read
+     */
+    public Optional<byte[]> get(@NonNull UUID uuid) throws IOException {
+        return find(uuid).map(EnvelopeStore::toArray);
+    }
+
+    /**
+     * Returns the most recently stored envelope with the given {@code head.dig.val} as a byte array.
+     *
+     * @param digest hex encoded document digest
+     * @return envelope bytes
+     * @throws IOException if the segment can't be read
+     */
+    public Optional<byte[]> getByDigest(@NonNull String digest) throws IOException {
+        return findByDigest(digest).map(EnvelopeStore::toArray);
+    }
+
+    /**
+     * @param uuid envelope uuid
+     * @return {@code true} if an envelope with the given uuid is stored
+     */
+    public boolean contains(@NonNull UUID uuid) {
+        State current = state;
+        if (current.byUuid.containsKey(uuid)) return true;
+        for (SealedSegment sealed : current.sealed) {
+            if (sealed.index.find(uuid) >= 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of stored envelopes
+     */
+    public long count() {
+        State current = state;
+        long count = current.byUuid.size();
+        for (SealedSegment sealed : current.sealed) count += sealed.index.count();
+        return count;
+    }
+
+    /**
+     * Forces all appended envelopes to disk. Useful with {@link StoreConfig.SyncMode#NONE}.
+     *
+     * @throws IOException if the segment can't be synced
+     */
+    public void sync() throws IOException {
+        long seq;
+        writeLock.lock();
+        try {
+            seq = appendSeq;
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(seq);
+    }
+
+    /**
+     * Leader/follower group commit: the first writer that finds no fsync in progress performs it on behalf of
+     * everybody who appended before it started, the others wait for the result.
+     */
+    private void awaitDurable(long seq) throws IOException {
+        while (true) {
+            synchronized (syncMonitor) {
+                while (syncing && syncedSeq < seq) {
+                    try {
+                        syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new StoreException("Interrupted while waiting for fsync", e);
+                    }
+                }
+                if (syncedSeq >= seq) return;
+                syncing = true;
+            }
+
+            long target;
+            Segment segment;
+            writeLock.lock();
+            try {
+                target = appendSeq;
+                segment = state.active;
+            } finally {
+                writeLock.unlock();
+            }
+
+            boolean synced = false;
+            try {
+                segment.force();
+                synced = true;
+            } finally {
+                synchronized (syncMonitor) {
+                    if (synced) syncedSeq = Math.max(syncedSeq, target);
+                    syncing = false;
+                    syncMonitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Seals the active segment (fsync, index, mmap) and starts a new one. Records of the sealed segment are durable
+     * after this call, which is what lets {@link #awaitDurable(long)} sync only the active segment.
+     */
+    private State roll(State current) throws IOException {
+        Segment active = current.active;
+        SegmentIndex index = SegmentIndex.write(indexPath(active.id()), current.entries);
+        active.seal();
+
+        List<SealedSegment> sealed = new ArrayList<>(current.sealed);
+        sealed.add(new SealedSegment(active, index));
+
+        int nextId = active.id() + 1;
+        State next = new State(Segment.open(nextId, segmentPath(nextId)), List.copyOf(sealed));
+        state = next;
+        log.debug("Sealed segment {} with {} envelopes", active.id(), index.count());
+        return next;
+    }
+
+    private void recover() throws IOException {
+
+        List<Integer> ids;
+        try (Stream<Path> files = Files.list(directory)) {
+            ids = files.map(p -> SEGMENT_NAME.matcher(p.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(m -> Integer.parseInt(m.group(1)))
+                    .sorted()
+                    .toList();
+        }
+
+        List<SealedSegment> sealed = new ArrayList<>();
+        for (int i = 0; i < ids.size() - 1; i++) {
+            int id = ids.get(i);
+            Segment segment = Segment.open(id, segmentPath(id));
+            SegmentIndex index = SegmentIndex.load(indexPath(id));
+            if (index == null) {
+                log.info("Rebuilding index of segment {}", id);
+                List<SegmentIndex.Entry> entries = new ArrayList<>();
+                long valid = segment.scan((offset, uuid, digest, length) -> entries.add(SegmentIndex.Entry.of(uuid, digest, offset)));
+                segment.truncate(valid);
+                index = SegmentIndex.write(indexPath(id), entries);
+            }
+            segment.seal();
+            sealed.add(new SealedSegment(segment, index));
+        }
+
+        int activeId = ids.isEmpty() ? 1 : ids.get(ids.size() - 1);
+        Segment active = Segment.open(activeId, segmentPath(activeId));
+        State recovered = new State(active, List.copyOf(sealed));
+
+        long valid = active.scan((offset, uuid, digest, length) ->
+                recovered.register(new EnvelopeHead(uuid, digest), new RecordLocation(activeId, offset, length)));
+        active.truncate(valid);
+
+        state = recovered;
+        log.debug("Opened envelope store {} with {} segments", directory, sealed.size() + 1);
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("segment-%08d.log", id));
+    }
+
+    private Path indexPath(int id) {
+        return directory.resolve(String.format("segment-%08d.idx", id));
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new StoreException("Envelope store is closed");
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            State current = state;
+            current.active.force();
+            current.active.close();
+            for (SealedSegment sealed : current.sealed) sealed.segment.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private record SealedSegment(Segment segment, SegmentIndex index) {
+    }
+
+    /**
+     * Immutable snapshot of segments, swapped atomically when the active segment is rolled so readers never see a
+     * half-sealed segment. Only the in-memory index of the active segment is mutated, under the write lock.
+     */
+    private static final class State {
+
+        final Segment active;
+        final List<SealedSegment> sealed;
+        final Map<UUID, RecordLocation> byUuid = new ConcurrentHashMap<>();
+        final Map<String, RecordLocation> byDigest = new ConcurrentHashMap<>();
+        final List<SegmentIndex.Entry> entries = new ArrayList<>();
+
+        State(Segment active, List<SealedSegment> sealed) {
+            this.active = active;
+            this.sealed = sealed;
+        }
+
+        void register(EnvelopeHead head, RecordLocation location) {
+            byUuid.put(head.uuid(), location);
+            byDigest.put(HexFormat.of().formatHex(head.digest()), location);
+            entries.add(SegmentIndex.Entry.of(head.uuid(), head.digest(), location.offset()));
+        }
+    }
+}
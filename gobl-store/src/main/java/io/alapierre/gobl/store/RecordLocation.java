@@ -0,0 +1,14 @@
+package io.alapierre.gobl.store;
+
+/**
+ * Physical position of an envelope in the store.
+ *
+ * @param segment segment number
+ * @param offset  offset of the record header inside the segment file
+ * @param length  length of the envelope bytes
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public record RecordLocation(int segment, long offset, int length) {
+}
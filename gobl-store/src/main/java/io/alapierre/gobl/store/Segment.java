@@ -0,0 +1,229 @@
+package io.alapierre.gobl.store;
+
+import io.alapierre.gobl.store.exceptions.StoreException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Single append-only segment file.
+ * <p>
+ * Every record is laid out as:
+ * <pre>
+ * magic (int) | payload length (int) | crc32 (int) | uuid (2 x long) | digest length (byte) | digest | payload
+ * </pre>
+ * The CRC covers everything after it, so a torn write at the tail of the file is detected during recovery.
+ * Appends are not thread-safe and are serialised by {@link EnvelopeStore}; reads are thread-safe.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+final class Segment implements Closeable {
+
+    static final int MAGIC = 0x474f424c;
+    static final int FIXED_HEADER_SIZE = 4 + 4 + 4 + 16 + 1;
+
+    private final int id;
+    private final Path path;
+    private final FileChannel channel;
+
+    private volatile long size;
+    private volatile MappedByteBuffer mapped;
+
+    private Segment(int id, Path path, FileChannel channel, long size) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    static Segment open(int id, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(id, path, channel, channel.size());
+    }
+
+    static int recordSize(EnvelopeHead head, int payloadLength) {
+        return FIXED_HEADER_SIZE + head.digest().length + payloadLength;
+    }
+
+    int id() {
+        return id;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Appends a record at the end of the segment. Must be called by one thread at a time.
+     *
+     * @return offset of the record header
+     */
+    long append(EnvelopeHead head, byte[] payload) throws IOException {
+
+        byte[] digest = head.digest();
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_SIZE + digest.length);
+        header.putInt(MAGIC)
+                .putInt(payload.length)
+                .putInt(0)
+                .putLong(head.uuid().getMostSignificantBits())
+                .putLong(head.uuid().getLeastSignificantBits())
+                .put((byte) digest.length)
+                .put(digest)
+                .flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 12, header.limit() - 12);
+        crc.update(payload);
+        header.putInt(8, (int) crc.getValue());
+
+        long offset = size;
+        ByteBuffer body = ByteBuffer.wrap(payload);
+        long position = offset;
+        while (header.hasRemaining()) position += channel.write(header, position);
+        while (body.hasRemaining()) position += channel.write(body, position);
+
+        size = position;
+        return offset;
+    }
+
+    /**
+     * Reads the record stored at the given offset.
+     *
+     * @param offset offset of the record header
+     * @return the record; its payload is a read-only view of the mapped file once the segment is sealed
+     */
+    StoredRecord read(long offset) throws IOException {
+
+        ByteBuffer header = region(offset, FIXED_HEADER_SIZE);
+        if (header.getInt(0) != MAGIC) throw new StoreException("Corrupted record at " + path + ":" + offset);
+
+        int length = header.getInt(4);
+        UUID uuid = new UUID(header.getLong(12), header.getLong(20));
+        int digestLength = Byte.toUnsignedInt(header.get(28));
+
+        byte[] digest = new byte[digestLength];
+        region(offset + FIXED_HEADER_SIZE, digestLength).get(digest);
+
+        ByteBuffer payload = region(offset + FIXED_HEADER_SIZE + digestLength, length);
+        return new StoredRecord(uuid, digest, payload);
+    }
+
+    /**
+     * Scans all records from the beginning of the file, validating their checksums. Scanning stops at the
+     * first incomplete or corrupted record.
+     *
+     * @param consumer receives every valid record
+     * @return end offset of the last valid record
+     */
+    long scan(RecordConsumer consumer) throws IOException {
+
+        long fileSize = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_SIZE + 255);
+        CRC32 crc = new CRC32();
+
+        while (offset + FIXED_HEADER_SIZE <= fileSize) {
+
+            header.clear().limit(FIXED_HEADER_SIZE);
+            readFully(header, offset);
+            if (header.getInt(0) != MAGIC) break;
+
+            int length = header.getInt(4);
+            int digestLength = Byte.toUnsignedInt(header.get(28));
+            long end = offset + FIXED_HEADER_SIZE + digestLength + (long) length;
+            if (length < 0 || end > fileSize) break;
+
+            header.limit(FIXED_HEADER_SIZE + digestLength);
+            readFully(header, offset + FIXED_HEADER_SIZE);
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, offset + FIXED_HEADER_SIZE + digestLength);
+
+            crc.reset();
+            crc.update(header.array(), 12, FIXED_HEADER_SIZE + digestLength - 12);
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(8)) break;
+
+            UUID uuid = new UUID(header.getLong(12), header.getLong(20));
+            byte[] digest = Arrays.copyOfRange(header.array(), FIXED_HEADER_SIZE, FIXED_HEADER_SIZE + digestLength);
+            consumer.accept(offset, uuid, digest, length);
+
+            offset = end;
+        }
+        return offset;
+    }
+
+    /**
+     * Cuts off everything after {@code validSize}, used to drop a torn tail found by {@link #scan(RecordConsumer)}.
+     */
+    void truncate(long validSize) throws IOException {
+        if (channel.size() > validSize) {
+            log.warn("Truncating segment {} from {} to {} bytes", path, channel.size(), validSize);
+            channel.truncate(validSize);
+            channel.force(true);
+        }
+        size = validSize;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Makes the segment read-only: flushes it to disk and maps it into memory for random reads.
+     */
+    void seal() throws IOException {
+        channel.force(true);
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    boolean sealed() {
+        return mapped != null;
+    }
+
+    private ByteBuffer region(long offset, int length) throws IOException {
+        MappedByteBuffer map = mapped;
+        if (map != null) return map.slice((int) offset, length).asReadOnlyBuffer();
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(buffer, offset);
+        return buffer.flip();
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new StoreException("Unexpected end of segment " + path + " at " + position);
+            position += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(long offset, UUID uuid, byte[] digest, int length) throws IOException;
+    }
+
+    record StoredRecord(UUID uuid, byte[] digest, ByteBuffer payload) {
+    }
+}
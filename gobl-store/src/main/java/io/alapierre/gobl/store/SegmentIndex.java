@@ -0,0 +1,162 @@
+package io.alapierre.gobl.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact on-disk index of a sealed segment.
+ * <p>
+ * The file holds two sorted tables which are binary-searched directly in the memory-mapped file:
+ * <pre>
+ * magic (int) | entry count (int)
+ * uuid table:   count x (uuid msb (long), uuid lsb (long), record offset (long))
+ * digest table: count x (first 8 bytes of digest (long), record offset (long))
+ * </pre>
+ * Digest prefixes may collide, so matches from the digest table are confirmed against the record header.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+final class SegmentIndex {
+
+    static final int MAGIC = 0x47494458;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int UUID_ENTRY_SIZE = 24;
+    private static final int DIGEST_ENTRY_SIZE = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+
+    private SegmentIndex(MappedByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+    }
+
+    /**
+     * Loads an index written by {@link #write(Path, List)}.
+     *
+     * @return the index, or {@code null} if the file is missing or damaged and the segment has to be rescanned
+     */
+    static SegmentIndex load(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) return null;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            int count = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || count < 0 || fileSize != size(count)) {
+                log.warn("Ignoring damaged segment index {}", path);
+                return null;
+            }
+            return new SegmentIndex(buffer, count);
+        }
+    }
+
+    /**
+     * Writes the index atomically (through a temporary file) and maps it for lookups.
+     */
+    static SegmentIndex write(Path path, List<Entry> entries) throws IOException {
+
+        Entry[] byUuid = entries.toArray(new Entry[0]);
+        Arrays.sort(byUuid, Comparator.comparingLong(Entry::uuidMsb).thenComparingLong(Entry::uuidLsb));
+        Entry[] byDigest = entries.toArray(new Entry[0]);
+        Arrays.sort(byDigest, Comparator.comparingLong(Entry::digestPrefix));
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size(entries.size()));
+        buffer.putInt(MAGIC).putInt(entries.size());
+        for (Entry entry : byUuid) buffer.putLong(entry.uuidMsb()).putLong(entry.uuidLsb()).putLong(entry.offset());
+        for (Entry entry : byDigest) buffer.putLong(entry.digestPrefix()).putLong(entry.offset());
+        buffer.flip();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        return load(path);
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return offset of the record with the given uuid or {@code -1}
+     */
+    long find(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = HEADER_SIZE + mid * UUID_ENTRY_SIZE;
+            int cmp = Long.compare(buffer.getLong(position), msb);
+            if (cmp == 0) cmp = Long.compare(buffer.getLong(position + 8), lsb);
+
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return buffer.getLong(position + 16);
+        }
+        return -1;
+    }
+
+    /**
+     * @return offsets of all records whose digest starts with the same 8 bytes as {@code digest}
+     */
+    long[] candidates(byte[] digest) {
+        long prefix = prefix(digest);
+        int base = HEADER_SIZE + count * UUID_ENTRY_SIZE;
+
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(base + mid * DIGEST_ENTRY_SIZE) < prefix) low = mid + 1;
+            else high = mid;
+        }
+
+        int end = low;
+        while (end < count && buffer.getLong(base + end * DIGEST_ENTRY_SIZE) == prefix) end++;
+
+        long[] offsets = new long[end - low];
+        for (int i = low; i < end; i++) offsets[i - low] = buffer.getLong(base + i * DIGEST_ENTRY_SIZE + 8);
+        return offsets;
+    }
+
+    static long prefix(byte[] digest) {
+        long prefix = 0;
+        for (int i = 0; i < 8; i++) prefix = (prefix << 8) | (i < digest.length ? Byte.toUnsignedLong(digest[i]) : 0);
+        return prefix;
+    }
+
+    private static long size(int count) {
+        return HEADER_SIZE + (long) count * (UUID_ENTRY_SIZE + DIGEST_ENTRY_SIZE);
+    }
+
+    record Entry(long uuidMsb, long uuidLsb, long digestPrefix, long offset) {
+
+        static Entry of(UUID uuid, byte[] digest, long offset) {
+            return new Entry(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), prefix(digest), offset);
+        }
+    }
+}
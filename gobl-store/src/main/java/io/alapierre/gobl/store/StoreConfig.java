@@ -0,0 +1,53 @@
+package io.alapierre.gobl.store;
+
+/**
+ * Tuning options of an {@link EnvelopeStore}.
+ *
+ * @param segmentSize maximum size in bytes of a single segment file; a segment is sealed and a new one is started
+ *                    once the next record does not fit
+ * @param syncMode    durability guarantee given by {@link EnvelopeStore#append(byte[])}
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public record StoreConfig(long segmentSize, SyncMode syncMode) {
+
+    public static final long DEFAULT_SEGMENT_SIZE = 256L * 1024 * 1024;
+
+    public StoreConfig {
+        if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Segment size must be between 1 and " + Integer.MAX_VALUE + " bytes");
+        if (syncMode == null) throw new IllegalArgumentException("Sync mode must not be null");
+    }
+
+    /**
+     * Default configuration: 256 MiB segments with group-commit fsync.
+     *
+     * @return default configuration
+     */
+    public static StoreConfig defaults() {
+        return new StoreConfig(DEFAULT_SEGMENT_SIZE, SyncMode.GROUP_COMMIT);
+    }
+
+    public StoreConfig withSegmentSize(long segmentSize) {
+        return new StoreConfig(segmentSize, syncMode);
+    }
+
+    public StoreConfig withSyncMode(SyncMode syncMode) {
+        return new StoreConfig(segmentSize, syncMode);
+    }
+
+    public enum SyncMode {
+
+        /**
+         * {@code append} returns only after the record is fsynced; concurrent writers share a single fsync call.
+         */
+        GROUP_COMMIT,
+
+        /**
+         * {@code append} returns as soon as the record is handed to the operating system; call
+         * {@link EnvelopeStore#sync()} to make it durable.
+         */
+        NONE
+    }
+}
@@ -0,0 +1,78 @@
+package io.alapierre.gobl.store.export;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary-encoded string vector: every row holds the index of its value in the dictionary or {@link #NULL}.
+ * The dictionary is local to a chunk, so memory stays bounded by the chunk size.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+final class DictionaryVector {
+
+    static final int NULL = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private int[] codes;
+
+    DictionaryVector(int capacity) {
+        codes = new int[capacity];
+    }
+
+    void set(int row, String value) {
+        if (row >= codes.length) codes = Arrays.copyOf(codes, Math.max(row + 1, codes.length + (codes.length >> 1)));
+        codes[row] = value == null ? NULL : ids.computeIfAbsent(value, v -> {
+            dictionary.add(v);
+            return dictionary.size() - 1;
+        });
+    }
+
+    String get(int row) {
+        int code = codes[row];
+        return code == NULL ? null : dictionary.get(code);
+    }
+
+    int code(int row) {
+        return codes[row];
+    }
+
+    List<String> dictionary() {
+        return dictionary;
+    }
+
+    void clear() {
+        ids.clear();
+        dictionary.clear();
+    }
+
+    void write(DataOutputStream out, int rows) throws IOException {
+        out.writeInt(dictionary.size());
+        for (String value : dictionary) out.writeUTF(value);
+        for (int row = 0; row < rows; row++) out.writeInt(codes[row]);
+    }
+
+    static DictionaryVector read(DataInputStream in, int rows) throws IOException {
+        DictionaryVector vector = new DictionaryVector(rows);
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String value = in.readUTF();
+            vector.ids.put(value, i);
+            vector.dictionary.add(value);
+        }
+        for (int row = 0; row < rows; row++) {
+            int code = in.readInt();
+            if (code < NULL || code >= size) throw new IOException("Dictionary code out of range: " + code);
+            vector.codes[row] = code;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,250 @@
+package io.alapierre.gobl.store.export;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A chunk of flattened invoice lines held column-wise, one vector per column:
+ * <ul>
+ *     <li>strings ({@code supplier_tax_id}, {@code invoice_code}, {@code item_name}, {@code tax_category}) are
+ *     dictionary-encoded,</li>
+ *     <li>{@code issue_date} is an epoch day and {@code line} the line number, both {@code int},</li>
+ *     <li>decimals ({@code quantity}, {@code price}, {@code tax_percent}, {@code sum}) are {@code long} in units of
+ *     10<sup>-{@value #SCALE}</sup>, rounded half up.</li>
+ * </ul>
+ * Missing values read as null. The tax columns come from the first tax of a line.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public final class LineChunk {
+
+    /**
+     * Column names in the order they are stored.
+     */
+    public static final List<String> COLUMNS = List.of("supplier_tax_id", "issue_date", "invoice_code", "line",
+            "item_name", "quantity", "price", "tax_category", "tax_percent", "sum");
+
+    /**
+     * Decimal places kept in the decimal columns.
+     */
+    public static final int SCALE = 4;
+
+    static final int NULL_INT = Integer.MIN_VALUE;
+    static final long NULL_LONG = Long.MIN_VALUE;
+
+    private int size;
+    private final DictionaryVector supplier;
+    private int[] issueDate;
+    private final DictionaryVector invoice;
+    private int[] line;
+    private final DictionaryVector item;
+    private long[] quantity;
+    private long[] price;
+    private final DictionaryVector taxCategory;
+    private long[] taxPercent;
+    private long[] sum;
+
+    LineChunk(int capacity) {
+        supplier = new DictionaryVector(capacity);
+        issueDate = new int[capacity];
+        invoice = new DictionaryVector(capacity);
+        line = new int[capacity];
+        item = new DictionaryVector(capacity);
+        quantity = new long[capacity];
+        price = new long[capacity];
+        taxCategory = new DictionaryVector(capacity);
+        taxPercent = new long[capacity];
+        sum = new long[capacity];
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    public String supplierTaxId(int row) {
+        return supplier.get(check(row));
+    }
+
+    public LocalDate issueDate(int row) {
+        int day = issueDate[check(row)];
+        return day == NULL_INT ? null : LocalDate.ofEpochDay(day);
+    }
+
+    public String invoiceCode(int row) {
+        return invoice.get(check(row));
+    }
+
+    /**
+     * @return line number ({@code i}) or 0 if the line has none
+     */
+    public int line(int row) {
+        int value = line[check(row)];
+        return value == NULL_INT ? 0 : value;
+    }
+
+    public String itemName(int row) {
+        return item.get(check(row));
+    }
+
+    public BigDecimal quantity(int row) {
+        return decimal(quantity[check(row)]);
+    }
+
+    public BigDecimal price(int row) {
+        return decimal(price[check(row)]);
+    }
+
+    public String taxCategory(int row) {
+        return taxCategory.get(check(row));
+    }
+
+    /**
+     * @return tax rate in percent, e.g. 23.0000 for {@code "23.0%"}
+     */
+    public BigDecimal taxPercent(int row) {
+        return decimal(taxPercent[check(row)]);
+    }
+
+    public BigDecimal sum(int row) {
+        return decimal(sum[check(row)]);
+    }
+
+    int addLine(int number, String itemName, long quantity, long price, String taxCategory, long taxPercent, long sum) {
+        int row = size++;
+        if (row == line.length) grow();
+        this.line[row] = number;
+        this.item.set(row, itemName);
+        this.quantity[row] = quantity;
+        this.price[row] = price;
+        this.taxCategory.set(row, taxCategory);
+        this.taxPercent[row] = taxPercent;
+        this.sum[row] = sum;
+        return row;
+    }
+
+    /**
+     * Sets the invoice-level columns of rows {@code from} to the end, once the invoice header has been read.
+     */
+    void fillInvoice(int from, String supplierTaxId, int issueDay, String invoiceCode) {
+        for (int row = from; row < size; row++) {
+            supplier.set(row, supplierTaxId);
+            issueDate[row] = issueDay;
+            invoice.set(row, invoiceCode);
+        }
+    }
+
+    void clear() {
+        size = 0;
+        supplier.clear();
+        invoice.clear();
+        item.clear();
+        taxCategory.clear();
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        supplier.write(out, size);
+        writeInts(out, issueDate, size);
+        invoice.write(out, size);
+        writeInts(out, line, size);
+        item.write(out, size);
+        writeLongs(out, quantity, size);
+        writeLongs(out, price, size);
+        taxCategory.write(out, size);
+        writeLongs(out, taxPercent, size);
+        writeLongs(out, sum, size);
+    }
+
+    /**
+     * @return next chunk or null at the end marker
+     */
+    static LineChunk read(DataInputStream in) throws IOException {
+        int rows = in.readInt();
+        if (rows < 0) throw new IOException("Negative row count: " + rows);
+        if (rows == 0) return null;
+
+        DictionaryVector supplier = DictionaryVector.read(in, rows);
+        int[] issueDate = readInts(in, rows);
+        DictionaryVector invoice = DictionaryVector.read(in, rows);
+        int[] line = readInts(in, rows);
+        DictionaryVector item = DictionaryVector.read(in, rows);
+        long[] quantity = readLongs(in, rows);
+        long[] price = readLongs(in, rows);
+        DictionaryVector taxCategory = DictionaryVector.read(in, rows);
+        long[] taxPercent = readLongs(in, rows);
+        long[] sum = readLongs(in, rows);
+        return new LineChunk(rows, supplier, issueDate, invoice, line, item, quantity, price, taxCategory, taxPercent, sum);
+    }
+
+    private LineChunk(int size, DictionaryVector supplier, int[] issueDate, DictionaryVector invoice, int[] line,
+                      DictionaryVector item, long[] quantity, long[] price, DictionaryVector taxCategory,
+                      long[] taxPercent, long[] sum) {
+        this.size = size;
+        this.supplier = supplier;
+        this.issueDate = issueDate;
+        this.invoice = invoice;
+        this.line = line;
+        this.item = item;
+        this.quantity = quantity;
+        this.price = price;
+        this.taxCategory = taxCategory;
+        this.taxPercent = taxPercent;
+        this.sum = sum;
+    }
+
+    static long units(BigDecimal value) {
+        if (value == null) return NULL_LONG;
+        long units = value.setScale(SCALE, RoundingMode.HALF_UP).movePointRight(SCALE).longValueExact();
+        if (units == NULL_LONG) throw new ArithmeticException("Value out of range: " + value);
+        return units;
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        return row;
+    }
+
+    private static BigDecimal decimal(long units) {
+        return units == NULL_LONG ? null : BigDecimal.valueOf(units, SCALE);
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, line.length + (line.length >> 1));
+        issueDate = Arrays.copyOf(issueDate, capacity);
+        line = Arrays.copyOf(line, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        price = Arrays.copyOf(price, capacity);
+        taxPercent = Arrays.copyOf(taxPercent, capacity);
+        sum = Arrays.copyOf(sum, capacity);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int rows) throws IOException {
+        for (int row = 0; row < rows; row++) out.writeInt(values[row]);
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values, int rows) throws IOException {
+        for (int row = 0; row < rows; row++) out.writeLong(values[row]);
+    }
+
+    private static int[] readInts(DataInputStream in, int rows) throws IOException {
+        int[] values = new int[rows];
+        for (int row = 0; row < rows; row++) values[row] = in.readInt();
+        return values;
+    }
+
+    private static long[] readLongs(DataInputStream in, int rows) throws IOException {
+        long[] values = new long[rows];
+        for (int row = 0; row < rows; row++) values[row] = in.readLong();
+        return values;
+    }
+}
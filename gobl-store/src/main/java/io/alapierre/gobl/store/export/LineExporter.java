@@ -0,0 +1,222 @@
+package io.alapierre.gobl.store.export;
+
+import io.alapierre.gobl.store.exceptions.StoreException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Streams invoices or invoice envelopes into column-oriented files of flattened invoice lines (see
+ * {@link LineChunk} for the columns), without binding the documents to {@code Invoice}.
+ * <p>
+ * Documents handed to {@link #accept(byte[])} go through a bounded queue to {@code parallelism} worker threads.
+ * Every worker flattens documents into its own chunk of primitive vectors and writes the chunk to its own file
+ * ({@code lines-000.gcol}, {@code lines-001.gcol}, ...) whenever it reaches {@code chunkRows} lines, so memory
+ * stays bounded by the queue and one chunk per worker however many lines are exported. Line order across files
+ * is not preserved. A file holds:
+ * <pre>
+ * magic (int)
+ * chunks: row count (int), then every column in {@link LineChunk#COLUMNS} order:
+ *         strings:  dictionary size (int), dictionary (UTF), row count x code (int)
+ *         int:      row count x value (int)
+ *         decimals: row count x value (long)
+ * end marker: row count 0 (int)
+ * </pre>
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public class LineExporter implements Closeable {
+
+    public static final int DEFAULT_CHUNK_ROWS = 64 * 1024;
+
+    static final int MAGIC = 0x474c4e43;
+
+    private static final byte[] END = new byte[0];
+
+    /**
+     * Result of an export.
+     *
+     * @param documents number of exported documents
+     * @param lines     number of exported lines
+     * @param files     written files
+     */
+    public record Summary(long documents, long lines, List<Path> files) {}
+
+    private final BlockingQueue<byte[]> queue;
+    private final List<Worker> workers = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private Summary summary;
+
+    private LineExporter(Path directory, int parallelism, int chunkRows) throws IOException {
+        this.queue = new ArrayBlockingQueue<>(parallelism * 8);
+        Files.createDirectories(directory);
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(new Worker(directory.resolve(String.format("lines-%03d.gcol", i)), chunkRows));
+        }
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * Opens an exporter with one worker per available processor and {@link #DEFAULT_CHUNK_ROWS} lines per chunk.
+     *
+     * @param directory directory for the column files, created if needed
+     * @return started exporter
+     * @throws IOException if the directory or files can't be created
+     */
+    public static LineExporter open(@NonNull Path directory) throws IOException {
+        return open(directory, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_ROWS);
+    }
+
+    /**
+     * @param directory   directory for the column files, created if needed
+     * @param parallelism number of worker threads and files
+     * @param chunkRows   number of lines buffered per worker before a chunk is written
+     * @return started exporter
+     * @throws IOException if the directory or files can't be created
+     */
+    public static LineExporter open(@NonNull Path directory, int parallelism, int chunkRows) throws IOException {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        if (chunkRows < 1) throw new IllegalArgumentException("Chunk size must be positive: " + chunkRows);
+        return new LineExporter(directory, parallelism, chunkRows);
+    }
+
+    /**
+     * Queues a document for export, waiting while all workers are busy.
+     *
+     * @param json invoice or envelope JSON bytes
+     * @throws InterruptedException if interrupted while waiting
+     * @throws StoreException       if a worker failed, e.g. on a malformed document
+     */
+    public void accept(byte @NonNull [] json) throws InterruptedException {
+        if (summary != null) throw new IllegalStateException("Export is finished");
+        while (!queue.offer(json, 100, TimeUnit.MILLISECONDS)) checkFailure();
+        checkFailure();
+    }
+
+    /**
+     * Writes the remaining chunks and waits for the workers.
+     *
+     * @return export summary
+     * @throws IOException          if a file can't be written
+     * @throws InterruptedException if interrupted while waiting
+     * @throws StoreException       if a document could not be exported
+     */
+    public synchronized Summary finish() throws IOException, InterruptedException {
+        if (summary != null) return summary;
+        for (int i = 0; i < workers.size(); i++) {
+            while (!queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                if (workers.stream().noneMatch(Thread::isAlive)) break;
+            }
+        }
+        for (Worker worker : workers) worker.join();
+
+        Throwable error = failure.get();
+        if (error instanceof IOException e) throw e;
+        checkFailure();
+
+        long documents = 0;
+        long lines = 0;
+        List<Path> files = new ArrayList<>();
+        for (Worker worker : workers) {
+            documents += worker.documents;
+            lines += worker.lines;
+            files.add(worker.file);
+        }
+        summary = new Summary(documents, lines, List.copyOf(files));
+        log.debug("Exported {} lines of {} documents to {} files", lines, documents, files.size());
+        return summary;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while finishing the export");
+        }
+    }
+
+    /**
+     * Reads a file written by the exporter chunk by chunk.
+     *
+     * @param file     column file
+     * @param consumer receives every chunk
+     * @throws IOException    if the file can't be read
+     * @throws StoreException if the file is not a column file or is incomplete
+     */
+    public static void read(@NonNull Path file, @NonNull Consumer<LineChunk> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new StoreException("Not a line column file: " + file);
+            LineChunk chunk;
+            while ((chunk = LineChunk.read(in)) != null) consumer.accept(chunk);
+        } catch (EOFException e) {
+            throw new StoreException("Incomplete line column file: " + file, e);
+        }
+    }
+
+    private void checkFailure() {
+        Throwable error = failure.get();
+        if (error != null) throw new StoreException("Export failed", error);
+    }
+
+    private class Worker extends Thread {
+
+        final Path file;
+        final int chunkRows;
+        long documents;
+        long lines;
+
+        Worker(Path file, int chunkRows) {
+            super("gobl-export-" + file.getFileName());
+            setDaemon(true);
+            this.file = file;
+            this.chunkRows = chunkRows;
+        }
+
+        @Override
+        public void run() {
+            LineFlattener flattener = new LineFlattener();
+            LineChunk chunk = new LineChunk(chunkRows);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+                out.writeInt(MAGIC);
+                byte[] json;
+                while ((json = queue.take()) != END) {
+                    if (failure.get() != null) return;
+                    lines += flattener.flatten(json, chunk);
+                    documents++;
+                    if (chunk.size() >= chunkRows) {
+                        chunk.write(out);
+                        chunk.clear();
+                    }
+                }
+                if (chunk.size() > 0) chunk.write(out);
+                out.writeInt(0);
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, e);
+            } catch (Exception e) {
+                log.error("Export to {} failed", file, e);
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package io.alapierre.gobl.store.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.alapierre.gobl.store.exceptions.StoreException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Flattens the lines of an invoice or of an invoice envelope into a {@link LineChunk} with a streaming parser,
+ * without binding the document to {@code Invoice}. Lines may come before the supplier and issue date in the
+ * JSON, so the invoice-level columns are filled in once the whole document has been read.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+final class LineFlattener {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private String supplier;
+    private int issueDay;
+    private String code;
+
+    /**
+     * @param json  invoice or envelope JSON bytes
+     * @param chunk chunk to append the lines to
+     * @return number of lines appended
+     * @throws StoreException if the document is not valid JSON or has malformed dates or numbers
+     */
+    int flatten(byte[] json, LineChunk chunk) {
+        int first = chunk.size();
+        supplier = null;
+        issueDay = LineChunk.NULL_INT;
+        code = null;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new StoreException("Document must be a JSON object");
+            readInvoice(parser, chunk, true);
+        } catch (IOException e) {
+            throw new StoreException("Can't parse document", e);
+        } catch (DateTimeException | ArithmeticException | NumberFormatException e) {
+            throw new StoreException("Document has a malformed date or number", e);
+        }
+
+        chunk.fillInvoice(first, supplier, issueDay, code);
+        return chunk.size() - first;
+    }
+
+    /**
+     * Reads invoice fields of the current object; at the top level an envelope {@code doc} is read the same way.
+     */
+    private void readInvoice(JsonParser parser, LineChunk chunk, boolean topLevel) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (name) {
+                case "doc" -> {
+                    if (topLevel && token == JsonToken.START_OBJECT) readInvoice(parser, chunk, false);
+                    else parser.skipChildren();
+                }
+                case "code" -> code = text(parser);
+                case "issue_date" -> {
+                    String date = text(parser);
+                    if (date != null) issueDay = Math.toIntExact(LocalDate.parse(date).toEpochDay());
+                }
+                case "supplier" -> supplier = readTaxId(parser);
+                case "lines" -> readLines(parser, chunk);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readLines(JsonParser parser, LineChunk chunk) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int number = LineChunk.NULL_INT;
+            String item = null;
+            long quantity = LineChunk.NULL_LONG;
+            long price = LineChunk.NULL_LONG;
+            String taxCategory = null;
+            long taxPercent = LineChunk.NULL_LONG;
+            long sum = LineChunk.NULL_LONG;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (name) {
+                    case "i" -> number = token == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : LineChunk.NULL_INT;
+                    case "quantity" -> quantity = units(parser);
+                    case "sum" -> sum = units(parser);
+                    case "item" -> {
+                        if (token != JsonToken.START_OBJECT) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String field = parser.currentName();
+                            parser.nextToken();
+                            if ("name".equals(field)) item = text(parser);
+                            else if ("price".equals(field)) price = units(parser);
+                            else parser.skipChildren();
+                        }
+                    }
+                    case "taxes" -> {
+                        if (token != JsonToken.START_ARRAY) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        boolean first = true;
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (!first || parser.currentToken() != JsonToken.START_OBJECT) {
+                                parser.skipChildren();
+                                continue;
+                            }
+                            first = false;
+                            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                String field = parser.currentName();
+                                parser.nextToken();
+                                if ("cat".equals(field)) taxCategory = text(parser);
+                                else if ("percent".equals(field)) taxPercent = percent(parser);
+                                else parser.skipChildren();
+                            }
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            chunk.addLine(number, item, quantity, price, taxCategory, taxPercent, sum);
+        }
+    }
+
+    private static String readTaxId(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String taxId = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("tax_id".equals(name) && parser.currentToken() == JsonToken.START_OBJECT) {
+                String country = "";
+                String code = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if ("country".equals(field)) country = parser.getValueAsString("");
+                    else if ("code".equals(field)) code = parser.getValueAsString();
+                    else parser.skipChildren();
+                }
+                if (code != null) taxId = country + code;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return taxId;
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING || token == JsonToken.VALUE_NUMBER_INT) return parser.getText();
+        parser.skipChildren();
+        return null;
+    }
+
+    private static long units(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING || token.isNumeric()) return LineChunk.units(new BigDecimal(parser.getText()));
+        parser.skipChildren();
+        return LineChunk.NULL_LONG;
+    }
+
+    private static long percent(JsonParser parser) throws IOException {
+        String value = text(parser);
+        if (value == null) return LineChunk.NULL_LONG;
+        if (value.endsWith("%")) value = value.substring(0, value.length() - 1);
+        return LineChunk.units(new BigDecimal(value.trim()));
+    }
+}
@@ -0,0 +1,166 @@
+package io.alapierre.gobl.store.index;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.alapierre.gobl.store.exceptions.StoreException;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Searchable fields of an invoice envelope. Any field except {@code uuid} may be null when the document does not
+ * have it.
+ *
+ * @param uuid          value of {@code head.uuid}
+ * @param supplierTaxId {@code Invoice.supplier} ({@code Party}) {@code tax_id} ({@code Identity}) as country
+ *                      followed by code, e.g. {@code PL6891152920}
+ * @param customerTaxId {@code Invoice.customer} tax ID in the same form
+ * @param issueDate     {@code Invoice.issue_date}
+ * @param currency      {@code Invoice.currency}
+ * @param total         {@code Invoice.totals.total_with_tax}
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+public record IndexedFields(@NonNull UUID uuid, String supplierTaxId, String customerTaxId, LocalDate issueDate,
+                            String currency, BigDecimal total) {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private record Doc(String supplierTaxId, String customerTaxId, LocalDate issueDate, String currency,
+                       BigDecimal total) {}
+
+    /**
+     * Reads the fields with a streaming parser, skipping {@code sigs}, invoice lines and everything else that is
+     * not indexed without building it.
+     *
+     * @param envelope envelope JSON bytes
+     * @return fields of the envelope document
+     * @throws StoreException if the envelope is not valid JSON, has no {@code head.uuid} or a field has a wrong format
+     */
+    public static IndexedFields read(byte @NonNull [] envelope) {
+        try (JsonParser parser = JSON_FACTORY.createParser(envelope)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new StoreException("Envelope must be a JSON object");
+
+            UUID uuid = null;
+            Doc doc = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if ("head".equals(name)) uuid = readUuid(parser);
+                else if ("doc".equals(name) && parser.currentToken() == JsonToken.START_OBJECT) doc = readDoc(parser);
+                else parser.skipChildren();
+            }
+
+            if (uuid == null) throw new StoreException("Envelope head does not contain 'uuid' attribute");
+            if (doc == null) return new IndexedFields(uuid, null, null, null, null, null);
+            return new IndexedFields(uuid, doc.supplierTaxId(), doc.customerTaxId(), doc.issueDate(), doc.currency(), doc.total());
+        } catch (IOException e) {
+            throw new StoreException("Can't parse envelope", e);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new StoreException("Envelope document has a malformed date or amount", e);
+        }
+    }
+
+    private static UUID readUuid(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) throw new StoreException("Envelope 'head' must be a JSON object");
+        UUID uuid = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("uuid".equals(name)) uuid = parseUuid(readString(parser));
+            else parser.skipChildren();
+        }
+        return uuid;
+    }
+
+    private static UUID parseUuid(String uuid) {
+        if (uuid == null) throw new StoreException("Envelope head.uuid is not a string");
+        try {
+            return UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            throw new StoreException("Envelope head.uuid is not a UUID: " + uuid, e);
+        }
+    }
+
+    private static Doc readDoc(JsonParser parser) throws IOException {
+        String supplier = null;
+        String customer = null;
+        LocalDate issueDate = null;
+        String currency = null;
+        BigDecimal total = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "supplier" -> supplier = readTaxId(parser);
+                case "customer" -> customer = readTaxId(parser);
+                case "issue_date" -> {
+                    String date = readString(parser);
+                    issueDate = date == null ? null : LocalDate.parse(date);
+                }
+                case "currency" -> currency = readString(parser);
+                case "totals" -> total = readTotal(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Doc(supplier, customer, issueDate, currency, total);
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) return parser.getText();
+        parser.skipChildren();
+        return null;
+    }
+
+    private static String readTaxId(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String taxId = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if ("tax_id".equals(name) && parser.currentToken() == JsonToken.START_OBJECT) {
+                String country = "";
+                String code = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if ("country".equals(field)) country = parser.getValueAsString("");
+                    else if ("code".equals(field)) code = parser.getValueAsString();
+                    else parser.skipChildren();
+                }
+                if (code != null) taxId = country + code;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return taxId;
+    }
+
+    private static BigDecimal readTotal(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        BigDecimal total = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("total_with_tax".equals(name) && token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+                total = new BigDecimal(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return total;
+    }
+}
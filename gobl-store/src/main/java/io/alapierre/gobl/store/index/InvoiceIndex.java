@@ -0,0 +1,503 @@
+package io.alapierre.gobl.store.index;
+
+import io.alapierre.gobl.store.exceptions.StoreException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory inverted index of invoice envelopes, for searching an archive by supplier and customer tax ID,
+ * currency, issue date and total without reading any JSON.
+ * <p>
+ * Every envelope gets an ordinal in the order it was added. Fields are held column-wise in primitive arrays
+ * indexed by ordinal: tax IDs and currency are dictionary-encoded with a sorted posting list of ordinals per
+ * value, issue date (epoch day) and total (in units of 10<sup>-{@value #AMOUNT_SCALE}</sup>) have a sorted
+ * permutation for range scans. A query starts from its most selective predicate, a posting list or a range slice,
+ * and checks the remaining predicates against the columns.
+ * <p>
+ * The index is immutable and safe for concurrent queries; new envelopes go to a {@link Builder}, which produces
+ * a new index. It can be saved to a file and loaded again instead of rebuilding it from the archive.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+@Slf4j
+public final class InvoiceIndex {
+
+    /**
+     * Decimal places kept for totals; amounts with more are rounded half up.
+     */
+    public static final int AMOUNT_SCALE = 4;
+
+    static final int MAGIC = 0x47494e56;
+
+    private final int size;
+    private final long[] uuidMsb;
+    private final long[] uuidLsb;
+    private final TermColumn supplier;
+    private final TermColumn customer;
+    private final TermColumn currency;
+    private final RangeColumn issueDate;
+    private final RangeColumn total;
+
+    private InvoiceIndex(long[] uuidMsb, long[] uuidLsb, TermColumn supplier, TermColumn customer,
+                         TermColumn currency, RangeColumn issueDate, RangeColumn total) {
+        this.size = uuidMsb.length;
+        this.uuidMsb = uuidMsb;
+        this.uuidLsb = uuidLsb;
+        this.supplier = supplier;
+        this.customer = customer;
+        this.currency = currency;
+        this.issueDate = issueDate;
+        this.total = total;
+    }
+
+    /**
+     * @return empty builder
+     */
+    public static Builder builder() {
+        return new Builder(1024);
+    }
+
+    /**
+     * Builds the index of a batch of envelopes, reading them in parallel. Ordinals follow the list order.
+     *
+     * @param envelopes envelope JSON bytes
+     * @return index of the envelopes
+     * @throws StoreException if an envelope can't be read
+     */
+    public static InvoiceIndex build(@NonNull List<byte[]> envelopes) {
+        IndexedFields[] fields = new IndexedFields[envelopes.size()];
+        Arrays.parallelSetAll(fields, i -> IndexedFields.read(envelopes.get(i)));
+
+        Builder builder = new Builder(Math.max(fields.length, 16));
+        for (IndexedFields field : fields) builder.add(field);
+        return builder.build();
+    }
+
+    /**
+     * @return builder holding all documents of this index, to add new ones to
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * @return number of indexed envelopes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param ordinal document ordinal
+     * @return {@code head.uuid} of the envelope, e.g. to fetch it from an {@code EnvelopeStore}
+     */
+    public UUID uuid(int ordinal) {
+        return new UUID(uuidMsb[ordinal], uuidLsb[ordinal]);
+    }
+
+    /**
+     * @return new query matching all documents, narrowed by its predicates
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * Conjunctive query. Predicates on the same field replace each other; range bounds are inclusive and a null
+     * bound leaves the range open. Documents without a value never match a predicate on that field.
+     */
+    public final class Query {
+
+        private String supplierTaxId;
+        private String customerTaxId;
+        private String currencyCode;
+        private long minDate = RangeColumn.MISSING;
+        private long maxDate = RangeColumn.MISSING;
+        private long minTotal = RangeColumn.MISSING;
+        private long maxTotal = RangeColumn.MISSING;
+        private boolean byDate;
+        private boolean byTotal;
+
+        private Query() {
+        }
+
+        /**
+         * @param taxId supplier tax ID, country followed by code, e.g. {@code PL6891152920}
+         */
+        public Query supplierTaxId(@NonNull String taxId) {
+            this.supplierTaxId = taxId;
+            return this;
+        }
+
+        /**
+         * @param taxId customer tax ID, country followed by code
+         */
+        public Query customerTaxId(@NonNull String taxId) {
+            this.customerTaxId = taxId;
+            return this;
+        }
+
+        /**
+         * @param code ISO 4217 currency code
+         */
+        public Query currency(@NonNull String code) {
+            this.currencyCode = code;
+            return this;
+        }
+
+        public Query issuedBetween(LocalDate from, LocalDate to) {
+            this.byDate = true;
+            this.minDate = from == null ? RangeColumn.MISSING + 1 : from.toEpochDay();
+            this.maxDate = to == null ? Long.MAX_VALUE : to.toEpochDay();
+            return this;
+        }
+
+        public Query totalBetween(BigDecimal min, BigDecimal max) {
+            this.byTotal = true;
+            this.minTotal = min == null ? RangeColumn.MISSING + 1 : bound(min, RoundingMode.CEILING);
+            this.maxTotal = max == null ? Long.MAX_VALUE : bound(max, RoundingMode.FLOOR);
+            return this;
+        }
+
+        /**
+         * @return ordinals of the matching documents in ascending order
+         */
+        public int[] ordinals() {
+            int supplierId = id(supplier, supplierTaxId);
+            int customerId = id(customer, customerTaxId);
+            int currencyId = id(currency, currencyCode);
+            if (supplierId == TermColumn.MISSING && supplierTaxId != null
+                    || customerId == TermColumn.MISSING && customerTaxId != null
+                    || currencyId == TermColumn.MISSING && currencyCode != null) {
+                return new int[0];
+            }
+
+            int[] driver = null;
+            int best = size;
+            if (supplierId != TermColumn.MISSING && supplier.postings(supplierId).length <= best) {
+                driver = supplier.postings(supplierId);
+                best = driver.length;
+            }
+            if (customerId != TermColumn.MISSING && customer.postings(customerId).length <= best) {
+                driver = customer.postings(customerId);
+                best = driver.length;
+            }
+            if (currencyId != TermColumn.MISSING && currency.postings(currencyId).length <= best) {
+                driver = currency.postings(currencyId);
+                best = driver.length;
+            }
+            if (byDate) {
+                int from = issueDate.from(minDate);
+                int to = Math.max(from, issueDate.to(maxDate));
+                if (to - from <= best) {
+                    driver = slice(issueDate, from, to);
+                    best = driver.length;
+                }
+            }
+            if (byTotal) {
+                int from = total.from(minTotal);
+                int to = Math.max(from, total.to(maxTotal));
+                if (to - from <= best) driver = slice(total, from, to);
+            }
+            if (driver == null) return IntStream.range(0, size).toArray();
+
+            int[] matching = new int[driver.length];
+            int count = 0;
+            for (int ordinal : driver) {
+                if (supplierId != TermColumn.MISSING && supplier.values[ordinal] != supplierId) continue;
+                if (customerId != TermColumn.MISSING && customer.values[ordinal] != customerId) continue;
+                if (currencyId != TermColumn.MISSING && currency.values[ordinal] != currencyId) continue;
+                if (byDate && !within(issueDate.values[ordinal], minDate, maxDate)) continue;
+                if (byTotal && !within(total.values[ordinal], minTotal, maxTotal)) continue;
+                matching[count++] = ordinal;
+            }
+            return count == matching.length ? matching : Arrays.copyOf(matching, count);
+        }
+
+        /**
+         * @return {@code head.uuid} of the matching envelopes in ordinal order
+         */
+        public List<UUID> uuids() {
+            int[] ordinals = ordinals();
+            List<UUID> uuids = new ArrayList<>(ordinals.length);
+            for (int ordinal : ordinals) uuids.add(uuid(ordinal));
+            return uuids;
+        }
+
+        public int count() {
+            return ordinals().length;
+        }
+
+        private static int id(TermColumn column, String term) {
+            return term == null ? TermColumn.MISSING : column.id(term);
+        }
+
+        private static int[] slice(RangeColumn column, int from, int to) {
+            int[] ordinals = Arrays.copyOfRange(column.order, from, to);
+            Arrays.sort(ordinals);
+            return ordinals;
+        }
+
+        private static boolean within(long value, long min, long max) {
+            return value >= min && value <= max;
+        }
+
+        private static long bound(BigDecimal amount, RoundingMode mode) {
+            BigDecimal units = amount.setScale(AMOUNT_SCALE, mode).movePointRight(AMOUNT_SCALE);
+            if (units.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) return Long.MAX_VALUE;
+            if (units.compareTo(BigDecimal.valueOf(RangeColumn.MISSING + 1)) < 0) return RangeColumn.MISSING + 1;
+            return units.longValueExact();
+        }
+    }
+
+    /**
+     * Writes the index atomically (through a temporary file):
+     * <pre>
+     * magic (int) | document count (int)
+     * uuids:        count x (msb (long), lsb (long))
+     * term columns: supplier, customer, currency, each: term count (int), terms (UTF), count x term id (int)
+     * range columns: issue date, total, each: count x value (long), count x ordinal in value order (int)
+     * </pre>
+     * Posting lists are not stored, they are rebuilt from the term ids in one pass on {@link #load(Path)}.
+     *
+     * @param path index file
+     * @throws IOException if the file can't be written
+     */
+    public void save(@NonNull Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(uuidMsb[i]);
+                out.writeLong(uuidLsb[i]);
+            }
+            for (TermColumn column : List.of(supplier, customer, currency)) {
+                out.writeInt(column.terms.length);
+                for (String term : column.terms) out.writeUTF(term);
+                for (int value : column.values) out.writeInt(value);
+            }
+            for (RangeColumn column : List.of(issueDate, total)) {
+                for (long value : column.values) out.writeLong(value);
+                for (int ordinal : column.order) out.writeInt(ordinal);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.debug("Saved index of {} documents to {}", size, path);
+    }
+
+    /**
+     * Loads an index written by {@link #save(Path)}.
+     *
+     * @param path index file
+     * @return loaded index
+     * @throws IOException    if the file can't be read
+     * @throws StoreException if the file is not an index or is truncated
+     */
+    public static InvoiceIndex load(@NonNull Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new StoreException("Not an invoice index: " + path);
+            int size = in.readInt();
+            if (size < 0) throw new StoreException("Damaged invoice index: " + path);
+
+            long[] msb = new long[size];
+            long[] lsb = new long[size];
+            for (int i = 0; i < size; i++) {
+                msb[i] = in.readLong();
+                lsb[i] = in.readLong();
+            }
+            TermColumn[] terms = new TermColumn[3];
+            for (int c = 0; c < terms.length; c++) {
+                String[] dictionary = new String[in.readInt()];
+                for (int id = 0; id < dictionary.length; id++) dictionary[id] = in.readUTF();
+                int[] values = new int[size];
+                for (int i = 0; i < size; i++) {
+                    values[i] = in.readInt();
+                    if (values[i] < TermColumn.MISSING || values[i] >= dictionary.length) {
+                        throw new StoreException("Damaged invoice index: " + path);
+                    }
+                }
+                terms[c] = new TermColumn(dictionary, values);
+            }
+            RangeColumn[] ranges = new RangeColumn[2];
+            for (int c = 0; c < ranges.length; c++) {
+                long[] values = new long[size];
+                for (int i = 0; i < size; i++) values[i] = in.readLong();
+                int[] order = new int[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = in.readInt();
+                    if (order[i] < 0 || order[i] >= size) throw new StoreException("Damaged invoice index: " + path);
+                }
+                ranges[c] = new RangeColumn(values, order);
+            }
+            return new InvoiceIndex(msb, lsb, terms[0], terms[1], terms[2], ranges[0], ranges[1]);
+        } catch (EOFException e) {
+            throw new StoreException("Truncated invoice index: " + path, e);
+        }
+    }
+
+    /**
+     * Collects documents for a new index. Envelopes may be added from many threads: they are parsed by the
+     * calling thread and only appending the extracted fields is serialised.
+     */
+    public static final class Builder {
+
+        private final Dictionary supplierTerms;
+        private final Dictionary customerTerms;
+        private final Dictionary currencyTerms;
+
+        private int size;
+        private long[] uuidMsb;
+        private long[] uuidLsb;
+        private int[] supplier;
+        private int[] customer;
+        private int[] currency;
+        private long[] issueDate;
+        private long[] total;
+
+        private Builder(int capacity) {
+            supplierTerms = new Dictionary(new String[0]);
+            customerTerms = new Dictionary(new String[0]);
+            currencyTerms = new Dictionary(new String[0]);
+            uuidMsb = new long[capacity];
+            uuidLsb = new long[capacity];
+            supplier = new int[capacity];
+            customer = new int[capacity];
+            currency = new int[capacity];
+            issueDate = new long[capacity];
+            total = new long[capacity];
+        }
+
+        private Builder(InvoiceIndex index) {
+            supplierTerms = new Dictionary(index.supplier.terms);
+            customerTerms = new Dictionary(index.customer.terms);
+            currencyTerms = new Dictionary(index.currency.terms);
+            size = index.size;
+            int capacity = Math.max(16, size + (size >> 1));
+            uuidMsb = Arrays.copyOf(index.uuidMsb, capacity);
+            uuidLsb = Arrays.copyOf(index.uuidLsb, capacity);
+            supplier = Arrays.copyOf(index.supplier.values, capacity);
+            customer = Arrays.copyOf(index.customer.values, capacity);
+            currency = Arrays.copyOf(index.currency.values, capacity);
+            issueDate = Arrays.copyOf(index.issueDate.values, capacity);
+            total = Arrays.copyOf(index.total.values, capacity);
+        }
+
+        /**
+         * @param envelope envelope JSON bytes
+         * @return ordinal of the document
+         * @throws StoreException if the envelope can't be read
+         */
+        public int add(byte @NonNull [] envelope) {
+            return add(IndexedFields.read(envelope));
+        }
+
+        /**
+         * @param fields fields of the document
+         * @return ordinal of the document
+         * @throws StoreException if the total does not fit the index at {@link #AMOUNT_SCALE} decimal places
+         */
+        public synchronized int add(@NonNull IndexedFields fields) {
+            long amount = amount(fields.total());
+            if (size == uuidMsb.length) grow();
+
+            int ordinal = size++;
+            uuidMsb[ordinal] = fields.uuid().getMostSignificantBits();
+            uuidLsb[ordinal] = fields.uuid().getLeastSignificantBits();
+            supplier[ordinal] = supplierTerms.id(fields.supplierTaxId());
+            customer[ordinal] = customerTerms.id(fields.customerTaxId());
+            currency[ordinal] = currencyTerms.id(fields.currency());
+            issueDate[ordinal] = fields.issueDate() == null ? RangeColumn.MISSING : fields.issueDate().toEpochDay();
+            total[ordinal] = amount;
+            return ordinal;
+        }
+
+        public synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Builds posting lists and sorted permutations (in parallel) of the documents added so far. The builder
+         * stays usable.
+         *
+         * @return new index
+         */
+        public synchronized InvoiceIndex build() {
+            return new InvoiceIndex(Arrays.copyOf(uuidMsb, size), Arrays.copyOf(uuidLsb, size),
+                    new TermColumn(supplierTerms.terms(), Arrays.copyOf(supplier, size)),
+                    new TermColumn(customerTerms.terms(), Arrays.copyOf(customer, size)),
+                    new TermColumn(currencyTerms.terms(), Arrays.copyOf(currency, size)),
+                    RangeColumn.of(Arrays.copyOf(issueDate, size)),
+                    RangeColumn.of(Arrays.copyOf(total, size)));
+        }
+
+        private void grow() {
+            int capacity = uuidMsb.length + (uuidMsb.length >> 1) + 1;
+            uuidMsb = Arrays.copyOf(uuidMsb, capacity);
+            uuidLsb = Arrays.copyOf(uuidLsb, capacity);
+            supplier = Arrays.copyOf(supplier, capacity);
+            customer = Arrays.copyOf(customer, capacity);
+            currency = Arrays.copyOf(currency, capacity);
+            issueDate = Arrays.copyOf(issueDate, capacity);
+            total = Arrays.copyOf(total, capacity);
+        }
+
+        private static long amount(BigDecimal total) {
+            if (total == null) return RangeColumn.MISSING;
+            try {
+                long units = total.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).movePointRight(AMOUNT_SCALE).longValueExact();
+                if (units == RangeColumn.MISSING) throw new ArithmeticException("reserved value");
+                return units;
+            } catch (ArithmeticException e) {
+                throw new StoreException("Total out of the indexable range: " + total, e);
+            }
+        }
+    }
+
+    private static final class Dictionary {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> terms = new ArrayList<>();
+
+        Dictionary(String[] initial) {
+            for (String term : initial) id(term);
+        }
+
+        int id(String term) {
+            if (term == null) return TermColumn.MISSING;
+            return ids.computeIfAbsent(term, t -> {
+                terms.add(t);
+                return terms.size() - 1;
+            });
+        }
+
+        String[] terms() {
+            return terms.toArray(new String[0]);
+        }
+    }
+}
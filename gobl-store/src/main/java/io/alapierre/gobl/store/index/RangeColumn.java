@@ -0,0 +1,76 @@
+package io.alapierre.gobl.store.index;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Numeric column with a sorted permutation for range scans.
+ * <p>
+ * {@code values[ordinal]} is the value of a document or {@link #MISSING}; {@code order} lists the ordinals by
+ * ascending value (ties by ordinal) and {@code sorted[i] == values[order[i]]}, so a range is a binary search in
+ * {@code sorted} and a slice of {@code order}.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+final class RangeColumn {
+
+    static final long MISSING = Long.MIN_VALUE;
+
+    final long[] values;
+    final int[] order;
+    private final long[] sorted;
+
+    RangeColumn(long[] values, int[] order) {
+        this.values = values;
+        this.order = order;
+        this.sorted = new long[order.length];
+        for (int i = 0; i < order.length; i++) sorted[i] = values[order[i]];
+    }
+
+    /**
+     * Sorts the column in parallel: every value is replaced by its rank among the sorted values, so rank and
+     * ordinal fit into one {@code long} and the permutation is a plain primitive sort.
+     */
+    static RangeColumn of(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.parallelSort(sorted);
+
+        long[] packed = new long[values.length];
+        IntStream.range(0, values.length).parallel()
+                .forEach(i -> packed[i] = ((long) Arrays.binarySearch(sorted, values[i]) << 32) | i);
+        Arrays.parallelSort(packed);
+
+        int[] order = new int[values.length];
+        for (int i = 0; i < order.length; i++) order[i] = (int) packed[i];
+        return new RangeColumn(values, order);
+    }
+
+    /**
+     * @return position in {@code order} of the first document with a value not less than {@code min}
+     */
+    int from(long min) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < min) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return position in {@code order} after the last document with a value not greater than {@code max}
+     */
+    int to(long max) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= max) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,53 @@
+package io.alapierre.gobl.store.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary-encoded column of a string field with a posting list per distinct value.
+ * <p>
+ * {@code values[ordinal]} is the term id of a document or {@code -1} if the document has no value;
+ * {@code postings[id]} holds the ordinals of all documents with term {@code id} in ascending order.
+ *
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+final class TermColumn {
+
+    static final int MISSING = -1;
+
+    final String[] terms;
+    final int[] values;
+    private final Map<String, Integer> ids;
+    private final int[][] postings;
+
+    TermColumn(String[] terms, int[] values) {
+        this.terms = terms;
+        this.values = values;
+        this.ids = new HashMap<>(terms.length * 2);
+        for (int id = 0; id < terms.length; id++) ids.put(terms[id], id);
+
+        int[] counts = new int[terms.length];
+        for (int value : values) if (value != MISSING) counts[value]++;
+        postings = new int[terms.length][];
+        for (int id = 0; id < terms.length; id++) postings[id] = new int[counts[id]];
+
+        int[] filled = new int[terms.length];
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            int id = values[ordinal];
+            if (id != MISSING) postings[id][filled[id]++] = ordinal;
+        }
+    }
+
+    /**
+     * @return term id or {@link #MISSING} if no document has the term
+     */
+    int id(String term) {
+        Integer id = ids.get(term);
+        return id == null ? MISSING : id;
+    }
+
+    int[] postings(int id) {
+        return postings[id];
+    }
+}
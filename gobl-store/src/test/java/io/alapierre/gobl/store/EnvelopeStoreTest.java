@@ -0,0 +1,202 @@
+package io.alapierre.gobl.store;
+
+import io.alapierre.gobl.store.exceptions.StoreException;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class EnvelopeStoreTest {
+
+    private static final String SAMPLE_UUID = "c5aa890a-f107-47c9-8ac2-2510476a28b8";
+    private static final String SAMPLE_DIGEST = "b6cd1dab63d786cbc6694e4314c587a2660dd3fed1d8934600fc7c5067b8f893";
+
+    private static String template;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void loadTemplate() throws Exception {
+        template = Files.readString(Path.of("src/test/resources/invoice-signed.json"));
+    }
+
+    @Test
+    void appendAndFind() throws Exception {
+
+        val envelope = envelope(UUID.randomUUID());
+
+        try (val store = EnvelopeStore.open(dir)) {
+            store.append(envelope.json());
+
+            assertEquals(envelope.json(), new String(store.get(envelope.uuid()).orElseThrow(), StandardCharsets.UTF_8));
+            assertEquals(envelope.json(), new String(store.getByDigest(envelope.digest()).orElseThrow(), StandardCharsets.UTF_8));
+            assertTrue(store.contains(envelope.uuid()));
+            assertTrue(store.get(UUID.randomUUID()).isEmpty());
+            assertEquals(1, store.count());
+        }
+    }
+
+    @Test
+    void findAfterReopenAndSegmentRoll() throws Exception {
+
+        List<Envelope> envelopes = new ArrayList<>();
+        val config = StoreConfig.defaults().withSegmentSize(16 * 1024);
+
+        try (val store = EnvelopeStore.open(dir, config)) {
+            for (int i = 0; i < 50; i++) {
+                val envelope = envelope(UUID.randomUUID());
+                envelopes.add(envelope);
+                store.append(envelope.json());
+            }
+        }
+
+        assertTrue(Files.exists(dir.resolve("segment-00000001.idx")));
+
+        try (val store = EnvelopeStore.open(dir, config)) {
+            assertEquals(envelopes.size(), store.count());
+            for (val envelope : envelopes) {
+                assertEquals(envelope.json(), new String(store.get(envelope.uuid()).orElseThrow(), StandardCharsets.UTF_8));
+                assertEquals(envelope.json(), new String(store.getByDigest(envelope.digest()).orElseThrow(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void recoverTornTail() throws Exception {
+
+        val first = envelope(UUID.randomUUID());
+        val second = envelope(UUID.randomUUID());
+
+        try (val store = EnvelopeStore.open(dir)) {
+            store.append(first.json());
+            store.append(second.json());
+        }
+
+        Path segment = dir.resolve("segment-00000001.log");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        val third = envelope(UUID.randomUUID());
+        try (val store = EnvelopeStore.open(dir)) {
+            assertTrue(store.get(first.uuid()).isPresent());
+            assertTrue(store.get(second.uuid()).isEmpty());
+
+            store.append(third.json());
+        }
+
+        try (val store = EnvelopeStore.open(dir)) {
+            assertEquals(2, store.count());
+            assertTrue(store.get(third.uuid()).isPresent());
+        }
+    }
+
+    @Test
+    void rebuildMissingIndex() throws Exception {
+
+        val config = StoreConfig.defaults().withSegmentSize(4 * 1024);
+        val envelope = envelope(UUID.randomUUID());
+
+        try (val store = EnvelopeStore.open(dir, config)) {
+            store.append(envelope.json());
+            store.append(envelope(UUID.randomUUID()).json());
+        }
+
+        Files.delete(dir.resolve("segment-00000001.idx"));
+
+        try (val store = EnvelopeStore.open(dir, config)) {
+            assertTrue(store.get(envelope.uuid()).isPresent());
+            assertTrue(Files.exists(dir.resolve("segment-00000001.idx")));
+        }
+    }
+
+    @Test
+    void rejectDuplicateUuid() throws Exception {
+
+        val envelope = envelope(UUID.randomUUID());
+
+        try (val store = EnvelopeStore.open(dir)) {
+            store.append(envelope.json());
+            assertThrows(StoreException.class, () -> store.append(envelope.json()));
+        }
+    }
+
+    @Test
+    void rejectEnvelopeWithoutHead() throws Exception {
+        try (val store = EnvelopeStore.open(dir)) {
+            assertThrows(StoreException.class, () -> store.append("{\"doc\":{}}"));
+        }
+    }
+
+    @Test
+    void rejectEnvelopeWithMalformedHead() throws Exception {
+        try (val store = EnvelopeStore.open(dir)) {
+            assertThrows(StoreException.class, () -> store.append("{\"head\":{\"uuid\":\"not-a-uuid\",\"dig\":{\"val\":\"00\"}}}"));
+            assertThrows(StoreException.class, () -> store.append("{\"head\":{\"uuid\":null,\"dig\":{\"val\":\"00\"}}}"));
+            assertThrows(StoreException.class, () -> store.append("{\"head\":\"x\",\"uuid\":\""
+                    + UUID.randomUUID() + "\",\"dig\":{\"val\":\"00\"}}"));
+        }
+    }
+
+    @Test
+    void concurrentGroupCommit() throws Exception {
+
+        int threads = 8;
+        int perThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<Envelope>>> futures = new ArrayList<>();
+
+        try (val store = EnvelopeStore.open(dir, StoreConfig.defaults().withSegmentSize(64 * 1024))) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Envelope> written = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        val envelope = envelope(UUID.randomUUID());
+                        store.append(envelope.json());
+                        written.add(envelope);
+                    }
+                    return written;
+                }));
+            }
+
+            for (val future : futures) {
+                for (val envelope : future.get()) {
+                    assertTrue(store.get(envelope.uuid()).isPresent());
+                }
+            }
+            assertEquals(threads * perThread, store.count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Envelope envelope(UUID uuid) throws Exception {
+        val digest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(uuid.toString().getBytes(StandardCharsets.UTF_8)));
+        val json = template.replace(SAMPLE_UUID, uuid.toString()).replace(SAMPLE_DIGEST, digest);
+        return new Envelope(uuid, digest, json);
+    }
+
+    private record Envelope(UUID uuid, String digest, String json) {
+    }
+}
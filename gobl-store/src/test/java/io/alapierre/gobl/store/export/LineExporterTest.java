@@ -0,0 +1,137 @@
+package io.alapierre.gobl.store.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.alapierre.gobl.store.exceptions.StoreException;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class LineExporterTest {
+
+    static final ObjectMapper mapper = new ObjectMapper();
+    static ObjectNode envelope;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void loadTemplate() throws Exception {
+        envelope = (ObjectNode) mapper.readTree(Files.readString(Path.of("src/test/resources/invoice-signed.json")));
+    }
+
+    @Test
+    void exportsEveryLineOfEnvelopesAndInvoices() throws Exception {
+        int documents = 400;
+        BigDecimal expectedSum = BigDecimal.ZERO;
+        long expectedLines = 0;
+
+        LineExporter.Summary summary;
+        try (val exporter = LineExporter.open(dir, 3, 64)) {
+            for (int i = 0; i < documents; i++) {
+                int lines = 1 + i % 5;
+                ObjectNode json = document(i, lines);
+                expectedLines += lines;
+                expectedSum = expectedSum.add(new BigDecimal("100.00").multiply(BigDecimal.valueOf(lines)));
+                // every other document is a bare invoice instead of an envelope
+                exporter.accept(mapper.writeValueAsBytes(i % 2 == 0 ? json : json.get("doc")));
+            }
+            summary = exporter.finish();
+        }
+
+        assertEquals(documents, summary.documents());
+        assertEquals(expectedLines, summary.lines());
+        assertEquals(3, summary.files().size());
+
+        List<LineChunk> chunks = new ArrayList<>();
+        for (Path file : summary.files()) LineExporter.read(file, chunks::add);
+
+        long lines = 0;
+        BigDecimal sum = BigDecimal.ZERO;
+        Set<String> invoices = new HashSet<>();
+        Map<String, Integer> linesPerInvoice = new HashMap<>();
+        for (LineChunk chunk : chunks) {
+            lines += chunk.size();
+            for (int row = 0; row < chunk.size(); row++) {
+                sum = sum.add(chunk.sum(row));
+                invoices.add(chunk.invoiceCode(row));
+                linesPerInvoice.merge(chunk.invoiceCode(row), 1, Integer::sum);
+                assertEquals("PL6891152920", chunk.supplierTaxId(row));
+                assertEquals(LocalDate.of(2024, 1, 15), chunk.issueDate(row));
+                assertEquals("item-" + chunk.line(row), chunk.itemName(row));
+                assertEquals(0, new BigDecimal("23").compareTo(chunk.taxPercent(row)));
+                assertEquals("VAT", chunk.taxCategory(row));
+                assertEquals(0, BigDecimal.ONE.compareTo(chunk.quantity(row)));
+                assertEquals(0, new BigDecimal("100").compareTo(chunk.price(row)));
+            }
+        }
+        assertEquals(expectedLines, lines);
+        assertEquals(0, expectedSum.compareTo(sum));
+        assertEquals(documents, invoices.size());
+        assertEquals(5, linesPerInvoice.get("INV/4"));
+        assertTrue(chunks.size() > 3, "lines were not written in chunks");
+    }
+
+    @Test
+    void malformedDocumentFailsTheExport() throws Exception {
+        val exporter = LineExporter.open(dir, 2, 16);
+        exporter.accept(mapper.writeValueAsBytes(document(1, 2)));
+        exporter.accept("{\"lines\": [{\"sum\": \"12,5\"}]}".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(StoreException.class, () -> {
+            for (int i = 0; i < 1_000; i++) exporter.accept(mapper.writeValueAsBytes(document(i, 1)));
+            exporter.finish();
+        });
+    }
+
+    @Test
+    void incompleteFileIsRejected() throws Exception {
+        LineExporter.Summary summary;
+        try (val exporter = LineExporter.open(dir, 1, 8)) {
+            for (int i = 0; i < 20; i++) exporter.accept(mapper.writeValueAsBytes(document(i, 3)));
+            summary = exporter.finish();
+        }
+        Path file = summary.files().get(0);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertThrows(StoreException.class, () -> LineExporter.read(file, chunk -> {}));
+    }
+
+    private static ObjectNode document(int number, int lines) {
+        ObjectNode json = envelope.deepCopy();
+        ObjectNode doc = (ObjectNode) json.get("doc");
+        doc.put("code", "INV/" + number);
+        ArrayNode array = (ArrayNode) doc.get("lines");
+        ObjectNode template = (ObjectNode) array.get(0);
+        array.removeAll();
+        for (int i = 1; i <= lines; i++) {
+            ObjectNode line = template.deepCopy();
+            line.put("i", i);
+            ((ObjectNode) line.get("item")).put("name", "item-" + i);
+            array.add(line);
+        }
+        return json;
+    }
+}
@@ -0,0 +1,174 @@
+package io.alapierre.gobl.store.index;
+
+import io.alapierre.gobl.store.exceptions.StoreException;
+import lombok.val;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Adrian Lapierre {@literal al@alapierre.io}
+ * Copyrights by original author 2026.10.18
+ */
+class InvoiceIndexTest {
+
+    static final String[] CURRENCIES = {"PLN", "EUR", "USD"};
+    static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    static String template;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void loadTemplate() throws Exception {
+        template = Files.readString(Path.of("src/test/resources/invoice-signed.json"));
+    }
+
+    @Test
+    void readsFieldsFromEnvelope() {
+        val fields = IndexedFields.read(template.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(UUID.fromString("c5aa890a-f107-47c9-8ac2-2510476a28b8"), fields.uuid());
+        assertEquals("PL6891152920", fields.supplierTaxId());
+        assertEquals("PL2222222222", fields.customerTaxId());
+        assertEquals(LocalDate.of(2024, 1, 15), fields.issueDate());
+        assertEquals("PLN", fields.currency());
+        assertEquals(new BigDecimal("123.00"), fields.total());
+    }
+
+    @Test
+    void malformedHeadIsAStoreException() {
+        for (String envelope : List.of("{\"head\":{\"uuid\":\"not-a-uuid\"}}", "{\"head\":{\"uuid\":null}}",
+                "{\"head\":{\"uuid\":{}}}", "{\"head\":\"x\",\"uuid\":\"" + UUID.randomUUID() + "\"}")) {
+            assertThrows(StoreException.class, () -> IndexedFields.read(envelope.getBytes(StandardCharsets.UTF_8)), envelope);
+        }
+    }
+
+    @Test
+    void queriesMatchAFullScan() {
+        val envelopes = envelopes(3_000, 7);
+        val fields = envelopes.stream().map(IndexedFields::read).toList();
+        val index = InvoiceIndex.build(envelopes);
+        assertEquals(envelopes.size(), index.size());
+
+        assertMatches(index, fields, index.query().supplierTaxId("PL0000000003"), f -> "PL0000000003".equals(f.supplierTaxId()));
+        assertMatches(index, fields, index.query().customerTaxId("PL1000000042").currency("EUR"),
+                f -> "PL1000000042".equals(f.customerTaxId()) && "EUR".equals(f.currency()));
+        assertMatches(index, fields, index.query().issuedBetween(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)),
+                f -> !f.issueDate().isBefore(LocalDate.of(2024, 3, 1)) && !f.issueDate().isAfter(LocalDate.of(2024, 3, 31)));
+        assertMatches(index, fields, index.query().totalBetween(new BigDecimal("100"), new BigDecimal("250.50")).currency("PLN"),
+                f -> f.total().compareTo(new BigDecimal("100")) >= 0 && f.total().compareTo(new BigDecimal("250.50")) <= 0
+                        && "PLN".equals(f.currency()));
+        assertMatches(index, fields, index.query().supplierTaxId("PL0000000001").issuedBetween(null, LocalDate.of(2024, 2, 1))
+                        .totalBetween(new BigDecimal("500"), null),
+                f -> "PL0000000001".equals(f.supplierTaxId()) && !f.issueDate().isAfter(LocalDate.of(2024, 2, 1))
+                        && f.total().compareTo(new BigDecimal("500")) >= 0);
+
+        assertEquals(0, index.query().supplierTaxId("DE123").count());
+        assertEquals(0, index.query().issuedBetween(LocalDate.of(2030, 1, 1), LocalDate.of(2029, 1, 1)).count());
+        assertEquals(index.size(), index.query().count());
+    }
+
+    @Test
+    void documentsWithoutAFieldNeverMatchIt() {
+        String noCustomer = template.replace("\"customer\"", "\"ordering\"").replace("\"total_with_tax\"", "\"other\"");
+        val index = InvoiceIndex.build(List.of(noCustomer.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(0, index.query().customerTaxId("PL2222222222").count());
+        assertEquals(0, index.query().totalBetween(null, null).count());
+        assertEquals(1, index.query().supplierTaxId("PL6891152920").count());
+    }
+
+    @Test
+    void savedIndexLoadsWithTheSameResults() throws Exception {
+        val index = InvoiceIndex.build(envelopes(1_000, 11));
+        Path file = dir.resolve("invoices.idx");
+        index.save(file);
+
+        val loaded = InvoiceIndex.load(file);
+        assertEquals(index.size(), loaded.size());
+        assertEquals(index.uuid(17), loaded.uuid(17));
+        assertArrayEquals(index.query().currency("USD").issuedBetween(LocalDate.of(2024, 2, 1), null).ordinals(),
+                loaded.query().currency("USD").issuedBetween(LocalDate.of(2024, 2, 1), null).ordinals());
+        assertArrayEquals(index.query().totalBetween(new BigDecimal("10"), new BigDecimal("99.99")).ordinals(),
+                loaded.query().totalBetween(new BigDecimal("10"), new BigDecimal("99.99")).ordinals());
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(StoreException.class, () -> InvoiceIndex.load(file));
+    }
+
+    @Test
+    void builderAcceptsConcurrentAdds() throws Exception {
+        val envelopes = envelopes(2_000, 3);
+        val builder = InvoiceIndex.builder();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int first = t * 500;
+                futures.add(executor.submit(() -> {
+                    for (int i = first; i < first + 500; i++) builder.add(envelopes.get(i));
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        val index = builder.build();
+        assertEquals(2_000, index.size());
+        assertEquals(InvoiceIndex.build(envelopes).query().currency("EUR").count(), index.query().currency("EUR").count());
+
+        val extended = index.toBuilder();
+        int ordinal = extended.add(template.getBytes(StandardCharsets.UTF_8));
+        assertEquals(2_000, ordinal);
+        assertArrayEquals(new int[]{2_000}, extended.build().query().supplierTaxId("PL6891152920").ordinals());
+        assertEquals(0, index.query().supplierTaxId("PL6891152920").count());
+    }
+
+    private static void assertMatches(InvoiceIndex index, List<IndexedFields> fields, InvoiceIndex.Query query,
+                                      Predicate<IndexedFields> predicate) {
+        int[] expected = IntStream.range(0, fields.size()).filter(i -> predicate.test(fields.get(i))).toArray();
+        assertTrue(expected.length > 0, "query matches nothing");
+        assertArrayEquals(expected, query.ordinals());
+        assertEquals(fields.get(expected[0]).uuid(), query.uuids().get(0));
+    }
+
+    private static List<byte[]> envelopes(int count, long seed) {
+        Random random = new Random(seed);
+        List<byte[]> envelopes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String total = BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString();
+            envelopes.add(template
+                    .replace("c5aa890a-f107-47c9-8ac2-2510476a28b8", UUID.randomUUID().toString())
+                    .replace("6891152920", String.format("%010d", random.nextInt(20)))
+                    .replace("2222222222", String.format("1%09d", random.nextInt(100)))
+                    .replace("2024-01-15", FIRST_DAY.plusDays(random.nextInt(120)).toString())
+                    .replace("\"PLN\"", "\"" + CURRENCIES[random.nextInt(CURRENCIES.length)] + "\"")
+                    .replace("\"total_with_tax\" : \"123.00\"", "\"total_with_tax\" : \"" + total + "\"")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return envelopes;
+    }
+}